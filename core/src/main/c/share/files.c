@@ -239,6 +239,43 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync(JNIEnv *e, jclass cl, jlo
     return fsync((int) fd);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    int posixAdvice;
+    switch (advice) {
+        case com_questdb_std_Files_POSIX_MADV_RANDOM:
+            posixAdvice = POSIX_MADV_RANDOM;
+            break;
+        case com_questdb_std_Files_POSIX_MADV_SEQUENTIAL:
+            posixAdvice = POSIX_MADV_SEQUENTIAL;
+            break;
+        case com_questdb_std_Files_POSIX_MADV_WILLNEED:
+            posixAdvice = POSIX_MADV_WILLNEED;
+            break;
+        case com_questdb_std_Files_MADV_HUGEPAGE:
+#ifdef MADV_HUGEPAGE
+            // transparent huge pages, Linux only, there is no posix_madvise() counterpart
+            if (madvise((void *) address, (size_t) len, MADV_HUGEPAGE) != 0) {
+                return -1;
+            }
+            return 0;
+#else
+            errno = ENOTSUP;
+            return -1;
+#endif
+        default:
+            posixAdvice = POSIX_MADV_NORMAL;
+            break;
+    }
+    // posix_madvise() returns error number rather than setting errno
+    const int res = posix_madvise((void *) address, (size_t) len, posixAdvice);
+    if (res != 0) {
+        errno = res;
+        return -1;
+    }
+    return 0;
+}
+
 JNIEXPORT jboolean JNICALL Java_io_questdb_std_Files_remove
         (JNIEnv *e, jclass cl, jlong lpsz) {
     return (jboolean) (remove((const char *) lpsz) == 0);
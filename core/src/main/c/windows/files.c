@@ -158,6 +158,12 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_msync(JNIEnv *e, jclass cl, jlo
     return 0;
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // access pattern hints are not available, mapped views rely on the default read-ahead
+    return 0;
+}
+
 JNIEXPORT jint JNICALL Java_io_questdb_std_Files_fsync(JNIEnv *e, jclass cl, jlong fd) {
     // Windows does not seem to have fsync or cannot fsync directory.
     // To be fair we never saw our destructive test fail on windows,
@@ -108,4 +108,16 @@ public interface MessageBus extends Closeable {
     RingQueue<LatestByTask> getLatestByQueue();
 
     Sequence getLatestBySubSeq();
+
+    Sequence getPageFrameFilterPubSeq();
+
+    RingQueue<PageFrameFilterTask> getPageFrameFilterQueue();
+
+    Sequence getPageFrameFilterSubSeq();
+
+    Sequence getPageFrameGroupByPubSeq();
+
+    RingQueue<PageFrameGroupByTask> getPageFrameGroupByQueue();
+
+    Sequence getPageFrameGroupBySubSeq();
 }
@@ -74,6 +74,14 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence latestByPubSeq;
     private final MCSequence latestBySubSeq;
 
+    private final RingQueue<PageFrameFilterTask> pageFrameFilterQueue;
+    private final MPSequence pageFrameFilterPubSeq;
+    private final MCSequence pageFrameFilterSubSeq;
+
+    private final RingQueue<PageFrameGroupByTask> pageFrameGroupByQueue;
+    private final MPSequence pageFrameGroupByPubSeq;
+    private final MCSequence pageFrameGroupBySubSeq;
+
     private final CairoConfiguration configuration;
 
     public MessageBusImpl(@NotNull CairoConfiguration configuration) {
@@ -127,6 +135,16 @@ public class MessageBusImpl implements MessageBus {
         this.latestByPubSeq = new MPSequence(latestByQueue.getCapacity());
         this.latestBySubSeq = new MCSequence(latestByQueue.getCapacity());
         latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
+
+        this.pageFrameFilterQueue = new RingQueue<>(PageFrameFilterTask::new, configuration.getPageFrameFilterQueueCapacity());
+        this.pageFrameFilterPubSeq = new MPSequence(pageFrameFilterQueue.getCapacity());
+        this.pageFrameFilterSubSeq = new MCSequence(pageFrameFilterQueue.getCapacity());
+        pageFrameFilterPubSeq.then(pageFrameFilterSubSeq).then(pageFrameFilterPubSeq);
+
+        this.pageFrameGroupByQueue = new RingQueue<>(PageFrameGroupByTask::new, configuration.getPageFrameGroupByQueueCapacity());
+        this.pageFrameGroupByPubSeq = new MPSequence(pageFrameGroupByQueue.getCapacity());
+        this.pageFrameGroupBySubSeq = new MCSequence(pageFrameGroupByQueue.getCapacity());
+        pageFrameGroupByPubSeq.then(pageFrameGroupBySubSeq).then(pageFrameGroupByPubSeq);
     }
 
     @Override
@@ -283,4 +301,34 @@ public class MessageBusImpl implements MessageBus {
     public Sequence getLatestBySubSeq() {
         return latestBySubSeq;
     }
+
+    @Override
+    public Sequence getPageFrameFilterPubSeq() {
+        return pageFrameFilterPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+        return pageFrameFilterQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameFilterSubSeq() {
+        return pageFrameFilterSubSeq;
+    }
+
+    @Override
+    public Sequence getPageFrameGroupByPubSeq() {
+        return pageFrameGroupByPubSeq;
+    }
+
+    @Override
+    public RingQueue<PageFrameGroupByTask> getPageFrameGroupByQueue() {
+        return pageFrameGroupByQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameGroupBySubSeq() {
+        return pageFrameGroupBySubSeq;
+    }
 }
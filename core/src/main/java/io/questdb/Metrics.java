@@ -24,6 +24,7 @@
 
 package io.questdb;
 
+import io.questdb.cairo.TableWriterMetrics;
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
 import io.questdb.metrics.MetricsRegistry;
 import io.questdb.metrics.MetricsRegistryImpl;
@@ -34,11 +35,13 @@ import io.questdb.std.str.CharSink;
 public class Metrics implements Scrapable {
     private final boolean enabled;
     private final JsonQueryMetrics jsonQuery;
+    private final TableWriterMetrics tableWriter;
     private final MetricsRegistry metricsRegistry;
 
     Metrics(boolean enabled, MetricsRegistry metricsRegistry) {
         this.enabled = enabled;
         this.jsonQuery = new JsonQueryMetrics(metricsRegistry);
+        this.tableWriter = new TableWriterMetrics(metricsRegistry);
         this.metricsRegistry = metricsRegistry;
     }
 
@@ -58,6 +61,10 @@ public class Metrics implements Scrapable {
         return jsonQuery;
     }
 
+    public TableWriterMetrics tableWriter() {
+        return tableWriter;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         metricsRegistry.scrapeIntoPrometheus(sink);
@@ -81,6 +81,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean defaultSymbolCacheFlag;
     private final int defaultSymbolCapacity;
     private final int fileOperationRetryCount;
+    private final int[] hugePageMemoryTags;
     private final long idleCheckInterval;
     private final long inactiveReaderTTL;
     private final long inactiveWriterTTL;
@@ -89,6 +90,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int mkdirMode;
     private final int parallelIndexThreshold;
     private final int readerPoolMaxSegments;
+    private final boolean readerColumnMappingShared;
+    private final boolean readerMadviseEnabled;
+    private final boolean readerPrefetchEnabled;
     private final long spinLockTimeoutUs;
     private final int sqlCacheRows;
     private final int sqlCacheBlocks;
@@ -105,6 +109,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlMapPageSize;
     private final int sqlMapMaxPages;
     private final int sqlMapMaxResizes;
+    private final long sqlQueryMemoryLimit;
+    private final long sqlGlobalQueryMemoryLimit;
     private final int sqlModelPoolCapacity;
     private final long sqlSortKeyPageSize;
     private final int sqlSortKeyMaxPages;
@@ -117,6 +123,27 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlHashJoinLightValueMaxPages;
     private final int sqlSortValuePageSize;
     private final int sqlSortValueMaxPages;
+    private final long sqlSortSpillThreshold;
+    private final long sqlHashJoinSpillThreshold;
+    private final int sqlHashJoinSpillPartitions;
+    private final boolean sqlHashJoinBloomFilterEnabled;
+    private final int sqlHashJoinBloomFilterMaxKeys;
+    private final long walSegmentRolloverRowCount;
+    private final long walApplyBatchRowCount;
+    private final boolean walEnabled;
+    private final boolean zoneMapEnabled;
+    private final long zoneMapBlockRowCount;
+    private final long partitionCompressionAge;
+    private final long partitionCompressionBlockSize;
+    private final long partitionCompressionCacheSize;
+    private final String coldRoot;
+    private final long partitionColdAge;
+    private final long o3PartitionSplitMinSize;
+    private final long o3PartitionSquashLag;
+    private final double o3AdaptiveCommitLagTargetRate;
+    private final long o3AdaptiveCommitLagMin;
+    private final long o3AdaptiveCommitLagMax;
+    private final long o3AdaptiveCommitLagWindow;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
     private final int sqlJoinMetadataPageSize;
@@ -350,6 +377,14 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int httpMinRcvBufSize;
     private int httpMinSndBufSize;
     private final int latestByQueueCapacity;
+    private final int pageFrameFilterQueueCapacity;
+    private final int pageFrameGroupByQueueCapacity;
+    private final int sqlPageFrameMaxRows;
+    private final int sqlPageFrameFilterBufferCount;
+    private final boolean sqlParallelFilterEnabled;
+    private final boolean sqlJitFilterEnabled;
+    private final boolean sqlParallelGroupByEnabled;
+    private final int sqlTopKMaxRows;
     private final int sampleByIndexSearchPageSize;
     private final int binaryEncodingMaxLength;
     private final long writerDataIndexKeyAppendPageSize;
@@ -569,6 +604,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.defaultSymbolCacheFlag = getBoolean(properties, env, "cairo.default.symbol.cache.flag", true);
             this.defaultSymbolCapacity = getInt(properties, env, "cairo.default.symbol.capacity", 256);
             this.fileOperationRetryCount = getInt(properties, env, "cairo.file.operation.retry.count", 30);
+            this.hugePageMemoryTags = getMemoryTags(properties, env, "cairo.huge.pages.memory.tags");
             this.idleCheckInterval = getLong(properties, env, "cairo.idle.check.interval", 5 * 60 * 1000L);
             this.inactiveReaderTTL = getLong(properties, env, "cairo.inactive.reader.ttl", 120_000);
             this.inactiveWriterTTL = getLong(properties, env, "cairo.inactive.writer.ttl", 600_000);
@@ -576,6 +612,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.maxSwapFileCount = getInt(properties, env, "cairo.max.swap.file.count", 30);
             this.parallelIndexThreshold = getInt(properties, env, "cairo.parallel.index.threshold", 100000);
             this.readerPoolMaxSegments = getInt(properties, env, "cairo.reader.pool.max.segments", 5);
+            this.readerColumnMappingShared = getBoolean(properties, env, "cairo.reader.column.mapping.shared", true);
+            this.readerMadviseEnabled = getBoolean(properties, env, "cairo.reader.madvise.enabled", true);
+            this.readerPrefetchEnabled = getBoolean(properties, env, "cairo.reader.prefetch.enabled", false);
             this.spinLockTimeoutUs = getLong(properties, env, "cairo.spin.lock.timeout", 1_000_000);
             this.sqlCacheRows = getInt(properties, env, "cairo.cache.rows", 16);
             this.sqlCacheBlocks = getIntSize(properties, env, "cairo.cache.blocks", 4);
@@ -591,6 +630,8 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlMapPageSize = getIntSize(properties, env, "cairo.sql.map.page.size", 4 * 1024 * 1024);
             this.sqlMapMaxPages = getIntSize(properties, env, "cairo.sql.map.max.pages", Integer.MAX_VALUE);
             this.sqlMapMaxResizes = getIntSize(properties, env, "cairo.sql.map.max.resizes", Integer.MAX_VALUE);
+            this.sqlQueryMemoryLimit = getLongSize(properties, env, "cairo.sql.query.memory.limit", Long.MAX_VALUE);
+            this.sqlGlobalQueryMemoryLimit = getLongSize(properties, env, "cairo.sql.global.query.memory.limit", Long.MAX_VALUE);
             this.sqlModelPoolCapacity = getInt(properties, env, "cairo.model.pool.capacity", 1024);
             this.sqlSortKeyPageSize = getLongSize(properties, env, "cairo.sql.sort.key.page.size", 4 * 1024 * 1024);
             this.sqlSortKeyMaxPages = getIntSize(properties, env, "cairo.sql.sort.key.max.pages", Integer.MAX_VALUE);
@@ -603,6 +644,27 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlHashJoinLightValueMaxPages = getIntSize(properties, env, "cairo.sql.hash.join.light.value.max.pages", Integer.MAX_VALUE);
             this.sqlSortValuePageSize = getIntSize(properties, env, "cairo.sql.sort.value.page.size", 16777216);
             this.sqlSortValueMaxPages = getIntSize(properties, env, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
+            this.sqlSortSpillThreshold = getLongSize(properties, env, "cairo.sql.sort.spill.threshold", 1024 * 1024 * 1024);
+            this.sqlHashJoinSpillThreshold = getLongSize(properties, env, "cairo.sql.hash.join.spill.threshold", 1024 * 1024 * 1024);
+            this.sqlHashJoinSpillPartitions = Numbers.ceilPow2(getInt(properties, env, "cairo.sql.hash.join.spill.partitions", 32));
+            this.sqlHashJoinBloomFilterEnabled = getBoolean(properties, env, "cairo.sql.hash.join.bloom.filter.enabled", true);
+            this.sqlHashJoinBloomFilterMaxKeys = getInt(properties, env, "cairo.sql.hash.join.bloom.filter.max.keys", 1_000_000);
+            this.walSegmentRolloverRowCount = getLong(properties, env, "cairo.wal.segment.rollover.row.count", 200_000);
+            this.walApplyBatchRowCount = getLong(properties, env, "cairo.wal.apply.batch.row.count", 1_000_000);
+            this.walEnabled = getBoolean(properties, env, "cairo.wal.enabled", false);
+            this.zoneMapEnabled = getBoolean(properties, env, "cairo.zone.map.enabled", true);
+            this.zoneMapBlockRowCount = getLong(properties, env, "cairo.zone.map.block.row.count", 65536);
+            this.partitionCompressionAge = getLong(properties, env, "cairo.partition.compression.age", 0) * 1_000;
+            this.partitionCompressionBlockSize = getIntSize(properties, env, "cairo.partition.compression.block.size", 1024 * 1024);
+            this.partitionCompressionCacheSize = getLongSize(properties, env, "cairo.partition.compression.cache.size", 64 * 1024 * 1024);
+            this.coldRoot = getString(properties, env, "cairo.cold.root", null);
+            this.partitionColdAge = getLong(properties, env, "cairo.partition.cold.age", 0) * 1_000;
+            this.o3PartitionSplitMinSize = getLong(properties, env, "cairo.o3.partition.split.min.size", 100_000);
+            this.o3PartitionSquashLag = getLong(properties, env, "cairo.o3.partition.squash.lag", 3_600_000) * 1_000;
+            this.o3AdaptiveCommitLagTargetRate = getDouble(properties, env, "cairo.o3.adaptive.commit.lag.target.rate", 0);
+            this.o3AdaptiveCommitLagMin = getLong(properties, env, "cairo.o3.adaptive.commit.lag.min", 0) * 1_000;
+            this.o3AdaptiveCommitLagMax = getLong(properties, env, "cairo.o3.adaptive.commit.lag.max", 600_000) * 1_000;
+            this.o3AdaptiveCommitLagWindow = getLong(properties, env, "cairo.o3.adaptive.commit.lag.window", 1_000_000);
             this.workStealTimeoutNanos = getLong(properties, env, "cairo.work.steal.timeout.nanos", 10_000);
             this.parallelIndexingEnabled = getBoolean(properties, env, "cairo.parallel.indexing.enabled", true);
             this.sqlJoinMetadataPageSize = getIntSize(properties, env, "cairo.sql.join.metadata.page.size", 16384);
@@ -675,6 +737,14 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlAnalyticTreeKeyMaxPages = Numbers.ceilPow2(getInt(properties, env, "cairo.sql.analytic.tree.max.pages", Integer.MAX_VALUE));
             this.sqlTxnScoreboardEntryCount = Numbers.ceilPow2(getInt(properties, env, "cairo.o3.txn.scoreboard.entry.count", 16384));
             this.latestByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.latestby.queue.capacity", 32));
+            this.pageFrameFilterQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.filter.queue.capacity", 64));
+            this.pageFrameGroupByQueueCapacity = Numbers.ceilPow2(getInt(properties, env, "cairo.page.frame.group.by.queue.capacity", 64));
+            this.sqlPageFrameMaxRows = getInt(properties, env, "cairo.sql.page.frame.max.rows", 1_000_000);
+            this.sqlPageFrameFilterBufferCount = getInt(properties, env, "cairo.sql.page.frame.filter.buffer.count", 16);
+            this.sqlParallelFilterEnabled = getBoolean(properties, env, "cairo.sql.parallel.filter.enabled", true);
+            this.sqlJitFilterEnabled = getBoolean(properties, env, "cairo.sql.jit.filter.enabled", true);
+            this.sqlParallelGroupByEnabled = getBoolean(properties, env, "cairo.sql.parallel.group.by.enabled", true);
+            this.sqlTopKMaxRows = getInt(properties, env, "cairo.sql.top.k.max.rows", 10_000);
             this.telemetryEnabled = getBoolean(properties, env, "telemetry.enabled", true);
             this.telemetryDisableCompletely = getBoolean(properties, env, "telemetry.disable.completely", false);
             this.telemetryQueueCapacity = getInt(properties, env, "telemetry.queue.capacity", 512);
@@ -957,6 +1027,30 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private int[] getMemoryTags(Properties properties, @Nullable Map<String, String> env, String key) throws ServerConfigurationException {
+        final String value = overrideWithEnv(properties, env, key);
+        if (value == null || value.trim().isEmpty()) {
+            return new int[0];
+        }
+        final String[] names = value.split(",");
+        final int[] result = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            final String name = names[i].trim();
+            int tag = -1;
+            for (int t = 0; t < MemoryTag.SIZE; t++) {
+                if (MemoryTag.nameOf(t).equalsIgnoreCase(name)) {
+                    tag = t;
+                    break;
+                }
+            }
+            if (tag == -1) {
+                throw new ServerConfigurationException(key, "Invalid memory tag: " + name);
+            }
+            result[i] = tag;
+        }
+        return result;
+    }
+
     private String getString(Properties properties, @Nullable Map<String, String> env, String key, String defaultValue) {
         String value = overrideWithEnv(properties, env, key);
         if (value == null) {
@@ -1537,6 +1631,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return FilesFacadeImpl.INSTANCE;
         }
 
+        @Override
+        public int[] getHugePageMemoryTags() {
+            return hugePageMemoryTags;
+        }
+
         @Override
         public long getIdleCheckInterval() {
             return idleCheckInterval;
@@ -1712,6 +1811,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlMapMaxResizes;
         }
 
+        @Override
+        public long getSqlQueryMemoryLimit() {
+            return sqlQueryMemoryLimit;
+        }
+
+        @Override
+        public long getSqlGlobalQueryMemoryLimit() {
+            return sqlGlobalQueryMemoryLimit;
+        }
+
         @Override
         public int getSqlModelPoolCapacity() {
             return sqlModelPoolCapacity;
@@ -1991,6 +2100,166 @@ public class PropServerConfiguration implements ServerConfiguration {
         public int getO3ColumnMemorySize() {
             return o3ColumnMemorySize;
         }
+
+        @Override
+        public int getPageFrameFilterQueueCapacity() {
+            return pageFrameFilterQueueCapacity;
+        }
+
+        @Override
+        public int getSqlPageFrameMaxRows() {
+            return sqlPageFrameMaxRows;
+        }
+
+        @Override
+        public int getSqlPageFrameFilterBufferCount() {
+            return sqlPageFrameFilterBufferCount;
+        }
+
+        @Override
+        public boolean isReaderColumnMappingShared() {
+            return readerColumnMappingShared;
+        }
+
+        @Override
+        public boolean isReaderMadviseEnabled() {
+            return readerMadviseEnabled;
+        }
+
+        @Override
+        public boolean isReaderPrefetchEnabled() {
+            return readerPrefetchEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelFilterEnabled() {
+            return sqlParallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isSqlJitFilterEnabled() {
+            return sqlJitFilterEnabled;
+        }
+
+        @Override
+        public int getPageFrameGroupByQueueCapacity() {
+            return pageFrameGroupByQueueCapacity;
+        }
+
+        @Override
+        public boolean isSqlParallelGroupByEnabled() {
+            return sqlParallelGroupByEnabled;
+        }
+
+        @Override
+        public int getSqlTopKMaxRows() {
+            return sqlTopKMaxRows;
+        }
+
+        @Override
+        public long getSqlSortSpillThreshold() {
+            return sqlSortSpillThreshold;
+        }
+
+        @Override
+        public long getSqlHashJoinSpillThreshold() {
+            return sqlHashJoinSpillThreshold;
+        }
+
+        @Override
+        public int getSqlHashJoinSpillPartitions() {
+            return sqlHashJoinSpillPartitions;
+        }
+
+        @Override
+        public boolean isSqlHashJoinBloomFilterEnabled() {
+            return sqlHashJoinBloomFilterEnabled;
+        }
+
+        @Override
+        public int getSqlHashJoinBloomFilterMaxKeys() {
+            return sqlHashJoinBloomFilterMaxKeys;
+        }
+
+        @Override
+        public long getWalApplyBatchRowCount() {
+            return walApplyBatchRowCount;
+        }
+
+        @Override
+        public long getWalSegmentRolloverRowCount() {
+            return walSegmentRolloverRowCount;
+        }
+
+        @Override
+        public boolean isWalEnabled() {
+            return walEnabled;
+        }
+
+        @Override
+        public long getZoneMapBlockRowCount() {
+            return zoneMapBlockRowCount;
+        }
+
+        @Override
+        public boolean isZoneMapEnabled() {
+            return zoneMapEnabled;
+        }
+
+        @Override
+        public long getPartitionCompressionAge() {
+            return partitionCompressionAge;
+        }
+
+        @Override
+        public long getPartitionCompressionBlockSize() {
+            return partitionCompressionBlockSize;
+        }
+
+        @Override
+        public long getPartitionCompressionCacheSize() {
+            return partitionCompressionCacheSize;
+        }
+
+        @Override
+        public CharSequence getColdRoot() {
+            return coldRoot;
+        }
+
+        @Override
+        public long getPartitionColdAge() {
+            return partitionColdAge;
+        }
+
+        @Override
+        public long getO3PartitionSplitMinSize() {
+            return o3PartitionSplitMinSize;
+        }
+
+        @Override
+        public long getO3PartitionSquashLag() {
+            return o3PartitionSquashLag;
+        }
+
+        @Override
+        public double getO3AdaptiveCommitLagTargetRate() {
+            return o3AdaptiveCommitLagTargetRate;
+        }
+
+        @Override
+        public long getO3AdaptiveCommitLagMin() {
+            return o3AdaptiveCommitLagMin;
+        }
+
+        @Override
+        public long getO3AdaptiveCommitLagMax() {
+            return o3AdaptiveCommitLagMax;
+        }
+
+        @Override
+        public long getO3AdaptiveCommitLagWindow() {
+            return o3AdaptiveCommitLagWindow;
+        }
     }
 
     private class PropLineUdpReceiverConfiguration implements LineUdpReceiverConfiguration {
@@ -135,8 +135,26 @@ public class ServerMain {
         final ObjList<Closeable> instancesToClean = new ObjList<>();
 
         LogFactory.configureFromSystemProperties(workerPool);
-        final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration());
+        final Metrics metrics;
+        if (configuration.getMetricsConfiguration().isEnabled()) {
+            metrics = Metrics.enabled();
+        } else {
+            metrics = Metrics.disabled();
+        }
+
+        for (int memoryTag : configuration.getCairoConfiguration().getHugePageMemoryTags()) {
+            Unsafe.setHugePagesEnabled(memoryTag, true);
+            log.info().$("huge pages [memoryTag=").$(MemoryTag.nameOf(memoryTag)).$(']').$();
+        }
+
+        final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration(), metrics);
         workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        workerPool.assign(cairoEngine.getWalApplyJob());
+        workerPool.assign(cairoEngine.getZoneMapJob());
+        workerPool.assign(cairoEngine.getPartitionCompressionJob());
+        workerPool.assign(cairoEngine.getRetentionJob());
+        workerPool.assign(cairoEngine.getPartitionTieringJob());
+        workerPool.assign(cairoEngine.getPartitionSquashJob());
         instancesToClean.add(cairoEngine);
 
         if (!configuration.getCairoConfiguration().getTelemetryConfiguration().getDisableCompletely()) {
@@ -157,13 +175,6 @@ public class ServerMain {
         workerPool.assign(new O3PurgeJob(cairoEngine.getMessageBus()));
         O3Utils.initBuf(workerPool.getWorkerCount() + 1);
 
-        Metrics metrics;
-        if (configuration.getMetricsConfiguration().isEnabled()) {
-            metrics = Metrics.enabled();
-        } else {
-            metrics = Metrics.disabled();
-        }
-
         try {
             initQuestDb(workerPool, cairoEngine, log);
 
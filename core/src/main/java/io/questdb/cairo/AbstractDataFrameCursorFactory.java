@@ -25,6 +25,11 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
+import io.questdb.std.LongList;
 import io.questdb.std.str.CharSink;
 
 public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorFactory {
@@ -40,11 +45,41 @@ public abstract class AbstractDataFrameCursorFactory implements DataFrameCursorF
         this.tableVersion = tableVersion;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val(getClass().getSimpleName()).val(" table=").val(tableName);
+    }
+
     @Override
     public void toSink(CharSink sink) {
         sink.put("{\"name\":\"").put(this.getClass().getSimpleName()).put("\", \"table\":\"").put(tableName).put("\"}");
     }
 
+    protected static void intervalsToPlan(PlanSink sink, RuntimeIntrinsicIntervalModel intervals) {
+        sink.val(" intervals=");
+        final SqlExecutionContext executionContext = sink.getExecutionContext();
+        if (executionContext == null) {
+            sink.val('?');
+            return;
+        }
+        final LongList list;
+        try {
+            list = intervals.calculateIntervals(executionContext);
+        } catch (SqlException e) {
+            // bind variables may not be set when query is only explained
+            sink.val('?');
+            return;
+        }
+        sink.val('[');
+        for (int i = 0, n = list.size(); i < n; i += 2) {
+            if (i > 0) {
+                sink.val(", ");
+            }
+            sink.val('(').valTimestamp(list.getQuick(i)).val(", ").valTimestamp(list.getQuick(i + 1)).val(')');
+        }
+        sink.val(']');
+    }
+
     protected TableReader getReader(CairoSecurityContext sqlContext) {
         return engine.getReader(
                 sqlContext,
@@ -28,6 +28,8 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
 import io.questdb.std.MemoryTag;
 import io.questdb.std.Misc;
 import io.questdb.std.Unsafe;
@@ -151,6 +153,11 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
                 this.keyCountIncludingNulls++;
             }
             this.valueMem.of(configuration.getFilesFacade(), BitmapIndexUtils.valueFileName(path.trimTo(plen), name), valueMemSize, valueMemSize, MemoryTag.MMAP_INDEX_READER);
+            if (configuration.isReaderMadviseEnabled()) {
+                // lookups jump between keys and value blocks, read-ahead would fetch pages nobody reads
+                adviseRandom(configuration.getFilesFacade(), keyMem);
+                adviseRandom(configuration.getFilesFacade(), valueMem);
+            }
         } catch (Throwable e) {
             close();
             throw e;
@@ -159,6 +166,12 @@ public abstract class AbstractIndexReader implements BitmapIndexReader {
         }
     }
 
+    private static void adviseRandom(FilesFacade ff, MemoryMR mem) {
+        if (mem.size() > 0) {
+            ff.madvise(mem.getPageAddress(0), mem.size(), Files.POSIX_MADV_RANDOM);
+        }
+    }
+
     protected void updateKeyCount() {
         int keyCount;
         final long deadline = clock.getTicks() + spinLockTimeoutUs;
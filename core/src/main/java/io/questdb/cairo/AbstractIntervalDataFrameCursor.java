@@ -270,7 +270,8 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
             intervalLo = reader.floorToPartitionTimestamp(lo);
         }
         this.initialPartitionLo = reader.getMinTimestamp() < intervalLo ? reader.getPartitionIndexByTimestamp(intervalLo) : 0;
-        long intervalHi = reader.floorToPartitionTimestamp(intervals.getQuick((initialIntervalsHi - 1) * 2 + 1));
+        // partition can be split into parts, hi has to include all parts that start at or before it
+        final long intervalHi = intervals.getQuick((initialIntervalsHi - 1) * 2 + 1);
         this.initialPartitionHi = Math.min(reader.getPartitionCount(), reader.getPartitionIndexByTimestamp(intervalHi) + 1);
     }
 
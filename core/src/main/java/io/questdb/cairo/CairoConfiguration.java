@@ -110,6 +110,12 @@ public interface CairoConfiguration {
 
     int getGroupByPoolCapacity();
 
+    /**
+     * Memory tags, which native allocations are backed by transparent huge pages, when they are large
+     * enough. Meant for big query structures, such as NATIVE_FAST_MAP and NATIVE_RECORD_CHAIN.
+     */
+    int[] getHugePageMemoryTags();
+
     long getIdleCheckInterval();
 
     long getInactiveReaderTTL();
@@ -157,6 +163,10 @@ public interface CairoConfiguration {
 
     int getO3PurgeQueueCapacity();
 
+    int getPageFrameFilterQueueCapacity();
+
+    int getPageFrameGroupByQueueCapacity();
+
     int getParallelIndexThreshold();
 
     int getReaderPoolMaxSegments();
@@ -234,6 +244,35 @@ public interface CairoConfiguration {
 
     int getSqlModelPoolCapacity();
 
+    /**
+     * Limit on native memory, in bytes, that single query may allocate for its maps, chains and lists
+     * while its cursor is being opened.
+     */
+    long getSqlQueryMemoryLimit();
+
+    /**
+     * Limit on native memory, in bytes, that all queries, which cursors are being opened, may allocate
+     * together. Protects ingestion from being starved by concurrent heavy queries.
+     */
+    long getSqlGlobalQueryMemoryLimit();
+
+    /**
+     * Maximum number of rows in a page frame that is dispatched to worker threads as
+     * a single unit of work. Partitions larger than this are split into several frames.
+     *
+     * @return max number of rows in a page frame
+     */
+    int getSqlPageFrameMaxRows();
+
+    /**
+     * Number of buffers a filtered page frame cursor gathers matching rows into. Frames
+     * are read by aggregation workers after the cursor has moved on, so once all buffers
+     * are in use the consumer waits for the workers before the buffers are reused.
+     *
+     * @return number of gathered page frames that can be in flight at the same time
+     */
+    int getSqlPageFrameFilterBufferCount();
+
     int getSqlSortKeyMaxPages();
 
     long getSqlSortKeyPageSize();
@@ -263,4 +302,148 @@ public interface CairoConfiguration {
     boolean isO3QuickSortEnabled();
 
     boolean isParallelIndexingEnabled();
+
+    /**
+     * When enabled, pooled table readers share read-only mappings of the same column files
+     * instead of mapping them per reader.
+     */
+    boolean isReaderColumnMappingShared();
+
+    /**
+     * When enabled, table readers give kernel access pattern hints for mapped files: sequential for
+     * partitions scanned front to back, random for bitmap indexes.
+     */
+    boolean isReaderMadviseEnabled();
+
+    /**
+     * When enabled, forward scans ask kernel to read the next partition ahead while the current one is
+     * being processed. Requires {@link #isReaderMadviseEnabled()}.
+     */
+    boolean isReaderPrefetchEnabled();
+
+    boolean isSqlJitFilterEnabled();
+
+    boolean isSqlParallelFilterEnabled();
+
+    boolean isSqlParallelGroupByEnabled();
+
+    /**
+     * Largest constant LIMIT for which ORDER BY keeps only the top rows instead of sorting the whole result.
+     */
+    int getSqlTopKMaxRows();
+
+    /**
+     * Memory, in bytes, ORDER BY may use to copy records before it spills sorted runs to disk.
+     */
+    long getSqlSortSpillThreshold();
+
+    /**
+     * Memory, in bytes, hash join may use for the build side before it partitions both sides to disk.
+     */
+    long getSqlHashJoinSpillThreshold();
+
+    /**
+     * Number of partitions hash join splits its inputs into once the build side does not fit in memory.
+     */
+    int getSqlHashJoinSpillPartitions();
+
+    /**
+     * Whether inner hash join filters probe side rows with a bloom filter built from the join keys of build side.
+     */
+    boolean isSqlHashJoinBloomFilterEnabled();
+
+    /**
+     * Maximum number of distinct build side keys hash join bloom filter is built for. Joins with more keys
+     * are not filtered.
+     */
+    int getSqlHashJoinBloomFilterMaxKeys();
+
+    /**
+     * Maximum number of WAL rows applied to a table in one commit. Transactions are not split,
+     * a batch ends with the transaction that reaches this count.
+     */
+    long getWalApplyBatchRowCount();
+
+    /**
+     * Number of committed rows after which WAL writer starts a new segment.
+     */
+    long getWalSegmentRolloverRowCount();
+
+    /**
+     * Routes SQL INSERT, PostgreSQL wire protocol inserts and ILP through write-ahead log,
+     * so that concurrent ingestion does not wait for the table writer.
+     */
+    boolean isWalEnabled();
+
+    /**
+     * Number of rows covered by each block entry of column zone maps, 0 keeps partition level entries only.
+     */
+    long getZoneMapBlockRowCount();
+
+    /**
+     * Enables per-partition column min/max zone maps, which are used to skip data frames when filtering.
+     */
+    boolean isZoneMapEnabled();
+
+    /**
+     * Age in microseconds after which partitions are compressed by the background job, 0 disables compression.
+     */
+    long getPartitionCompressionAge();
+
+    /**
+     * Size of independently compressed blocks of column data.
+     */
+    long getPartitionCompressionBlockSize();
+
+    /**
+     * Capacity in bytes of engine-wide cache of decompressed blocks of column data. Blocks are evicted
+     * in least recently used order, blocks in use by readers are kept.
+     */
+    long getPartitionCompressionCacheSize();
+
+    /**
+     * Root directory of the secondary storage tier, partitions are relocated to
+     * [cold root]/[table name] directory. Null disables tiering.
+     */
+    CharSequence getColdRoot();
+
+    /**
+     * Age in microseconds after which partitions are relocated to cold root, 0 disables relocation.
+     */
+    long getPartitionColdAge();
+
+    /**
+     * Minimum number of rows partition must have to be split by out-of-order write. When out-of-order
+     * rows land in the older half of such partition, the newer half is moved into partition part
+     * and only the part is rewritten. 0 disables split.
+     */
+    long getO3PartitionSplitMinSize();
+
+    /**
+     * Parts of partition are squashed back into single directory by the background job once the end of
+     * the partition is older than this lag, in microseconds, relative to max timestamp of the table.
+     */
+    long getO3PartitionSquashLag();
+
+    /**
+     * Fraction of rows allowed to arrive later than commit lag, each of them lands behind committed data
+     * and is merged into partition on disk. When above 0, commit lag of tables is the smallest lag that
+     * keeps observed fraction of such rows within this target. 0 keeps commit lag from table metadata.
+     */
+    double getO3AdaptiveCommitLagTargetRate();
+
+    /**
+     * Lower bound of adaptive commit lag in microseconds.
+     */
+    long getO3AdaptiveCommitLagMin();
+
+    /**
+     * Upper bound of adaptive commit lag in microseconds.
+     */
+    long getO3AdaptiveCommitLagMax();
+
+    /**
+     * Number of rows, after which lateness histogram of adaptive commit lag is halved.
+     */
+    long getO3AdaptiveCommitLagWindow();
 }
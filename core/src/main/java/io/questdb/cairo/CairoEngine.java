@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.MessageBus;
 import io.questdb.MessageBusImpl;
+import io.questdb.Metrics;
 import io.questdb.cairo.mig.EngineMigration;
 import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
@@ -33,6 +34,9 @@ import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.vm.api.MemoryMARW;
+import io.questdb.cairo.wal.WalApplyJob;
+import io.questdb.cairo.wal.WalSequencer;
+import io.questdb.cairo.wal.WalWriter;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
@@ -57,15 +61,32 @@ public class CairoEngine implements Closeable, WriterSource {
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
     private final long tableIdMemSize;
+    private final CharSequenceObjHashMap<WalSequencer> walSequencers = new CharSequenceObjHashMap<>();
+    private final WalApplyJob walApplyJob;
+    private final ZoneMapJob zoneMapJob;
+    private final PartitionCompressionJob partitionCompressionJob;
+    private final RetentionJob retentionJob;
+    private final PartitionTieringJob partitionTieringJob;
+    private final PartitionSquashJob partitionSquashJob;
     private long tableIdFd = -1;
     private long tableIdMem = 0;
 
     public CairoEngine(CairoConfiguration configuration) {
+        this(configuration, Metrics.disabled());
+    }
+
+    public CairoEngine(CairoConfiguration configuration, Metrics metrics) {
         this.configuration = configuration;
         this.messageBus = new MessageBusImpl(configuration);
-        this.writerPool = new WriterPool(configuration, messageBus);
+        this.writerPool = new WriterPool(configuration, messageBus, metrics.tableWriter());
         this.readerPool = new ReaderPool(configuration);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
+        this.walApplyJob = new WalApplyJob(this);
+        this.zoneMapJob = new ZoneMapJob(this);
+        this.partitionCompressionJob = new PartitionCompressionJob(this);
+        this.retentionJob = new RetentionJob(this);
+        this.partitionTieringJob = new PartitionTieringJob(this);
+        this.partitionSquashJob = new PartitionSquashJob(this);
         if (configuration.getTelemetryConfiguration().getEnabled()) {
             this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
             this.telemetryPubSeq = new MPSequence(telemetryQueue.getCapacity());
@@ -102,11 +123,19 @@ public class CairoEngine implements Closeable, WriterSource {
     public boolean clear() {
         boolean b1 = readerPool.releaseAll();
         boolean b2 = writerPool.releaseAll();
+        releaseWalSequencers(false);
         return b1 & b2;
     }
 
     @Override
     public void close() {
+        Misc.free(walApplyJob);
+        Misc.free(zoneMapJob);
+        Misc.free(partitionCompressionJob);
+        Misc.free(retentionJob);
+        Misc.free(partitionTieringJob);
+        Misc.free(partitionSquashJob);
+        releaseWalSequencers(true);
         Misc.free(writerPool);
         Misc.free(readerPool);
         freeTableId();
@@ -188,6 +217,14 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerPool.getBusyCount();
     }
 
+    public long getColumnBlockCacheSize() {
+        return readerPool.getColumnBlockCacheSize();
+    }
+
+    public int getColumnMappingCount() {
+        return readerPool.getColumnMappingCount();
+    }
+
     public CairoConfiguration getConfiguration() {
         return configuration;
     }
@@ -270,7 +307,21 @@ public class CairoEngine implements Closeable, WriterSource {
         return telemetrySubSeq;
     }
 
+    /**
+     * Returns writer for row ingestion, which is WAL writer when WAL is enabled and table writer otherwise.
+     */
     @Override
+    public TableWriterAPI getTableWriterAPI(
+            CairoSecurityContext securityContext,
+            CharSequence tableName,
+            CharSequence lockReason
+    ) {
+        if (configuration.isWalEnabled()) {
+            return getWalWriter(securityContext, tableName);
+        }
+        return getWriter(securityContext, tableName, lockReason);
+    }
+
     public TableWriter getWriter(
             CairoSecurityContext securityContext,
             CharSequence tableName,
@@ -280,10 +331,62 @@ public class CairoEngine implements Closeable, WriterSource {
         return writerPool.get(tableName, lockReason);
     }
 
+    public WalApplyJob getWalApplyJob() {
+        return walApplyJob;
+    }
+
+    public PartitionCompressionJob getPartitionCompressionJob() {
+        return partitionCompressionJob;
+    }
+
+    public RetentionJob getRetentionJob() {
+        return retentionJob;
+    }
+
+    public PartitionTieringJob getPartitionTieringJob() {
+        return partitionTieringJob;
+    }
+
+    public PartitionSquashJob getPartitionSquashJob() {
+        return partitionSquashJob;
+    }
+
+    /**
+     * Creates writer, which appends rows to the write-ahead log of the table. Unlike table writers,
+     * any number of WAL writers can be used concurrently, rows are copied to the table by
+     * {@link #getWalApplyJob()}.
+     */
+    public WalWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        final WalSequencer sequencer = openWalSequencer(tableName);
+        try (TableReader reader = getReader(securityContext, tableName)) {
+            return new WalWriter(configuration, sequencer, reader.getMetadata(), reader.getVersion());
+        } catch (Throwable e) {
+            sequencer.writerClosed();
+            throw e;
+        }
+    }
+
+    public void copyWalSequencers(ObjList<WalSequencer> sink) {
+        synchronized (walSequencers) {
+            final ObjList<CharSequence> names = walSequencers.keys();
+            for (int i = 0, n = names.size(); i < n; i++) {
+                sink.add(walSequencers.get(names.getQuick(i)));
+            }
+        }
+    }
+
     public Job getWriterMaintenanceJob() {
         return writerMaintenanceJob;
     }
 
+    public ZoneMapJob getZoneMapJob() {
+        return zoneMapJob;
+    }
+
     public CharSequence lock(
             CairoSecurityContext securityContext,
             CharSequence tableName,
@@ -336,12 +439,21 @@ public class CairoEngine implements Closeable, WriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "removeTable");
         if (null == lockedReason) {
             try {
+                closeWalSequencer(tableName);
                 path.of(configuration.getRoot()).concat(tableName).$();
                 int errno;
                 if ((errno = configuration.getFilesFacade().rmdir(path)) != 0) {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(errno).$(']').$();
                     throw CairoException.instance(errno).put("Table remove failed");
                 }
+                final CharSequence coldRoot = configuration.getColdRoot();
+                if (coldRoot != null) {
+                    // partitions relocated to cold root
+                    path.of(coldRoot).concat(tableName).$();
+                    if (configuration.getFilesFacade().exists(path) && (errno = configuration.getFilesFacade().rmdir(path)) != 0) {
+                        LOG.error().$("could not remove cold partitions [path=").$(path).$(", errno=").$(errno).$(']').$();
+                    }
+                }
                 return;
             } finally {
                 unlock(securityContext, tableName, null, false);
@@ -367,6 +479,7 @@ public class CairoEngine implements Closeable, WriterSource {
         CharSequence lockedReason = lock(securityContext, tableName, "renameTable");
         if (null == lockedReason) {
             try {
+                closeWalSequencer(tableName);
                 rename0(path, tableName, otherPath, newName);
             } finally {
                 unlock(securityContext, tableName, null, false);
@@ -402,6 +515,47 @@ public class CairoEngine implements Closeable, WriterSource {
         writerPool.unlock(tableName);
     }
 
+    private void closeWalSequencer(CharSequence tableName) {
+        synchronized (walSequencers) {
+            final int index = walSequencers.keyIndex(tableName);
+            if (index < 0) {
+                Misc.free(walSequencers.valueAt(index));
+                walSequencers.removeAt(index);
+            }
+        }
+    }
+
+    private WalSequencer openWalSequencer(CharSequence tableName) {
+        synchronized (walSequencers) {
+            final int index = walSequencers.keyIndex(tableName);
+            if (index < 0) {
+                final WalSequencer sequencer = walSequencers.valueAt(index);
+                if (sequencer.writerOpened()) {
+                    return sequencer;
+                }
+                walSequencers.removeAt(index);
+            }
+            final WalSequencer sequencer = new WalSequencer(configuration, Chars.toString(tableName));
+            sequencer.writerOpened();
+            walSequencers.put(sequencer.getTableName(), sequencer);
+            return sequencer;
+        }
+    }
+
+    private void releaseWalSequencers(boolean all) {
+        synchronized (walSequencers) {
+            final ObjList<CharSequence> names = walSequencers.keys();
+            for (int i = names.size() - 1; i > -1; i--) {
+                final CharSequence name = names.getQuick(i);
+                final WalSequencer sequencer = walSequencers.get(name);
+                if (all || sequencer.isIdle()) {
+                    sequencer.close();
+                    walSequencers.remove(name);
+                }
+            }
+        }
+    }
+
     private void rename0(Path path, CharSequence tableName, Path otherPath, CharSequence to) {
         final FilesFacade ff = configuration.getFilesFacade();
         final CharSequence root = configuration.getRoot();
@@ -419,11 +573,33 @@ public class CairoEngine implements Closeable, WriterSource {
             throw CairoException.instance(0).put("Rename target exists");
         }
 
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null && ff.exists(otherPath.of(coldRoot).concat(to).$())) {
+            LOG.error().$("rename target exists [from='").$(tableName).$("', to='").$(otherPath).$("']").$();
+            throw CairoException.instance(0).put("Rename target exists");
+        }
+        otherPath.of(root).concat(to).$();
+
         if (!ff.rename(path, otherPath)) {
             int error = ff.errno();
             LOG.error().$("rename failed [from='").$(path).$("', to='").$(otherPath).$("', error=").$(error).$(']').$();
             throw CairoException.instance(error).put("Rename failed");
         }
+
+        if (coldRoot != null) {
+            // cold partitions are looked up by table name
+            otherPath.of(coldRoot).concat(to).$();
+            path.of(coldRoot).concat(tableName).$();
+            if (ff.exists(path) && !ff.rename(path, otherPath)) {
+                int error = ff.errno();
+                LOG.error().$("rename failed [from='").$(path).$("', to='").$(otherPath).$("', error=").$(error).$(']').$();
+                // put table back together with its cold partitions
+                path.of(root).concat(tableName).$();
+                otherPath.of(root).concat(to).$();
+                ff.rename(otherPath, path);
+                throw CairoException.instance(error).put("Rename failed");
+            }
+        }
     }
 
     private class WriterMaintenanceJob extends SynchronizedJob {
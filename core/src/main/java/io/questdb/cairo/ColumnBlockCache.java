@@ -0,0 +1,345 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Decompressed blocks of compressed column files, see {@link PartitionCompressor}, shared by table readers
+ * of the engine. Blocks are decompressed on demand, when reader first touches them. Blocks, which no reader
+ * has pinned, are kept in least recently used order and evicted once total size of cached blocks exceeds
+ * capacity. Pinned blocks are never evicted, cache can exceed capacity by the size of blocks readers are using.
+ * <p>
+ * Compressed files are mapped once, they are keyed by file path, which includes partition name txn. File,
+ * which has been deleted, e.g. column decompressed by the writer and compressed again, is not handed out
+ * to new readers, they map the new file. Mapping and decompression run outside of the cache lock.
+ */
+public class ColumnBlockCache implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ColumnBlockCache.class);
+    private final long capacity;
+    private final CharSequenceObjHashMap<File> files = new CharSequenceObjHashMap<>();
+    // unpinned blocks, head is the most recently used
+    private Block lruHead;
+    private Block lruTail;
+    private long cachedSize;
+
+    public ColumnBlockCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void close() {
+        while (lruTail != null) {
+            evict(lruTail);
+        }
+    }
+
+    public File acquireFile(FilesFacade ff, LPSZ name, int memoryTag) {
+        File file;
+        synchronized (this) {
+            file = files.get(name);
+            if (file != null) {
+                file.refCount++;
+            }
+        }
+        if (file != null) {
+            if (ff.exists(file.fd)) {
+                return file;
+            }
+            release(file);
+        }
+        final File created = new File(ff, name, memoryTag);
+        synchronized (this) {
+            // concurrent acquire of the same file may have published its own mapping, the last one
+            // wins, the other is closed once its readers release it
+            files.put(created.key, created);
+        }
+        return created;
+    }
+
+    /**
+     * Pins block of the file, block is decompressed unless it is cached already.
+     */
+    public Block acquireBlock(File file, int blockIndex) {
+        synchronized (this) {
+            final Block block = file.blocks.getQuiet(blockIndex);
+            if (block != null) {
+                pin(block);
+                return block;
+            }
+        }
+        final long offset = blockIndex * file.blockSize;
+        final long size = Math.min(file.blockSize, file.uncompressedSize - offset);
+        final long address = Unsafe.malloc(size, MemoryTag.NATIVE_TABLE_READER);
+        try {
+            // blocks are decoded at their offset in uncompressed file
+            PartitionCompressor.decode(file.address, address - offset, blockIndex, blockIndex + 1);
+        } catch (Throwable e) {
+            Unsafe.free(address, size, MemoryTag.NATIVE_TABLE_READER);
+            throw e;
+        }
+        Block block;
+        synchronized (this) {
+            block = file.blocks.getQuiet(blockIndex);
+            if (block == null) {
+                block = new Block(file, blockIndex, address, size);
+                file.blocks.extendAndSet(blockIndex, block);
+                cachedSize += size;
+                pin(block);
+                evictOverCapacity();
+                return block;
+            }
+            // decompressed concurrently
+            pin(block);
+        }
+        Unsafe.free(address, size, MemoryTag.NATIVE_TABLE_READER);
+        return block;
+    }
+
+    public synchronized long getCachedSize() {
+        return cachedSize;
+    }
+
+    public synchronized int getFileCount() {
+        return files.size();
+    }
+
+    public void release(Block block) {
+        File closed = null;
+        synchronized (this) {
+            if (--block.pinCount == 0) {
+                linkFirst(block);
+                // file handles are released before their blocks when reader lets go of the whole column
+                if (--block.file.refCount == 0) {
+                    closed = unlink(block.file);
+                }
+                evictOverCapacity();
+            }
+        }
+        Misc.free(closed);
+    }
+
+    public void release(File file) {
+        File closed = null;
+        synchronized (this) {
+            if (--file.refCount == 0) {
+                closed = unlink(file);
+            }
+        }
+        Misc.free(closed);
+    }
+
+    private void evict(Block block) {
+        unlinkLru(block);
+        block.file.blocks.setQuick(block.index, null);
+        cachedSize -= block.size;
+        Unsafe.free(block.address, block.size, MemoryTag.NATIVE_TABLE_READER);
+    }
+
+    private void evictOverCapacity() {
+        while (cachedSize > capacity && lruTail != null) {
+            evict(lruTail);
+        }
+    }
+
+    private void linkFirst(Block block) {
+        block.prev = null;
+        block.next = lruHead;
+        if (lruHead != null) {
+            lruHead.prev = block;
+        } else {
+            lruTail = block;
+        }
+        lruHead = block;
+    }
+
+    private void pin(Block block) {
+        if (block.pinCount++ == 0) {
+            unlinkLru(block);
+            // pinned block keeps the file mapped
+            block.file.refCount++;
+        }
+    }
+
+    private File unlink(File file) {
+        if (files.get(file.key) == file) {
+            files.remove(file.key);
+        }
+        for (int i = 0, n = file.blocks.size(); i < n; i++) {
+            final Block block = file.blocks.getQuick(i);
+            if (block != null) {
+                evict(block);
+            }
+        }
+        return file;
+    }
+
+    private void unlinkLru(Block block) {
+        if (block.prev != null) {
+            block.prev.next = block.next;
+        } else if (lruHead == block) {
+            lruHead = block.next;
+        }
+        if (block.next != null) {
+            block.next.prev = block.prev;
+        } else if (lruTail == block) {
+            lruTail = block.prev;
+        }
+        block.prev = block.next = null;
+    }
+
+    public static class Block {
+        private final File file;
+        private final int index;
+        private final long address;
+        private final long size;
+        private int pinCount;
+        private Block prev;
+        private Block next;
+
+        private Block(File file, int index, long address, long size) {
+            this.file = file;
+            this.index = index;
+            this.address = address;
+            this.size = size;
+        }
+
+        public long getAddress() {
+            return address;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+    }
+
+    /**
+     * Blocks handed out as memory pages, e.g. to page frames, address of which is used until the query
+     * completes. Table reader releases them when it goes back to the pool.
+     */
+    public static class PagePins {
+        private final ColumnBlockCache cache;
+        private final ObjList<Block> blocks = new ObjList<>();
+        private long generation;
+
+        public PagePins(ColumnBlockCache cache) {
+            this.cache = cache;
+        }
+
+        public void add(Block block) {
+            blocks.add(block);
+        }
+
+        public ColumnBlockCache getCache() {
+            return cache;
+        }
+
+        /**
+         * @return number of times pins were released, pages pinned before that are no longer valid
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        public void releaseAll() {
+            if (blocks.size() > 0) {
+                for (int i = 0, n = blocks.size(); i < n; i++) {
+                    cache.release(blocks.getQuick(i));
+                }
+                blocks.clear();
+                generation++;
+            }
+        }
+    }
+
+    /**
+     * Read-only mapping of compressed file shared by readers.
+     */
+    public static class File implements Closeable {
+        private final String key;
+        private final FilesFacade ff;
+        private final int memoryTag;
+        private final ObjList<Block> blocks = new ObjList<>();
+        private final long fd;
+        private final long address;
+        private final long size;
+        private final long uncompressedSize;
+        private final long blockSize;
+        private final long blockCount;
+        private int refCount = 1;
+
+        private File(FilesFacade ff, LPSZ name, int memoryTag) {
+            this.key = Chars.toString(name);
+            this.ff = ff;
+            this.memoryTag = memoryTag;
+            this.fd = TableUtils.openRO(ff, name, LOG);
+            long address = 0;
+            try {
+                this.size = ff.length(fd);
+                if (size < PartitionCompressor.HEADER_SIZE) {
+                    throw CairoException.instance(0).put("compressed column file is too small [file=").put(name).put(']');
+                }
+                address = TableUtils.mapRO(ff, fd, size, memoryTag);
+            } catch (Throwable e) {
+                ff.close(fd);
+                throw e;
+            }
+            this.address = address;
+            this.uncompressedSize = PartitionCompressor.getUncompressedSize(address);
+            this.blockSize = PartitionCompressor.getBlockSize(address);
+            this.blockCount = PartitionCompressor.getBlockCount(address);
+            LOG.debug().$("open ").$(name).$(" [fd=").$(fd).$(", size=").$(uncompressedSize).$(']').$();
+        }
+
+        @Override
+        public void close() {
+            ff.munmap(address, size, memoryTag);
+            ff.close(fd);
+            LOG.debug().$("closed [fd=").$(fd).$(']').$();
+        }
+
+        public long getBlockCount() {
+            return blockCount;
+        }
+
+        public long getBlockSize() {
+            return blockSize;
+        }
+
+        public long getFd() {
+            return fd;
+        }
+
+        public long getUncompressedSize() {
+            return uncompressedSize;
+        }
+    }
+}
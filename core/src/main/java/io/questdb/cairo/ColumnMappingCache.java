@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.AbstractMemoryCR;
+import io.questdb.cairo.vm.MemoryCMRImpl;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Reference counted read-only mappings of column files, shared by table readers of the engine. Mapping
+ * is keyed by file path, which includes partition name txn, and by mapped size. Mappings are never
+ * grown in place, other readers could be reading them; reader, which needs more of the file, acquires
+ * mapping of the new size. Readers of the same transaction end up sharing it, so the active partition
+ * is remapped once per transaction rather than once per reader.
+ * <p>
+ * Mapping of a file that has been deleted, e.g. column dropped and added again under the same name,
+ * is not handed out to new readers, they map the new file.
+ */
+public class ColumnMappingCache {
+    private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
+    private final StringSink keySink = new StringSink();
+
+    public synchronized int getMappingCount() {
+        return entries.size();
+    }
+
+    public Mapping newMapping() {
+        return new Mapping(this);
+    }
+
+    private synchronized Entry acquire(FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        keySink.clear();
+        keySink.put(name).put('@').put(size);
+        Entry entry = entries.get(keySink);
+        if (entry == null || entry.mem.isDeleted()) {
+            entry = new Entry(keySink.toString(), new MemoryCMRImpl(ff, name, size, memoryTag));
+            entries.put(entry.key, entry);
+        }
+        entry.refCount++;
+        return entry;
+    }
+
+    private synchronized void release(Entry entry) {
+        if (--entry.refCount == 0) {
+            entries.remove(entry.key, entry);
+            entry.mem.close();
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final MemoryCMRImpl mem;
+        private int refCount;
+
+        private Entry(String key, MemoryCMRImpl mem) {
+            this.key = key;
+            this.mem = mem;
+        }
+    }
+
+    /**
+     * Reader's handle of shared mapping. Handle can be closed more than once, it releases the mapping
+     * the first time. Handle cannot grow past size it was opened with.
+     */
+    public static class Mapping extends AbstractMemoryCR implements MemoryCMR {
+        private final ColumnMappingCache cache;
+        private Entry entry;
+
+        private Mapping(ColumnMappingCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                cache.release(entry);
+                entry = null;
+            }
+            pageAddress = 0;
+            size = 0;
+            fd = -1;
+            grownLength = 0;
+        }
+
+        @Override
+        public void extend(long newSize) {
+            if (newSize > size) {
+                throw CairoException.instance(0).put("shared column mapping cannot grow [fd=").put(fd)
+                        .put(", size=").put(size)
+                        .put(", requested=").put(newSize)
+                        .put(']');
+            }
+            grownLength = Math.max(newSize, grownLength);
+        }
+
+        @Override
+        public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag) {
+            // acquire before release, mapping of the same size is not unmapped and mapped again
+            final Entry entry = cache.acquire(ff, name, size, memoryTag);
+            close();
+            this.entry = entry;
+            this.ff = ff;
+            this.pageAddress = entry.mem.getPageAddress(0);
+            this.size = entry.mem.size();
+            this.fd = entry.mem.getFd();
+        }
+    }
+}
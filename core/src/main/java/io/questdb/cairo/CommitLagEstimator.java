@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import java.util.Arrays;
+
+/**
+ * Picks commit lag from lateness of rows, which is how far timestamp of a row is behind the max timestamp
+ * seen before it. Row that is later than commit lag lands behind committed data and has to be merged into
+ * partition on disk, rows within the lag are sorted in memory. Estimator keeps histogram of lateness with
+ * power of two buckets and picks the smallest lag, which keeps fraction of rows later than the lag at or below
+ * target rate. Lag is kept within configured bounds.
+ * <p>
+ * Histogram is halved each time window row count is observed, so that lag follows lateness of recent rows.
+ */
+public class CommitLagEstimator {
+    // bucket 0 counts rows that are not late, bucket n > 0 counts lateness in [2^(n-1), 2^n) range
+    private static final int BUCKET_COUNT = 64;
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private final double targetRate;
+    private final long minLag;
+    private final long maxLag;
+    private final long windowRowCount;
+    private long rowCount;
+    private long maxTimestamp;
+    private long lag;
+
+    public CommitLagEstimator(CairoConfiguration configuration) {
+        this(
+                configuration.getO3AdaptiveCommitLagTargetRate(),
+                configuration.getO3AdaptiveCommitLagMin(),
+                configuration.getO3AdaptiveCommitLagMax(),
+                configuration.getO3AdaptiveCommitLagWindow()
+        );
+    }
+
+    public CommitLagEstimator(double targetRate, long minLag, long maxLag, long windowRowCount) {
+        this.targetRate = targetRate;
+        this.minLag = minLag;
+        this.maxLag = Math.max(minLag, maxLag);
+        this.windowRowCount = Math.max(2, windowRowCount);
+    }
+
+    /**
+     * Recomputes lag from lateness histogram. Lag does not change until rows are observed.
+     *
+     * @return the smallest lag within bounds, which keeps rate of late rows at or below target
+     */
+    public long computeLag() {
+        if (rowCount == 0) {
+            return lag;
+        }
+        final long allowed = (long) (rowCount * targetRate);
+        long late = 0;
+        int bucket = BUCKET_COUNT - 1;
+        for (; bucket > 0; bucket--) {
+            late += buckets[bucket];
+            if (late > allowed) {
+                break;
+            }
+        }
+        // lag has to cover the whole bucket, that would have too many rows late
+        final long lateness = bucket == 0 ? 0 : bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        return lag = clamp(lateness);
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public void observe(long timestamp) {
+        if (timestamp >= maxTimestamp) {
+            maxTimestamp = timestamp;
+            buckets[0]++;
+        } else {
+            buckets[BUCKET_COUNT - Long.numberOfLeadingZeros(maxTimestamp - timestamp)]++;
+        }
+        if (++rowCount == windowRowCount) {
+            decay();
+        }
+    }
+
+    /**
+     * Clears lateness histogram.
+     *
+     * @param maxTimestamp max timestamp of the table, lateness of subsequent rows is relative to it
+     * @param lag          lag to use until rows are observed
+     */
+    public void of(long maxTimestamp, long lag) {
+        Arrays.fill(buckets, 0);
+        this.rowCount = 0;
+        this.maxTimestamp = maxTimestamp;
+        this.lag = clamp(lag);
+    }
+
+    private long clamp(long lag) {
+        return Math.max(minLag, Math.min(maxLag, lag));
+    }
+
+    private void decay() {
+        rowCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            rowCount += buckets[i] >>>= 1;
+        }
+    }
+}
@@ -128,6 +128,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return FilesFacadeImpl.INSTANCE;
     }
 
+    @Override
+    public int[] getHugePageMemoryTags() {
+        return new int[0];
+    }
+
     @Override
     public long getIdleCheckInterval() {
         return 100;
@@ -305,6 +310,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64;
     }
 
+    @Override
+    public long getSqlQueryMemoryLimit() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public long getSqlGlobalQueryMemoryLimit() {
+        return Long.MAX_VALUE;
+    }
+
     @Override
     public int getSqlModelPoolCapacity() {
         return 1024;
@@ -584,4 +599,164 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     public int getO3ColumnMemorySize() {
         return 16 * Numbers.SIZE_1MB;
     }
+
+    @Override
+    public int getPageFrameFilterQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getPageFrameGroupByQueueCapacity() {
+        return 64;
+    }
+
+    @Override
+    public int getSqlPageFrameMaxRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public int getSqlPageFrameFilterBufferCount() {
+        return 16;
+    }
+
+    @Override
+    public boolean isReaderColumnMappingShared() {
+        return true;
+    }
+
+    @Override
+    public boolean isReaderMadviseEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isReaderPrefetchEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlJitFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlParallelGroupByEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlTopKMaxRows() {
+        return 10_000;
+    }
+
+    @Override
+    public long getSqlSortSpillThreshold() {
+        return 1024 * 1024 * 1024;
+    }
+
+    @Override
+    public long getSqlHashJoinSpillThreshold() {
+        return 1024 * 1024 * 1024;
+    }
+
+    @Override
+    public int getSqlHashJoinSpillPartitions() {
+        return 32;
+    }
+
+    @Override
+    public boolean isSqlHashJoinBloomFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlHashJoinBloomFilterMaxKeys() {
+        return 1_000_000;
+    }
+
+    @Override
+    public long getWalApplyBatchRowCount() {
+        return 1_000_000;
+    }
+
+    @Override
+    public long getWalSegmentRolloverRowCount() {
+        return 200_000;
+    }
+
+    @Override
+    public boolean isWalEnabled() {
+        return false;
+    }
+
+    @Override
+    public long getZoneMapBlockRowCount() {
+        return 65536;
+    }
+
+    @Override
+    public boolean isZoneMapEnabled() {
+        return true;
+    }
+
+    @Override
+    public long getPartitionCompressionAge() {
+        return 0;
+    }
+
+    @Override
+    public long getPartitionCompressionBlockSize() {
+        return 1024 * 1024;
+    }
+
+    @Override
+    public long getPartitionCompressionCacheSize() {
+        return 64 * 1024 * 1024;
+    }
+
+    @Override
+    public CharSequence getColdRoot() {
+        return null;
+    }
+
+    @Override
+    public long getPartitionColdAge() {
+        return 0;
+    }
+
+    @Override
+    public long getO3PartitionSplitMinSize() {
+        return 0;
+    }
+
+    @Override
+    public long getO3PartitionSquashLag() {
+        return 0;
+    }
+
+    @Override
+    public double getO3AdaptiveCommitLagTargetRate() {
+        return 0;
+    }
+
+    @Override
+    public long getO3AdaptiveCommitLagMin() {
+        return 0;
+    }
+
+    @Override
+    public long getO3AdaptiveCommitLagMax() {
+        return 600_000_000;
+    }
+
+    @Override
+    public long getO3AdaptiveCommitLagWindow() {
+        return 1_000_000;
+    }
 }
@@ -32,11 +32,12 @@ public class FullFwdDataFrameCursor extends AbstractFullDataFrameCursor {
     @Override
     public @Nullable DataFrame next() {
         while (this.partitionIndex < partitionHi) {
-            final long hi = getTableReader().openPartition(partitionIndex);
+            final long hi = reader.openPartition(partitionIndex);
             if (hi < 1) {
                 // this partition is missing, skip
                 partitionIndex++;
             } else {
+                reader.adviseSequentialScan(partitionIndex, true);
                 frame.partitionIndex = partitionIndex;
                 frame.rowHi = hi;
                 partitionIndex++;
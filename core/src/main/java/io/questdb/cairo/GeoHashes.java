@@ -174,6 +174,24 @@ public class GeoHashes {
         prefixes.add(mask);
     }
 
+    /**
+     * Parses geohash of a column with given bits, chars beyond required ones are ignored.
+     *
+     * @return geohash or null when hash is null, too short or invalid
+     */
+    public static long fromStringTruncatingOrNull(CharSequence hash, int bits) {
+        if (hash != null) {
+            final int charsRequired = (bits - 1) / 5 + 1;
+            if (hash.length() >= charsRequired) {
+                try {
+                    return ColumnType.truncateGeoHashBits(fromString(hash, 0, charsRequired), charsRequired * 5, bits);
+                } catch (NumericException ignore) {
+                }
+            }
+        }
+        return NULL;
+    }
+
     public static long fromStringTruncatingNl(CharSequence hash, int start, int end, int toBits) throws NumericException {
         if (start == end) {
             return NULL;
@@ -25,6 +25,7 @@
 package io.questdb.cairo;
 
 import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
@@ -53,6 +54,12 @@ public class IntervalBwdDataFrameCursorFactory extends AbstractDataFrameCursorFa
         return cursor;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        intervalsToPlan(sink, intervals);
+    }
+
     @Override
     public void close() {
         Misc.free(intervals);
@@ -97,6 +97,7 @@ public class IntervalFwdDataFrameCursor extends AbstractIntervalDataFrameCursor
                     dataFrame.rowLo = lo;
                     dataFrame.rowHi = hi;
                     sizeSoFar += (hi - lo);
+                    reader.adviseSequentialScan(partitionLo, hi == rowCount && partitionLo + 1 < partitionHi);
 
                     // we do have whole partition of fragment?
                     if (hi == rowCount) {
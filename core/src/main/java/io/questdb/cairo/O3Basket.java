@@ -24,12 +24,14 @@
 
 package io.questdb.cairo;
 
+import io.questdb.std.LongList;
 import io.questdb.std.Mutable;
 import io.questdb.std.ObjList;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class O3Basket implements Mutable {
+    private final LongList dedupKeys = new LongList();
     private final ObjList<BitmapIndexWriter> indexers = new ObjList<BitmapIndexWriter>();
     private final ObjList<AtomicInteger> partCounters = new ObjList<AtomicInteger>();
     private int indexerPointer;
@@ -41,6 +43,7 @@ public class O3Basket implements Mutable {
     public void clear() {
         indexerPointer = 0;
         partCounterPointer = 0;
+        dedupKeys.clear();
     }
 
     public void ensureCapacity(int columnCount, int indexCount) {
@@ -50,6 +53,10 @@ public class O3Basket implements Mutable {
         ensureCapacity0(columnCount, indexCount);
     }
 
+    public LongList getDedupKeys() {
+        return dedupKeys;
+    }
+
     public BitmapIndexWriter nextIndexer() {
         return indexers.getQuick(indexerPointer++);
     }
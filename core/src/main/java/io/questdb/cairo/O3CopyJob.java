@@ -66,6 +66,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcDataHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -109,6 +110,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 .$(", srcDataLo=").$(srcDataLo)
                 .$(", srcDataHi=").$(srcDataHi)
                 .$(", srcDataMax=").$(srcDataMax)
+                .$(", dedupRowCount=").$(dedupRowCount)
                 .$(", srcOooLo=").$(srcOooLo)
                 .$(", srcOooHi=").$(srcOooHi)
                 .$(", srcOooMax=").$(srcOooMax)
@@ -129,6 +131,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                         srcDataVarAddr + srcDataVarOffset,
                         srcDataLo,
                         srcDataHi,
+                        dedupRowCount,
                         srcOooFixAddr,
                         srcOooVarAddr,
                         srcOooLo,
@@ -179,6 +182,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 srcDataVarAddr,
                 srcDataVarSize,
                 srcDataMax,
+                dedupRowCount,
                 srcOooMax,
                 srcOooPartitionLo,
                 srcOooPartitionHi,
@@ -223,6 +227,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
         final long srcDataLo = task.getSrcDataLo();
         final long srcDataMax = task.getSrcDataMax();
         final long srcDataHi = task.getSrcDataHi();
+        final long dedupRowCount = task.getDedupRowCount();
         final long srcOooFixAddr = task.getSrcOooFixAddr();
         final long srcOooVarAddr = task.getSrcOooVarAddr();
         final long srcOooLo = task.getSrcOooLo();
@@ -275,6 +280,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 srcDataHi,
                 srcDataTop,
                 srcDataMax,
+                dedupRowCount,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -320,6 +326,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcDataVarAddr,
             long srcDataVarSize,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
@@ -389,6 +396,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 updatePartition(
                         timestampMergeIndexAddr,
                         srcDataMax,
+                        dedupRowCount,
                         srcOooMax,
                         srcOooPartitionLo,
                         srcOooPartitionHi,
@@ -408,6 +416,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
     private static void updatePartition(
             long timestampMergeIndexAddr,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooMax,
             long srcOooPartitionLo,
             long srcOooPartitionHi,
@@ -434,6 +443,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                         partitionTimestamp,
                         srcOooMax,
                         srcDataMax,
+                        dedupRowCount,
                         partitionMutates,
                         tableWriter
                 );
@@ -663,6 +673,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long partitionTimestamp,
             long srcOooMax,
             long srcDataMax,
+            long dedupRowCount,
             boolean partitionMutates,
             TableWriter tableWriter
     ) {
@@ -674,6 +685,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     srcOooPartitionHi,
                     partitionTimestamp,
                     srcDataMax,
+                    dedupRowCount,
                     partitionMutates,
                     tableWriter
             );
@@ -687,6 +699,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     partitionTimestamp,
                     srcOooMax,
                     srcDataMax,
+                    dedupRowCount,
                     partitionMutates,
                     tableWriter
             );
@@ -702,6 +715,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long partitionTimestamp,
             long srcOooMax,
             long srcDataMax,
+            long dedupRowCount,
             boolean partitionMutates,
             TableWriter tableWriter
     ) {
@@ -716,6 +730,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     srcOooPartitionHi,
                     partitionTimestamp,
                     srcDataMax,
+                    dedupRowCount,
                     partitionMutates,
                     tableWriter
             );
@@ -728,7 +743,8 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                     srcOooPartitionHi,
                     partitionMutates,
                     srcOooMax,
-                    srcDataMax
+                    srcDataMax,
+                    dedupRowCount
             );
         }
     }
@@ -739,6 +755,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcOooPartitionHi,
             long partitionTimestamp,
             long srcDataMax,
+            long dedupRowCount,
             boolean partitionMutates,
             TableWriter tableWriter
     ) {
@@ -748,6 +765,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
                 srcOooPartitionLo,
                 srcOooPartitionHi,
                 srcDataMax,
+                dedupRowCount,
                 partitionMutates
         );
         tableWriter.getO3PartitionUpdatePubSeq().done(cursor);
@@ -893,6 +911,7 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long srcDataVarAddr,
             long srcDataLo,
             long srcDataHi,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -902,7 +921,8 @@ public class O3CopyJob extends AbstractQueueConsumerJob<O3CopyTask> {
             long dstVarOffset,
             long dstVarOffsetEnd
     ) {
-        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1;
+        // data rows replaced by O3 rows with the same dedup key are no longer in the merge index
+        final long rowCount = srcOooHi - srcOooLo + 1 + srcDataHi - srcDataLo + 1 - dedupRowCount;
         switch (ColumnType.tagOf(columnType)) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
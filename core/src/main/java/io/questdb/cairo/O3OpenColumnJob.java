@@ -188,6 +188,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
         final long mergeOOOHi = task.getMergeOOOHi();
         final long mergeDataLo = task.getMergeDataLo();
         final long mergeDataHi = task.getMergeDataHi();
+        final long dedupRowCount = task.getDedupRowCount();
         final long txn = task.getTxn();
         final int prefixType = task.getPrefixType();
         final long prefixLo = task.getPrefixLo();
@@ -224,6 +225,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 partitionTimestamp,
                 srcDataTop,
                 srcDataMax,
+                dedupRowCount,
                 srcDataTxn,
                 txn,
                 prefixType,
@@ -268,6 +270,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long partitionTimestamp,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcDataTxn,
             long txn,
             int prefixType,
@@ -291,9 +294,9 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             BitmapIndexWriter indexWriter,
             long tmpBuf
     ) {
-        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1;
+        final long mergeLen = mergeOOOHi - mergeOOOLo + 1 + mergeDataHi - mergeDataLo + 1 - dedupRowCount;
         final Path pathToPartition = Path.getThreadLocal(pathToTable);
-        TableUtils.setPathForPartition(pathToPartition, tableWriter.getPartitionBy(), oooTimestampLo, false);
+        TableUtils.setPathForPartitionPart(pathToPartition, tableWriter.getPartitionBy(), partitionTimestamp);
         final int pplen = pathToPartition.length();
         TableUtils.txnPartitionConditionally(pathToPartition, srcDataTxn);
         final int plen = pathToPartition.length();
@@ -345,6 +348,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         partitionTimestamp,
                         srcDataTop,
                         srcDataMax,
+                        dedupRowCount,
                         txn,
                         prefixType,
                         prefixLo,
@@ -386,6 +390,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         partitionTimestamp,
                         srcDataTop,
                         srcDataMax,
+                        dedupRowCount,
                         txn,
                         prefixType,
                         prefixLo,
@@ -764,6 +769,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooHi,
                 srcDataTop,
                 srcDataMax,
+                0,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -882,6 +888,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooHi,
                 0, // designated timestamp column cannot be added after table is created
                 srcDataMax,
+                0,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -1020,6 +1027,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcOooHi,
                 srcDataTop,
                 srcDataMax,
+                0,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -1072,6 +1080,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcDataHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -1124,6 +1133,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcDataHi,
                     srcDataTop,
                     srcDataMax,
+                    dedupRowCount,
                     srcOooFixAddr,
                     srcOooVarAddr,
                     srcOooLo,
@@ -1177,6 +1187,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcDataLo,
                     srcDataHi,
                     srcDataMax,
+                    dedupRowCount,
                     srcOooFixAddr,
                     srcOooVarAddr,
                     srcOooLo,
@@ -1231,6 +1242,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcDataLo,
             long srcDataHi,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -1286,6 +1298,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcDataHi,
                     srcDataTop,
                     srcDataMax,
+                    dedupRowCount,
                     srcOooFixAddr,
                     srcOooVarAddr,
                     srcOooLo,
@@ -1337,6 +1350,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                     srcDataHi,
                     srcDataTop,
                     srcDataMax,
+                    dedupRowCount,
                     srcOooFixAddr,
                     srcOooVarAddr,
                     srcOooLo,
@@ -1391,6 +1405,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcDataHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -1443,6 +1458,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcDataHi,
                 srcDataTop,
                 srcDataMax,
+                dedupRowCount,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -1496,6 +1512,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long oooPartitionHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long txn,
             int prefixType,
             long prefixLo,
@@ -1541,6 +1558,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         oooPartitionHi,
                         srcDataTop,
                         srcDataMax,
+                        dedupRowCount,
                         txn,
                         prefixType,
                         prefixLo,
@@ -1582,6 +1600,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         oooPartitionMax,
                         oooPartitionHi,
                         srcDataMax,
+                        dedupRowCount,
                         srcDataTop,
                         -activeFixFd,
                         srcTimestampFd,
@@ -1628,6 +1647,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long oooPartitionHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long txn,
             int prefixType,
             long prefixLo,
@@ -1743,6 +1763,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         oooPartitionHi,
                         srcDataTop,
                         srcDataMax,
+                        dedupRowCount,
                         txn,
                         prefixType,
                         prefixLo,
@@ -1821,6 +1842,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         oooPartitionMax,
                         oooPartitionHi,
                         srcDataMax,
+                        dedupRowCount,
                         srcDataTop,
                         srcDataFixFd,
                         srcTimestampFd,
@@ -1848,7 +1870,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
         }
     }
 
-    private static long getSrcDataTop(
+    static long getSrcDataTop(
             FilesFacade ff,
             Path path,
             int plen,
@@ -1892,6 +1914,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long oooPartitionMax,
             long oooPartitionHi,
             long srcDataMax,
+            long dedupRowCount,
             long srcDataTop,
             long srcDataFixFd,
             long srcTimestampFd,
@@ -1971,7 +1994,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
 
             pathToPartition.trimTo(pDirNameLen).concat(columnName).put(FILE_SUFFIX_D).$();
             dstFixFd = openRW(ff, pathToPartition, LOG);
-            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop) << shl;
+            dstFixSize = ((srcOooHi - srcOooLo + 1) + srcDataMax - srcDataTop - dedupRowCount) << shl;
             dstFixAddr = mapRW(ff, dstFixFd, dstFixSize, MemoryTag.MMAP_O3);
 
             // when prefix is "data" we need to reduce it by "srcDataTop"
@@ -2057,6 +2080,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 0,
                 srcDataTopOffset,
                 srcDataMax,
+                dedupRowCount,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -2115,6 +2139,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long oooPartitionHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long txn,
             int prefixType,
             long prefixLo,
@@ -2245,7 +2270,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             int pColNameLen = pathToPartition.length();
             pathToPartition.put(FILE_SUFFIX_I).$();
             dstFixFd = openRW(ff, pathToPartition, LOG);
-            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop + 1) * Long.BYTES;
+            dstFixSize = (srcOooHi - srcOooLo + 1 + srcDataMax - srcDataTop - dedupRowCount + 1) * Long.BYTES;
             dstFixAddr = mapRW(ff, dstFixFd, dstFixSize, MemoryTag.MMAP_O3);
 
             pathToPartition.trimTo(pColNameLen);
@@ -2353,6 +2378,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 srcDataVarSize,
                 srcDataTopOffset,
                 srcDataMax,
+                dedupRowCount,
                 srcOooFixAddr,
                 srcOooVarAddr,
                 srcOooLo,
@@ -2393,7 +2419,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
         );
     }
 
-    private static void setNull(int columnType, long addr, long count) {
+    static void setNull(int columnType, long addr, long count) {
         switch (ColumnType.tagOf(columnType)) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -2534,6 +2560,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                 0,
                 0,
                 srcDataMax,
+                0,
                 // this is new partition
                 srcOooFixAddr,
                 srcOooVarAddr,
@@ -2588,6 +2615,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
             long srcDataVarSize,
             long srcDataTopOffset,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -2647,6 +2675,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         0,
                         srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         srcOooFixAddr,
                         srcOooVarAddr,
                         prefixLo,
@@ -2699,6 +2728,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         prefixHi,
                         srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         0,
                         0,
                         0,
@@ -2754,6 +2784,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         srcDataVarSize,
                         0, 0, srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         srcOooFixAddr,
                         srcOooVarAddr,
                         mergeOOOLo,
@@ -2806,6 +2837,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataHi,
                         srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         0,
                         0,
                         0,
@@ -2858,6 +2890,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         mergeDataHi,
                         srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         srcOooFixAddr,
                         srcOooVarAddr,
                         mergeOOOLo,
@@ -2915,6 +2948,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         0,
                         srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         srcOooFixAddr,
                         srcOooVarAddr,
                         suffixLo,
@@ -2967,6 +3001,7 @@ public class O3OpenColumnJob extends AbstractQueueConsumerJob<O3OpenColumnTask>
                         suffixHi,
                         srcDataTopOffset,
                         srcDataMax,
+                        dedupRowCount,
                         0,
                         0,
                         0,
@@ -82,7 +82,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
         final RecordMetadata metadata = tableWriter.getMetadata();
         final int timestampIndex = metadata.getTimestampIndex();
         final Path path = Path.getThreadLocal(pathToTable);
-        TableUtils.setPathForPartition(path, partitionBy, o3TimestampLo, false);
+        TableUtils.setPathForPartitionPart(path, partitionBy, partitionTimestamp);
         final int pplen = path.length();
         TableUtils.txnPartitionConditionally(path, srcDataTxn);
         final int plen = path.length();
@@ -218,6 +218,9 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                 assert srcTimestampFd != -1 && srcTimestampFd != 1;
 
                 int branch;
+                // with dedup enabled O3 rows must be merged with data rows sharing their timestamp,
+                // rows with equal timestamps cannot be left behind in prefix or suffix
+                final long dedupTimestampAdj = tableWriter.isDedupEnabled() ? 1 : 0;
 
                 if (o3TimestampLo > dataTimestampLo) {
                     //   +------+
@@ -225,7 +228,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     //   |      |  | OOO |
                     //   |      |  |     |
 
-                    if (o3TimestampLo >= dataTimestampHi) {
+                    if (o3TimestampLo >= dataTimestampHi + dedupTimestampAdj) {
 
                         // +------+
                         // | data |
@@ -253,7 +256,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                         prefixLo = 0;
                         prefixHi = Vect.boundedBinarySearch64Bit(
                                 srcTimestampAddr,
-                                o3TimestampLo,
+                                o3TimestampLo - dedupTimestampAdj,
                                 0,
                                 srcDataMax - 1,
                                 BinarySearch.SCAN_DOWN
@@ -273,7 +276,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                             mergeO3Hi = srcOooHi;
                             mergeDataHi = Vect.boundedBinarySearch64Bit(
                                     srcTimestampAddr,
-                                    o3TimestampMax - 1,
+                                    o3TimestampMax - 1 + dedupTimestampAdj,
                                     mergeDataLo,
                                     srcDataMax - 1,
                                     BinarySearch.SCAN_DOWN
@@ -310,7 +313,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                                     dataTimestampHi,
                                     srcOooLo,
                                     srcOooHi,
-                                    BinarySearch.SCAN_UP
+                                    dedupTimestampAdj == 0 ? BinarySearch.SCAN_UP : BinarySearch.SCAN_DOWN
                             );
 
                             mergeDataHi = srcDataMax - 1;
@@ -345,7 +348,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
 
                     prefixType = O3_BLOCK_O3;
                     prefixLo = srcOooLo;
-                    if (dataTimestampLo < o3TimestampMax) {
+                    if (dataTimestampLo < o3TimestampMax + dedupTimestampAdj) {
 
                         //
                         //  +------+  | OOO |
@@ -353,13 +356,19 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                         //  |      |
 
                         mergeDataLo = 0;
-                        prefixHi = Vect.boundedBinarySearchIndexT(
-                                sortedTimestampsAddr,
-                                dataTimestampLo,
-                                srcOooLo,
-                                srcOooHi,
-                                BinarySearch.SCAN_DOWN
-                        );
+                        if (o3TimestampLo < dataTimestampLo || dedupTimestampAdj == 0) {
+                            prefixHi = Vect.boundedBinarySearchIndexT(
+                                    sortedTimestampsAddr,
+                                    dataTimestampLo - dedupTimestampAdj,
+                                    srcOooLo,
+                                    srcOooHi,
+                                    BinarySearch.SCAN_DOWN
+                            );
+                        } else {
+                            // with dedup the first O3 row shares timestamp with the first data row,
+                            // O3 prefix is empty
+                            prefixHi = srcOooLo - 1;
+                        }
                         mergeO3Lo = prefixHi + 1;
 
                         if (o3TimestampMax < dataTimestampHi) {
@@ -397,7 +406,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                             mergeDataHi = srcDataMax - 1;
                             mergeO3Hi = Vect.boundedBinarySearchIndexT(
                                     sortedTimestampsAddr,
-                                    dataTimestampHi - 1,
+                                    dataTimestampHi - 1 + dedupTimestampAdj,
                                     mergeO3Lo,
                                     srcOooHi,
                                     BinarySearch.SCAN_DOWN
@@ -613,6 +622,135 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
         return result;
     }
 
+    /**
+     * Removes data rows from the merge index when an O3 row carries the same designated timestamp
+     * and the same values of dedup key columns. O3 rows are always newer than rows already on disk,
+     * so they win. Index is compacted in place.
+     *
+     * @return number of data rows removed from the merge index
+     */
+    private static long dedupMergeIndex(
+            long mergeIndexAddr,
+            long mergeIndexCount,
+            ObjList<MemoryMAR> columns,
+            ObjList<MemoryCARW> oooColumns,
+            CharSequence pathToTable,
+            long partitionTimestamp,
+            long srcDataMax,
+            long srcDataTxn,
+            int openColumnMode,
+            TableWriter tableWriter,
+            LongList keys,
+            long tmpBuf
+    ) {
+        final FilesFacade ff = tableWriter.getFilesFacade();
+        final RecordMetadata metadata = tableWriter.getMetadata();
+        final IntList keyColumns = tableWriter.getDedupKeyColumns();
+        final boolean lastPartition = openColumnMode == OPEN_LAST_PARTITION_FOR_MERGE;
+        final int keyCount = keyColumns.size();
+        final Path path = Path.getThreadLocal(pathToTable);
+        setPathForPartitionPart(path, tableWriter.getPartitionBy(), partitionTimestamp);
+        txnPartitionConditionally(path, srcDataTxn);
+        final int plen = path.length();
+
+        // per key column: o3 address, data address, data mapping size, data fd, column top
+        keys.clear();
+        try {
+            for (int k = 0; k < keyCount; k++) {
+                final int columnIndex = keyColumns.getQuick(k);
+                final int shl = ColumnType.pow2SizeOf(metadata.getColumnType(columnIndex));
+                final long srcDataTop;
+                if (lastPartition) {
+                    srcDataTop = tableWriter.getColumnTop(columnIndex);
+                } else {
+                    srcDataTop = getSrcDataTop(ff, path, plen, metadata.getColumnName(columnIndex), srcDataMax, tmpBuf);
+                }
+                final long size = (srcDataMax - srcDataTop) << shl;
+                final int p = keys.size();
+                keys.add(oooColumns.getQuick(getPrimaryColumnIndex(columnIndex)).addressOf(0));
+                keys.add(0);
+                keys.add(0);
+                keys.add(-1);
+                keys.add(srcDataTop);
+                if (size > 0) {
+                    final long fd;
+                    if (lastPartition) {
+                        // the active partition file is owned by the writer, we only borrow its descriptor
+                        fd = columns.getQuick(getPrimaryColumnIndex(columnIndex)).getFd();
+                    } else {
+                        fd = openRO(ff, dFile(path.trimTo(plen), metadata.getColumnName(columnIndex)), LOG);
+                        keys.setQuick(p + 3, fd);
+                    }
+                    keys.setQuick(p + 1, mapRO(ff, fd, size, MemoryTag.MMAP_O3));
+                    keys.setQuick(p + 2, size);
+                }
+            }
+
+            final long dataFlag = 1L << 63;
+            final long dedupFlag = 1L << 62;
+            long lo = 0;
+            while (lo < mergeIndexCount) {
+                final long ts = getTimestampIndexValue(mergeIndexAddr, lo);
+                long hi = lo + 1;
+                while (hi < mergeIndexCount && getTimestampIndexValue(mergeIndexAddr, hi) == ts) {
+                    hi++;
+                }
+                for (long i = lo; i < hi; i++) {
+                    final long o3Row = getTimestampIndexRow(mergeIndexAddr, i);
+                    if ((o3Row & dataFlag) != 0) {
+                        continue;
+                    }
+                    for (long j = lo; j < hi; j++) {
+                        final long dataRow = getTimestampIndexRow(mergeIndexAddr, j);
+                        if ((dataRow & dataFlag) == 0 || (dataRow & dedupFlag) != 0) {
+                            continue;
+                        }
+                        if (dedupKeysEqual(metadata, keyColumns, keys, o3Row, dataRow & ~dataFlag)) {
+                            Unsafe.getUnsafe().putLong(mergeIndexAddr + j * TIMESTAMP_MERGE_ENTRY_BYTES + Long.BYTES, dataRow | dedupFlag);
+                        }
+                    }
+                }
+                lo = hi;
+            }
+
+            long count = 0;
+            for (long i = 0; i < mergeIndexCount; i++) {
+                final long row = getTimestampIndexRow(mergeIndexAddr, i);
+                if ((row & dedupFlag) == 0) {
+                    if (count < i) {
+                        Vect.memcpy(
+                                mergeIndexAddr + i * TIMESTAMP_MERGE_ENTRY_BYTES,
+                                mergeIndexAddr + count * TIMESTAMP_MERGE_ENTRY_BYTES,
+                                TIMESTAMP_MERGE_ENTRY_BYTES
+                        );
+                    }
+                    count++;
+                }
+            }
+            return mergeIndexCount - count;
+        } finally {
+            for (int i = 0, n = keys.size(); i < n; i += 5) {
+                O3Utils.unmap(ff, keys.getQuick(i + 1), keys.getQuick(i + 2));
+                O3Utils.close(ff, keys.getQuick(i + 3));
+            }
+            keys.clear();
+        }
+    }
+
+    private static boolean dedupKeysEqual(RecordMetadata metadata, IntList keyColumns, LongList keys, long o3Row, long dataRow) {
+        for (int k = 0, n = keyColumns.size(); k < n; k++) {
+            final int columnType = metadata.getColumnType(keyColumns.getQuick(k));
+            final int shl = ColumnType.pow2SizeOf(columnType);
+            final int p = k * 5;
+            final long srcDataTop = keys.getQuick(p + 4);
+            final long dataAddr = dataRow < srcDataTop ? 0 : keys.getQuick(p + 1) + ((dataRow - srcDataTop) << shl);
+            if (!O3Utils.dedupKeyEquals(columnType, keys.getQuick(p) + (o3Row << shl), dataAddr)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static void publishOpenColumnTaskHarmonized(
             long cursor,
             int openColumnMode,
@@ -633,6 +771,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long partitionTimestamp,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcDataTxn,
             long txn,
             int prefixType,
@@ -675,6 +814,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                 partitionTimestamp,
                 srcDataTop,
                 srcDataMax,
+                dedupRowCount,
                 srcDataTxn,
                 txn,
                 prefixType,
@@ -739,6 +879,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
         LOG.debug().$("partition [ts=").$ts(oooTimestampLo).$(']').$();
 
         final long timestampMergeIndexAddr;
+        final long dedupRowCount;
         if (mergeType == O3_BLOCK_MERGE) {
             timestampMergeIndexAddr = createMergeIndex(
                     srcTimestampAddr,
@@ -748,8 +889,41 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     mergeOOOLo,
                     mergeOOOHi
             );
+            if (tableWriter.isDedupEnabled()) {
+                try {
+                    dedupRowCount = dedupMergeIndex(
+                            timestampMergeIndexAddr,
+                            mergeDataHi - mergeDataLo + 1 + mergeOOOHi - mergeOOOLo + 1,
+                            columns,
+                            oooColumns,
+                            pathToTable,
+                            partitionTimestamp,
+                            srcDataMax,
+                            srcDataTxn,
+                            openColumnMode,
+                            tableWriter,
+                            o3Basket.getDedupKeys(),
+                            tmpBuf
+                    );
+                } catch (Throwable e) {
+                    LOG.error().$("dedup error [table=").$(tableWriter.getTableName())
+                            .$(", e=").$(e)
+                            .I$();
+                    Vect.freeMergedIndex(timestampMergeIndexAddr);
+                    final FilesFacade ff = tableWriter.getFilesFacade();
+                    O3Utils.unmap(ff, srcTimestampAddr, srcTimestampSize);
+                    O3Utils.close(ff, srcTimestampFd);
+                    tableWriter.o3BumpErrorCount();
+                    tableWriter.o3ClockDownPartitionUpdateCount();
+                    tableWriter.o3CountDownDoneLatch();
+                    throw e;
+                }
+            } else {
+                dedupRowCount = 0;
+            }
         } else {
             timestampMergeIndexAddr = 0;
+            dedupRowCount = 0;
         }
 
         final RecordMetadata metadata = tableWriter.getMetadata();
@@ -820,6 +994,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                                 partitionTimestamp,
                                 srcDataTop,
                                 srcDataMax,
+                                dedupRowCount,
                                 srcDataTxn,
                                 txn,
                                 prefixType,
@@ -864,6 +1039,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                                 partitionTimestamp,
                                 srcDataTop,
                                 srcDataMax,
+                                dedupRowCount,
                                 srcDataTxn,
                                 txn,
                                 prefixType,
@@ -932,6 +1108,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
             long partitionTimestamp,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcDataTxn,
             long txn,
             int prefixType,
@@ -979,6 +1156,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     partitionTimestamp,
                     srcDataTop,
                     srcDataMax,
+                    dedupRowCount,
                     srcDataTxn,
                     txn,
                     prefixType,
@@ -1021,6 +1199,7 @@ public class O3PartitionJob extends AbstractQueueConsumerJob<O3PartitionTask> {
                     partitionTimestamp,
                     srcDataTop,
                     srcDataMax,
+                    dedupRowCount,
                     srcDataTxn,
                     txn,
                     prefixType,
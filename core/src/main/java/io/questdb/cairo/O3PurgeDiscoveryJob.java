@@ -84,7 +84,7 @@ public class O3PurgeDiscoveryJob extends AbstractQueueConsumerJob<O3PurgeDiscove
         Path path = Path.getThreadLocal(root);
         path.concat(tableName).slash$();
         sink.clear();
-        TableUtils.setSinkForPartition(sink, partitionBy, partitionTimestamp, false);
+        TableUtils.setSinkForPartitionPart(sink, partitionBy, partitionTimestamp);
         path.slash$();
 
         txnList.clear();
@@ -171,7 +171,9 @@ public class O3PurgeDiscoveryJob extends AbstractQueueConsumerJob<O3PurgeDiscove
     ) {
         if (type == Files.DT_DIR) {
             nativeLPSZ.of(name);
-            if (Chars.notDots(nativeLPSZ) && Chars.startsWith(nativeLPSZ, sink)) {
+            // names of partition parts start with the name of partition, dot has to follow the prefix
+            if (Chars.notDots(nativeLPSZ) && Chars.startsWith(nativeLPSZ, sink)
+                    && (nativeLPSZ.length() == sink.length() || nativeLPSZ.charAt(sink.length()) == '.')) {
                 // extract txn from name
                 int index = Chars.lastIndexOf(nativeLPSZ, '.');
                 if (index < 0) {
@@ -63,7 +63,7 @@ public class O3PurgeJob extends AbstractQueueConsumerJob<O3PurgeTask> {
                     .$(", minTxnToExpect=").$(minTxnToExpect)
                     .$(", nameTxnToRemove=").$(nameTxnToRemove)
                     .I$();
-            TableUtils.setPathForPartition(path, partitionBy, partitionTimestamp, false);
+            TableUtils.setPathForPartitionPart(path, partitionBy, partitionTimestamp);
             TableUtils.txnPartitionConditionally(path, nameTxnToRemove);
             path.slash$();
             if ((errno = ff.rmdir(path)) == 0) {
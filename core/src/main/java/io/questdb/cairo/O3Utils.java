@@ -28,6 +28,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.FilesFacade;
 import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
 import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
 
@@ -78,6 +79,81 @@ public class O3Utils {
         Vect.shiftCopyFixedSizeColumnData(shift, src, srcLo, srcHi, dstAddr);
     }
 
+    /**
+     * Compares values of a fixed-size dedup key column. Address of 0 stands for a row
+     * that sits above column top and therefore holds null.
+     */
+    static boolean dedupKeyEquals(int columnType, long addr1, long addr2) {
+        if (addr1 == 0) {
+            return addr2 == 0 || isDedupKeyNull(columnType, addr2);
+        }
+        if (addr2 == 0) {
+            return isDedupKeyNull(columnType, addr1);
+        }
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.GEOBYTE:
+                return Unsafe.getUnsafe().getByte(addr1) == Unsafe.getUnsafe().getByte(addr2);
+            case ColumnType.CHAR:
+            case ColumnType.SHORT:
+            case ColumnType.GEOSHORT:
+                return Unsafe.getUnsafe().getShort(addr1) == Unsafe.getUnsafe().getShort(addr2);
+            case ColumnType.SYMBOL:
+                final int k1 = Unsafe.getUnsafe().getInt(addr1);
+                final int k2 = Unsafe.getUnsafe().getInt(addr2);
+                return k1 == k2 || (k1 < 0 && k2 < 0);
+            case ColumnType.FLOAT:
+                return Float.floatToIntBits(Unsafe.getUnsafe().getFloat(addr1)) == Float.floatToIntBits(Unsafe.getUnsafe().getFloat(addr2));
+            case ColumnType.DOUBLE:
+                return Double.doubleToLongBits(Unsafe.getUnsafe().getDouble(addr1)) == Double.doubleToLongBits(Unsafe.getUnsafe().getDouble(addr2));
+            case ColumnType.LONG256:
+                return Unsafe.getUnsafe().getLong(addr1) == Unsafe.getUnsafe().getLong(addr2)
+                        && Unsafe.getUnsafe().getLong(addr1 + 8) == Unsafe.getUnsafe().getLong(addr2 + 8)
+                        && Unsafe.getUnsafe().getLong(addr1 + 16) == Unsafe.getUnsafe().getLong(addr2 + 16)
+                        && Unsafe.getUnsafe().getLong(addr1 + 24) == Unsafe.getUnsafe().getLong(addr2 + 24);
+            case ColumnType.INT:
+            case ColumnType.GEOINT:
+                return Unsafe.getUnsafe().getInt(addr1) == Unsafe.getUnsafe().getInt(addr2);
+            default:
+                return Unsafe.getUnsafe().getLong(addr1) == Unsafe.getUnsafe().getLong(addr2);
+        }
+    }
+
+    private static boolean isDedupKeyNull(int columnType, long addr) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                return Unsafe.getUnsafe().getByte(addr) == 0;
+            case ColumnType.GEOBYTE:
+                return Unsafe.getUnsafe().getByte(addr) == GeoHashes.BYTE_NULL;
+            case ColumnType.CHAR:
+            case ColumnType.SHORT:
+                return Unsafe.getUnsafe().getShort(addr) == 0;
+            case ColumnType.GEOSHORT:
+                return Unsafe.getUnsafe().getShort(addr) == GeoHashes.SHORT_NULL;
+            case ColumnType.SYMBOL:
+                return Unsafe.getUnsafe().getInt(addr) < 0;
+            case ColumnType.INT:
+                return Unsafe.getUnsafe().getInt(addr) == Numbers.INT_NaN;
+            case ColumnType.GEOINT:
+                return Unsafe.getUnsafe().getInt(addr) == GeoHashes.INT_NULL;
+            case ColumnType.FLOAT:
+                return Float.isNaN(Unsafe.getUnsafe().getFloat(addr));
+            case ColumnType.DOUBLE:
+                return Double.isNaN(Unsafe.getUnsafe().getDouble(addr));
+            case ColumnType.GEOLONG:
+                return Unsafe.getUnsafe().getLong(addr) == GeoHashes.NULL;
+            case ColumnType.LONG256:
+                return Unsafe.getUnsafe().getLong(addr) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(addr + 8) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(addr + 16) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(addr + 24) == Numbers.LONG_NaN;
+            default:
+                return Unsafe.getUnsafe().getLong(addr) == Numbers.LONG_NaN;
+        }
+    }
+
     static void copyFromTimestampIndex(
             long src,
             long srcLo,
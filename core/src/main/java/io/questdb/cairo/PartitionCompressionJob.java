@@ -0,0 +1,337 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.Map;
+
+/**
+ * Periodically compresses partitions of all tables, which are older than configured age. Age is measured
+ * from the end of the partition to the wall clock. Job compresses one partition per run, it copies the
+ * partition with its column data files compressed, see {@link PartitionCompressor}, while reader keeps the
+ * partition from being purged. Writer is not held while partition is compressed, copy is attached to the
+ * table by {@link TableWriter#attachCompressedPartition(long, long, long, long, CharSequence)} once the writer
+ * is free. Writer, which is held by ingestion, attaches the copy via {@link #attach(TableWriter)}.
+ */
+public class PartitionCompressionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionCompressionJob.class);
+    private static final String COPY_DIR_SUFFIX = ".compress";
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final long age;
+    private final int mkDirMode;
+    private final PartitionCompressor compressor;
+    // compressed copies waiting to be attached, one per table
+    private final ConcurrentHashMap<CompressedPartition> compressedPartitions = new ConcurrentHashMap<>();
+    private final Path rootPath = new Path();
+    private final Path path = new Path();
+    private final Path copyPath = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private long last = 0;
+    private long timestampHi;
+    private boolean compressed;
+
+    public PartitionCompressionJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+        this.age = configuration.getPartitionCompressionAge();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.compressor = new PartitionCompressor(configuration);
+    }
+
+    /**
+     * Attaches compressed copy of table partition, if there is one waiting. Called by the job and
+     * by owners of busy writers.
+     *
+     * @param writer writer of the table
+     * @return true when partition was replaced by its compressed copy
+     */
+    public boolean attach(TableWriter writer) {
+        final CompressedPartition partition = compressedPartitions.remove(writer.getTableName());
+        if (partition == null) {
+            return false;
+        }
+        try {
+            if (writer.attachCompressedPartition(
+                    partition.timestamp,
+                    partition.nameTxn,
+                    partition.size,
+                    partition.structureVersion,
+                    partition.copyDirName
+            )) {
+                LOG.info().$("attached compressed partition [table=").$(writer.getTableName())
+                        .$(", ts=").$ts(partition.timestamp)
+                        .I$();
+                return true;
+            }
+        } catch (CairoException e) {
+            LOG.error().$("could not attach compressed partition [table=").$(writer.getTableName())
+                    .$(", msg=").$(e.getFlyweightMessage())
+                    .$(", errno=").$(e.getErrno())
+                    .I$();
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        compressedPartitions.clear();
+        Misc.free(compressor);
+        Misc.free(rootPath);
+        Misc.free(path);
+        Misc.free(copyPath);
+    }
+
+    /**
+     * Compresses the oldest partition of the table, which ended before given timestamp and has
+     * uncompressed column files. Compressed copy is attached once table writer is free.
+     *
+     * @return true when partition was compressed
+     */
+    public boolean compressTable(CharSequence tableName, long timestampHi) {
+        if (compressedPartitions.get(tableName) != null) {
+            // previous copy is not attached yet
+            return false;
+        }
+        final TableReader reader;
+        try {
+            reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName);
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, partitions are not compressed [table=").$(tableName).$(']').$();
+            return false;
+        }
+        // reader keeps the partition from being purged while it is copied
+        try {
+            final int partitionBy = reader.getPartitionedBy();
+            if (partitionBy == PartitionBy.NONE) {
+                return false;
+            }
+            final Timestamps.TimestampCeilMethod ceilMethod = TableUtils.getPartitionCeil(partitionBy);
+            path.of(root).concat(tableName);
+            final int rootLen = path.length();
+            for (int i = 0, n = reader.getPartitionCount() - 1; i < n; i++) {
+                final long partitionTimestamp = reader.getPartitionTimestampByIndex(i);
+                if (ceilMethod.ceil(partitionTimestamp) > timestampHi) {
+                    break;
+                }
+                if (TableUtils.isPartitionPart(partitionBy, partitionTimestamp)
+                        || TableUtils.isPartitionPart(partitionBy, reader.getPartitionTimestampByIndex(i + 1))) {
+                    // parts are squashed by the writer before partition is compressed
+                    continue;
+                }
+                final long nameTxn = reader.getPartitionNameTxn(i);
+                TableUtils.setPathForPartitionPart(path.trimTo(rootLen), partitionBy, partitionTimestamp);
+                TableUtils.txnPartitionConditionally(path, nameTxn);
+                if (!ff.exists(path.$()) || !hasDataFiles(reader.getMetadata())) {
+                    // cold tier or compressed already
+                    continue;
+                }
+                final int copyDirLo = rootLen + 1;
+                copyPath.of(path).put(COPY_DIR_SUFFIX);
+                final String copyDirName = Chars.toString(copyPath, copyDirLo, copyPath.length());
+                copyPartition(reader.getMetadata());
+                compressedPartitions.put(
+                        Chars.toString(tableName),
+                        new CompressedPartition(partitionTimestamp, nameTxn, reader.getPartitionSize(i), reader.getVersion(), copyDirName)
+                );
+                LOG.info().$("compressed partition [table=").$(tableName).$(", ts=").$ts(partitionTimestamp).I$();
+                return true;
+            }
+            return false;
+        } finally {
+            path.trimTo(0);
+            reader.close();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (age < 1) {
+            return false;
+        }
+        final boolean attached = attachCompressedPartitions();
+        final long t = clock.getTicks();
+        // partitions are compressed one at a time, backlog is worked through without waiting for check interval
+        if (!compressed && last + checkInterval >= t) {
+            return attached;
+        }
+        last = t;
+        timestampHi = t - age;
+        compressed = false;
+        ff.iterateDir(rootPath.of(root).$(), (name, type) -> {
+            if (!compressed && type == Files.DT_DIR) {
+                nativeLPSZ.of(name);
+                if (!Chars.equals(nativeLPSZ, '.') && !Chars.equals(nativeLPSZ, "..")
+                        && TableUtils.exists(ff, path, root, nativeLPSZ) == TableUtils.TABLE_EXISTS) {
+                    try {
+                        compressed = compressTable(nativeLPSZ, timestampHi);
+                    } catch (CairoException e) {
+                        LOG.error().$("could not compress partition [table=").$(nativeLPSZ)
+                                .$(", msg=").$(e.getFlyweightMessage())
+                                .$(", errno=").$(e.getErrno())
+                                .I$();
+                    }
+                }
+            }
+        });
+        if (compressed) {
+            // writer is likely free, there is no need to wait for the next run
+            attachCompressedPartitions();
+        }
+        return attached || compressed;
+    }
+
+    private boolean attachCompressedPartitions() {
+        if (compressedPartitions.isEmpty()) {
+            return false;
+        }
+        boolean attached = false;
+        for (Map.Entry<CharSequence, CompressedPartition> e : compressedPartitions.entrySet()) {
+            final TableWriter writer;
+            try {
+                writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, e.getKey(), "partitionCompression");
+            } catch (EntryUnavailableException ex) {
+                // writer owner attaches the copy
+                continue;
+            } catch (CairoException ex) {
+                LOG.error().$("could not open writer, compressed copy is dropped [table=").$(e.getKey())
+                        .$(", msg=").$(ex.getFlyweightMessage())
+                        .I$();
+                compressedPartitions.remove(e.getKey());
+                continue;
+            }
+            try {
+                attached |= attach(writer);
+            } finally {
+                writer.close();
+            }
+        }
+        return attached;
+    }
+
+    // copies partition directory, column data files are compressed on the way
+    private void copyPartition(TableReaderMetadata metadata) {
+        final int plen = path.length();
+        final int copyLen = copyPath.length();
+        ff.rmdir(copyPath.slash$());
+        copyPath.trimTo(copyLen);
+        if (ff.mkdirs(copyPath.slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create [path=").put(copyPath).put(']');
+        }
+        copyPath.trimTo(copyLen);
+        try {
+            final long p = ff.findFirst(path.$());
+            if (p > 0) {
+                try {
+                    do {
+                        if (ff.findType(p) != Files.DT_FILE) {
+                            continue;
+                        }
+                        nativeLPSZ.of(ff.findName(p));
+                        final int columnIndex = getDataFileColumnIndex(metadata, nativeLPSZ);
+                        if (columnIndex > -1) {
+                            compressor.compress(
+                                    path.trimTo(plen),
+                                    copyPath.trimTo(copyLen),
+                                    metadata.getColumnName(columnIndex),
+                                    metadata.getColumnType(columnIndex),
+                                    metadata.getColumnCodec(columnIndex)
+                            );
+                        } else {
+                            path.trimTo(plen).concat(nativeLPSZ).$();
+                            copyPath.trimTo(copyLen).concat(nativeLPSZ).$();
+                            if (ff.copy(path, copyPath) < 0) {
+                                throw CairoException.instance(ff.errno()).put("could not copy [from=").put(path).put(", to=").put(copyPath).put(']');
+                            }
+                        }
+                    } while (ff.findNext(p) > 0);
+                } finally {
+                    ff.findClose(p);
+                }
+            }
+        } catch (Throwable e) {
+            ff.rmdir(copyPath.trimTo(copyLen).slash$());
+            throw e;
+        } finally {
+            path.trimTo(plen);
+            copyPath.trimTo(copyLen);
+        }
+    }
+
+    private boolean hasDataFiles(TableReaderMetadata metadata) {
+        final int plen = path.length();
+        try {
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (ff.exists(TableUtils.dFile(path.trimTo(plen), metadata.getColumnName(i)))) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private static int getDataFileColumnIndex(TableReaderMetadata metadata, CharSequence fileName) {
+        if (Chars.endsWith(fileName, TableUtils.FILE_SUFFIX_D)) {
+            return metadata.getColumnIndexQuiet(fileName, 0, fileName.length() - TableUtils.FILE_SUFFIX_D.length());
+        }
+        return -1;
+    }
+
+    private static class CompressedPartition {
+        private final long timestamp;
+        private final long nameTxn;
+        private final long size;
+        private final long structureVersion;
+        private final String copyDirName;
+
+        private CompressedPartition(long timestamp, long nameTxn, long size, long structureVersion, String copyDirName) {
+            this.timestamp = timestamp;
+            this.nameTxn = nameTxn;
+            this.size = size;
+            this.structureVersion = structureVersion;
+            this.copyDirName = copyDirName;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.codec.ColumnCodec;
+import io.questdb.cairo.codec.ColumnCodecs;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Compresses column data files of cold partitions and restores them back. Compressed file,
+ * {@code <column>.dz}, replaces {@code <column>.d} and is made of independently compressed blocks,
+ * which allows readers to decompress only the blocks they need. Blocks are deflated, unless the
+ * column has a codec, see {@link ColumnCodecs}, in which case they are encoded by the codec.
+ * Layout of the file is:
+ * <pre>
+ *     uncompressed size, 8 bytes
+ *     block size, 8 bytes
+ *     block count, 8 bytes
+ *     codec id, 4 bytes
+ *     power of 2 size of column values, 4 bytes
+ *     offsets of blocks, (block count + 1) * 8 bytes, the last offset is the end of the last block
+ *     compressed blocks
+ * </pre>
+ * Both conversions write a temporary file and rename it in place before the source file is removed,
+ * so that at any time one of the files is complete.
+ */
+public class PartitionCompressor implements Closeable {
+    public static final int HEADER_SIZE = 32;
+    private static final Log LOG = LogFactory.getLog(PartitionCompressor.class);
+    private static final int OUT_BUF_SIZE = 64 * 1024;
+    private final FilesFacade ff;
+    private final long blockSize;
+    private final Path other = new Path();
+    private long deflateStream = 0;
+    private long outBuf = 0;
+    private long encodeBuf = 0;
+    private long encodeBufSize = 0;
+
+    public PartitionCompressor(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        // codecs expect blocks to hold whole values
+        this.blockSize = Math.max(8, configuration.getPartitionCompressionBlockSize() & ~7L);
+    }
+
+    /**
+     * Decompresses blocks of compressed file into contiguous memory. Blocks are placed at their
+     * uncompressed offsets, dst must have enough capacity for the last block.
+     *
+     * @param address address of mapped compressed file
+     * @param dst     address of uncompressed data
+     * @param blockLo first block to decompress
+     * @param blockHi block past the last one to decompress
+     */
+    public static void decode(long address, long dst, long blockLo, long blockHi) {
+        final ColumnCodec codec = ColumnCodecs.get(getCodec(address));
+        if (codec == null) {
+            final long strm = inflateInit();
+            try {
+                inflate(strm, address, dst, blockLo, blockHi);
+            } finally {
+                Zip.inflateEnd(strm);
+            }
+            return;
+        }
+        final long uncompressedSize = getUncompressedSize(address);
+        final long blockSize = getBlockSize(address);
+        final int sizePow2 = getValueSizePow2(address);
+        for (long block = blockLo; block < blockHi; block++) {
+            final long lo = Unsafe.getUnsafe().getLong(address + HEADER_SIZE + block * 8);
+            final long hi = Unsafe.getUnsafe().getLong(address + HEADER_SIZE + block * 8 + 8);
+            final long offset = block * blockSize;
+            final long len = Math.min(blockSize, uncompressedSize - offset);
+            codec.decode(address + lo, hi - lo, len >> sizePow2, sizePow2, dst + offset);
+        }
+    }
+
+    public static long getBlockCount(long address) {
+        return Unsafe.getUnsafe().getLong(address + 16);
+    }
+
+    public static long getBlockSize(long address) {
+        return Unsafe.getUnsafe().getLong(address + 8);
+    }
+
+    public static int getCodec(long address) {
+        return Unsafe.getUnsafe().getInt(address + 24);
+    }
+
+    public static long getUncompressedSize(long address) {
+        return Unsafe.getUnsafe().getLong(address);
+    }
+
+    public static int getValueSizePow2(long address) {
+        return Unsafe.getUnsafe().getInt(address + 28);
+    }
+
+    public static boolean isCompressed(FilesFacade ff, Path path, CharSequence columnName) {
+        final int plen = path.length();
+        try {
+            return ff.exists(TableUtils.dzFile(path, columnName));
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private static void inflate(long strm, long address, long dst, long blockLo, long blockHi) {
+        final long uncompressedSize = getUncompressedSize(address);
+        final long blockSize = getBlockSize(address);
+        for (long block = blockLo; block < blockHi; block++) {
+            final long lo = Unsafe.getUnsafe().getLong(address + HEADER_SIZE + block * 8);
+            final long hi = Unsafe.getUnsafe().getLong(address + HEADER_SIZE + block * 8 + 8);
+            final long offset = block * blockSize;
+            final int len = (int) Math.min(blockSize, uncompressedSize - offset);
+            Zip.inflateReset(strm);
+            Zip.setInput(strm, address + lo, (int) (hi - lo));
+            final int ret = Zip.inflate(strm, dst + offset, len, true);
+            if (ret != len) {
+                throw CairoException.instance(0).put("could not inflate column block [block=").put(block).put(", ret=").put(ret).put(']');
+            }
+        }
+    }
+
+    private static long inflateInit() {
+        final long strm = Zip.inflateInit(true);
+        if (strm < 0) {
+            throw CairoException.instance(0).put("could not initialize inflater [ret=").put(strm).put(']');
+        }
+        return strm;
+    }
+
+    @Override
+    public void close() {
+        if (deflateStream != 0) {
+            Zip.deflateEnd(deflateStream);
+            deflateStream = 0;
+        }
+        if (outBuf != 0) {
+            Unsafe.free(outBuf, OUT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+            outBuf = 0;
+        }
+        if (encodeBuf != 0) {
+            Unsafe.free(encodeBuf, encodeBufSize, MemoryTag.NATIVE_DEFAULT);
+            encodeBuf = 0;
+            encodeBufSize = 0;
+        }
+        Misc.free(other);
+    }
+
+    /**
+     * Replaces data file of the column with its compressed version.
+     *
+     * @param path       path to partition directory
+     * @param columnName name of the column
+     * @param columnType type of the column
+     * @param codecId    codec of the column, codecs not supported by the column type fall back to deflate
+     */
+    public void compress(Path path, CharSequence columnName, int columnType, int codecId) {
+        final int plen = path.length();
+        compress(path, path, columnName, columnType, codecId);
+        removeOrLog(TableUtils.dFile(path.trimTo(plen), columnName));
+        path.trimTo(plen);
+    }
+
+    /**
+     * Writes compressed version of the column data file into another directory, data file is kept.
+     *
+     * @param srcPath    path to directory of the data file
+     * @param dstPath    path to directory of the compressed file
+     * @param columnName name of the column
+     * @param columnType type of the column
+     * @param codecId    codec of the column, codecs not supported by the column type fall back to deflate
+     */
+    public void compress(Path srcPath, Path dstPath, CharSequence columnName, int columnType, int codecId) {
+        final int srcLen = srcPath.length();
+        final int dstLen = dstPath.length();
+        long srcFd = -1;
+        long srcSize = 0;
+        long src = 0;
+        long dstFd = -1;
+        long header = 0;
+        long headerSize = 0;
+        try {
+            srcFd = TableUtils.openRO(ff, TableUtils.dFile(srcPath.trimTo(srcLen), columnName), LOG);
+            srcSize = ff.length(srcFd);
+            if (srcSize > 0) {
+                src = TableUtils.mapRO(ff, srcFd, srcSize, MemoryTag.MMAP_DEFAULT);
+            }
+            final long blockCount = (srcSize + blockSize - 1) / blockSize;
+            headerSize = HEADER_SIZE + (blockCount + 1) * 8;
+            header = Unsafe.malloc(headerSize, MemoryTag.NATIVE_DEFAULT);
+            Unsafe.getUnsafe().putLong(header, srcSize);
+            Unsafe.getUnsafe().putLong(header + 8, blockSize);
+            Unsafe.getUnsafe().putLong(header + 16, blockCount);
+
+            final ColumnCodec codec = ColumnType.isVariableLength(columnType) || !ColumnCodecs.isSupported(codecId, columnType)
+                    ? null
+                    : ColumnCodecs.get(codecId);
+            final int sizePow2 = ColumnType.isVariableLength(columnType) ? 0 : ColumnType.pow2SizeOf(columnType);
+            Unsafe.getUnsafe().putInt(header + 24, codec != null ? codec.getId() : ColumnCodecs.NONE);
+            Unsafe.getUnsafe().putInt(header + 28, sizePow2);
+
+            final LPSZ tmp = tmpFile(dstPath.trimTo(dstLen), columnName, TableUtils.FILE_SUFFIX_DZ);
+            dstFd = TableUtils.openRW(ff, tmp, LOG);
+            if (!ff.truncate(dstFd, 0)) {
+                throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(tmp).put(']');
+            }
+
+            final long offset = codec != null
+                    ? encodeBlocks(codec, sizePow2, src, srcSize, blockCount, header, dstFd, headerSize)
+                    : deflateBlocks(src, srcSize, blockCount, header, dstFd, headerSize, tmp);
+            Unsafe.getUnsafe().putLong(header + HEADER_SIZE + blockCount * 8, offset);
+            write(dstFd, header, headerSize, 0);
+            ff.fsync(dstFd);
+            ff.close(dstFd);
+            dstFd = -1;
+
+            renameTmpOrFail(TableUtils.dzFile(dstPath.trimTo(dstLen), columnName));
+            LOG.info().$("compressed [path=").$(dstPath).$(", size=").$(srcSize).$(", compressedSize=").$(offset).I$();
+        } finally {
+            if (header != 0) {
+                Unsafe.free(header, headerSize, MemoryTag.NATIVE_DEFAULT);
+            }
+            if (dstFd != -1) {
+                ff.close(dstFd);
+            }
+            if (src != 0) {
+                ff.munmap(src, srcSize, MemoryTag.MMAP_DEFAULT);
+            }
+            if (srcFd != -1) {
+                ff.close(srcFd);
+            }
+            srcPath.trimTo(srcLen);
+            dstPath.trimTo(dstLen);
+        }
+    }
+
+    /**
+     * Restores data file of the column from its compressed version.
+     *
+     * @param path       path to partition directory
+     * @param columnName name of the column
+     */
+    public void decompress(Path path, CharSequence columnName) {
+        final int plen = path.length();
+        long srcFd = -1;
+        long srcSize = 0;
+        long src = 0;
+        long dstFd = -1;
+        long dstSize = 0;
+        long dst = 0;
+        try {
+            srcFd = TableUtils.openRO(ff, TableUtils.dzFile(path.trimTo(plen), columnName), LOG);
+            srcSize = ff.length(srcFd);
+            if (srcSize < HEADER_SIZE) {
+                throw CairoException.instance(0).put("compressed column file is too small [file=").put(path).put(']');
+            }
+            src = TableUtils.mapRO(ff, srcFd, srcSize, MemoryTag.MMAP_DEFAULT);
+            dstSize = getUncompressedSize(src);
+
+            final LPSZ tmp = tmpFile(path.trimTo(plen), columnName, TableUtils.FILE_SUFFIX_D);
+            dstFd = TableUtils.openRW(ff, tmp, LOG);
+            if (!ff.truncate(dstFd, 0)) {
+                throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(tmp).put(']');
+            }
+            if (dstSize > 0) {
+                dst = TableUtils.mapRW(ff, dstFd, dstSize, MemoryTag.MMAP_DEFAULT);
+                decode(src, dst, 0, getBlockCount(src));
+                ff.msync(dst, dstSize, false);
+                ff.munmap(dst, dstSize, MemoryTag.MMAP_DEFAULT);
+                dst = 0;
+            }
+            ff.close(dstFd);
+            dstFd = -1;
+
+            renameTmpOrFail(TableUtils.dFile(path.trimTo(plen), columnName));
+            LOG.info().$("decompressed [path=").$(path).$(", size=").$(dstSize).I$();
+        } finally {
+            if (dst != 0) {
+                ff.munmap(dst, dstSize, MemoryTag.MMAP_DEFAULT);
+            }
+            if (dstFd != -1) {
+                ff.close(dstFd);
+            }
+            if (src != 0) {
+                ff.munmap(src, srcSize, MemoryTag.MMAP_DEFAULT);
+            }
+            if (srcFd != -1) {
+                ff.close(srcFd);
+            }
+            path.trimTo(plen);
+        }
+        removeOrLog(TableUtils.dzFile(path.trimTo(plen), columnName));
+        path.trimTo(plen);
+    }
+
+    private long deflateBlocks(long src, long srcSize, long blockCount, long header, long dstFd, long offset, LPSZ tmp) {
+        final long strm = deflateStream();
+        final long buf = outBuf();
+        for (long block = 0; block < blockCount; block++) {
+            Unsafe.getUnsafe().putLong(header + HEADER_SIZE + block * 8, offset);
+            final long lo = block * blockSize;
+            Zip.deflateReset(strm);
+            Zip.setInput(strm, src + lo, (int) Math.min(blockSize, srcSize - lo));
+            int ret;
+            do {
+                ret = Zip.deflate(strm, buf, OUT_BUF_SIZE, true);
+                if (ret < 0) {
+                    throw CairoException.instance(0).put("could not deflate [file=").put(tmp).put(", ret=").put(ret).put(']');
+                }
+                offset += write(dstFd, buf, OUT_BUF_SIZE - Zip.availOut(strm), offset);
+            } while (ret != Zip.Z_STREAM_END);
+        }
+        return offset;
+    }
+
+    private long deflateStream() {
+        if (deflateStream == 0) {
+            final long strm = Zip.deflateInit();
+            if (strm < 0) {
+                throw CairoException.instance(0).put("could not initialize deflater [ret=").put(strm).put(']');
+            }
+            deflateStream = strm;
+        }
+        return deflateStream;
+    }
+
+    private long encodeBlocks(ColumnCodec codec, int sizePow2, long src, long srcSize, long blockCount, long header, long dstFd, long offset) {
+        final long maxEncodedSize = codec.getMaxEncodedSize(blockSize >> sizePow2, sizePow2);
+        if (encodeBufSize < maxEncodedSize) {
+            encodeBuf = Unsafe.realloc(encodeBuf, encodeBufSize, maxEncodedSize, MemoryTag.NATIVE_DEFAULT);
+            encodeBufSize = maxEncodedSize;
+        }
+        for (long block = 0; block < blockCount; block++) {
+            Unsafe.getUnsafe().putLong(header + HEADER_SIZE + block * 8, offset);
+            final long lo = block * blockSize;
+            final long valueCount = Math.min(blockSize, srcSize - lo) >> sizePow2;
+            offset += write(dstFd, encodeBuf, codec.encode(src + lo, valueCount, sizePow2, encodeBuf), offset);
+        }
+        return offset;
+    }
+
+    private long outBuf() {
+        if (outBuf == 0) {
+            outBuf = Unsafe.malloc(OUT_BUF_SIZE, MemoryTag.NATIVE_DEFAULT);
+        }
+        return outBuf;
+    }
+
+    private void removeOrLog(LPSZ name) {
+        // readers may still have the file open, on Windows it will be removed
+        // by the next conversion of the column
+        if (!ff.remove(name)) {
+            LOG.error().$("could not remove [file=").$(name).$(", errno=").$(ff.errno()).I$();
+        }
+    }
+
+    private void renameTmpOrFail(LPSZ to) {
+        if (!ff.rename(other, to)) {
+            throw CairoException.instance(ff.errno()).put("could not rename [from=").put(other).put(", to=").put(to).put(']');
+        }
+    }
+
+    private LPSZ tmpFile(Path path, CharSequence columnName, CharSequence suffix) {
+        return other.of(path).concat(columnName).put(suffix).put(".tmp").$();
+    }
+
+    private long write(long fd, long address, long len, long offset) {
+        if (len > 0 && ff.write(fd, address, len, offset) != len) {
+            throw CairoException.instance(ff.errno()).put("could not write [fd=").put(fd).put(", len=").put(len).put(']');
+        }
+        return len;
+    }
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Copies row ranges of partition directories into new partition directory. Rows of sources are
+ * concatenated in the order sources are given, which is how out-of-order writes move the newer rows of
+ * partition into partition part and how parts are squashed back into single directory. Sources must be
+ * decompressed and reside in table root.
+ * <p>
+ * Leading nulls of destination column become its column top, column that has no values in any of the
+ * copied rows is not written at all. Bitmap indexes are not copied, they have to be built by the caller.
+ */
+public class PartitionRowCopier implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionRowCopier.class);
+    private final FilesFacade ff;
+    private final int mkDirMode;
+    private final long appendPageSize;
+    private final Path srcPath = new Path();
+    private final Path dstPath = new Path();
+    private final MemoryMR srcFixMem = Vm.getMRInstance();
+    private final MemoryMR srcVarMem = Vm.getMRInstance();
+    private final MemoryCMARW dstFixMem = Vm.getCMARWInstance();
+    private final MemoryCMARW dstVarMem = Vm.getCMARWInstance();
+    private final LongList tops = new LongList();
+    private long tmpBuf;
+
+    public PartitionRowCopier(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.appendPageSize = configuration.getDataAppendPageSize();
+        this.tmpBuf = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(srcPath);
+        Misc.free(dstPath);
+        if (tmpBuf != 0) {
+            Unsafe.free(tmpBuf, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            tmpBuf = 0;
+        }
+    }
+
+    /**
+     * Copies rows into partition directory, which is created from scratch. Directory is removed when copy fails.
+     *
+     * @param root         table root
+     * @param partitionBy  partitioning of the table
+     * @param metadata     table metadata
+     * @param sources      quadruples of partition timestamp, partition name txn, first row to copy and the row after the last one
+     * @param dstTimestamp timestamp of destination partition or partition part
+     * @param dstNameTxn   name txn of destination partition
+     * @return number of copied rows
+     */
+    public long copy(CharSequence root, int partitionBy, RecordMetadata metadata, LongList sources, long dstTimestamp, long dstNameTxn) {
+        dstPath.of(root);
+        TableUtils.setPathForPartitionPart(dstPath, partitionBy, dstTimestamp);
+        TableUtils.txnPartitionConditionally(dstPath, dstNameTxn);
+        final int dplen = dstPath.length();
+        if (ff.exists(dstPath.slash$())) {
+            // leftover of copy that did not complete
+            ff.rmdir(dstPath);
+        }
+        dstPath.trimTo(dplen);
+        if (ff.mkdirs(dstPath.slash$(), mkDirMode) != 0) {
+            throw CairoException.instance(ff.errno()).put("could not create directory [path=").put(dstPath).put(']');
+        }
+        long rowCount = 0;
+        for (int i = 0, n = sources.size(); i < n; i += 4) {
+            rowCount += sources.getQuick(i + 3) - sources.getQuick(i + 2);
+        }
+        try {
+            for (int columnIndex = 0, n = metadata.getColumnCount(); columnIndex < n; columnIndex++) {
+                copyColumn(root, partitionBy, metadata.getColumnName(columnIndex), metadata.getColumnType(columnIndex), sources, dplen);
+            }
+        } catch (Throwable e) {
+            LOG.error().$("could not copy partition rows [path=").$(dstPath.trimTo(dplen)).$(", e=").$(e).I$();
+            srcFixMem.close();
+            srcVarMem.close();
+            dstFixMem.close(false);
+            dstVarMem.close(false);
+            ff.rmdir(dstPath.trimTo(dplen).slash$());
+            throw e;
+        }
+        return rowCount;
+    }
+
+    private void copyColumn(CharSequence root, int partitionBy, CharSequence columnName, int columnType, LongList sources, int dplen) {
+        // leading rows of destination, which are null, become column top
+        long dstTop = 0;
+        boolean hasValues = false;
+        tops.clear();
+        for (int i = 0, n = sources.size(); i < n; i += 4) {
+            final int plen = setSrcPath(root, partitionBy, sources, i);
+            final long lo = sources.getQuick(i + 2);
+            final long hi = sources.getQuick(i + 3);
+            final long top = Math.min(O3OpenColumnJob.getSrcDataTop(ff, srcPath, plen, columnName, hi, tmpBuf), hi);
+            tops.add(top);
+            if (!hasValues) {
+                dstTop += Math.max(0, Math.min(top, hi) - lo);
+                hasValues = top < hi;
+            }
+        }
+        if (!hasValues) {
+            return;
+        }
+
+        final boolean varSize = ColumnType.isVariableLength(columnType);
+        final int shl = varSize ? 3 : ColumnType.pow2SizeOf(columnType);
+        try {
+            if (varSize) {
+                dstFixMem.of(ff, TableUtils.iFile(dstPath.trimTo(dplen), columnName), appendPageSize, MemoryTag.MMAP_TABLE_WRITER);
+                dstVarMem.of(ff, TableUtils.dFile(dstPath.trimTo(dplen), columnName), appendPageSize, MemoryTag.MMAP_TABLE_WRITER);
+            } else {
+                dstFixMem.of(ff, TableUtils.dFile(dstPath.trimTo(dplen), columnName), appendPageSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+
+            long dstRow = 0;
+            for (int i = 0, n = sources.size(); i < n; i += 4) {
+                final long lo = sources.getQuick(i + 2);
+                final long hi = sources.getQuick(i + 3);
+                final long top = tops.getQuick(i / 4);
+                final long nullCount = Math.max(0, Math.min(top, hi) - lo);
+                if (nullCount > 0) {
+                    final long skip = Math.min(nullCount, Math.max(0, dstTop - dstRow));
+                    putNulls(columnType, shl, nullCount - skip);
+                    dstRow += nullCount;
+                }
+                final long valueLo = Math.max(lo, top);
+                if (valueLo < hi) {
+                    final int plen = setSrcPath(root, partitionBy, sources, i);
+                    if (varSize) {
+                        copyVarRows(columnName, plen, valueLo - top, hi - top);
+                    } else {
+                        copyFixRows(columnName, shl, plen, valueLo - top, hi - top);
+                    }
+                    dstRow += hi - valueLo;
+                }
+            }
+            if (varSize) {
+                // offset of the end of the last value
+                dstFixMem.putLong(dstVarMem.getAppendOffset());
+            }
+        } finally {
+            srcFixMem.close();
+            srcVarMem.close();
+            dstFixMem.close(true);
+            dstVarMem.close(true);
+        }
+
+        if (dstTop > 0) {
+            TableUtils.topFile(dstPath.trimTo(dplen), columnName);
+            final long fd = TableUtils.openRW(ff, dstPath, LOG);
+            try {
+                Unsafe.getUnsafe().putLong(tmpBuf, dstTop);
+                if (ff.write(fd, tmpBuf, Long.BYTES, 0) != Long.BYTES) {
+                    throw CairoException.instance(ff.errno()).put("could not write top file [path=").put(dstPath).put(']');
+                }
+            } finally {
+                ff.close(fd);
+            }
+        }
+        dstPath.trimTo(dplen);
+    }
+
+    private void copyFixRows(CharSequence columnName, int shl, int plen, long rowLo, long rowHi) {
+        final long size = rowHi << shl;
+        srcFixMem.of(ff, TableUtils.dFile(srcPath.trimTo(plen), columnName), size, size, MemoryTag.MMAP_TABLE_WRITER);
+        dstFixMem.putBlockOfBytes(srcFixMem.addressOf(rowLo << shl), (rowHi - rowLo) << shl);
+    }
+
+    private void copyVarRows(CharSequence columnName, int plen, long rowLo, long rowHi) {
+        // index file holds offset of each value followed by the end offset of the last value
+        final long indexSize = (rowHi + 1) << 3;
+        srcFixMem.of(ff, TableUtils.iFile(srcPath.trimTo(plen), columnName), indexSize, indexSize, MemoryTag.MMAP_TABLE_WRITER);
+        final long offsetLo = srcFixMem.getLong(rowLo << 3);
+        final long offsetHi = srcFixMem.getLong(rowHi << 3);
+        final long dstOffset = dstVarMem.getAppendOffset();
+        if (offsetHi > offsetLo) {
+            srcVarMem.of(ff, TableUtils.dFile(srcPath.trimTo(plen), columnName), offsetHi, offsetHi, MemoryTag.MMAP_TABLE_WRITER);
+            dstVarMem.putBlockOfBytes(srcVarMem.addressOf(offsetLo), offsetHi - offsetLo);
+        }
+        final long count = rowHi - rowLo;
+        O3Utils.shiftCopyFixedSizeColumnData(
+                offsetLo - dstOffset,
+                srcFixMem.addressOf(rowLo << 3),
+                0,
+                count - 1,
+                dstFixMem.appendAddressFor(count << 3)
+        );
+    }
+
+    private void putNulls(int columnType, int shl, long count) {
+        if (count < 1) {
+            return;
+        }
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.STRING:
+                for (long i = 0; i < count; i++) {
+                    dstFixMem.putLong(dstVarMem.putNullStr() - Vm.STRING_LENGTH_BYTES);
+                }
+                break;
+            case ColumnType.BINARY:
+                for (long i = 0; i < count; i++) {
+                    dstFixMem.putLong(dstVarMem.putNullBin() - Long.BYTES);
+                }
+                break;
+            default:
+                O3OpenColumnJob.setNull(columnType, dstFixMem.appendAddressFor(count << shl), count);
+                break;
+        }
+    }
+
+    private int setSrcPath(CharSequence root, int partitionBy, LongList sources, int index) {
+        srcPath.of(root);
+        TableUtils.setPathForPartitionPart(srcPath, partitionBy, sources.getQuick(index));
+        TableUtils.txnPartitionConditionally(srcPath, sources.getQuick(index + 1));
+        return srcPath.length();
+    }
+}
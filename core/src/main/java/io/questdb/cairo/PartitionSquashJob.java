@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Periodically squashes parts of partitions of all tables back into single partition directory,
+ * see {@link TableWriter#squashPartitions(long)}. Partition is squashed once it ends before max timestamp
+ * of the table minus configured lag, which is when out-of-order commits are unlikely to modify it again.
+ * Tables, writers of which are busy, are retried on the next run.
+ */
+public class PartitionSquashJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionSquashJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final long lag;
+    private final boolean enabled;
+    private final Path rootPath = new Path();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private long last = 0;
+    private boolean useful;
+
+    public PartitionSquashJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+        this.lag = configuration.getO3PartitionSquashLag();
+        this.enabled = configuration.getO3PartitionSplitMinSize() > 0;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(rootPath);
+        Misc.free(path);
+    }
+
+    /**
+     * Squashes parts of partitions of the table, which ended at least lag before max timestamp of the table.
+     *
+     * @return true when any partitions were squashed or purged from table root
+     */
+    public boolean squashTable(CharSequence tableName) {
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, "partitionSquash");
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, partitions are not squashed [table=").$(tableName).$(']').$();
+            return false;
+        }
+        try {
+            final int pending = writer.purgeRemovedPartitions();
+            final long maxTimestamp = writer.getMaxTimestamp();
+            final int count = maxTimestamp == Numbers.LONG_NaN ? 0 : writer.squashPartitions(maxTimestamp - lag);
+            if (count > 0) {
+                LOG.info().$("squashed partitions [table=").$(tableName).$(", count=").$(count).$(']').$();
+            }
+            return count > 0 || pending > writer.purgeRemovedPartitions();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (!enabled) {
+            return false;
+        }
+        final long t = clock.getTicks();
+        if (last + checkInterval >= t) {
+            return false;
+        }
+        last = t;
+        useful = false;
+        ff.iterateDir(rootPath.of(root).$(), (name, type) -> {
+            if (type == Files.DT_DIR) {
+                nativeLPSZ.of(name);
+                if (!Chars.equals(nativeLPSZ, '.') && !Chars.equals(nativeLPSZ, "..")
+                        && TableUtils.exists(ff, path, root, nativeLPSZ) == TableUtils.TABLE_EXISTS) {
+                    try {
+                        useful |= squashTable(Chars.toString(nativeLPSZ));
+                    } catch (CairoException e) {
+                        LOG.error().$("could not squash partitions [table=").$(nativeLPSZ)
+                                .$(", msg=").$(e.getFlyweightMessage())
+                                .$(", errno=").$(e.getErrno())
+                                .I$();
+                    }
+                }
+            }
+        });
+        return useful;
+    }
+}
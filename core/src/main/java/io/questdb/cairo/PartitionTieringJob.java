@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Periodically relocates partitions of all tables, which are older than configured age, from
+ * table root to cold root, see {@link TableWriter#relocatePartitions(long)}. Age is measured from the end
+ * of the partition to the wall clock. Tables, writers of which are busy, are retried on the next run.
+ */
+public class PartitionTieringJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionTieringJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final long age;
+    private final boolean enabled;
+    private final Path rootPath = new Path();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private long last = 0;
+    private long timestampHi;
+    private boolean useful;
+
+    public PartitionTieringJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+        this.age = configuration.getPartitionColdAge();
+        this.enabled = configuration.getColdRoot() != null && age > 0;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(rootPath);
+        Misc.free(path);
+    }
+
+    /**
+     * Relocates partitions of the table, which ended before given timestamp, to cold root.
+     *
+     * @return true when any partitions were relocated or purged from table root
+     */
+    public boolean relocateTable(CharSequence tableName, long timestampHi) {
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, "partitionTiering");
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, partitions are not relocated [table=").$(tableName).$(']').$();
+            return false;
+        }
+        try {
+            final int pending = writer.purgeRemovedPartitions();
+            final int count = writer.relocatePartitions(timestampHi);
+            if (count > 0) {
+                LOG.info().$("relocated partitions [table=").$(tableName).$(", count=").$(count).$(']').$();
+            }
+            return count > 0 || pending > writer.purgeRemovedPartitions();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (!enabled) {
+            return false;
+        }
+        final long t = clock.getTicks();
+        if (last + checkInterval >= t) {
+            return false;
+        }
+        last = t;
+        timestampHi = t - age;
+        useful = false;
+        ff.iterateDir(rootPath.of(root).$(), (name, type) -> {
+            if (type == Files.DT_DIR) {
+                nativeLPSZ.of(name);
+                if (!Chars.equals(nativeLPSZ, '.') && !Chars.equals(nativeLPSZ, "..")
+                        && TableUtils.exists(ff, path, root, nativeLPSZ) == TableUtils.TABLE_EXISTS) {
+                    try {
+                        useful |= relocateTable(Chars.toString(nativeLPSZ), timestampHi);
+                    } catch (CairoException e) {
+                        LOG.error().$("could not relocate partitions [table=").$(nativeLPSZ)
+                                .$(", msg=").$(e.getFlyweightMessage())
+                                .$(", errno=").$(e.getErrno())
+                                .I$();
+                    }
+                }
+            }
+        });
+        return useful;
+    }
+}
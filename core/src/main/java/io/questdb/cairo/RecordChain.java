@@ -49,7 +49,15 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private RecordCursor symbolTableResolver;
 
     public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages) {
-        this.mem = Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN);
+        this(columnTypes, recordSink, Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_RECORD_CHAIN));
+    }
+
+    /**
+     * Creates record chain on top of externally provided memory, for example memory mapped file.
+     * Chain takes ownership of the memory and closes it when chain is cleared or closed.
+     */
+    public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, MemoryARW mem) {
+        this.mem = mem;
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -107,6 +115,13 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return rowToDataOffset(recordOffset) + varOffset + columnOffsets[columnIndex];
     }
 
+    /**
+     * @return number of bytes occupied by records added to the chain
+     */
+    public long getMemUsed() {
+        return varAppendOffset;
+    }
+
     @Override
     public Record getRecord() {
         return recordA;
@@ -128,6 +143,10 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         return recordB;
     }
 
+    public Record newRecord() {
+        return new RecordChainRecord();
+    }
+
     @Override
     public void recordAt(Record record, long row) {
         ((RecordChainRecord) record).of(rowToDataOffset(row));
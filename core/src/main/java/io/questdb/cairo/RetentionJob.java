@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Periodically removes partitions of tables, which declare TTL in their metadata and whose data
+ * is older than TTL, see {@link TableWriter#removeExpiredPartitions(long)}. Age is measured from
+ * the end of the partition to the wall clock. Partitions, which are still in use by readers, are
+ * detached from the table straight away and their directories are removed once readers release them.
+ * Tables, writers of which are busy, are retried on the next run.
+ */
+public class RetentionJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(RetentionJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final Path rootPath = new Path();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private long tempMem = Unsafe.malloc(Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+    private long last = 0;
+    private long now;
+    private boolean useful;
+
+    public RetentionJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(rootPath);
+        Misc.free(path);
+        if (tempMem != 0) {
+            Unsafe.free(tempMem, Long.BYTES, MemoryTag.NATIVE_DEFAULT);
+            tempMem = 0;
+        }
+    }
+
+    /**
+     * Removes partitions of the table, which ended TTL or more before given timestamp.
+     *
+     * @return true when any partitions were removed or purged
+     */
+    public boolean enforceTtl(CharSequence tableName, long now) {
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, "retention");
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, retention is postponed [table=").$(tableName).$(']').$();
+            return false;
+        }
+        try {
+            final long ttl = writer.getMetadata().getTtl();
+            final int pending = writer.purgeRemovedPartitions();
+            final int count = ttl > 0 ? writer.removeExpiredPartitions(now - ttl) : 0;
+            if (count > 0) {
+                LOG.info().$("removed expired partitions [table=").$(tableName).$(", count=").$(count).$(']').$();
+            }
+            return count > 0 || pending > writer.purgeRemovedPartitions();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval >= t) {
+            return false;
+        }
+        last = t;
+        now = t;
+        useful = false;
+        ff.iterateDir(rootPath.of(root).$(), (name, type) -> {
+            if (type == Files.DT_DIR) {
+                nativeLPSZ.of(name);
+                if (!Chars.equals(nativeLPSZ, '.') && !Chars.equals(nativeLPSZ, "..") && readTtl(nativeLPSZ) > 0) {
+                    try {
+                        useful |= enforceTtl(Chars.toString(nativeLPSZ), now);
+                    } catch (CairoException e) {
+                        LOG.error().$("could not enforce ttl [table=").$(nativeLPSZ)
+                                .$(", msg=").$(e.getFlyweightMessage())
+                                .$(", errno=").$(e.getErrno())
+                                .I$();
+                    }
+                }
+            }
+        });
+        return useful;
+    }
+
+    // reads TTL straight from table metadata file to avoid locking writers of tables without TTL
+    private long readTtl(CharSequence tableName) {
+        path.of(root).concat(tableName).concat(TableUtils.META_FILE_NAME).$();
+        final long fd = ff.openRO(path);
+        if (fd < 0) {
+            return 0;
+        }
+        try {
+            if (ff.read(fd, tempMem, Long.BYTES, TableUtils.META_OFFSET_TTL) != Long.BYTES) {
+                return 0;
+            }
+            return Unsafe.getUnsafe().getLong(tempMem);
+        } finally {
+            ff.close(fd);
+        }
+    }
+}
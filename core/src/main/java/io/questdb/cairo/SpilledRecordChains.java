@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * List of record chains, each on top of its own memory mapped file under "[db root]/.spill".
+ * Queries use these chains to move intermediate results out of native memory. Chain
+ * objects are reused between queries, files are removed on {@link #clear()}.
+ */
+public class SpilledRecordChains implements Mutable, Closeable {
+    public static final String SPILL_DIR_NAME = ".spill";
+    private static final Log LOG = LogFactory.getLog(SpilledRecordChains.class);
+    private static final AtomicLong SPILL_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private final int mkDirMode;
+    private final long pageSize;
+    private final ArrayColumnTypes columnTypes = new ArrayColumnTypes();
+    private final RecordSink recordSink;
+    private final CharSequence prefix;
+    private final ObjList<RecordChain> chains = new ObjList<>();
+    private final ObjList<MemoryCMARW> chainMemory = new ObjList<>();
+    private final Path path = new Path();
+    private final int rootLen;
+    private int size = 0;
+    private long spillId;
+
+    public SpilledRecordChains(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes columnTypes,
+            RecordSink recordSink,
+            long pageSize,
+            CharSequence prefix
+    ) {
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = pageSize;
+        for (int i = 0, n = columnTypes.getColumnCount(); i < n; i++) {
+            this.columnTypes.add(columnTypes.getColumnType(i));
+        }
+        this.recordSink = recordSink;
+        this.prefix = prefix;
+        this.path.of(configuration.getRoot()).concat(SPILL_DIR_NAME).slash$();
+        this.rootLen = path.length();
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            // closing chain releases the mapping and file descriptor
+            chains.getQuick(i).clear();
+            if (!ff.remove(chainPath(i))) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.freeObjList(chains);
+        Misc.free(path);
+    }
+
+    public RecordChain get(int index) {
+        return chains.getQuick(index);
+    }
+
+    /**
+     * Creates new spill file and returns empty record chain on top of it.
+     * Index of the chain is {@link #size()} - 1.
+     */
+    public RecordChain next() {
+        final int index = size;
+        if (index == 0) {
+            spillId = SPILL_ID.incrementAndGet();
+            path.trimTo(rootLen).$();
+            if (!ff.exists(path) && ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+            }
+        }
+
+        final RecordChain chain;
+        if (index < chains.size()) {
+            chain = chains.getQuick(index);
+        } else {
+            final MemoryCMARW mem = Vm.getCMARWInstance();
+            chain = new RecordChain(columnTypes, recordSink, mem);
+            chains.add(chain);
+            chainMemory.add(mem);
+        }
+        chainMemory.getQuick(index).of(ff, chainPath(index), pageSize, -1, MemoryTag.MMAP_SPILL);
+        size++;
+        return chain;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Path chainPath(int index) {
+        return path.trimTo(rootLen).put(prefix).put('_').put(spillId).put('_').put(index).put(TableUtils.FILE_SUFFIX_D).$();
+    }
+}
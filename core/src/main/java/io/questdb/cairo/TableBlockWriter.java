@@ -251,6 +251,12 @@ public class TableBlockWriter implements Closeable {
             case PartitionBy.YEAR:
                 timestampFloorMethod = Timestamps.FLOOR_YYYY;
                 break;
+            case PartitionBy.HOUR:
+                timestampFloorMethod = Timestamps.FLOOR_HH;
+                break;
+            case PartitionBy.WEEK:
+                timestampFloorMethod = Timestamps.FLOOR_WW;
+                break;
             default:
                 timestampFloorMethod = NO_PARTITIONING_FLOOR;
                 break;
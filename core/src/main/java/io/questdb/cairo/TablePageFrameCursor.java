@@ -112,7 +112,11 @@ public class TablePageFrameCursor implements PageFrameCursor {
                 final MemoryR col = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, columnIndex));
 
                 if (columnTop <= frameFirstRow && col.getPageCount() > 0) {
-                    assert col.getPageCount() == 1;
+                    if (col.getPageCount() != 1) {
+                        // compressed partition is paged by block
+                        throw CairoException.instance(0).put("partition is not mapped as single page [table=").put(reader.getTableName())
+                                .put(", partitionIndex=").put(partitionIndex).put(']');
+                    }
                     final long colFrameFirstRow = frameFirstRow - columnTop;
                     final long colFrameLastRow = colFrameFirstRow + nFrameRows;
                     final long colMaxRow = nPartitionRows - columnTop;
@@ -205,6 +209,7 @@ public class TablePageFrameCursor implements PageFrameCursor {
 
     public TablePageFrameCursor of(TableReader reader, long maxRowsPerFrame, int timestampColumnIndex, IntList columnIndexes, IntList columnSizes) {
         this.reader = reader;
+        reader.selectColumns(columnIndexes);
         this.maxRowsPerFrame = maxRowsPerFrame;
         this.columnIndexes = columnIndexes;
         this.columnSizes = columnSizes;
@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.cairo.vm.MemoryCMRDeflateImpl;
 import io.questdb.cairo.vm.MemoryCMRImpl;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMR;
@@ -33,11 +34,11 @@ import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
-import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.datetime.microtime.Timestamps;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
 import java.util.concurrent.locks.LockSupport;
@@ -53,8 +54,10 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final FilesFacade ff;
     private final Path path;
     private final int rootLen;
+    // partitions relocated to cold root, null when tiered storage is disabled
+    private final Path coldPath;
+    private final int coldRootLen;
     private final TableReaderMetadata metadata;
-    private final DateFormat partitionFormat;
     private final LongList openPartitionInfo;
     private final TableReaderRecordCursor recordCursor = new TableReaderRecordCursor();
     private final Timestamps.TimestampFloorMethod timestampFloorMethod;
@@ -65,6 +68,14 @@ public class TableReader implements Closeable, SymbolTableSource {
     private final TxReader txFile;
     private final MemoryMR todoMem = Vm.getMRInstance();
     private final TxnScoreboard txnScoreboard;
+    private final ColumnMappingCache columnMappingCache;
+    private final ColumnBlockCache.PagePins pagePins;
+    private final boolean ownsColumnBlockCache;
+    private final boolean madviseEnabled;
+    private final boolean prefetchEnabled;
+    // 1 for columns mapped when partition is opened, valid when columnsSelected is true
+    private final IntList columnSelection = new IntList();
+    private boolean columnsSelected;
     private int partitionCount;
     private LongList columnTops;
     private ObjList<MemoryMR> columns;
@@ -77,12 +88,41 @@ public class TableReader implements Closeable, SymbolTableSource {
     private boolean active;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, null, null);
+    }
+
+    /**
+     * @param columnMappingCache mappings of column files shared with other readers, null to map columns privately
+     * @param columnBlockCache   decompressed blocks of compressed columns shared with other readers, null to
+     *                           cache blocks privately
+     */
+    public TableReader(
+            CairoConfiguration configuration,
+            CharSequence tableName,
+            @Nullable ColumnMappingCache columnMappingCache,
+            @Nullable ColumnBlockCache columnBlockCache
+    ) {
         this.configuration = configuration;
+        this.columnMappingCache = columnMappingCache;
+        this.ownsColumnBlockCache = columnBlockCache == null;
+        this.pagePins = new ColumnBlockCache.PagePins(
+                columnBlockCache != null ? columnBlockCache : new ColumnBlockCache(configuration.getPartitionCompressionCacheSize())
+        );
+        this.madviseEnabled = configuration.isReaderMadviseEnabled();
+        this.prefetchEnabled = madviseEnabled && configuration.isReaderPrefetchEnabled();
         this.ff = configuration.getFilesFacade();
         this.tableName = Chars.toString(tableName);
         this.path = new Path();
         this.path.of(configuration.getRoot()).concat(tableName);
         this.rootLen = path.length();
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null) {
+            this.coldPath = new Path().of(coldRoot).concat(tableName);
+            this.coldRootLen = coldPath.length();
+        } else {
+            this.coldPath = null;
+            this.coldRootLen = 0;
+        }
         try {
             this.metadata = openMetaFile();
             this.columnCount = this.metadata.getColumnCount();
@@ -98,7 +138,6 @@ public class TableReader implements Closeable, SymbolTableSource {
             readTxnSlow();
             openSymbolMaps();
             partitionCount = txFile.getPartitionCount();
-            partitionFormat = TableUtils.getPartitionDateFmt(partitionBy);
             timestampFloorMethod = partitionBy == PartitionBy.NONE ? null : TableUtils.getPartitionFloor(partitionBy);
 
             int capacity = getColumnBase(partitionCount);
@@ -131,12 +170,29 @@ public class TableReader implements Closeable, SymbolTableSource {
         return 2 + base + index * 2;
     }
 
+    /**
+     * Hints kernel that mapped columns of open partition are about to be read front to back. With prefetch
+     * enabled the next partition is opened too and kernel starts reading its columns ahead in background.
+     *
+     * @param partitionIndex index of open partition
+     * @param prefetchNext   true when scan is going to continue into the next partition
+     */
+    public void adviseSequentialScan(int partitionIndex, boolean prefetchNext) {
+        if (madviseEnabled) {
+            adviseColumns(partitionIndex, Files.POSIX_MADV_SEQUENTIAL);
+            if (prefetchNext && prefetchEnabled && partitionIndex + 1 < partitionCount && openPartition(partitionIndex + 1) > 0) {
+                adviseColumns(partitionIndex + 1, Files.POSIX_MADV_WILLNEED);
+            }
+        }
+    }
+
     public double avgDouble(int columnIndex) {
         double result = 0;
         long countTotal = 0;
         for (int i = 0; i < partitionCount; i++) {
             openPartition(i);
             final int base = getColumnBase(i);
+            mapColumn(i, base, columnIndex);
             final int index = getPrimaryColumnIndex(base, columnIndex);
             final MemoryR column = columns.getQuick(index);
             if (column != null) {
@@ -165,9 +221,13 @@ public class TableReader implements Closeable, SymbolTableSource {
             Misc.free(txFile);
             Misc.free(todoMem);
             freeColumns();
+            if (ownsColumnBlockCache) {
+                Misc.free(pagePins.getCache());
+            }
             freeTempMem();
             Misc.free(txnScoreboard);
             Misc.free(path);
+            Misc.free(coldPath);
             LOG.debug().$("closed '").utf8(tableName).$('\'').$();
         }
     }
@@ -215,6 +275,8 @@ public class TableReader implements Closeable, SymbolTableSource {
 
     public BitmapIndexReader getBitmapIndexReader(int partitionIndex, int columnBase, int columnIndex, int direction) {
         final int index = getPrimaryColumnIndex(columnBase, columnIndex);
+        // index can be looked up on column the query does not select
+        mapColumn(partitionIndex, columnBase, columnIndex);
         BitmapIndexReader reader = bitmapIndexes.getQuick(direction == BitmapIndexReader.DIR_BACKWARD ? index : index + 1);
         return reader == null ? createBitmapIndexReaderAt(index, columnBase, columnIndex, direction, txFile.getPartitionNameTxn(partitionIndex)) : reader;
     }
@@ -235,7 +297,13 @@ public class TableReader implements Closeable, SymbolTableSource {
         return metadata.getCommitLag();
     }
 
+    public long getTtl() {
+        return metadata.getTtl();
+    }
+
     public TableReaderRecordCursor getCursor() {
+        // record of the cursor reads all columns
+        selectColumns(null);
         recordCursor.toTop();
         return recordCursor;
     }
@@ -309,6 +377,9 @@ public class TableReader implements Closeable, SymbolTableSource {
             active = false;
             txnScoreboard.releaseTxn(txn);
         }
+        // pages of compressed columns handed out to the query
+        pagePins.releaseAll();
+        columnsSelected = false;
     }
 
     public boolean isOpen() {
@@ -320,6 +391,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         for (int i = 0; i < partitionCount; i++) {
             openPartition(i);
             final int base = getColumnBase(i);
+            mapColumn(i, base, columnIndex);
             final int index = getPrimaryColumnIndex(base, columnIndex);
             final MemoryR column = columns.getQuick(index);
             if (column != null) {
@@ -341,6 +413,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         for (int i = 0; i < partitionCount; i++) {
             openPartition(i);
             final int base = getColumnBase(i);
+            mapColumn(i, base, columnIndex);
             final int index = getPrimaryColumnIndex(base, columnIndex);
             final MemoryR column = columns.getQuick(index);
             if (column != null) {
@@ -357,14 +430,79 @@ public class TableReader implements Closeable, SymbolTableSource {
         return min;
     }
 
+    /**
+     * Builds zone maps of numeric columns in a partition, which are either missing or were built
+     * for a different number of rows or column top. Partition does not have to be open.
+     *
+     * @return number of zone maps built
+     */
+    public int buildZoneMaps(int partitionIndex, ZoneMapWriter zoneMapWriter, ZoneMapReader zoneMap) {
+        final long partitionSize = txFile.getPartitionSize(partitionIndex);
+        if (partitionSize < 1) {
+            return 0;
+        }
+        int count = 0;
+        try {
+            final Path path = pathGenPartition(partitionIndex, txFile.getPartitionNameTxn(partitionIndex));
+            final int plen = path.length();
+            for (int columnIndex = 0, n = metadata.getColumnCount(); columnIndex < n; columnIndex++) {
+                final int columnType = metadata.getColumnType(columnIndex);
+                if (ZoneMapWriter.isSupported(columnType)) {
+                    final CharSequence columnName = metadata.getColumnName(columnIndex);
+                    if (PartitionCompressor.isCompressed(ff, path.trimTo(plen), columnName)) {
+                        // compressed files are not scanned, partitions are mapped long before they are compressed
+                        continue;
+                    }
+                    final long columnTop = ff.exists(TableUtils.dFile(path.trimTo(plen), columnName))
+                            ? TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b, true)
+                            : partitionSize;
+                    if (!zoneMap.of(ff, path.trimTo(plen), columnName, partitionSize, columnTop)) {
+                        zoneMapWriter.build(path.trimTo(plen), columnName, columnType, columnTop, partitionSize);
+                        count++;
+                    }
+                }
+            }
+        } finally {
+            zoneMap.close();
+            path.trimTo(rootLen);
+        }
+        return count;
+    }
+
     public long openPartition(int partitionIndex) {
         final long size = getPartitionRowCount(partitionIndex);
         if (size != -1) {
+            if (size > 0) {
+                mapSelectedColumns(partitionIndex);
+            }
             return size;
         }
         return openPartition0(partitionIndex);
     }
 
+    /**
+     * Opens zone map of column in a partition that has already been opened.
+     *
+     * @return false when zone map does not exist or is not up to date with partition
+     */
+    public boolean openZoneMap(int partitionIndex, int columnIndex, ZoneMapReader zoneMap) {
+        final long partitionSize = getPartitionRowCount(partitionIndex);
+        if (partitionSize < 1) {
+            return false;
+        }
+        try {
+            final Path path = pathGenPartition(partitionIndex, txFile.getPartitionNameTxn(partitionIndex));
+            final int columnBase = getColumnBase(partitionIndex);
+            // partitions, which precede the column, have no column file
+            final long columnTop = columns.getQuick(getPrimaryColumnIndex(columnBase, columnIndex)) == NullColumn.INSTANCE
+                    ? partitionSize
+                    : getColumnTop(columnBase, columnIndex);
+            return zoneMap.of(ff, path, metadata.getColumnName(columnIndex), partitionSize, columnTop);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public void reconcileOpenPartitionsFrom(int partitionIndex) {
         int txPartitionCount = txFile.getPartitionCount();
         int txPartitionIndex = partitionIndex;
@@ -509,6 +647,35 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    /**
+     * Adds single column to the selection, see {@link #selectColumns(IntList)}.
+     *
+     * @param columnIndex index of column in table metadata
+     */
+    public void selectColumn(int columnIndex) {
+        initColumnSelection();
+        columnSelection.setQuick(columnIndex, 1);
+    }
+
+    /**
+     * Adds columns query reads to the columns, which are mapped when partitions are opened. Columns that
+     * no query selected stay unmapped. Designated timestamp is always selected, data frame cursors search it.
+     * Selection accumulates over cursors that share the reader and lasts until reader goes passive, i.e. is
+     * returned to the pool. Until the first call all columns are mapped.
+     *
+     * @param columnIndexes indexes of columns query reads, null selects all columns
+     */
+    public void selectColumns(@Nullable IntList columnIndexes) {
+        initColumnSelection();
+        if (columnIndexes == null) {
+            columnSelection.setAll(columnCount, 1);
+        } else {
+            for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+                columnSelection.setQuick(columnIndexes.getQuick(i), 1);
+            }
+        }
+    }
+
     public long size() {
         return rowCount;
     }
@@ -518,6 +685,7 @@ public class TableReader implements Closeable, SymbolTableSource {
         for (int i = 0; i < partitionCount; i++) {
             openPartition(i);
             final int base = getColumnBase(i);
+            mapColumn(i, base, columnIndex);
             final int index = getPrimaryColumnIndex(base, columnIndex);
             final MemoryR column = columns.getQuick(index);
             if (column != null) {
@@ -555,6 +723,30 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    private void adviseColumn(MemoryMR mem, int advice) {
+        // decompressed column is heap memory, there is no file behind it
+        if (mem != null && mem.size() > 0 && !(mem instanceof MemoryCMRDeflateImpl)) {
+            ff.madvise(mem.getPageAddress(0), mem.size(), advice);
+        }
+    }
+
+    private void adviseColumns(int partitionIndex, int advice) {
+        final int columnBase = getColumnBase(partitionIndex);
+        for (int i = 0; i < columnCount; i++) {
+            final int index = getPrimaryColumnIndex(columnBase, i);
+            adviseColumn(columns.getQuick(index), advice);
+            adviseColumn(columns.getQuick(index + 1), advice);
+        }
+    }
+
+    private void unmapColumn(int columnBase, int columnIndex) {
+        final int index = getPrimaryColumnIndex(columnBase, columnIndex);
+        Misc.free(columns.getAndSetQuick(index, null));
+        Misc.free(columns.getAndSetQuick(index + 1, null));
+        Misc.free(bitmapIndexes.getAndSetQuick(index, null));
+        Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
+    }
+
     private void closeColumn(int columnBase, int columnIndex) {
         final int index = getPrimaryColumnIndex(columnBase, columnIndex);
         Misc.free(columns.getAndSetQuick(index, NullColumn.INSTANCE));
@@ -720,12 +912,7 @@ public class TableReader implements Closeable, SymbolTableSource {
     }
 
     private void formatPartitionDirName(int partitionIndex, CharSink sink) {
-        partitionFormat.format(
-                openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE),
-                null, // this format does not need locale access
-                null,
-                sink
-        );
+        TableUtils.setSinkForPartitionPart(sink, metadata.getPartitionBy(), openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE));
     }
 
     private void freeBitmapIndexCache() {
@@ -758,6 +945,19 @@ public class TableReader implements Closeable, SymbolTableSource {
         return columnBase >>> columnCountBits;
     }
 
+    long getPartitionNameTxn(int partitionIndex) {
+        return openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_NAME_TXN);
+    }
+
+    // committed row count, unlike getPartitionRowCount() partition does not have to be open
+    long getPartitionSize(int partitionIndex) {
+        return txFile.getPartitionSize(partitionIndex);
+    }
+
+    long getPartitionTimestampByIndex(int partitionIndex) {
+        return openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE);
+    }
+
     long getPartitionRowCount(int partitionIndex) {
         return openPartitionInfo.getQuick(partitionIndex * PARTITIONS_SLOT_SIZE + PARTITIONS_SLOT_OFFSET_SIZE);
     }
@@ -809,18 +1009,56 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    private void openColumnData(
+            Path path,
+            int plen,
+            CharSequence name,
+            ObjList<MemoryMR> columns,
+            int primaryIndex,
+            MemoryMR mem,
+            long columnSize
+    ) {
+        // writer may compress or decompress the column concurrently, new file is renamed
+        // in place before the old one is removed, second attempt will find the new file
+        for (int attempt = 0; ; attempt++) {
+            try {
+                if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+                    openOrCreateMemory(path, columns, primaryIndex, mem, columnSize, false);
+                } else {
+                    TableUtils.dzFile(path.trimTo(plen), name);
+                    openOrCreateMemory(path, columns, primaryIndex, mem, columnSize, true);
+                }
+                return;
+            } catch (CairoException e) {
+                if (attempt > 0) {
+                    throw e;
+                }
+                mem = columns.getQuick(primaryIndex);
+            }
+        }
+    }
+
     @NotNull
     private MemoryMR openOrCreateMemory(
             Path path,
             ObjList<MemoryMR> columns,
             int primaryIndex,
             MemoryMR mem,
-            long columnSize
+            long columnSize,
+            boolean compressed
     ) {
-        if (mem != null && mem != NullColumn.INSTANCE) {
+        if (mem != null && mem != NullColumn.INSTANCE && (mem instanceof MemoryCMRDeflateImpl) == compressed) {
             mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
         } else {
-            mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+            Misc.free(mem);
+            if (compressed) {
+                mem = new MemoryCMRDeflateImpl(pagePins, ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+            } else if (columnMappingCache != null) {
+                mem = columnMappingCache.newMapping();
+                mem.of(ff, path, columnSize, columnSize, MemoryTag.MMAP_TABLE_READER);
+            } else {
+                mem = Vm.getMRInstance(ff, path, columnSize, MemoryTag.MMAP_TABLE_READER);
+            }
             columns.setQuick(primaryIndex, mem);
         }
         return mem;
@@ -833,8 +1071,7 @@ public class TableReader implements Closeable, SymbolTableSource {
 
         try {
             final long partitionNameTxn = txFile.getPartitionNameTxn(partitionIndex);
-            Path path = pathGenPartitioned(partitionIndex);
-            TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+            Path path = pathGenPartition(partitionIndex, partitionNameTxn);
 
             if (ff.exists(path.$())) {
                 path.chop$();
@@ -882,17 +1119,60 @@ public class TableReader implements Closeable, SymbolTableSource {
         }
     }
 
+    private void initColumnSelection() {
+        if (!columnsSelected) {
+            columnSelection.setAll(columnCount, 0);
+            final int timestampIndex = metadata.getTimestampIndex();
+            if (timestampIndex > -1) {
+                columnSelection.setQuick(timestampIndex, 1);
+            }
+            columnsSelected = true;
+        }
+    }
+
+    private boolean isColumnSelected(int columnIndex) {
+        return !columnsSelected || columnSelection.getQuick(columnIndex) == 1;
+    }
+
+    private void mapColumn(int partitionIndex, int columnBase, int columnIndex) {
+        if (columns.getQuick(getPrimaryColumnIndex(columnBase, columnIndex)) == null) {
+            final long partitionRowCount = getPartitionRowCount(partitionIndex);
+            if (partitionRowCount > 0) {
+                try {
+                    final Path path = pathGenPartition(partitionIndex, txFile.getPartitionNameTxn(partitionIndex));
+                    reloadColumnAt(path, columns, columnTops, bitmapIndexes, columnBase, columnIndex, partitionRowCount);
+                } finally {
+                    path.trimTo(rootLen);
+                }
+            }
+        }
+    }
+
+    private void mapSelectedColumns(int partitionIndex) {
+        final int columnBase = getColumnBase(partitionIndex);
+        for (int i = 0; i < columnCount; i++) {
+            if (isColumnSelected(i)) {
+                mapColumn(partitionIndex, columnBase, i);
+            }
+        }
+    }
+
+    // columns, which are not selected, are left unmapped, their list entries are null
     private void openPartitionColumns(Path path, int columnBase, long partitionRowCount) {
         for (int i = 0; i < columnCount; i++) {
-            reloadColumnAt(
-                    path,
-                    this.columns,
-                    this.columnTops,
-                    this.bitmapIndexes,
-                    columnBase,
-                    i,
-                    partitionRowCount
-            );
+            if (isColumnSelected(i)) {
+                reloadColumnAt(
+                        path,
+                        this.columns,
+                        this.columnTops,
+                        this.bitmapIndexes,
+                        columnBase,
+                        i,
+                        partitionRowCount
+                );
+            } else {
+                unmapColumn(columnBase, i);
+            }
         }
     }
 
@@ -913,6 +1193,25 @@ public class TableReader implements Closeable, SymbolTableSource {
         return path;
     }
 
+    /**
+     * Resolves directory of partition version across storage tiers. Partition is looked up
+     * in table root first, relocated partitions are found under cold root by the same name.
+     */
+    private Path pathGenPartition(int partitionIndex, long partitionNameTxn) {
+        pathGenPartitioned(partitionIndex);
+        TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+        if (coldPath == null || ff.exists(path.$())) {
+            return path.chop$();
+        }
+        coldPath.trimTo(coldRootLen).put(path, rootLen, path.length());
+        if (ff.exists(coldPath.$())) {
+            path.trimTo(rootLen);
+            return coldPath.chop$();
+        }
+        coldPath.trimTo(coldRootLen);
+        return path.chop$();
+    }
+
     private boolean readTxnSlow() {
         int count = 0;
         final long deadline = configuration.getMicrosecondClock().getTicks() + configuration.getSpinLockTimeoutUs();
@@ -1049,20 +1348,19 @@ public class TableReader implements Closeable, SymbolTableSource {
             // When column is added mid-table existence the .top file is only
             // created in the current partition. Older partitions would simply have no
             // column file. This makes it necessary to check for .d file existence
-            if (partitionRowCount > 0 &&  ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            // column data of cold partitions can be compressed, in which case .dz file replaces .d file
+            if (partitionRowCount > 0 && (ff.exists(TableUtils.dFile(path.trimTo(plen), name)) || ff.exists(TableUtils.dzFile(path.trimTo(plen), name)))) {
                 final int columnType = metadata.getColumnType(columnIndex);
 
                 if (ColumnType.isVariableLength(columnType)) {
                     long columnSize = columnRowCount * 8L + 8L;
                     TableUtils.iFile(path.trimTo(plen), name);
-                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize);
+                    mem2 = openOrCreateMemory(path, columns, secondaryIndex, mem2, columnSize, false);
                     columnSize = mem2.getLong(columnRowCount * 8L);
-                    TableUtils.dFile(path.trimTo(plen), name);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    openColumnData(path, plen, name, columns, primaryIndex, mem1, columnSize);
                 } else {
                     long columnSize = columnRowCount << ColumnType.pow2SizeOf(columnType);
-                    TableUtils.dFile(path.trimTo(plen), name);
-                    openOrCreateMemory(path, columns, primaryIndex, mem1, columnSize);
+                    openColumnData(path, plen, name, columns, primaryIndex, mem1, columnSize);
                     Misc.free(columns.getAndSetQuick(secondaryIndex, null));
                 }
 
@@ -1117,6 +1415,8 @@ public class TableReader implements Closeable, SymbolTableSource {
             // rearrange symbol map reader list
             reshuffleSymbolMapReaders(pTransitionIndex);
             this.columnCount = columnCount;
+            // column indexes of the selection are stale
+            columnsSelected = false;
         } finally {
             TableReaderMetadata.freeTransitionIndex(pTransitionIndex);
         }
@@ -1129,15 +1429,17 @@ public class TableReader implements Closeable, SymbolTableSource {
      * @param rowCount       number of rows in partition
      */
     private void reloadPartition(int partitionIndex, long rowCount, long openPartitionNameTxn) {
-        Path path = pathGenPartitioned(partitionIndex);
-        TableUtils.txnPartitionConditionally(path, openPartitionNameTxn);
+        Path path = pathGenPartition(partitionIndex, openPartitionNameTxn);
         try {
             int symbolMapIndex = 0;
             int columnBase = getColumnBase(partitionIndex);
             for (int i = 0; i < columnCount; i++) {
                 final int index = getPrimaryColumnIndex(columnBase, i);
                 final MemoryMR mem1 = columns.getQuick(index);
-                if (mem1 instanceof NullColumn) {
+                // decompressed copy of the column cannot grow past compressed data, the writer
+                // restores the data file before it appends to the partition; shared mapping is
+                // not grown in place either, reader acquires mapping of the new size
+                if (mem1 instanceof NullColumn || mem1 instanceof MemoryCMRDeflateImpl || mem1 instanceof ColumnMappingCache.Mapping) {
                     reloadColumnAt(
                             path,
                             columns,
@@ -1147,7 +1449,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                             i,
                             rowCount
                     );
-                } else {
+                } else if (mem1 != null) {
                     growColumn(
                             mem1,
                             columns.getQuick(index + 1),
@@ -1155,6 +1457,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                             rowCount - getColumnTop(columnBase, i)
                     );
                 }
+                // column that is not mapped is mapped with up-to-date size when a query selects it
 
                 // reload symbol map
                 SymbolMapReader reader = symbolMapReaders.getQuick(i);
@@ -1246,7 +1549,7 @@ public class TableReader implements Closeable, SymbolTableSource {
                             //    instance and the column from disk
                             // 3. Column hasn't been altered and we can skip to next column.
                             MemoryMR col = columns.getQuick(getPrimaryColumnIndex(base, i));
-                            if ((col instanceof MemoryCMRImpl && col.isDeleted()) || col instanceof NullColumn) {
+                            if (((col instanceof MemoryCMRImpl || col instanceof MemoryCMRDeflateImpl || col instanceof ColumnMappingCache.Mapping) && col.isDeleted()) || col instanceof NullColumn) {
                                 reloadColumnAt(
                                         path,
                                         columns,
@@ -245,6 +245,10 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         }
     }
 
+    public int getColumnCodec(int columnIndex) {
+        return TableUtils.getColumnCodec(metaMem, columnIndex);
+    }
+
     @Override
     public int getColumnCount() {
         return columnCount;
@@ -270,6 +274,10 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
     }
 
+    public long getTtl() {
+        return metaMem.getLong(TableUtils.META_OFFSET_TTL);
+    }
+
     private TableColumnMetadata moveMetadata(int index, TableColumnMetadata metadata) {
         return columnMetadata.getAndSetQuick(index, metadata);
     }
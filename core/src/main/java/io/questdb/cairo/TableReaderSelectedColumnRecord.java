@@ -287,6 +287,8 @@ public class TableReaderSelectedColumnRecord implements Record {
 
     public void of(TableReader reader) {
         this.reader = reader;
+        // partitions opened from now on map columns record reads
+        reader.selectColumns(columnIndexes);
     }
 
     private int deferenceColumn(int columnIndex) {
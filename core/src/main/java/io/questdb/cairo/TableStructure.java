@@ -31,12 +31,23 @@ public interface TableStructure {
 
     int getColumnType(int columnIndex);
 
+    /**
+     * @return id of codec used to compress column data of cold partitions, see {@link io.questdb.cairo.codec.ColumnCodecs}
+     */
+    int getColumnCodec(int columnIndex);
+
     int getIndexBlockCapacity(int columnIndex);
 
     boolean isIndexed(int columnIndex);
 
     boolean isSequential(int columnIndex);
 
+    /**
+     * @return true when column is part of the key, on which rows are deduplicated during commit,
+     * the key always includes designated timestamp
+     */
+    boolean isDedupKey(int columnIndex);
+
     int getPartitionBy();
 
     boolean getSymbolCacheFlag(int columnIndex);
@@ -50,4 +61,9 @@ public interface TableStructure {
     int getMaxUncommittedRows();
 
     long getCommitLag();
+
+    /**
+     * @return age in microseconds after which partitions are removed by {@link RetentionJob}, 0 keeps data forever
+     */
+    long getTtl();
 }
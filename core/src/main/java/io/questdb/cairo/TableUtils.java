@@ -64,13 +64,19 @@ public final class TableUtils {
     public static final long META_OFFSET_TABLE_ID = 16;
     public static final long META_OFFSET_MAX_UNCOMMITTED_ROWS = 20;
     public static final long META_OFFSET_COMMIT_LAG = 24;
+    public static final long META_OFFSET_TTL = 32;
     public static final String FILE_SUFFIX_I = ".i";
     public static final String FILE_SUFFIX_D = ".d";
+    public static final String FILE_SUFFIX_DZ = ".dz";
     public static final int LONGS_PER_TX_ATTACHED_PARTITION = 4;
     public static final int LONGS_PER_TX_ATTACHED_PARTITION_MSB = Numbers.msb(LONGS_PER_TX_ATTACHED_PARTITION);
     public static final DateFormat fmtDay;
     public static final DateFormat fmtMonth;
     public static final DateFormat fmtYear;
+    public static final DateFormat fmtHour;
+    public static final DateFormat fmtWeek;
+    // partition parts created by out-of-order split are named after their first timestamp
+    public static final DateFormat fmtPartitionPart;
     public static final String DEFAULT_PARTITION_NAME = "default";
     public static final long META_COLUMN_DATA_SIZE = 16;
     public static final long META_OFFSET_COLUMN_TYPES = 128;
@@ -109,6 +115,10 @@ public final class TableUtils {
     static final long META_COLUMN_DATA_RESERVED = 3;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_DEDUP_KEY = 1 << 2;
+    // codec id occupies the second byte of column flags
+    static final int META_FLAG_CODEC_SHIFT = 8;
+    static final long META_FLAG_CODEC_MASK = 0xffL << META_FLAG_CODEC_SHIFT;
     static final String TODO_FILE_NAME = "_todo_";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
@@ -170,6 +180,7 @@ public final class TableUtils {
             mem.putInt(tableId);
             mem.putInt(structure.getMaxUncommittedRows());
             mem.putLong(structure.getCommitLag());
+            mem.putLong(structure.getTtl());
             mem.jumpTo(TableUtils.META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < count; i++) {
@@ -183,6 +194,12 @@ public final class TableUtils {
                     flags |= META_FLAG_BIT_SEQUENTIAL;
                 }
 
+                if (structure.isDedupKey(i)) {
+                    flags |= META_FLAG_BIT_DEDUP_KEY;
+                }
+
+                flags |= (long) structure.getColumnCodec(i) << META_FLAG_CODEC_SHIFT;
+
                 mem.putLong(flags);
                 mem.putInt(structure.getIndexBlockCapacity(i));
             }
@@ -227,6 +244,10 @@ public final class TableUtils {
         return path.concat(columnName).put(FILE_SUFFIX_D).$();
     }
 
+    public static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(FILE_SUFFIX_DZ).$();
+    }
+
     public static int exists(FilesFacade ff, Path path, CharSequence root, CharSequence name) {
         return exists(ff, path, root, name, 0, name.length());
     }
@@ -261,6 +282,10 @@ public final class TableUtils {
                 return Timestamps.ADD_MM;
             case PartitionBy.YEAR:
                 return Timestamps.ADD_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.ADD_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.ADD_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have add method");
         }
@@ -274,6 +299,10 @@ public final class TableUtils {
                 return Timestamps.FLOOR_MM;
             case PartitionBy.YEAR:
                 return Timestamps.FLOOR_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.FLOOR_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.FLOOR_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have floor method");
         }
@@ -614,6 +643,31 @@ public final class TableUtils {
         return setSinkForPartition(path.slash(), partitionBy, timestamp, calculatePartitionMax);
     }
 
+    /**
+     * Sets the path to the directory of a partition entry of the partition table. Out-of-order commits can split
+     * partition into parts, first part starts at partition floor and is named after the partition. Other parts
+     * start at timestamps of their first rows and are named after these timestamps, see {@link #fmtPartitionPart}.
+     *
+     * @param path               Set to the root directory for a table, this will be updated to the root directory of the partition part
+     * @param partitionBy        Partitioning scheme
+     * @param partitionTimestamp Timestamp of partition entry in the partition table
+     */
+    public static void setPathForPartitionPart(Path path, int partitionBy, long partitionTimestamp) {
+        setSinkForPartitionPart(path.slash(), partitionBy, partitionTimestamp);
+    }
+
+    public static void setSinkForPartitionPart(CharSink sink, int partitionBy, long partitionTimestamp) {
+        if (isPartitionPart(partitionBy, partitionTimestamp)) {
+            fmtPartitionPart.format(partitionTimestamp, null, null, sink);
+        } else {
+            setSinkForPartition(sink, partitionBy, partitionTimestamp, false);
+        }
+    }
+
+    public static boolean isPartitionPart(int partitionBy, long partitionTimestamp) {
+        return partitionBy != PartitionBy.NONE && getPartitionFloor(partitionBy).floor(partitionTimestamp) != partitionTimestamp;
+    }
+
     public static long setSinkForPartition(CharSink path, int partitionBy, long timestamp, boolean calculatePartitionMax) {
         int y, m, d;
         boolean leap;
@@ -657,6 +711,29 @@ public final class TableUtils {
                     return Timestamps.addYear(Timestamps.yearMicros(y, leap), 1) - 1;
                 }
                 return 0;
+            case PartitionBy.HOUR:
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+                path.put('T');
+                TimestampFormatUtils.append0(path, Timestamps.getHourOfDay(timestamp));
+
+                if (calculatePartitionMax) {
+                    return Timestamps.ceilHH(timestamp) - 1;
+                }
+                return 0;
+            case PartitionBy.WEEK:
+                fmtWeek.format(timestamp, null, null, path);
+                if (calculatePartitionMax) {
+                    return Timestamps.ceilWW(timestamp) - 1;
+                }
+                return 0;
             default:
                 path.put(DEFAULT_PARTITION_NAME);
                 return Long.MAX_VALUE;
@@ -816,6 +893,10 @@ public final class TableUtils {
         return path.concat(columnName).put(".top").$();
     }
 
+    static LPSZ zoneMapFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".zm").$();
+    }
+
     static long getColumnFlags(MemoryR metaMem, int columnIndex) {
         return metaMem.getLong(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 4);
     }
@@ -824,6 +905,14 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_INDEXED) != 0;
     }
 
+    static int getColumnCodec(MemoryR metaMem, int columnIndex) {
+        return (int) ((getColumnFlags(metaMem, columnIndex) & META_FLAG_CODEC_MASK) >>> META_FLAG_CODEC_SHIFT);
+    }
+
+    static boolean isDedupKey(MemoryR metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_DEDUP_KEY) != 0;
+    }
+
     static boolean isSequential(MemoryR metaMem, int columnIndex) {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
@@ -895,6 +984,10 @@ public final class TableUtils {
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
                 return Timestamps.floorYYYY(timestampA) == Timestamps.floorYYYY(timestampB);
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             default:
                 throw CairoException.instance(0).put("Cannot compare timestamps for unsupported partition type: [").put(partitionBy).put(']');
         }
@@ -908,6 +1001,10 @@ public final class TableUtils {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtWeek;
             case PartitionBy.NONE:
                 return fmtDefault;
             default:
@@ -923,6 +1020,10 @@ public final class TableUtils {
                 return Timestamps.CEIL_MM;
             case PartitionBy.YEAR:
                 return Timestamps.CEIL_YYYY;
+            case PartitionBy.HOUR:
+                return Timestamps.CEIL_HH;
+            case PartitionBy.WEEK:
+                return Timestamps.CEIL_WW;
             default:
                 throw new UnsupportedOperationException("partition by " + partitionBy + " does not have ceil method");
         }
@@ -989,6 +1090,36 @@ public final class TableUtils {
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
+        fmtPartitionPart = compiler.compile("yyyy-MM-ddTHHmmss-SSSUUU");
+        // ISO 8601 week date without day, e.g. 2022-W01
+        fmtWeek = new DateFormat() {
+            @Override
+            public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
+                TimestampFormatUtils.append000(sink, Timestamps.getIsoYear(datetime));
+                sink.put("-W");
+                TimestampFormatUtils.append0(sink, Timestamps.getIsoWeekOfYear(datetime));
+            }
+
+            @Override
+            public long parse(CharSequence in, DateLocale locale) throws NumericException {
+                return parse(in, 0, in.length(), locale);
+            }
+
+            @Override
+            public long parse(CharSequence in, int lo, int hi, DateLocale locale) throws NumericException {
+                if (hi - lo != 8 || in.charAt(lo + 4) != '-' || in.charAt(lo + 5) != 'W') {
+                    throw NumericException.INSTANCE;
+                }
+                final int year = Numbers.parseInt(in, lo, lo + 4);
+                final int week = Numbers.parseInt(in, lo + 6, hi);
+                final long timestamp = Timestamps.isoYearMicros(year) + (week - 1) * Timestamps.WEEK_MICROS;
+                if (week < 1 || Timestamps.getIsoYear(timestamp) != year) {
+                    throw NumericException.INSTANCE;
+                }
+                return timestamp;
+            }
+        };
         fmtDefault = new DateFormat() {
             @Override
             public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
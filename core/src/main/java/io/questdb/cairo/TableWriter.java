@@ -33,6 +33,7 @@ import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.*;
+import io.questdb.cairo.wal.WalSequencer;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.model.IntervalUtils;
 import io.questdb.log.Log;
@@ -57,7 +58,7 @@ import static io.questdb.cairo.StatusCode.*;
 import static io.questdb.cairo.TableUtils.*;
 import static io.questdb.std.Files.isDots;
 
-public class TableWriter implements Closeable {
+public class TableWriter implements TableWriterAPI {
     public static final int TIMESTAMP_MERGE_ENTRY_BYTES = Long.BYTES * 2;
     public static final int O3_BLOCK_NONE = -1;
     public static final int O3_BLOCK_O3 = 1;
@@ -65,6 +66,9 @@ public class TableWriter implements Closeable {
     public static final int O3_BLOCK_MERGE = 3;
     private static final Log LOG = LogFactory.getLog(TableWriter.class);
     private static final CharSequenceHashSet IGNORED_FILES = new CharSequenceHashSet();
+    private static final int TIER_HOT = 0;
+    private static final int TIER_COLD = 1;
+    private static final int REMOVED_PARTITION_BLOCK_SIZE = 4;
     private static final Runnable NOOP = () -> {
     };
     private final static RemoveFileLambda REMOVE_OR_LOG = TableWriter::removeFileAndOrLog;
@@ -77,8 +81,12 @@ public class TableWriter implements Closeable {
     private final ObjList<ColumnIndexer> denseIndexers = new ObjList<>();
     private final Path path;
     private final Path other;
+    // partitions relocated under cold root, null when tiered storage is disabled
+    private final Path coldPath;
+    private final Path tierPath;
+    private final int coldRootLen;
     private final LongList refs = new LongList();
-    private final Row row = new Row();
+    private final RowImpl row = new RowImpl();
     private final int rootLen;
     private final MemoryMR metaMem;
     private final int partitionBy;
@@ -110,6 +118,8 @@ public class TableWriter implements Closeable {
     private final FindVisitor removePartitionDirectories = this::removePartitionDirectories0;
     private final int o3ColumnMemorySize;
     private final ObjList<Runnable> nullSetters;
+    // WAL column index of each table column while WAL block is appended, -1 when column is not in WAL
+    private final IntList walColumnIndexes = new IntList();
     private final ObjList<Runnable> o3NullSetters;
     private final ObjList<MemoryCARW> o3Columns;
     private final ObjList<MemoryCARW> o3Columns2;
@@ -125,6 +135,8 @@ public class TableWriter implements Closeable {
     private final TxWriter txFile;
     private final FindVisitor removePartitionDirsNotAttached = this::removePartitionDirsNotAttached;
     private final LongList o3PartitionRemoveCandidates = new LongList();
+    // partition timestamp, partition name txn, txn, which removed the partition and storage tier of the directory
+    private final LongList removedPartitions = new LongList();
     private final ObjectPool<O3MutableAtomicInteger> o3ColumnCounters = new ObjectPool<>(O3MutableAtomicInteger::new, 64);
     private final ObjectPool<O3Basket> o3BasketPool = new ObjectPool<>(O3Basket::new, 64);
     private final TxnScoreboard txnScoreboard;
@@ -134,6 +146,14 @@ public class TableWriter implements Closeable {
     private final MPSequence o3PartitionUpdatePubSeq;
     private final SCSequence o3PartitionUpdateSubSeq;
     private final boolean o3QuickSortEnabled;
+    private final PartitionCompressor partitionCompressor;
+    private final PartitionRowCopier partitionRowCopier;
+    // partition timestamp, partition name txn, row lo and row hi of rows copied by partitionRowCopier
+    private final LongList partitionCopySources = new LongList();
+    private final long o3PartitionSplitMinSize;
+    private final TableWriterMetrics metrics;
+    // picks commit lag from lateness of rows, null when lag is static
+    private CommitLagEstimator commitLagEstimator;
     private final LongConsumer appendTimestampSetter;
     private final MemoryMR indexMem = Vm.getMRInstance();
     private long todoTxn;
@@ -165,6 +185,9 @@ public class TableWriter implements Closeable {
     private final O3ColumnUpdateMethod o3MoveUncommittedRef = this::o3MoveUncommitted0;
     private long lastPartitionTimestamp;
     private boolean o3InError = false;
+    // key columns other than designated timestamp, valid when dedup is enabled
+    private final IntList dedupKeyColumns = new IntList();
+    private boolean dedup;
 
     public TableWriter(CairoConfiguration configuration, CharSequence tableName) {
         this(configuration, tableName, new MessageBusImpl(configuration));
@@ -191,10 +214,23 @@ public class TableWriter implements Closeable {
             boolean lock,
             LifecycleManager lifecycleManager,
             CharSequence root
+    ) {
+        this(configuration, tableName, messageBus, lock, lifecycleManager, root, TableWriterMetrics.DISABLED);
+    }
+
+    public TableWriter(
+            CairoConfiguration configuration,
+            CharSequence tableName,
+            @NotNull MessageBus messageBus,
+            boolean lock,
+            LifecycleManager lifecycleManager,
+            CharSequence root,
+            TableWriterMetrics metrics
     ) {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
         this.messageBus = messageBus;
+        this.metrics = metrics;
         this.defaultCommitMode = configuration.getCommitMode();
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = configuration.isParallelIndexingEnabled();
@@ -203,6 +239,9 @@ public class TableWriter implements Closeable {
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
         this.tableName = Chars.toString(tableName);
         this.o3QuickSortEnabled = configuration.isO3QuickSortEnabled();
+        this.partitionCompressor = new PartitionCompressor(configuration);
+        this.partitionRowCopier = new PartitionRowCopier(configuration);
+        this.o3PartitionSplitMinSize = configuration.getO3PartitionSplitMinSize();
         this.o3PartitionUpdateQueue = new RingQueue<O3PartitionUpdateTask>(O3PartitionUpdateTask.CONSTRUCTOR, configuration.getO3PartitionUpdateQueueCapacity());
         this.o3PartitionUpdatePubSeq = new MPSequence(this.o3PartitionUpdateQueue.getCapacity());
         this.o3PartitionUpdateSubSeq = new SCSequence();
@@ -212,6 +251,16 @@ public class TableWriter implements Closeable {
         this.path.of(root).concat(tableName);
         this.other = new Path().of(root).concat(tableName);
         this.rootLen = path.length();
+        final CharSequence coldRoot = configuration.getColdRoot();
+        if (coldRoot != null) {
+            this.coldPath = new Path().of(coldRoot).concat(tableName);
+            this.coldRootLen = coldPath.length();
+            this.tierPath = new Path();
+        } else {
+            this.coldPath = null;
+            this.coldRootLen = 0;
+            this.tierPath = null;
+        }
         this.blockWriter = new TableBlockWriter(configuration, messageBus);
         try {
             if (lock) {
@@ -252,6 +301,7 @@ public class TableWriter implements Closeable {
                     break;
             }
             this.columnCount = metadata.getColumnCount();
+            loadDedupKeys();
             if (metadata.getTimestampIndex() > -1) {
                 this.designatedTimestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
             }
@@ -287,6 +337,10 @@ public class TableWriter implements Closeable {
             configureAppendPosition();
             purgeUnusedPartitions();
             clearTodoLog();
+            if (configuration.getO3AdaptiveCommitLagTargetRate() > 0 && metadata.getTimestampIndex() > -1) {
+                commitLagEstimator = new CommitLagEstimator(configuration);
+                commitLagEstimator.of(txFile.getMaxTimestamp(), metadata.getCommitLag());
+            }
 
         } catch (Throwable e) {
             doClose(false);
@@ -302,6 +356,10 @@ public class TableWriter implements Closeable {
         return getPrimaryColumnIndex(index) + 1;
     }
 
+    public static long getTimestampIndexRow(long timestampIndex, long indexRow) {
+        return Unsafe.getUnsafe().getLong(timestampIndex + indexRow * 16 + Long.BYTES);
+    }
+
     public static long getTimestampIndexValue(long timestampIndex, long indexRow) {
         return Unsafe.getUnsafe().getLong(timestampIndex + indexRow * 16);
     }
@@ -314,11 +372,16 @@ public class TableWriter implements Closeable {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtWeek;
             default:
                 return null;
         }
     }
 
+    @Override
     public void addColumn(CharSequence name, int type) {
         addColumn(name, type, configuration.getDefaultSymbolCapacity(), configuration.getDefaultSymbolCacheFlag(), false, 0, false);
     }
@@ -474,6 +537,9 @@ public class TableWriter implements Closeable {
             throw CairoException.instance(0).put("cannot create index for [column='").put(columnName).put(", type=").put(ColumnType.nameOf(existingType)).put(", path=").put(path).put(']');
         }
 
+        // historic partitions are indexed directory by directory
+        squashPartitions0(Long.MAX_VALUE);
+
         // create indexer
         final SymbolColumnIndexer indexer = new SymbolColumnIndexer();
 
@@ -553,6 +619,46 @@ public class TableWriter implements Closeable {
         LOG.info().$("ADDED index to '").utf8(columnName).$('[').$(ColumnType.nameOf(existingType)).$("]' to ").$(path).$();
     }
 
+    /**
+     * Appends rows of a write-ahead log segment column by column. When table is partitioned by
+     * designated timestamp rows are copied to out-of-order memory and merged into partitions on commit,
+     * otherwise rows are appended to the table and must not be out of order. Table columns missing
+     * from the segment are set to null.
+     *
+     * @param walColumns    primary and secondary memory of segment columns, secondary memory is only read for
+     *                      variable length columns, which include symbols stored as strings
+     * @param columnIndexes table column index of each segment column, -1 for columns to skip
+     * @param rowLo         first segment row to append
+     * @param rowHi         last segment row to append + 1
+     */
+    public void appendWalBlock(ObjList<? extends MemoryR> walColumns, IntList columnIndexes, long rowLo, long rowHi) {
+        if (rowLo >= rowHi) {
+            return;
+        }
+        if ((masterRef & 1) != 0) {
+            cancelRow();
+        }
+
+        walColumnIndexes.setAll(columnCount, -1);
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final int columnIndex = columnIndexes.getQuick(i);
+            if (columnIndex > -1) {
+                walColumnIndexes.setQuick(columnIndex, i);
+            }
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex > -1 && walColumnIndexes.getQuick(timestampIndex) == -1) {
+            throw CairoException.instance(0).put("WAL segment has no designated timestamp [table=").put(tableName).put(']');
+        }
+
+        if (timestampIndex > -1 && partitionBy != PartitionBy.NONE) {
+            o3AppendWalBlock(walColumns, rowLo, rowHi);
+        } else {
+            appendWalBlock0(walColumns, rowLo, rowHi);
+        }
+    }
+
     public int attachPartition(long timestamp) {
         // Partitioned table must have a timestamp
         // SQL compiler will check that table is partitioned
@@ -660,11 +766,12 @@ public class TableWriter implements Closeable {
         txFile.bumpStructureVersion(this.denseSymbolMapWriters);
     }
 
+    @Override
     public boolean checkMaxAndCommitLag(int commitMode) {
         if (getO3RowCount() < metadata.getMaxUncommittedRows()) {
             return false;
         }
-        commit(commitMode, metadata.getCommitLag());
+        commit(commitMode, computeCommitLag());
         return true;
     }
 
@@ -678,6 +785,113 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Compresses column data files of partitions, which ended before given timestamp. Active
+     * partition is never compressed, the writer decompresses partition files before it
+     * modifies them.
+     *
+     * @param timestampHi partitions ending at or before this timestamp are compressed
+     * @return number of compressed column files
+     */
+    public int compressPartitions(long timestampHi) {
+        checkDistressed();
+        if (partitionBy == PartitionBy.NONE) {
+            return 0;
+        }
+        squashPartitions0(timestampHi);
+        int count = 0;
+        try {
+            for (int i = 0, n = txFile.getPartitionCount() - 1; i < n; i++) {
+                final long partitionTimestamp = txFile.getPartitionTimestamp(i);
+                if (timestampCeilMethod.ceil(partitionTimestamp) > timestampHi) {
+                    break;
+                }
+                if (txFile.isActivePartition(partitionTimestamp)) {
+                    continue;
+                }
+                setStateForTimestamp(path, partitionTimestamp, false);
+                final int plen = path.length();
+                for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                    final CharSequence columnName = metadata.getColumnName(columnIndex);
+                    if (ff.exists(dFile(path.trimTo(plen), columnName))) {
+                        partitionCompressor.compress(
+                                path.trimTo(plen),
+                                columnName,
+                                metadata.getColumnType(columnIndex),
+                                getColumnCodec(metaMem, columnIndex)
+                        );
+                        count++;
+                    }
+                }
+                path.trimTo(rootLen);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+        return count;
+    }
+
+    /**
+     * Replaces partition with its compressed copy, which {@link PartitionCompressionJob} made outside of
+     * the writer. Copy is attached under new partition name txn, which makes open readers reload the
+     * partition, the original directory is removed once readers release it. Copy is discarded when the
+     * partition or table structure changed since the copy was made.
+     *
+     * @param partitionTimestamp timestamp of the partition
+     * @param partitionNameTxn   name txn of the partition the copy was made from
+     * @param partitionSize      row count of the partition the copy was made from
+     * @param structureVersion   table structure version the copy was made with
+     * @param copyDirName        name of the copy directory in table root
+     * @return true when the copy is attached
+     */
+    public boolean attachCompressedPartition(
+            long partitionTimestamp,
+            long partitionNameTxn,
+            long partitionSize,
+            long structureVersion,
+            CharSequence copyDirName
+    ) {
+        checkDistressed();
+        commit();
+        other.trimTo(rootLen).concat(copyDirName);
+        try {
+            final int partitionIndex = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+            if (partitionIndex < 0
+                    || partitionIndex == txFile.getPartitionCount() - 1
+                    || txFile.isActivePartition(partitionTimestamp)
+                    || txFile.getPartitionNameTxn(partitionIndex) != partitionNameTxn
+                    || txFile.getPartitionSize(partitionIndex) != partitionSize
+                    || txFile.getStructureVersion() != structureVersion
+                    || !ff.exists(setHotPathForPartition(path, partitionTimestamp, partitionNameTxn).$())) {
+                LOG.info().$("partition changed, compressed copy is discarded [table=`").utf8(tableName)
+                        .$("`, ts=").$ts(partitionTimestamp)
+                        .I$();
+                ff.rmdir(other.slash$());
+                return false;
+            }
+            // new name txn is the txn of the commit below
+            final long txn = txFile.getTxn();
+            if (!ff.rename(other.$(), setHotPathForPartition(path, partitionTimestamp, txn).$())) {
+                LOG.error().$("could not attach compressed copy [from=").$(other).$(", to=").$(path).$(", errno=").$(ff.errno()).I$();
+                ff.rmdir(other.slash$());
+                return false;
+            }
+            txFile.updatePartitionSizeByIndexAndTxn(partitionIndex * LONGS_PER_TX_ATTACHED_PARTITION, partitionSize);
+            removedPartitions.add(partitionTimestamp);
+            removedPartitions.add(partitionNameTxn);
+            removedPartitions.add(txn + 1);
+            removedPartitions.add(TIER_HOT);
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+        txFile.bumpPartitionTableVersion();
+        txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+        purgeRemovedPartitions();
+        return true;
+    }
+
+    @Override
     public void commit() {
         commit(defaultCommitMode);
     }
@@ -687,13 +901,25 @@ public class TableWriter implements Closeable {
     }
 
     public void commitWithLag() {
-        commit(defaultCommitMode, metadata.getCommitLag());
+        commit(defaultCommitMode, computeCommitLag());
     }
 
+    @Override
     public void commitWithLag(long lagMicros) {
         commit(defaultCommitMode, lagMicros);
     }
 
+    /**
+     * Lag used by {@link #commitWithLag()} and {@link #checkMaxAndCommitLag(int)}. It is either the lag
+     * from table metadata or, when adaptive commit lag is enabled, the lag picked from lateness of rows
+     * written so far.
+     *
+     * @return commit lag in microseconds
+     */
+    public long getCommitLag() {
+        return commitLagEstimator != null ? commitLagEstimator.getLag() : metadata.getCommitLag();
+    }
+
     public int getColumnIndex(CharSequence name) {
         int index = metadata.getColumnIndexQuiet(name);
         if (index > -1) {
@@ -714,6 +940,7 @@ public class TableWriter implements Closeable {
         return txFile.getMaxTimestamp();
     }
 
+    @Override
     public TableWriterMetadata getMetadata() {
         return metadata;
     }
@@ -730,6 +957,7 @@ public class TableWriter implements Closeable {
         return txFile.getPartitionCount();
     }
 
+    @Override
     public long getStructureVersion() {
         return txFile.getStructureVersion();
     }
@@ -738,6 +966,7 @@ public class TableWriter implements Closeable {
         return symbolMapWriters.getQuick(columnIndex).put(symValue);
     }
 
+    @Override
     public CharSequence getTableName() {
         return tableName;
     }
@@ -754,6 +983,10 @@ public class TableWriter implements Closeable {
         return txFile != null && (txFile.inTransaction() || hasO3());
     }
 
+    public boolean isDedupEnabled() {
+        return dedup;
+    }
+
     public boolean isOpen() {
         return tempMem16b != 0;
     }
@@ -765,10 +998,15 @@ public class TableWriter implements Closeable {
         return blockWriter;
     }
 
+    @Override
     public Row newRow(long timestamp) {
+        if (commitLagEstimator != null) {
+            commitLagEstimator.observe(timestamp);
+        }
         return rowFunction.newRow(timestamp);
     }
 
+    @Override
     public Row newRow() {
         return newRow(0L);
     }
@@ -792,6 +1030,12 @@ public class TableWriter implements Closeable {
                 case PartitionBy.MONTH:
                     ee.put("'YYYY-MM'");
                     break;
+                case PartitionBy.HOUR:
+                    ee.put("'YYYY-MM-DDTHH'");
+                    break;
+                case PartitionBy.WEEK:
+                    ee.put("'YYYY-Www'");
+                    break;
                 default:
                     ee.put("'YYYY'");
                     break;
@@ -876,10 +1120,133 @@ public class TableWriter implements Closeable {
             metadata.setTimestampIndex(timestampIndex2);
             o3TimestampMem = o3Columns.getQuick(getPrimaryColumnIndex(timestampIndex2));
         }
+        loadDedupKeys();
 
         LOG.info().$("REMOVED column '").utf8(name).$("' from ").$(path).$();
     }
 
+    /**
+     * Removes directories of partitions, which were dropped or relocated to another storage tier while
+     * table had active readers. Directory is removed once no reader remains on transaction preceding the change.
+     *
+     * @return number of partition directories, which are yet to be removed
+     */
+    public int purgeRemovedPartitions() {
+        int n = removedPartitions.size();
+        if (n == 0) {
+            return 0;
+        }
+        try {
+            for (int i = 0; i < n; ) {
+                final long timestamp = removedPartitions.getQuick(i);
+                final long nameTxn = removedPartitions.getQuick(i + 1);
+                final long txn = removedPartitions.getQuick(i + 2);
+                final int tier = (int) removedPartitions.getQuick(i + 3);
+                if (!isReleasedByReaders(txn)) {
+                    i += REMOVED_PARTITION_BLOCK_SIZE;
+                    continue;
+                }
+                final Path dir = tier == TIER_COLD ? setColdPathForPartition(timestamp, nameTxn) : setHotPathForPartition(other, timestamp, nameTxn);
+                if (isPartitionDirInUse(timestamp, nameTxn, tier)) {
+                    // partition has been re-created in the same directory
+                    LOG.info().$("partition is in use again, not purged [path=").$(dir).$(']').$();
+                } else {
+                    int errno;
+                    if ((errno = ff.rmdir(dir.slash$())) == 0 || !ff.exists(dir)) {
+                        LOG.info().$("purged [path=").$(dir).$(", txn=").$(txn).$(']').$();
+                    } else {
+                        LOG.info().$("could not purge [path=").$(dir).$(", errno=").$(errno).$(']').$();
+                    }
+                }
+                removedPartitions.removeIndexBlock(i, REMOVED_PARTITION_BLOCK_SIZE);
+                n -= REMOVED_PARTITION_BLOCK_SIZE;
+            }
+        } finally {
+            other.trimTo(rootLen);
+        }
+        return n / REMOVED_PARTITION_BLOCK_SIZE;
+    }
+
+    /**
+     * Copies partitions, which ended before given timestamp, to cold root and removes their directories
+     * from table root once readers release them. Partition keeps its name on the cold tier, readers
+     * and writer fall back to cold root when partition directory is absent from table root. Active partition
+     * is never relocated. Copy of partition becomes visible to readers via new partition name txn, which makes
+     * open readers reload the partition. Partitions are copied back to table root before they are
+     * modified by out-of-order commits.
+     *
+     * @param timestampHi partitions ending at or before this timestamp are relocated
+     * @return number of relocated partitions
+     */
+    public int relocatePartitions(long timestampHi) {
+        checkDistressed();
+        if (coldPath == null || partitionBy == PartitionBy.NONE) {
+            return 0;
+        }
+        commit();
+        squashPartitions0(timestampHi);
+        int count = 0;
+        final long txn = txFile.getTxn();
+        try {
+            for (int i = 0, n = txFile.getPartitionCount() - 1; i < n; i++) {
+                final long partitionTimestamp = txFile.getPartitionTimestamp(i);
+                if (timestampCeilMethod.ceil(partitionTimestamp) > timestampHi) {
+                    break;
+                }
+                if (txFile.isActivePartition(partitionTimestamp)) {
+                    continue;
+                }
+                final long nameTxn = txFile.getPartitionNameTxn(i);
+                if (!ff.exists(setHotPathForPartition(path, partitionTimestamp, nameTxn).$())) {
+                    // partition is on cold tier already
+                    continue;
+                }
+                if (copyPartitionDir(path.chop$(), setColdPathForPartition(partitionTimestamp, txn))) {
+                    // new name txn is the txn of the commit below
+                    txFile.updatePartitionSizeByIndexAndTxn(i * LONGS_PER_TX_ATTACHED_PARTITION, txFile.getPartitionSize(i));
+                    removedPartitions.add(partitionTimestamp);
+                    removedPartitions.add(nameTxn);
+                    removedPartitions.add(txn + 1);
+                    removedPartitions.add(TIER_HOT);
+                    count++;
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+        if (count > 0) {
+            txFile.bumpPartitionTableVersion();
+            txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+            purgeRemovedPartitions();
+        }
+        return count;
+    }
+
+    /**
+     * Removes partitions, which ended before given timestamp. Active partition is never removed.
+     * This enforces table TTL, see {@link RetentionJob}.
+     *
+     * @param timestampHi partitions ending at or before this timestamp are removed
+     * @return number of removed partitions
+     */
+    public int removeExpiredPartitions(long timestampHi) {
+        checkDistressed();
+        if (partitionBy == PartitionBy.NONE) {
+            return 0;
+        }
+        int count = 0;
+        while (txFile.getPartitionCount() > 1) {
+            final long partitionTimestamp = txFile.getPartitionTimestamp(0);
+            if (timestampCeilMethod.ceil(partitionTimestamp) > timestampHi
+                    || txFile.isActivePartition(partitionTimestamp)
+                    || !removePartition(partitionTimestamp)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
     public boolean removePartition(long timestamp) {
         long minTimestamp = txFile.getMinTimestamp();
         long maxTimestamp = txFile.getMaxTimestamp();
@@ -905,6 +1272,9 @@ public class TableWriter implements Closeable {
             return false;
         }
 
+        // partition is removed together with its parts
+        squashPartitions0(Long.MAX_VALUE);
+
         try {
             // when we want to delete first partition we must find out
             // minTimestamp from next partition if it exists or next partition and so on
@@ -916,6 +1286,7 @@ public class TableWriter implements Closeable {
 
             // find out if we are removing min partition
             setStateForTimestamp(path, timestamp, false);
+            final long nameTxn = txFile.getPartitionNameTxnByPartitionTimestamp(timestamp);
             long nextMinTimestamp = minTimestamp;
             if (timestamp == txFile.getPartitionTimestamp(0)) {
                 nextMinTimestamp = readMinTimestamp(txFile.getPartitionTimestamp(1));
@@ -926,14 +1297,16 @@ public class TableWriter implements Closeable {
             txFile.finishPartitionSizeUpdate(nextMinTimestamp, txFile.getMaxTimestamp());
             txFile.commit(defaultCommitMode, denseSymbolMapWriters);
 
-            if (ff.exists(path.$())) {
-                int errno;
-                if ((errno = ff.rmdir(path.chop$().slash$())) != 0) {
-                    LOG.info().$("partition directory delete is postponed [path=").$(path)
-                            .$(", errno=").$(errno)
-                            .$(']').$();
-                } else {
-                    LOG.info().$("partition marked for delete [path=").$(path).$(']').$();
+            final boolean hot = ff.exists(path.$());
+            final boolean cold = coldPath != null && ff.exists(setColdPathForPartition(timestamp, nameTxn).$());
+            if (hot || cold) {
+                // readers of previous transactions may still have the partition open,
+                // directory is removed once they move on
+                if (hot) {
+                    removePartitionDir(path.chop$(), timestamp, nameTxn, TIER_HOT);
+                }
+                if (cold) {
+                    removePartitionDir(coldPath.chop$(), timestamp, nameTxn, TIER_COLD);
                 }
             } else {
                 LOG.info().$("partition absent on disk now detached from table [path=").$(path).$(']').$();
@@ -952,6 +1325,8 @@ public class TableWriter implements Closeable {
         if (txFile.getPartitionCount() == 0) {
             throw SqlException.$(posForError, "table is empty");
         } else {
+            // parts of partitions are not dropped on their own
+            squashPartitions0(Long.MAX_VALUE);
             // Drop partitions in descending order so if folders are missing on disk
             // removePartition does not fail to determine next minTimestamp
             for (int i = txFile.getPartitionCount() - 1; i > -1; i--) {
@@ -1014,6 +1389,7 @@ public class TableWriter implements Closeable {
         LOG.info().$("RENAMED column '").utf8(currentName).$("' to '").utf8(newName).$("' from ").$(path).$();
     }
 
+    @Override
     public void rollback() {
         checkDistressed();
         if (o3InError || inTransaction()) {
@@ -1041,6 +1417,32 @@ public class TableWriter implements Closeable {
         this.lifecycleManager = lifecycleManager;
     }
 
+    /**
+     * Sets age of data after which partitions are removed, 0 disables removal.
+     *
+     * @param ttl age in microseconds, measured from the end of partition
+     */
+    public void setMetaTtl(long ttl) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_TTL);
+                ddlMem.putLong(ttl);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setTtl(ttl);
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
     public void setMetaCommitLag(long commitLag) {
         try {
             commit();
@@ -1062,6 +1464,67 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Sets codec, which compresses data of the column in cold partitions. Partitions, which are
+     * already compressed, keep their encoding until they are rewritten.
+     *
+     * @param columnIndex index of the column
+     * @param codecId     codec id, see {@link io.questdb.cairo.codec.ColumnCodecs}
+     */
+    public void setMetaColumnCodec(int columnIndex, int codecId) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 4);
+                ddlMem.putLong((getColumnFlags(metaMem, columnIndex) & ~META_FLAG_CODEC_MASK) | ((long) codecId << META_FLAG_CODEC_SHIFT));
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
+    /**
+     * Sets columns, which together with designated timestamp identify a row. Committed rows, which
+     * have the same timestamp and key values as an existing or another committed row, replace
+     * that row rather than being added next to it.
+     *
+     * @param keyColumns indexes of key columns including designated timestamp, empty list disables deduplication
+     */
+    public void setMetaDedupKeys(IntList keyColumns) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    long flags = getColumnFlags(metaMem, i) & ~META_FLAG_BIT_DEDUP_KEY;
+                    if (keyColumns.indexOf(i, 0, keyColumns.size()) > -1) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES + i * META_COLUMN_DATA_SIZE + 4);
+                    ddlMem.putLong(flags);
+                }
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            loadDedupKeys();
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
     public void setMetaMaxUncommittedRows(int maxUncommittedRows) {
         try {
             commit();
@@ -1088,6 +1551,20 @@ public class TableWriter implements Closeable {
         return txFile.getRowCount() + (hasO3() ? getO3RowCount() : 0L);
     }
 
+    /**
+     * Squashes parts of partitions, which ended at or before given timestamp, back into single partition
+     * directory. Parts are created by out-of-order commits, which split large partitions, see
+     * {@link CairoConfiguration#getO3PartitionSplitMinSize()}. Squashed partition becomes visible to readers
+     * via new partition name txn, directories of parts are removed once readers release them.
+     *
+     * @param timestampHi partitions ending at or before this timestamp are squashed
+     * @return number of squashed partitions
+     */
+    public int squashPartitions(long timestampHi) {
+        checkDistressed();
+        return squashPartitions0(timestampHi);
+    }
+
     @Override
     public String toString() {
         return "TableWriter{" +
@@ -1150,6 +1627,9 @@ public class TableWriter implements Closeable {
 
         txFile.resetTimestamp();
         txFile.truncate();
+        if (commitLagEstimator != null) {
+            commitLagEstimator.of(Long.MIN_VALUE, metadata.getCommitLag());
+        }
 
         try {
             clearTodoLog();
@@ -1492,6 +1972,79 @@ public class TableWriter implements Closeable {
         return index;
     }
 
+    private void appendWalBlock0(ObjList<? extends MemoryR> walColumns, long rowLo, long rowHi) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        long timestampLo = Long.MIN_VALUE;
+        long timestampHi = Long.MIN_VALUE;
+        if (timestampIndex > -1) {
+            final MemoryR walTimestamps = walColumns.getQuick(walColumnIndexes.getQuick(timestampIndex) * 2);
+            timestampLo = timestampHi = walTimestamps.getLong(rowLo << 3);
+            if (timestampLo < Timestamps.O3_MIN_TS) {
+                throw CairoException.instance(0).put("timestamp before 1970-01-01 is not allowed");
+            }
+            for (long r = rowLo + 1; r < rowHi; r++) {
+                final long timestamp = walTimestamps.getLong(r << 3);
+                if (timestamp < timestampHi) {
+                    throw CairoException.instance(0).put("Cannot insert rows out of order. Table=").put(path);
+                }
+                timestampHi = timestamp;
+            }
+        }
+        // fails when block is out of order with rows of the table
+        txFile.appendBlock(timestampLo, timestampHi, rowHi - rowLo);
+        for (int i = 0; i < columnCount; i++) {
+            appendWalColumn(walColumns, i, getPrimaryColumn(i), getSecondaryColumn(i), nullSetters.getQuick(i), rowLo, rowHi);
+        }
+    }
+
+    private void appendWalColumn(
+            ObjList<? extends MemoryR> walColumns,
+            int columnIndex,
+            MemoryA primary,
+            MemoryA secondary,
+            Runnable nullSetter,
+            long rowLo,
+            long rowHi
+    ) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (columnType < 0) {
+            // removed column
+            return;
+        }
+        final int walIndex = walColumnIndexes.getQuick(columnIndex);
+        if (walIndex == -1) {
+            for (long r = rowLo; r < rowHi; r++) {
+                nullSetter.run();
+            }
+            return;
+        }
+
+        final MemoryR walPrimary = walColumns.getQuick(walIndex * 2);
+        if (ColumnType.isSymbol(columnType)) {
+            // segment keeps symbol values, keys are table specific
+            final MemoryR walSecondary = walColumns.getQuick(walIndex * 2 + 1);
+            final SymbolMapWriter symbolMapWriter = symbolMapWriters.getQuick(columnIndex);
+            for (long r = rowLo; r < rowHi; r++) {
+                primary.putInt(symbolMapWriter.put(walPrimary.getStr(walSecondary.getLong(r << 3))));
+            }
+        } else if (ColumnType.isVariableLength(columnType)) {
+            // segment index has the same layout as that of the table, offsets are rebased to the table column
+            final MemoryR walSecondary = walColumns.getQuick(walIndex * 2 + 1);
+            final long walOffsetLo = walSecondary.getLong(rowLo << 3);
+            final long walOffsetHi = walSecondary.getLong(rowHi << 3);
+            final long shift = primary.getAppendOffset() - walOffsetLo;
+            if (walOffsetHi > walOffsetLo) {
+                primary.putBlockOfBytes(walPrimary.addressOf(walOffsetLo), walOffsetHi - walOffsetLo);
+            }
+            for (long r = rowLo + 1; r <= rowHi; r++) {
+                secondary.putLong(walSecondary.getLong(r << 3) + shift);
+            }
+        } else {
+            final int shl = ColumnType.pow2SizeOf(columnType);
+            primary.putBlockOfBytes(walPrimary.addressOf(rowLo << shl), (rowHi - rowLo) << shl);
+        }
+    }
+
     private void bumpMasterRef() {
         if ((masterRef & 1) == 0) {
             masterRef++;
@@ -1595,6 +2148,145 @@ public class TableWriter implements Closeable {
         txFile.transientRowCount--;
     }
 
+    /**
+     * Copies partition from cold root back to table root, partition is about to be modified. Cold copy
+     * is removed once readers, which may have it open, move on.
+     */
+    private void restorePartition(long partitionTimestamp, long partitionNameTxn) {
+        if (coldPath == null) {
+            return;
+        }
+        try {
+            if (ff.exists(setHotPathForPartition(other, partitionTimestamp, partitionNameTxn).$())) {
+                return;
+            }
+            if (!ff.exists(setColdPathForPartition(partitionTimestamp, partitionNameTxn).$())) {
+                return;
+            }
+            if (!copyPartitionDir(coldPath.chop$(), other.chop$())) {
+                throw CairoException.instance(ff.errno()).put("could not restore partition from cold root [path=").put(coldPath).put(']');
+            }
+            LOG.info().$("restored [path=").$(other).$(']').$();
+            // partition is not re-attached, readers switch to restored copy by its name txn on the next commit
+            removedPartitions.add(partitionTimestamp);
+            removedPartitions.add(partitionNameTxn);
+            removedPartitions.add(txFile.getTxn() + 1);
+            removedPartitions.add(TIER_COLD);
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Copies files of partition directory. Files are copied into temporary directory first, which
+     * is renamed to destination once all files are copied in full.
+     *
+     * @return false when partition could not be copied, destination is left intact
+     */
+    private boolean copyPartitionDir(Path src, Path dst) {
+        final int srcLen = src.length();
+        final int tmpLen = tierPath.of(dst).put(".copy").length();
+        ff.rmdir(tierPath.slash$());
+        tierPath.trimTo(tmpLen);
+        if (ff.mkdirs(tierPath.slash$(), mkDirMode) != 0) {
+            LOG.error().$("could not create [path=").$(tierPath).$(", errno=").$(ff.errno()).$(']').$();
+            return false;
+        }
+        boolean copied = true;
+        final long p = ff.findFirst(src.$());
+        if (p > 0) {
+            try {
+                do {
+                    if (ff.findType(p) != Files.DT_FILE) {
+                        continue;
+                    }
+                    final long name = ff.findName(p);
+                    src.trimTo(srcLen).concat(name).$();
+                    tierPath.trimTo(tmpLen).concat(name).$();
+                    if (ff.copy(src, tierPath) < 0 || ff.length(src) != ff.length(tierPath)) {
+                        LOG.error().$("could not copy [from=").$(src).$(", to=").$(tierPath).$(", errno=").$(ff.errno()).$(']').$();
+                        copied = false;
+                        break;
+                    }
+                } while (ff.findNext(p) > 0);
+            } finally {
+                ff.findClose(p);
+            }
+        }
+        src.trimTo(srcLen);
+        tierPath.trimTo(tmpLen);
+        if (copied && ff.rename(tierPath.$(), dst.$())) {
+            dst.chop$();
+            return true;
+        }
+        dst.chop$();
+        LOG.error().$("could not copy partition [from=").$(src).$(", to=").$(dst).$(", errno=").$(ff.errno()).$(']').$();
+        ff.rmdir(tierPath.slash$());
+        return false;
+    }
+
+    private Path setColdPathForPartition(long partitionTimestamp, long partitionNameTxn) {
+        TableUtils.setPathForPartitionPart(coldPath.trimTo(coldRootLen), partitionBy, partitionTimestamp);
+        TableUtils.txnPartitionConditionally(coldPath, partitionNameTxn);
+        return coldPath;
+    }
+
+    private Path setHotPathForPartition(Path path, long partitionTimestamp, long partitionNameTxn) {
+        TableUtils.setPathForPartitionPart(path.trimTo(rootLen), partitionBy, partitionTimestamp);
+        TableUtils.txnPartitionConditionally(path, partitionNameTxn);
+        return path;
+    }
+
+    // partition directory is live when it belongs to attached partition version and is not shadowed by
+    // the copy in table root
+    private boolean isPartitionDirInUse(long partitionTimestamp, long partitionNameTxn, int tier) {
+        final int partitionIndex = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (partitionIndex < 0 || txFile.getPartitionNameTxnByIndex(partitionIndex) != partitionNameTxn) {
+            return false;
+        }
+        return tier == TIER_HOT || !ff.exists(setHotPathForPartition(other, partitionTimestamp, partitionNameTxn).$());
+    }
+
+    private void removePartitionDir(Path dir, long partitionTimestamp, long partitionNameTxn, int tier) {
+        if (isReleasedByReaders(txFile.getTxn())) {
+            int errno;
+            if ((errno = ff.rmdir(dir.slash$())) != 0) {
+                LOG.info().$("partition directory delete is postponed [path=").$(dir)
+                        .$(", errno=").$(errno)
+                        .$(']').$();
+            } else {
+                LOG.info().$("partition marked for delete [path=").$(dir).$(']').$();
+            }
+        } else {
+            removedPartitions.add(partitionTimestamp);
+            removedPartitions.add(partitionNameTxn);
+            removedPartitions.add(txFile.getTxn());
+            removedPartitions.add(tier);
+            LOG.info().$("partition directory delete is postponed until readers release it [path=").$(dir)
+                    .$(", txn=").$(txFile.getTxn())
+                    .$(']').$();
+        }
+    }
+
+    /**
+     * Restores data files of partition, which is about to be merged with O3 data.
+     */
+    private void decompressPartition(long partitionTimestamp, long partitionNameTxn) {
+        try {
+            TableUtils.setPathForPartitionPart(other.trimTo(rootLen), partitionBy, partitionTimestamp);
+            TableUtils.txnPartitionConditionally(other, partitionNameTxn);
+            final int plen = other.length();
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                final CharSequence columnName = metadata.getColumnName(columnIndex);
+                if (PartitionCompressor.isCompressed(ff, other.trimTo(plen), columnName)) {
+                    partitionCompressor.decompress(other.trimTo(plen), columnName);
+                }
+            }
+        } finally {
+            other.trimTo(rootLen);
+        }
+    }
+
     private void cancelRowAndBump() {
         cancelRow();
         masterRef++;
@@ -1695,6 +2387,7 @@ public class TableWriter implements Closeable {
             updateIndexes();
             txFile.commit(commitMode, this.denseSymbolMapWriters);
             o3ProcessPartitionRemoveCandidates();
+            purgeRemovedPartitions();
         }
     }
 
@@ -1713,6 +2406,16 @@ public class TableWriter implements Closeable {
         setAppendPosition(txFile.getTransientRowCount(), true);
     }
 
+    private long computeCommitLag() {
+        if (commitLagEstimator == null) {
+            return metadata.getCommitLag();
+        }
+        final long lag = commitLagEstimator.computeLag();
+        metrics.setCommitLag(tableName, lag);
+        LOG.debug().$("commit lag [table=").utf8(tableName).$(", lag=").$(lag).$(", rows=").$(commitLagEstimator.getRowCount()).I$();
+        return lag;
+    }
+
     private void configureAppendPosition() {
         if (this.txFile.getMaxTimestamp() > Long.MIN_VALUE || partitionBy == PartitionBy.NONE) {
             openFirstPartition(this.txFile.getMaxTimestamp());
@@ -1881,6 +2584,10 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isDedupKey(metaMem, i)) {
+                        flags |= META_FLAG_BIT_DEDUP_KEY;
+                    }
+                    flags |= getColumnFlags(metaMem, i) & META_FLAG_CODEC_MASK;
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                 }
@@ -1930,6 +2637,7 @@ public class TableWriter implements Closeable {
         ddlMem.putInt(metaMem.getInt(META_OFFSET_TABLE_ID));
         ddlMem.putInt(metaMem.getInt(META_OFFSET_MAX_UNCOMMITTED_ROWS));
         ddlMem.putLong(metaMem.getLong(META_OFFSET_COMMIT_LAG));
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
     }
 
     /**
@@ -1989,6 +2697,9 @@ public class TableWriter implements Closeable {
 
     private void doClose(boolean truncate) {
         consumeO3PartitionRemoveTasks();
+        if (purgeRemovedPartitions() > 0) {
+            LOG.info().$("partition directories are left behind by active readers [table=").utf8(tableName).$(']').$();
+        }
         boolean tx = inTransaction();
         freeSymbolMapWriters();
         freeIndexers();
@@ -1998,7 +2709,14 @@ public class TableWriter implements Closeable {
         Misc.free(ddlMem);
         Misc.free(indexMem);
         Misc.free(other);
+        Misc.free(coldPath);
+        Misc.free(tierPath);
         Misc.free(todoMem);
+        Misc.free(partitionCompressor);
+        Misc.free(partitionRowCopier);
+        if (commitLagEstimator != null) {
+            metrics.removeCommitLag(tableName);
+        }
         freeColumns(truncate & !distressed);
         try {
             releaseLock(!truncate | tx | performRecovery | distressed);
@@ -2095,6 +2813,10 @@ public class TableWriter implements Closeable {
         return columnTops.getQuick(columnIndex);
     }
 
+    IntList getDedupKeyColumns() {
+        return dedupKeyColumns;
+    }
+
     CairoConfiguration getConfiguration() {
         return configuration;
     }
@@ -2190,10 +2912,18 @@ public class TableWriter implements Closeable {
 
                     setStateForTimestamp(path, timestamp, true);
 
+                    if (txFile.attachedPartitionsContains(timestamp)) {
+                        restorePartition(timestamp, txFile.getPartitionNameTxnByPartitionTimestamp(timestamp));
+                    }
+
                     if (txFile.attachedPartitionsContains(timestamp) && ff.exists(path.$())) {
 
                         final int plen = path.length();
 
+                        if (PartitionCompressor.isCompressed(ff, path.trimTo(plen), columnName)) {
+                            partitionCompressor.decompress(path.trimTo(plen), columnName);
+                        }
+
                         TableUtils.dFile(path.trimTo(plen), columnName);
 
                         if (ff.exists(path)) {
@@ -2242,6 +2972,19 @@ public class TableWriter implements Closeable {
         return symbolMapWriters.getQuick(columnIndex).isCached();
     }
 
+    private void loadDedupKeys() {
+        dedupKeyColumns.clear();
+        final int timestampIndex = metadata.getTimestampIndex();
+        dedup = timestampIndex > -1 && isDedupKey(metaMem, timestampIndex);
+        if (dedup) {
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (i != timestampIndex && isDedupKey(metaMem, i)) {
+                    dedupKeyColumns.add(i);
+                }
+            }
+        }
+    }
+
     private void lock() {
         try {
             path.trimTo(rootLen);
@@ -2282,13 +3025,15 @@ public class TableWriter implements Closeable {
         final int timestampIndex = metadata.getTimestampIndex();
         this.lastPartitionTimestamp = timestampFloorMethod.floor(partitionTimestampHi);
         try {
+            // rows moved out of the active partition are appended after O3 rows
+            final long o3MovedRowLo = o3RowCount;
             o3RowCount += o3MoveUncommitted(timestampIndex);
 
             // we may need to re-use file descriptors when this partition is the "current" one
             // we cannot open file again due to sharing violation
             //
             // to determine that 'ooTimestampLo' goes into current partition
-            // we need to compare 'partitionTimestampHi', which is appropriately truncated to DAY/MONTH/YEAR
+            // we need to compare 'partitionTimestampHi', which is appropriately truncated to partition boundary
             // to this.maxTimestamp, which isn't truncated yet. So we need to truncate it first
             LOG.info().$("sorting o3 [table=").$(tableName).$(']').$();
             final long sortedTimestampsAddr = o3TimestampMem.addressOf(0);
@@ -2301,6 +3046,10 @@ public class TableWriter implements Closeable {
                 Vect.quickSortLongIndexAscInPlace(sortedTimestampsAddr, o3RowCount);
             }
 
+            if (dedup) {
+                o3RowCount = o3Dedup(sortedTimestampsAddr, o3RowCount, o3MovedRowLo);
+            }
+
             // we have three frames:
             // partition logical "lo" and "hi" - absolute bounds (partitionLo, partitionHi)
             // partition actual data "lo" and "hi" (dataLo, dataHi)
@@ -2385,6 +3134,10 @@ public class TableWriter implements Closeable {
             o3Sort(sortedTimestampsAddr, timestampIndex, o3RowCount);
             LOG.info().$("sorted [table=").utf8(tableName).I$();
 
+            if (o3PartitionSplitMinSize > 0 && partitionBy != PartitionBy.NONE) {
+                o3SplitPartitions(sortedTimestampsAddr, srcOooMax, o3TimestampMax);
+            }
+
             this.o3DoneLatch.reset();
             this.o3PartitionUpdRemaining.set(0);
             boolean success = true;
@@ -2398,8 +3151,9 @@ public class TableWriter implements Closeable {
                         final long srcOooLo = srcOoo;
                         final long o3Timestamp = getTimestampIndexValue(sortedTimestampsAddr, srcOoo);
                         final long srcOooHi;
+                        final long partitionTimestamp = o3PartitionTimestamp(o3Timestamp);
                         // keep ceil inclusive in the interval
-                        final long srcOooTimestampCeil = timestampCeilMethod.ceil(o3Timestamp) - 1;
+                        final long srcOooTimestampCeil = o3PartitionTimestampCeil(partitionTimestamp, o3Timestamp);
                         if (srcOooTimestampCeil < o3TimestampMax) {
                             srcOooHi = Vect.boundedBinarySearchIndexT(
                                     sortedTimestampsAddr,
@@ -2412,7 +3166,6 @@ public class TableWriter implements Closeable {
                             srcOooHi = srcOooMax - 1;
                         }
 
-                        final long partitionTimestamp = timestampFloorMethod.floor(o3Timestamp);
                         final boolean last = partitionTimestamp == lastPartitionTimestamp;
                         srcOoo = srcOooHi + 1;
 
@@ -2426,12 +3179,16 @@ public class TableWriter implements Closeable {
                                 srcDataMax = getPartitionSizeByIndex(partitionIndex);
                             }
                             srcNameTxn = getPartitionNameTxnByIndex(partitionIndex);
+                            if (!last) {
+                                restorePartition(partitionTimestamp, srcNameTxn);
+                                decompressPartition(partitionTimestamp, srcNameTxn);
+                            }
                         } else {
                             srcDataMax = -1;
                             srcNameTxn = -1;
                         }
 
-                        final boolean append = last && (srcDataMax < 0 || o3Timestamp >= maxTimestamp);
+                        final boolean append = last && (srcDataMax < 0 || o3Timestamp > maxTimestamp || (!dedup && o3Timestamp == maxTimestamp));
                         LOG.debug().
                                 $("o3 partition task [table=").$(tableName)
                                 .$(", srcOooLo=").$(srcOooLo)
@@ -2693,6 +3450,7 @@ public class TableWriter implements Closeable {
                 final long srcOooPartitionLo = task.getSrcOooPartitionLo();
                 final long srcOooPartitionHi = task.getSrcOooPartitionHi();
                 final long srcDataMax = task.getSrcDataMax();
+                final long dedupRowCount = task.getDedupRowCount();
                 final boolean partitionMutates = task.isPartitionMutates();
 
                 o3ClockDownPartitionUpdateCount();
@@ -2708,6 +3466,7 @@ public class TableWriter implements Closeable {
                             srcOooPartitionHi,
                             srcOooMax,
                             srcDataMax,
+                            dedupRowCount,
                             partitionMutates
                     );
                 }
@@ -2803,6 +3562,128 @@ public class TableWriter implements Closeable {
         o3DoneLatch.countDown();
     }
 
+    /**
+     * Collapses rows of sorted O3 index that share designated timestamp and values of dedup key columns.
+     * The row written last wins. Rows moved from the active partition by o3MoveUncommitted() sit at the end
+     * of O3 buffers even though they were written before any of the O3 rows.
+     *
+     * @return number of rows left in the index
+     */
+    private long o3Dedup(long sortedTimestampsAddr, long rowCount, long movedRowLo) {
+        final long dedupFlag = 1L << 63;
+        long lo = 0;
+        long dedupCount = 0;
+        while (lo < rowCount) {
+            final long ts = getTimestampIndexValue(sortedTimestampsAddr, lo);
+            long hi = lo + 1;
+            while (hi < rowCount && getTimestampIndexValue(sortedTimestampsAddr, hi) == ts) {
+                hi++;
+            }
+            for (long i = lo; i < hi - 1; i++) {
+                final long rowI = getTimestampIndexRow(sortedTimestampsAddr, i);
+                if ((rowI & dedupFlag) != 0) {
+                    continue;
+                }
+                for (long j = i + 1; j < hi; j++) {
+                    final long rowJ = getTimestampIndexRow(sortedTimestampsAddr, j);
+                    if ((rowJ & dedupFlag) == 0 && o3DedupKeysEqual(rowI, rowJ)) {
+                        dedupCount++;
+                        if (o3WriteOrder(rowI, movedRowLo, rowCount) < o3WriteOrder(rowJ, movedRowLo, rowCount)) {
+                            Unsafe.getUnsafe().putLong(sortedTimestampsAddr + i * 16 + Long.BYTES, rowI | dedupFlag);
+                            break;
+                        }
+                        Unsafe.getUnsafe().putLong(sortedTimestampsAddr + j * 16 + Long.BYTES, rowJ | dedupFlag);
+                    }
+                }
+            }
+            lo = hi;
+        }
+
+        if (dedupCount == 0) {
+            return rowCount;
+        }
+
+        long count = 0;
+        for (long i = 0; i < rowCount; i++) {
+            if ((getTimestampIndexRow(sortedTimestampsAddr, i) & dedupFlag) == 0) {
+                if (count < i) {
+                    Vect.memcpy(sortedTimestampsAddr + i * 16, sortedTimestampsAddr + count * 16, 16);
+                }
+                count++;
+            }
+        }
+        LOG.info().$("o3 dedup [table=").$(tableName).$(", rows=").$(rowCount).$(", removed=").$(rowCount - count).I$();
+        return count;
+    }
+
+    private boolean o3DedupKeysEqual(long row1, long row2) {
+        for (int i = 0, n = dedupKeyColumns.size(); i < n; i++) {
+            final int columnIndex = dedupKeyColumns.getQuick(i);
+            final int columnType = metadata.getColumnType(columnIndex);
+            final int shl = ColumnType.pow2SizeOf(columnType);
+            final long addr = o3Columns.getQuick(getPrimaryColumnIndex(columnIndex)).addressOf(0);
+            if (!O3Utils.dedupKeyEquals(columnType, addr + (row1 << shl), addr + (row2 << shl))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long o3WriteOrder(long row, long movedRowLo, long rowCount) {
+        return row < movedRowLo ? row + rowCount : row - movedRowLo;
+    }
+
+    private void o3AppendWalBlock(ObjList<? extends MemoryR> walColumns, long rowLo, long rowHi) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        final MemoryR walTimestamps = walColumns.getQuick(walColumnIndexes.getQuick(timestampIndex) * 2);
+        if (rowFunction == openPartitionFunction && txFile.getMaxTimestamp() == Long.MIN_VALUE) {
+            // table is empty, first partition is that of the earliest row
+            long timestampMin = Long.MAX_VALUE;
+            for (long r = rowLo; r < rowHi; r++) {
+                timestampMin = Math.min(timestampMin, walTimestamps.getLong(r << 3));
+            }
+            if (timestampMin < Timestamps.O3_MIN_TS) {
+                throw CairoException.instance(0).put("timestamp before 1970-01-01 is not allowed");
+            }
+            txFile.setMinTimestamp(timestampMin);
+            openFirstPartition(timestampMin);
+        }
+        if (rowFunction == openPartitionFunction) {
+            rowFunction = switchPartitionFunction;
+        }
+
+        if (o3MasterRef == -1) {
+            LOG.info().$("switched to o3 [table=").utf8(tableName).$(']').$();
+            txFile.beginPartitionSizeUpdate();
+            o3OpenColumns();
+            o3InError = false;
+            o3MasterRef = masterRef + 1;
+            rowFunction = o3RowFunction;
+        }
+
+        final long o3RowLo = getO3RowCount();
+        final long rowCount = rowHi - rowLo;
+        for (int i = 0; i < columnCount; i++) {
+            if (i == timestampIndex) {
+                for (long r = rowLo; r < rowHi; r++) {
+                    o3TimestampMem.putLong128(walTimestamps.getLong(r << 3), o3RowLo + r - rowLo);
+                }
+            } else {
+                appendWalColumn(
+                        walColumns,
+                        i,
+                        o3Columns.getQuick(getPrimaryColumnIndex(i)),
+                        o3Columns.getQuick(getSecondaryColumnIndex(i)),
+                        o3NullSetters.getQuick(i),
+                        rowLo,
+                        rowHi
+                );
+            }
+        }
+        // rows are complete, each row takes two references
+        masterRef += 2 * rowCount;
+    }
+
     private void o3MoveLag0(
             int columnIndex,
             final int columnType,
@@ -2995,6 +3876,234 @@ public class TableWriter implements Closeable {
         LOG.debug().$("switched partition to memory").$();
     }
 
+    /**
+     * Finds entry of partition table, either partition or one of its parts, rows of the given timestamp belong to.
+     * Parts start at timestamp of their first row and extend to the start of the next part or the end of partition.
+     */
+    private long o3PartitionTimestamp(long o3Timestamp) {
+        long partitionTimestamp = timestampFloorMethod.floor(o3Timestamp);
+        final int index = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (index > -1) {
+            for (int i = index / LONGS_PER_TX_ATTACHED_PARTITION + 1, n = txFile.getPartitionCount(); i < n; i++) {
+                final long partTimestamp = txFile.getPartitionTimestamp(i);
+                if (partTimestamp > o3Timestamp) {
+                    break;
+                }
+                partitionTimestamp = partTimestamp;
+            }
+        }
+        return partitionTimestamp;
+    }
+
+    // inclusive ceiling of the partition table entry
+    private long o3PartitionTimestampCeil(long partitionTimestamp, long o3Timestamp) {
+        final long ceil = timestampCeilMethod.ceil(o3Timestamp) - 1;
+        final int index = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (index > -1) {
+            final int next = index / LONGS_PER_TX_ATTACHED_PARTITION + 1;
+            if (next < txFile.getPartitionCount()) {
+                return Math.min(ceil, txFile.getPartitionTimestamp(next) - 1);
+            }
+        }
+        return ceil;
+    }
+
+    /**
+     * Splits partitions, which out-of-order rows are about to be merged into, when the rows land in the older half
+     * of the partition. Rows from the first out-of-order timestamp onwards are copied to new partition part, which
+     * starts at this timestamp, and the merge rewrites the part instead of the whole partition. Partition keeps its
+     * directory and shrinks to the rows before the part. Active partition is never split.
+     */
+    private void o3SplitPartitions(long sortedTimestampsAddr, long srcOooMax, long o3TimestampMax) {
+        long srcOoo = 0;
+        while (srcOoo < srcOooMax) {
+            final long o3Timestamp = getTimestampIndexValue(sortedTimestampsAddr, srcOoo);
+            final long partitionTimestamp = o3PartitionTimestamp(o3Timestamp);
+            final long srcOooTimestampCeil = o3PartitionTimestampCeil(partitionTimestamp, o3Timestamp);
+            if (srcOooTimestampCeil < o3TimestampMax) {
+                srcOoo = Vect.boundedBinarySearchIndexT(
+                        sortedTimestampsAddr,
+                        srcOooTimestampCeil,
+                        srcOoo,
+                        srcOooMax - 1,
+                        BinarySearch.SCAN_DOWN
+                ) + 1;
+            } else {
+                srcOoo = srcOooMax;
+            }
+            if (partitionTimestamp < lastPartitionTimestamp) {
+                o3SplitPartition(partitionTimestamp, o3Timestamp);
+            }
+        }
+    }
+
+    private void o3SplitPartition(long partitionTimestamp, long o3Timestamp) {
+        final int partitionIndex = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (partitionIndex < 0) {
+            return;
+        }
+        final long partitionSize = txFile.getPartitionSizeByIndex(partitionIndex);
+        if (partitionSize < o3PartitionSplitMinSize) {
+            return;
+        }
+        final long partitionNameTxn = txFile.getPartitionNameTxnByIndex(partitionIndex);
+        restorePartition(partitionTimestamp, partitionNameTxn);
+        decompressPartition(partitionTimestamp, partitionNameTxn);
+
+        // rows before out-of-order timestamp stay in the partition
+        final long splitRow;
+        try (final MemoryMR timestampMem = indexMem) {
+            setHotPathForPartition(other, partitionTimestamp, partitionNameTxn);
+            final long size = partitionSize * Long.BYTES;
+            timestampMem.of(ff, dFile(other, metadata.getColumnName(metadata.getTimestampIndex())), size, size, MemoryTag.MMAP_TABLE_WRITER);
+            if (timestampMem.getLong(0) >= o3Timestamp) {
+                splitRow = 0;
+            } else {
+                splitRow = Vect.boundedBinarySearch64Bit(timestampMem.addressOf(0), o3Timestamp - 1, 0, partitionSize - 1, BinarySearch.SCAN_DOWN) + 1;
+            }
+        } finally {
+            other.trimTo(rootLen);
+        }
+        // splitting pays off when the part is smaller than the rest of partition
+        if (splitRow >= partitionSize || splitRow <= partitionSize - splitRow) {
+            return;
+        }
+
+        partitionCopySources.clear();
+        partitionCopySources.add(partitionTimestamp);
+        partitionCopySources.add(partitionNameTxn);
+        partitionCopySources.add(splitRow);
+        partitionCopySources.add(partitionSize);
+        copyPartitionRows(o3Timestamp, -1);
+
+        txFile.updatePartitionSizeByIndex(partitionIndex, partitionTimestamp, splitRow);
+        txFile.updatePartitionSizeByIndex(txFile.findAttachedPartitionIndexByLoTimestamp(o3Timestamp), o3Timestamp, partitionSize - splitRow);
+        LOG.info().$("split partition [table=`").utf8(tableName)
+                .$("`, ts=").$ts(partitionTimestamp)
+                .$(", part=").$ts(o3Timestamp)
+                .$(", rows=").$(splitRow)
+                .$(", partRows=").$(partitionSize - splitRow)
+                .I$();
+    }
+
+    /**
+     * Copies rows listed in partitionCopySources into partition directory and builds indexes of the directory.
+     * Directory is removed when either fails.
+     */
+    private void copyPartitionRows(long partitionTimestamp, long partitionNameTxn) {
+        final long partitionSize = partitionRowCopier.copy(path.trimTo(rootLen), partitionBy, metadata, partitionCopySources, partitionTimestamp, partitionNameTxn);
+        SymbolColumnIndexer indexer = null;
+        try (final MemoryMR roMem = indexMem) {
+            setHotPathForPartition(path, partitionTimestamp, partitionNameTxn);
+            final int plen = path.length();
+            for (int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+                final CharSequence columnName = metadata.getColumnName(columnIndex);
+                if (!metadata.isColumnIndexed(columnIndex) || !ff.exists(dFile(path.trimTo(plen), columnName))) {
+                    continue;
+                }
+                if (indexer == null) {
+                    indexer = new SymbolColumnIndexer();
+                }
+                createIndexFiles(columnName, metadata.getIndexValueBlockCapacity(columnIndex), plen, true);
+                final long columnTop = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem16b, true);
+                final long columnSize = (partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT);
+                roMem.of(ff, dFile(path.trimTo(plen), columnName), columnSize, columnSize, MemoryTag.MMAP_TABLE_WRITER);
+                indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
+                indexer.index(roMem, columnTop, partitionSize);
+            }
+        } catch (Throwable e) {
+            ff.rmdir(setHotPathForPartition(path, partitionTimestamp, partitionNameTxn).slash$());
+            throw e;
+        } finally {
+            Misc.free(indexer);
+            path.trimTo(rootLen);
+        }
+    }
+
+    private int squashPartitions0(long timestampHi) {
+        if (partitionBy == PartitionBy.NONE || !hasPartitionParts(timestampHi)) {
+            return 0;
+        }
+        commit();
+        // new name txn is the txn of the commit below
+        final long txn = txFile.getTxn();
+        int count = 0;
+        int i = 0;
+        while (i < txFile.getPartitionCount() - 1) {
+            final long partitionTimestamp = txFile.getPartitionTimestamp(i);
+            final long partitionTimestampHi = timestampCeilMethod.ceil(partitionTimestamp);
+            if (partitionTimestampHi > timestampHi) {
+                break;
+            }
+            int hi = i + 1;
+            while (hi < txFile.getPartitionCount() && txFile.getPartitionTimestamp(hi) < partitionTimestampHi) {
+                hi++;
+            }
+            if (hi - i > 1) {
+                squashPartition(i, hi, txn);
+                count++;
+                i++;
+            } else {
+                i = hi;
+            }
+        }
+        if (count > 0) {
+            txFile.bumpPartitionTableVersion();
+            txFile.commit(defaultCommitMode, denseSymbolMapWriters);
+            purgeRemovedPartitions();
+        }
+        return count;
+    }
+
+    private boolean hasPartitionParts(long timestampHi) {
+        for (int i = 1, n = txFile.getPartitionCount(); i < n; i++) {
+            final long partitionTimestamp = txFile.getPartitionTimestamp(i);
+            if (partitionTimestamp > timestampHi) {
+                break;
+            }
+            if (TableUtils.isPartitionPart(partitionBy, partitionTimestamp)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void squashPartition(int partitionLo, int partitionHi, long txn) {
+        final long partitionTimestamp = txFile.getPartitionTimestamp(partitionLo);
+        long partitionSize = 0;
+        partitionCopySources.clear();
+        for (int i = partitionLo; i < partitionHi; i++) {
+            final long timestamp = txFile.getPartitionTimestamp(i);
+            final long nameTxn = txFile.getPartitionNameTxn(i);
+            final long size = txFile.getPartitionSize(i);
+            restorePartition(timestamp, nameTxn);
+            decompressPartition(timestamp, nameTxn);
+            partitionCopySources.add(timestamp);
+            partitionCopySources.add(nameTxn);
+            partitionCopySources.add(0);
+            partitionCopySources.add(size);
+            partitionSize += size;
+        }
+        copyPartitionRows(partitionTimestamp, txn);
+
+        txFile.updatePartitionSizeByIndexAndTxn(partitionLo * LONGS_PER_TX_ATTACHED_PARTITION, partitionSize);
+        for (int i = partitionHi - 1; i > partitionLo; i--) {
+            txFile.removeAttachedPartitionByIndex(i * LONGS_PER_TX_ATTACHED_PARTITION);
+        }
+        for (int i = 0, n = partitionCopySources.size(); i < n; i += 4) {
+            removedPartitions.add(partitionCopySources.getQuick(i));
+            removedPartitions.add(partitionCopySources.getQuick(i + 1));
+            removedPartitions.add(txn + 1);
+            removedPartitions.add(TIER_HOT);
+        }
+        LOG.info().$("squashed partition [table=`").utf8(tableName)
+                .$("`, ts=").$ts(partitionTimestamp)
+                .$(", parts=").$(partitionHi - partitionLo)
+                .$(", rows=").$(partitionSize)
+                .$(", txn=").$(txn)
+                .I$();
+    }
+
     private void o3PartitionUpdate(
             long timestampMin,
             long timestampMax,
@@ -3003,6 +4112,7 @@ public class TableWriter implements Closeable {
             long srcOooPartitionHi,
             long srcOooMax,
             long srcDataMax,
+            long dedupRowCount,
             boolean partitionMutates
     ) {
         LOG.debug().$("o3 partition update [timestampMin=").$ts(timestampMin)
@@ -3012,11 +4122,12 @@ public class TableWriter implements Closeable {
                 .$(", srcOooPartitionHi=").$(srcOooPartitionHi)
                 .$(", srcOooMax=").$(srcOooMax)
                 .$(", srcDataMax=").$(srcDataMax)
+                .$(", dedupRowCount=").$(dedupRowCount)
                 .$(", partitionMutates=").$(partitionMutates)
                 .I$();
 
         this.txFile.minTimestamp = Math.min(timestampMin, this.txFile.minTimestamp);
-        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1;
+        final long partitionSize = srcDataMax + srcOooPartitionHi - srcOooPartitionLo + 1 - dedupRowCount;
         final long rowDelta = srcOooPartitionHi - srcOooMax;
         if (partitionTimestamp < lastPartitionTimestamp) {
             this.txFile.fixedRowCount += partitionSize - srcDataMax;
@@ -3070,7 +4181,8 @@ public class TableWriter implements Closeable {
             long srcOooPartitionHi,
             boolean partitionMutates,
             long srcOooMax,
-            long srcDataMax
+            long srcDataMax,
+            long dedupRowCount
     ) {
         o3ClockDownPartitionUpdateCount();
         o3PartitionUpdate(
@@ -3081,10 +4193,22 @@ public class TableWriter implements Closeable {
                 srcOooPartitionHi,
                 srcOooMax,
                 srcDataMax,
+                dedupRowCount,
                 partitionMutates
         );
     }
 
+    // checks that none of readers can see data removed by given transaction
+    private boolean isReleasedByReaders(long txn) {
+        final long lo = Math.max(txnScoreboard.getMin(), txn - configuration.getTxnScoreboardEntryCount());
+        for (long t = lo; t < txn; t++) {
+            if (txnScoreboard.getActiveReaderCount(t) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void o3ProcessPartitionRemoveCandidates() {
         try {
             final int n = o3PartitionRemoveCandidates.size();
@@ -3104,12 +4228,7 @@ public class TableWriter implements Closeable {
                 final long timestamp = o3PartitionRemoveCandidates.getQuick(i);
                 final long txn = o3PartitionRemoveCandidates.getQuick(i + 1);
                 try {
-                    setPathForPartition(
-                            other,
-                            partitionBy,
-                            timestamp,
-                            false
-                    );
+                    setPathForPartitionPart(other, partitionBy, timestamp);
                     TableUtils.txnPartitionConditionally(other, txn);
                     other.slash$();
                     int errno;
@@ -3455,7 +4574,7 @@ public class TableWriter implements Closeable {
         indexMem2.replacePage(srcIndxAddr, srcIndxSize);
         dataMem.jumpTo(offset);
         indexMem.jumpTo(valueCount * Long.BYTES);
-        indexMem.putLong(dataSize);
+        indexMem.putLong(offset);
     }
 
     private void o3TimestampSetter(long timestamp) {
@@ -3537,6 +4656,10 @@ public class TableWriter implements Closeable {
                 final ColumnIndexer indexer = metadata.isColumnIndexed(i) ? indexers.getQuick(i) : null;
                 final long columnTop;
 
+                if (PartitionCompressor.isCompressed(ff, path.trimTo(plen), name)) {
+                    partitionCompressor.decompress(path.trimTo(plen), name);
+                }
+
                 // prepare index writer if column requires indexing
                 if (indexer != null) {
                     // we have to create files before columns are open
@@ -3620,10 +4743,16 @@ public class TableWriter implements Closeable {
     private long readMinTimestamp(long partitionTimestamp) {
         setStateForTimestamp(other, partitionTimestamp, false);
         try {
-            dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
-            if (ff.exists(other)) {
+            final int plen = other.length();
+            LPSZ path = dFile(other, metadata.getColumnName(metadata.getTimestampIndex()));
+            if (!ff.exists(path) && coldPath != null) {
+                // partition may have been relocated to cold root
+                coldPath.trimTo(coldRootLen).put(other, rootLen, plen);
+                path = dFile(coldPath, metadata.getColumnName(metadata.getTimestampIndex()));
+            }
+            if (ff.exists(path)) {
                 // read min timestamp value
-                final long fd = TableUtils.openRO(ff, other, LOG);
+                final long fd = TableUtils.openRO(ff, path, LOG);
                 try {
                     long n = ff.read(fd, tempMem16b, Long.BYTES, 0);
                     if (n != Long.BYTES) {
@@ -3703,19 +4832,10 @@ public class TableWriter implements Closeable {
 
     private void removeColumnFiles(CharSequence columnName, int columnType, RemoveFileLambda removeLambda) {
         try {
-            ff.iterateDir(path.$(), (file, type) -> {
-                nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
-                    path.trimTo(rootLen);
-                    path.concat(nativeLPSZ);
-                    int plen = path.length();
-                    removeLambda.remove(ff, dFile(path, columnName));
-                    removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
-                    removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
-                    removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
-                    removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
-                }
-            });
+            removePartitionColumnFiles(path, rootLen, columnName, removeLambda);
+            if (coldPath != null) {
+                removePartitionColumnFiles(coldPath, coldRootLen, columnName, removeLambda);
+            }
 
             if (ColumnType.isSymbol(columnType)) {
                 removeLambda.remove(ff, SymbolMapWriter.offsetFileName(path.trimTo(rootLen), columnName));
@@ -3728,6 +4848,25 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void removePartitionColumnFiles(Path path, int rootLen, CharSequence columnName, RemoveFileLambda removeLambda) {
+        ff.iterateDir(path.trimTo(rootLen).$(), (file, type) -> {
+            nativeLPSZ.of(file);
+            if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                path.trimTo(rootLen);
+                path.concat(nativeLPSZ);
+                int plen = path.length();
+                removeLambda.remove(ff, dFile(path, columnName));
+                removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, zoneMapFile(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                removeLambda.remove(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+            }
+        });
+        path.trimTo(rootLen);
+    }
+
     private int removeColumnFromMeta(int index) {
         try {
             int metaSwapIndex = openMetaSwapFile(ff, ddlMem, path, rootLen, fileOperationRetryCount);
@@ -3768,21 +4907,29 @@ public class TableWriter implements Closeable {
 
     private void removeIndexFiles(CharSequence columnName) {
         try {
-            ff.iterateDir(path.$(), (file, type) -> {
-                nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
-                    path.trimTo(rootLen);
-                    path.concat(nativeLPSZ);
-                    int plen = path.length();
-                    removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
-                    removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
-                }
-            });
+            removeIndexFiles(path, rootLen, columnName);
+            if (coldPath != null) {
+                removeIndexFiles(coldPath, coldRootLen, columnName);
+            }
         } finally {
             path.trimTo(rootLen);
         }
     }
 
+    private void removeIndexFiles(Path path, int rootLen, CharSequence columnName) {
+        ff.iterateDir(path.trimTo(rootLen).$(), (file, type) -> {
+            nativeLPSZ.of(file);
+            if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                path.trimTo(rootLen);
+                path.concat(nativeLPSZ);
+                int plen = path.length();
+                removeFileAndOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
+                removeFileAndOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName));
+            }
+        });
+        path.trimTo(rootLen);
+    }
+
     private void removeLastColumn() {
         removeColumn(columnCount - 1);
         columnCount--;
@@ -3811,6 +4958,12 @@ public class TableWriter implements Closeable {
     private void removePartitionDirectories() {
         try {
             ff.iterateDir(path.$(), removePartitionDirectories);
+            if (coldPath != null) {
+                int errno;
+                if ((errno = ff.rmdir(coldPath.trimTo(coldRootLen).slash$())) != 0 && ff.exists(coldPath)) {
+                    LOG.info().$("could not remove [path=").$(coldPath).$(", errno=").$(errno).$(']').$();
+                }
+            }
         } finally {
             path.trimTo(rootLen);
         }
@@ -3834,6 +4987,10 @@ public class TableWriter implements Closeable {
                 // They are probably about to be attached.
                 return;
             }
+            if (Chars.equals(nativeLPSZ, WalSequencer.WAL_DIR_NAME)) {
+                // write-ahead log is not a partition
+                return;
+            }
             try {
                 long txn = 0;
                 int txnSep = Chars.indexOf(nativeLPSZ, '.');
@@ -3842,9 +4999,16 @@ public class TableWriter implements Closeable {
                 } else {
                     txn = Numbers.parseLong(nativeLPSZ, txnSep + 1, nativeLPSZ.length());
                 }
-                long dirTimestamp = partitionDirFmt.parse(nativeLPSZ, 0, txnSep, null);
-                if (txn <= txFile.txn &&
-                        (txFile.attachedPartitionsContains(dirTimestamp) || txFile.isActivePartition(dirTimestamp))) {
+                boolean attached;
+                try {
+                    final long dirTimestamp = partitionDirFmt.parse(nativeLPSZ, 0, txnSep, null);
+                    attached = txFile.attachedPartitionsContains(dirTimestamp) || txFile.isActivePartition(dirTimestamp);
+                } catch (NumericException e) {
+                    // partition part is named after its first timestamp
+                    final long dirTimestamp = TableUtils.fmtPartitionPart.parse(nativeLPSZ, 0, txnSep, null);
+                    attached = txFile.findAttachedPartitionIndexByLoTimestamp(dirTimestamp) > -1;
+                }
+                if (txn <= txFile.txn && attached) {
                     return;
                 }
             } catch (NumericException ignore) {
@@ -3930,21 +5094,10 @@ public class TableWriter implements Closeable {
 
     private void renameColumnFiles(CharSequence columnName, CharSequence newName, int columnType) {
         try {
-            ff.iterateDir(path.$(), (file, type) -> {
-                nativeLPSZ.of(file);
-                if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
-                    path.trimTo(rootLen);
-                    path.concat(nativeLPSZ);
-                    other.trimTo(rootLen);
-                    other.concat(nativeLPSZ);
-                    int plen = path.length();
-                    renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
-                    renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
-                }
-            });
+            renamePartitionColumnFiles(path, other, rootLen, columnName, newName);
+            if (coldPath != null) {
+                renamePartitionColumnFiles(coldPath, tierPath.of(coldPath.trimTo(coldRootLen)), coldRootLen, columnName, newName);
+            }
 
             if (ColumnType.isSymbol(columnType)) {
                 renameFileOrLog(ff, SymbolMapWriter.offsetFileName(path.trimTo(rootLen), columnName), SymbolMapWriter.offsetFileName(other.trimTo(rootLen), newName));
@@ -3958,6 +5111,28 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void renamePartitionColumnFiles(Path path, Path other, int rootLen, CharSequence columnName, CharSequence newName) {
+        ff.iterateDir(path.trimTo(rootLen).$(), (file, type) -> {
+            nativeLPSZ.of(file);
+            if (type == Files.DT_DIR && IGNORED_FILES.excludes(nativeLPSZ)) {
+                path.trimTo(rootLen);
+                path.concat(nativeLPSZ);
+                other.trimTo(rootLen);
+                other.concat(nativeLPSZ);
+                int plen = path.length();
+                renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, zoneMapFile(path.trimTo(plen), columnName), zoneMapFile(other.trimTo(plen), newName));
+                renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
+                renameFileOrLog(ff, BitmapIndexUtils.valueFileName(path.trimTo(plen), columnName), BitmapIndexUtils.valueFileName(other.trimTo(plen), newName));
+            }
+        });
+        path.trimTo(rootLen);
+        other.trimTo(rootLen);
+    }
+
     private int renameColumnFromMeta(int index, CharSequence newName) {
         try {
             int metaSwapIndex = openMetaSwapFile(ff, ddlMem, path, rootLen, fileOperationRetryCount);
@@ -4006,6 +5181,19 @@ public class TableWriter implements Closeable {
         }
     }
 
+    // rows of partition parts, which follow the base partition
+    private long getPartitionPartsSize(long partitionTimestamp) {
+        long size = 0;
+        final int index = txFile.findAttachedPartitionIndexByLoTimestamp(partitionTimestamp);
+        if (index > -1) {
+            final long partitionTimestampHi = timestampCeilMethod.ceil(partitionTimestamp);
+            for (int i = index / LONGS_PER_TX_ATTACHED_PARTITION + 1, n = txFile.getPartitionCount(); i < n && txFile.getPartitionTimestamp(i) < partitionTimestampHi; i++) {
+                size += txFile.getPartitionSize(i);
+            }
+        }
+        return size;
+    }
+
     private long repairDataGaps(final long timestamp) {
         if (txFile.getMaxTimestamp() != Numbers.LONG_NaN && partitionBy != PartitionBy.NONE) {
             long actualSize = 0;
@@ -4021,7 +5209,7 @@ public class TableWriter implements Closeable {
 
                     long partitionSize = txFile.getPartitionSizeByPartitionTimestamp(ts);
                     if (partitionSize >= 0 && ff.exists(path.$())) {
-                        actualSize += partitionSize;
+                        actualSize += partitionSize + getPartitionPartsSize(ts);
                         lastTimestamp = ts;
                     } else {
                         Path other = Path.getThreadLocal2(path.trimTo(p).$());
@@ -4441,6 +5629,11 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isDedupKey(metaMem, i)) {
+            flags |= META_FLAG_BIT_DEDUP_KEY;
+        }
+        flags |= getColumnFlags(metaMem, i) & META_FLAG_CODEC_MASK;
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
     }
@@ -4570,7 +5763,7 @@ public class TableWriter implements Closeable {
         @Override
         public Row newRow(long timestamp) {
             bumpMasterRef();
-            if (timestamp > partitionTimestampHi || timestamp < txFile.getMaxTimestamp()) {
+            if (timestamp > partitionTimestampHi || timestamp < txFile.getMaxTimestamp() || (dedup && timestamp == txFile.getMaxTimestamp())) {
                 return newRow0(timestamp);
             }
             updateMaxTimestamp(timestamp);
@@ -4580,7 +5773,8 @@ public class TableWriter implements Closeable {
 
         @NotNull
         private Row newRow0(long timestamp) {
-            if (timestamp < txFile.getMaxTimestamp()) {
+            // rows, which may replace existing row with the same timestamp, are merged as O3
+            if (timestamp < txFile.getMaxTimestamp() || (dedup && timestamp == txFile.getMaxTimestamp())) {
                 return newRowO3(timestamp);
             }
 
@@ -4605,10 +5799,78 @@ public class TableWriter implements Closeable {
         }
     }
 
-    public class Row {
+    /**
+     * Values of a new row, row is added to the table by {@link #append()}. Columns, which
+     * were not set, are null.
+     */
+    public interface Row {
+
+        void append();
+
+        void cancel();
+
+        void putBin(int index, long address, long len);
+
+        void putBin(int index, BinarySequence sequence);
+
+        void putBool(int index, boolean value);
+
+        void putByte(int index, byte value);
+
+        void putChar(int index, char value);
+
+        void putDate(int index, long value);
+
+        void putDouble(int index, double value);
+
+        void putFloat(int index, float value);
+
+        void putGeoHash(int index, long value);
+
+        void putGeoHashDeg(int index, double lat, double lon);
+
+        void putGeoStr(int index, CharSequence hash);
+
+        void putInt(int index, int value);
+
+        void putLong(int index, long value);
+
+        void putLong256(int index, long l0, long l1, long l2, long l3);
+
+        void putLong256(int index, Long256 value);
+
+        void putLong256(int index, CharSequence hexString);
+
+        void putLong256(int index, @NotNull CharSequence hexString, int start, int end);
+
+        void putShort(int index, short value);
+
+        void putStr(int index, CharSequence value);
+
+        void putStr(int index, char value);
+
+        void putStr(int index, CharSequence value, int pos, int len);
+
+        void putSym(int index, CharSequence value);
+
+        void putSym(int index, char value);
+
+        /**
+         * Sets symbol by its key in the symbol table of the column. Only writers of the table
+         * itself support it, keys are meaningless to write-ahead log.
+         */
+        void putSymIndex(int index, int symIndex);
+
+        void putTimestamp(int index, long value);
+
+        void putTimestamp(int index, CharSequence value);
+    }
+
+    private class RowImpl implements Row {
         private ObjList<? extends MemoryA> activeColumns;
         private ObjList<Runnable> activeNullSetters;
 
+        @Override
         public void append() {
             if ((masterRef & 1) != 0) {
                 for (int i = 0; i < columnCount; i++) {
@@ -4620,156 +5882,162 @@ public class TableWriter implements Closeable {
             }
         }
 
+        @Override
         public void cancel() {
             cancelRow();
         }
 
+        @Override
         public void putBin(int index, long address, long len) {
             getPrimaryColumn(index).putBin(address, len);
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).getAppendOffset());
             notNull(index);
         }
 
+        @Override
         public void putBin(int index, BinarySequence sequence) {
             getPrimaryColumn(index).putBin(sequence);
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).getAppendOffset());
             notNull(index);
         }
 
+        @Override
         public void putBool(int index, boolean value) {
             getPrimaryColumn(index).putBool(value);
             notNull(index);
         }
 
+        @Override
         public void putByte(int index, byte value) {
             getPrimaryColumn(index).putByte(value);
             notNull(index);
         }
 
+        @Override
         public void putChar(int index, char value) {
             getPrimaryColumn(index).putChar(value);
             notNull(index);
         }
 
+        @Override
         public void putDate(int index, long value) {
             putLong(index, value);
         }
 
+        @Override
         public void putDouble(int index, double value) {
             getPrimaryColumn(index).putDouble(value);
             notNull(index);
         }
 
+        @Override
         public void putFloat(int index, float value) {
             getPrimaryColumn(index).putFloat(value);
             notNull(index);
         }
 
+        @Override
         public void putGeoHash(int index, long value) {
             int type = metadata.getColumnType(index);
             putGeoHash0(index, value, type);
         }
 
+        @Override
         public void putGeoHashDeg(int index, double lat, double lon) {
             int type = metadata.getColumnType(index);
             putGeoHash0(index, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(type)), type);
         }
 
+        @Override
         public void putGeoStr(int index, CharSequence hash) {
-            long val;
             final int type = metadata.getColumnType(index);
-            if (hash != null) {
-                final int hashLen = hash.length();
-                final int typeBits = ColumnType.getGeoHashBits(type);
-                final int charsRequired = (typeBits - 1) / 5 + 1;
-                if (hashLen < charsRequired) {
-                    val = GeoHashes.NULL;
-                } else {
-                    try {
-                        val = ColumnType.truncateGeoHashBits(
-                                GeoHashes.fromString(hash, 0, charsRequired),
-                                charsRequired * 5,
-                                typeBits
-                        );
-                    } catch (NumericException e) {
-                        val = GeoHashes.NULL;
-                    }
-                }
-            } else {
-                val = GeoHashes.NULL;
-            }
-            putGeoHash0(index, val, type);
+            putGeoHash0(index, GeoHashes.fromStringTruncatingOrNull(hash, ColumnType.getGeoHashBits(type)), type);
         }
 
+        @Override
         public void putInt(int index, int value) {
             getPrimaryColumn(index).putInt(value);
             notNull(index);
         }
 
+        @Override
         public void putLong(int index, long value) {
             getPrimaryColumn(index).putLong(value);
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, long l0, long l1, long l2, long l3) {
             getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, Long256 value) {
             getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, CharSequence hexString) {
             getPrimaryColumn(index).putLong256(hexString);
             notNull(index);
         }
 
+        @Override
         public void putLong256(int index, @NotNull CharSequence hexString, int start, int end) {
             getPrimaryColumn(index).putLong256(hexString, start, end);
             notNull(index);
         }
 
+        @Override
         public void putShort(int index, short value) {
             getPrimaryColumn(index).putShort(value);
             notNull(index);
         }
 
+        @Override
         public void putStr(int index, CharSequence value) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
             notNull(index);
         }
 
+        @Override
         public void putStr(int index, char value) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
             notNull(index);
         }
 
+        @Override
         public void putStr(int index, CharSequence value, int pos, int len) {
             getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
             notNull(index);
         }
 
+        @Override
         public void putSym(int index, CharSequence value) {
             getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
             notNull(index);
         }
 
+        @Override
         public void putSym(int index, char value) {
             getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
             notNull(index);
         }
 
+        @Override
         public void putSymIndex(int index, int symIndex) {
             getPrimaryColumn(index).putInt(symIndex);
             notNull(index);
         }
 
+        @Override
         public void putTimestamp(int index, long value) {
             putLong(index, value);
         }
 
+        @Override
         public void putTimestamp(int index, CharSequence value) {
             // try UTC timestamp first (micro)
             long l;
@@ -4833,5 +6101,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WalSequencer.WAL_DIR_NAME);
     }
 }
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+
+import java.io.Closeable;
+
+/**
+ * Row based writer of a table, either the table writer itself or a write-ahead log writer,
+ * rows of which are copied to the table asynchronously. Ingestion paths, which do not need
+ * exclusive access to the table, use this interface, see {@link CairoEngine#getTableWriterAPI}.
+ */
+public interface TableWriterAPI extends Closeable {
+
+    void addColumn(CharSequence name, int type);
+
+    /**
+     * Commits when number of uncommitted rows reached the maximum.
+     *
+     * @return true when rows were committed
+     */
+    boolean checkMaxAndCommitLag(int commitMode);
+
+    @Override
+    void close();
+
+    void commit();
+
+    /**
+     * Commits rows, out-of-order rows newer than max timestamp - commit lag may be kept uncommitted.
+     * Writers, which cannot hold back rows, commit all of them.
+     */
+    void commitWithLag(long commitLag);
+
+    RecordMetadata getMetadata();
+
+    long getStructureVersion();
+
+    CharSequence getTableName();
+
+    TableWriter.Row newRow();
+
+    TableWriter.Row newRow(long timestamp);
+
+    void rollback();
+}
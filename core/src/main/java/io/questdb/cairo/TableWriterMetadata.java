@@ -37,6 +37,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     private final int id;
     private int maxUncommittedRows;
     private long commitLag;
+    private long ttl;
 
     public TableWriterMetadata(FilesFacade ff, MemoryMR metaMem) {
         this.columnCount = metaMem.getInt(TableUtils.META_OFFSET_COUNT);
@@ -45,6 +46,7 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         this.id = metaMem.getInt(TableUtils.META_OFFSET_TABLE_ID);
         this.maxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
         this.commitLag = metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
+        this.ttl = metaMem.getLong(TableUtils.META_OFFSET_TTL);
         TableUtils.validate(ff, metaMem, columnNameIndexMap, ColumnType.VERSION);
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
         this.columnMetadata = new ObjList<>(this.columnCount);
@@ -146,6 +148,10 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         return commitLag;
     }
 
+    public long getTtl() {
+        return ttl;
+    }
+
     public void setMaxUncommittedRows(int rows) {
         this.maxUncommittedRows = rows;
     }
@@ -153,4 +159,8 @@ public class TableWriterMetadata extends BaseRecordMetadata {
     public void setCommitLag(long micros) {
         this.commitLag = micros;
     }
+
+    public void setTtl(long micros) {
+        this.ttl = micros;
+    }
 }
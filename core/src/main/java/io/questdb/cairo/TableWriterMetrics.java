@@ -0,0 +1,46 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.metrics.GaugeWithOneLabel;
+import io.questdb.metrics.MetricsRegistry;
+import io.questdb.metrics.NullMetricsRegistry;
+
+public class TableWriterMetrics {
+    public static final TableWriterMetrics DISABLED = new TableWriterMetrics(new NullMetricsRegistry());
+    private final GaugeWithOneLabel commitLag;
+
+    public TableWriterMetrics(MetricsRegistry metricsRegistry) {
+        this.commitLag = metricsRegistry.newGauge("commit_lag_micros", "table");
+    }
+
+    public void removeCommitLag(CharSequence tableName) {
+        commitLag.remove(tableName);
+    }
+
+    public void setCommitLag(CharSequence tableName, long lag) {
+        commitLag.setValue(tableName, lag);
+    }
+}
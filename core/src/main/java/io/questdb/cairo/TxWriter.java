@@ -231,13 +231,7 @@ public final class TxWriter extends TxReader implements Closeable {
         final long partitionTimestampLo = getPartitionTimestampLo(timestamp);
         int index = findAttachedPartitionIndexByLoTimestamp(partitionTimestampLo);
         if (index > -1) {
-            int size = attachedPartitions.size();
-            if (index + LONGS_PER_TX_ATTACHED_PARTITION < size) {
-                attachedPartitions.arrayCopy(index + LONGS_PER_TX_ATTACHED_PARTITION, index, size - index - LONGS_PER_TX_ATTACHED_PARTITION);
-                attachedPositionDirtyIndex = Math.min(attachedPositionDirtyIndex, index);
-            }
-            attachedPartitions.setPos(size - LONGS_PER_TX_ATTACHED_PARTITION);
-            partitionTableVersion++;
+            removeAttachedPartitionByIndex(index);
         }
     }
 
@@ -357,6 +351,16 @@ public final class TxWriter extends TxReader implements Closeable {
         return index;
     }
 
+    void removeAttachedPartitionByIndex(int index) {
+        int size = attachedPartitions.size();
+        if (index + LONGS_PER_TX_ATTACHED_PARTITION < size) {
+            attachedPartitions.arrayCopy(index + LONGS_PER_TX_ATTACHED_PARTITION, index, size - index - LONGS_PER_TX_ATTACHED_PARTITION);
+            attachedPositionDirtyIndex = Math.min(attachedPositionDirtyIndex, index);
+        }
+        attachedPartitions.setPos(size - LONGS_PER_TX_ATTACHED_PARTITION);
+        partitionTableVersion++;
+    }
+
     void resetToLastPartition(long committedTransientRowCount) {
         resetToLastPartition(committedTransientRowCount, txMem.getLong(TX_OFFSET_MAX_TIMESTAMP));
     }
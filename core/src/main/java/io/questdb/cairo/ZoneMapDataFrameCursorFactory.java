@@ -0,0 +1,321 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Skips data frames, or parts of them, that cannot satisfy column to constant comparisons
+ * of the filter according to column zone maps. Filter itself is still applied to the rows of
+ * remaining frames, comparisons only have to be conjuncts of the filter.
+ */
+public class ZoneMapDataFrameCursorFactory implements DataFrameCursorFactory {
+    public static final int OP_EQ = 0;
+    public static final int OP_LT = 1;
+    public static final int OP_LE = 2;
+    public static final int OP_GT = 3;
+    public static final int OP_GE = 4;
+    private static final double DOUBLE_EQ_TOLERANCE = 0.0000000001;
+    private final DataFrameCursorFactory base;
+    private final ZoneMapDataFrameCursor cursor;
+
+    /**
+     * @param base          factory of frames to be pruned
+     * @param columnIndexes reader column index of each comparison
+     * @param ops           comparison operators, column is always on the left
+     * @param values        comparison constants, double bits for FLOAT and DOUBLE columns
+     */
+    public ZoneMapDataFrameCursorFactory(DataFrameCursorFactory base, IntList columnIndexes, IntList ops, LongList values) {
+        this.base = base;
+        this.cursor = new ZoneMapDataFrameCursor(columnIndexes, ops, values);
+    }
+
+    static boolean mayMatch(int op, long value, boolean floatingPoint, long min, long max, long nullCount, long rowCount) {
+        if (nullCount > 0 && (op == OP_LT || op == OP_LE)) {
+            // nulls are less than any value
+            return true;
+        }
+        if (nullCount == rowCount) {
+            return false;
+        }
+        if (floatingPoint) {
+            return mayMatch(op, Double.longBitsToDouble(value), Double.longBitsToDouble(min), Double.longBitsToDouble(max));
+        }
+        switch (op) {
+            case OP_EQ:
+                return value >= min && value <= max;
+            case OP_LT:
+                return min < value;
+            case OP_LE:
+                return min <= value;
+            case OP_GT:
+                return max > value;
+            default:
+                return max >= value;
+        }
+    }
+
+    private static boolean mayMatch(int op, double value, double min, double max) {
+        switch (op) {
+            case OP_EQ:
+                // double equality is approximate
+                return value > min - DOUBLE_EQ_TOLERANCE && value < max + DOUBLE_EQ_TOLERANCE;
+            case OP_LT:
+                return min < value;
+            case OP_LE:
+                return min <= value;
+            case OP_GT:
+                return max > value;
+            default:
+                return max >= value;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        Misc.freeObjList(cursor.zoneMaps);
+    }
+
+    public DataFrameCursorFactory getBase() {
+        return base;
+    }
+
+    @Override
+    public DataFrameCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        return cursor.of(base.getCursor(executionContext));
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("ZoneMapDataFrameCursorFactory base=").val(base);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"").put(this.getClass().getSimpleName()).put("\", \"base\":");
+        base.toSink(sink);
+        sink.put('}');
+    }
+
+    private static class ZoneMapDataFrameCursor implements DataFrameCursor {
+        private final IntList columnIndexes;
+        private final IntList ops;
+        private final LongList values;
+        private final ObjList<ZoneMapReader> zoneMaps = new ObjList<>();
+        private final ZoneMapDataFrame frame = new ZoneMapDataFrame();
+        private DataFrameCursor baseCursor;
+        private TableReader reader;
+        private int partitionIndex;
+        private long rowLo;
+        private long rowHi;
+        // block size shared by zone maps of current frame, 0 when only partition entries are used
+        private long blockRowCount;
+
+        private ZoneMapDataFrameCursor(IntList columnIndexes, IntList ops, LongList values) {
+            this.columnIndexes = new IntList(columnIndexes.size());
+            this.columnIndexes.addAll(columnIndexes);
+            this.ops = new IntList(ops.size());
+            this.ops.addAll(ops);
+            this.values = new LongList(values);
+            for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+                zoneMaps.add(new ZoneMapReader());
+            }
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+            Misc.freeObjListAndKeepObjects(zoneMaps);
+        }
+
+        @Override
+        public StaticSymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public TableReader getTableReader() {
+            return reader;
+        }
+
+        @Override
+        public @Nullable DataFrame next() {
+            while (true) {
+                if (rowLo < rowHi) {
+                    if (blockRowCount == 0) {
+                        frame.rowLo = rowLo;
+                        frame.rowHi = rowHi;
+                        rowLo = rowHi;
+                        return frame;
+                    }
+                    // find next run of blocks that may match
+                    long block = rowLo / blockRowCount;
+                    while (rowLo < rowHi && !blockMayMatch(block)) {
+                        rowLo = ++block * blockRowCount;
+                    }
+                    if (rowLo < rowHi) {
+                        frame.rowLo = rowLo;
+                        do {
+                            rowLo = Math.min(rowHi, ++block * blockRowCount);
+                        } while (rowLo < rowHi && blockMayMatch(block));
+                        frame.rowHi = rowLo;
+                        return frame;
+                    }
+                }
+
+                final DataFrame baseFrame = baseCursor.next();
+                if (baseFrame == null) {
+                    return null;
+                }
+                partitionIndex = baseFrame.getPartitionIndex();
+                rowLo = baseFrame.getRowLo();
+                rowHi = baseFrame.getRowHi();
+                frame.partitionIndex = partitionIndex;
+                if (!openZoneMaps()) {
+                    rowLo = rowHi;
+                }
+            }
+        }
+
+        @Override
+        public boolean reload() {
+            final boolean moreData = baseCursor.reload();
+            toTop();
+            return moreData;
+        }
+
+        @Override
+        public long size() {
+            // pruned frames are not known in advance
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            rowLo = rowHi = 0;
+        }
+
+        private boolean blockMayMatch(long block) {
+            for (int i = 0, n = zoneMaps.size(); i < n; i++) {
+                final ZoneMapReader zoneMap = zoneMaps.getQuick(i);
+                if (zoneMap.getBlockCount() > 0 && !entryMayMatch(i, zoneMap, block)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean entryMayMatch(int index, ZoneMapReader zoneMap, long block) {
+            return mayMatch(
+                    ops.getQuick(index),
+                    values.getQuick(index),
+                    ZoneMapWriter.isFloatingPoint(reader.getMetadata().getColumnType(columnIndexes.getQuick(index))),
+                    zoneMap.getMin(block),
+                    zoneMap.getMax(block),
+                    zoneMap.getNullCount(block),
+                    zoneMap.getRowCount(block)
+            );
+        }
+
+        private DataFrameCursor of(DataFrameCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            this.reader = baseCursor.getTableReader();
+            rowLo = rowHi = 0;
+            return this;
+        }
+
+        /**
+         * Opens zone maps of current partition.
+         *
+         * @return false when partition cannot contain matching rows
+         */
+        private boolean openZoneMaps() {
+            blockRowCount = 0;
+            boolean blocksUsable = true;
+            for (int i = 0, n = zoneMaps.size(); i < n; i++) {
+                final ZoneMapReader zoneMap = zoneMaps.getQuick(i);
+                if (reader.openZoneMap(partitionIndex, columnIndexes.getQuick(i), zoneMap)) {
+                    if (!entryMayMatch(i, zoneMap, ZoneMapReader.PARTITION)) {
+                        return false;
+                    }
+                    if (zoneMap.getBlockCount() > 0) {
+                        if (blockRowCount == 0) {
+                            blockRowCount = zoneMap.getBlockRowCount();
+                        } else if (blockRowCount != zoneMap.getBlockRowCount()) {
+                            blocksUsable = false;
+                        }
+                    }
+                } else {
+                    zoneMap.close();
+                }
+            }
+            if (!blocksUsable) {
+                blockRowCount = 0;
+            }
+            return true;
+        }
+
+        private class ZoneMapDataFrame implements DataFrame {
+            private int partitionIndex;
+            private long rowLo;
+            private long rowHi;
+
+            @Override
+            public BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction) {
+                return reader.getBitmapIndexReader(partitionIndex, columnIndex, direction);
+            }
+
+            @Override
+            public int getPartitionIndex() {
+                return partitionIndex;
+            }
+
+            @Override
+            public long getRowHi() {
+                return rowHi;
+            }
+
+            @Override
+            public long getRowLo() {
+                return rowLo;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Periodically builds zone maps of table partitions, which do not have an up to date map,
+ * see {@link ZoneMapWriter}. Maps are built from a table reader, so writers are not blocked
+ * while columns are scanned. The last partition of each table is skipped, it changes with every
+ * commit. Zone maps are optional, partitions, maps of which could not be built, are logged and
+ * retried on the next run.
+ */
+public class ZoneMapJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ZoneMapJob.class);
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final MicrosecondClock clock;
+    private final long checkInterval;
+    private final boolean enabled;
+    private final ZoneMapWriter zoneMapWriter;
+    private final ZoneMapReader zoneMapReader = new ZoneMapReader();
+    private final Path rootPath = new Path();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private long last = 0;
+    private boolean useful;
+
+    public ZoneMapJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.clock = configuration.getMicrosecondClock();
+        this.checkInterval = configuration.getIdleCheckInterval() * 1000;
+        this.enabled = configuration.isZoneMapEnabled();
+        this.zoneMapWriter = new ZoneMapWriter(configuration);
+    }
+
+    /**
+     * Builds missing and out of date zone maps of all partitions of the table except the last one.
+     *
+     * @return number of zone maps built
+     */
+    public int buildTable(CharSequence tableName) {
+        int count = 0;
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            for (int partitionIndex = 0, n = reader.getPartitionCount() - 1; partitionIndex < n; partitionIndex++) {
+                try {
+                    count += reader.buildZoneMaps(partitionIndex, zoneMapWriter, zoneMapReader);
+                } catch (CairoException e) {
+                    LOG.error().$("could not build zone map [table=").$(tableName)
+                            .$(", partitionIndex=").$(partitionIndex)
+                            .$(", msg=").$(e.getFlyweightMessage())
+                            .$(", errno=").$(e.getErrno())
+                            .I$();
+                }
+            }
+        }
+        if (count > 0) {
+            LOG.info().$("built zone maps [table=").$(tableName).$(", count=").$(count).$(']').$();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(zoneMapWriter);
+        Misc.free(zoneMapReader);
+        Misc.free(rootPath);
+        Misc.free(path);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (!enabled) {
+            return false;
+        }
+        final long t = clock.getTicks();
+        if (last + checkInterval >= t) {
+            return false;
+        }
+        last = t;
+        useful = false;
+        ff.iterateDir(rootPath.of(root).$(), (name, type) -> {
+            if (type == Files.DT_DIR) {
+                nativeLPSZ.of(name);
+                if (!Chars.equals(nativeLPSZ, '.') && !Chars.equals(nativeLPSZ, "..")
+                        && TableUtils.exists(ff, path, root, nativeLPSZ) == TableUtils.TABLE_EXISTS) {
+                    try {
+                        useful |= buildTable(Chars.toString(nativeLPSZ)) > 0;
+                    } catch (CairoException e) {
+                        LOG.error().$("could not build zone maps [table=").$(nativeLPSZ)
+                                .$(", msg=").$(e.getFlyweightMessage())
+                                .$(", errno=").$(e.getErrno())
+                                .I$();
+                    }
+                }
+            }
+        });
+        return useful;
+    }
+}
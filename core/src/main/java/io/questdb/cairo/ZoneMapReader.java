@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Read-only view of column zone map. File structure:
+ * <pre>
+ * long row_count; // partition row count the map was built for
+ * long block_row_count; // 0 when map has partition entry only
+ * long column_top; // column top the map was built for
+ * entry partition;
+ * entry blocks[ceil(row_count / block_row_count)];
+ * </pre>
+ * where entry is min, max and null count of the rows it covers. Min and max are longs for integer
+ * columns and double bits for FLOAT and DOUBLE columns, they are calculated over non-null values only.
+ */
+public class ZoneMapReader implements Closeable {
+    public static final long PARTITION = -1;
+    static final long HEADER_SIZE = 24;
+    static final long ENTRY_SIZE = 24;
+    private final MemoryMR mem = Vm.getMRInstance();
+    private long rowCount;
+    private long blockRowCount;
+    private long blockCount;
+
+    @Override
+    public void close() {
+        mem.close();
+        blockCount = 0;
+    }
+
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    public long getBlockRowCount() {
+        return blockRowCount;
+    }
+
+    public long getMax(long block) {
+        return mem.getLong(entryOffset(block) + Long.BYTES);
+    }
+
+    public long getMin(long block) {
+        return mem.getLong(entryOffset(block));
+    }
+
+    public long getNullCount(long block) {
+        return mem.getLong(entryOffset(block) + 2 * Long.BYTES);
+    }
+
+    public long getRowCount(long block) {
+        if (block == PARTITION) {
+            return rowCount;
+        }
+        return Math.min(blockRowCount, rowCount - block * blockRowCount);
+    }
+
+    /**
+     * Opens zone map of the column.
+     *
+     * @param ff         files facade
+     * @param path       partition directory, it is left unchanged
+     * @param columnName name of the column
+     * @param rowCount   current partition row count
+     * @param columnTop  current column top in the partition
+     * @return false when there is no map or map was built for different number of rows or column top. Column top
+     * tells apart map of a column, which was dropped or renamed while the map was built, from the map of a column
+     * added later under the same name.
+     */
+    public boolean of(FilesFacade ff, Path path, CharSequence columnName, long rowCount, long columnTop) {
+        close();
+        final int plen = path.length();
+        try {
+            TableUtils.zoneMapFile(path, columnName);
+            final long len = ff.length(path);
+            if (len < HEADER_SIZE + ENTRY_SIZE) {
+                return false;
+            }
+            mem.of(ff, path, len, len, MemoryTag.MMAP_TABLE_READER);
+            this.rowCount = mem.getLong(0);
+            this.blockRowCount = mem.getLong(Long.BYTES);
+            this.blockCount = blockRowCount > 0 ? (this.rowCount + blockRowCount - 1) / blockRowCount : 0;
+            if (this.rowCount != rowCount
+                    || mem.getLong(2 * Long.BYTES) != columnTop
+                    || len < HEADER_SIZE + (blockCount + 1) * ENTRY_SIZE) {
+                close();
+                return false;
+            }
+            return true;
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private long entryOffset(long block) {
+        return HEADER_SIZE + (block + 1) * ENTRY_SIZE;
+    }
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Builds min/max zone map of a numeric column for a partition that is no longer written to.
+ * Zone map is written to a temporary file first and then renamed over the previous version,
+ * readers either see the old or the new map, never a partially written one.
+ */
+public class ZoneMapWriter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(ZoneMapWriter.class);
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final MemoryMR columnMem = Vm.getMRInstance();
+    private final MemoryMA zoneMapMem = Vm.getMAInstance();
+    private final Path other = new Path();
+    private final LongList blockEntries = new LongList();
+    private long partitionNullCount;
+    private long partitionMinLong;
+    private long partitionMaxLong;
+    private double partitionMinDouble;
+    private double partitionMaxDouble;
+    private long blockRowCount;
+
+    public ZoneMapWriter(CairoConfiguration configuration) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static boolean isFloatingPoint(int columnType) {
+        final short tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    @Override
+    public void close() {
+        columnMem.close();
+        zoneMapMem.close(false);
+        Misc.free(other);
+    }
+
+    /**
+     * Scans column file and writes zone map beside it.
+     *
+     * @param path       partition directory, it is left unchanged
+     * @param columnName name of the column
+     * @param columnType type of the column, must be one of supported types
+     * @param columnTop  number of leading rows that do not exist in the column file
+     * @param rowCount   number of rows in the partition
+     */
+    public void build(Path path, CharSequence columnName, int columnType, long columnTop, long rowCount) {
+        final int plen = path.length();
+        blockRowCount = Math.max(0, configuration.getZoneMapBlockRowCount());
+        try {
+            final long dataSize = Math.max(0, rowCount - columnTop) << ColumnType.pow2SizeOf(columnType);
+            if (dataSize > 0) {
+                TableUtils.dFile(path, columnName);
+                if (ff.length(path) < dataSize) {
+                    LOG.error().$("column is shorter than partition, zone map is not built [path=").$(path).I$();
+                    return;
+                }
+                columnMem.of(ff, path, dataSize, dataSize, MemoryTag.MMAP_TABLE_WRITER);
+            }
+
+            other.of(path.trimTo(plen)).concat(columnName).put(".zm.tmp").$();
+            boolean written = false;
+            try {
+                zoneMapMem.of(ff, other, ff.getPageSize(), MemoryTag.MMAP_TABLE_WRITER);
+                zoneMapMem.putLong(rowCount);
+                zoneMapMem.putLong(blockRowCount);
+                zoneMapMem.putLong(columnTop);
+                // partition entry goes first, block entries are buffered until all blocks are scanned
+                blockEntries.clear();
+                if (isFloatingPoint(columnType)) {
+                    buildDouble(columnType, columnTop, rowCount);
+                } else {
+                    buildLong(columnType, columnTop, rowCount);
+                }
+                for (int i = 0, n = blockEntries.size(); i < n; i++) {
+                    zoneMapMem.putLong(blockEntries.getQuick(i));
+                }
+                zoneMapMem.close(true);
+                written = true;
+            } finally {
+                if (!written) {
+                    // partially written map must not be left behind
+                    zoneMapMem.close(false);
+                    ff.remove(other);
+                }
+            }
+
+            if (!ff.rename(other, TableUtils.zoneMapFile(path.trimTo(plen), columnName))) {
+                LOG.error().$("could not rename zone map [from=").$(other).$(", to=").$(path).$(", errno=").$(ff.errno()).I$();
+                ff.remove(other);
+                ff.remove(path);
+            }
+        } finally {
+            columnMem.close();
+            path.trimTo(plen);
+        }
+    }
+
+    private void buildDouble(int columnType, long columnTop, long rowCount) {
+        final boolean isFloat = ColumnType.tagOf(columnType) == ColumnType.FLOAT;
+        partitionNullCount = 0;
+        partitionMinDouble = Double.POSITIVE_INFINITY;
+        partitionMaxDouble = Double.NEGATIVE_INFINITY;
+        final long step = blockRowCount > 0 ? blockRowCount : rowCount;
+        for (long lo = 0; lo < rowCount; lo += step) {
+            final long hi = Math.min(rowCount, lo + step);
+            // rows above column top are nulls
+            long nullCount = Math.max(0, Math.min(hi, columnTop) - lo);
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (long row = Math.max(lo, columnTop); row < hi; row++) {
+                final double value = isFloat ? columnMem.getFloat((row - columnTop) << 2) : columnMem.getDouble((row - columnTop) << 3);
+                if (value != value) {
+                    nullCount++;
+                } else {
+                    if (value < min) {
+                        min = value;
+                    }
+                    if (value > max) {
+                        max = value;
+                    }
+                }
+            }
+            partitionNullCount += nullCount;
+            partitionMinDouble = Math.min(partitionMinDouble, min);
+            partitionMaxDouble = Math.max(partitionMaxDouble, max);
+            if (blockRowCount > 0) {
+                putEntry(Double.doubleToLongBits(min), Double.doubleToLongBits(max), nullCount);
+            }
+        }
+        putPartitionEntry(Double.doubleToLongBits(partitionMinDouble), Double.doubleToLongBits(partitionMaxDouble));
+    }
+
+    private void buildLong(int columnType, long columnTop, long rowCount) {
+        final short tag = ColumnType.tagOf(columnType);
+        partitionNullCount = 0;
+        partitionMinLong = Long.MAX_VALUE;
+        partitionMaxLong = Long.MIN_VALUE;
+        final long step = blockRowCount > 0 ? blockRowCount : rowCount;
+        for (long lo = 0; lo < rowCount; lo += step) {
+            final long hi = Math.min(rowCount, lo + step);
+            long nullCount = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            if (lo < columnTop) {
+                // BYTE and SHORT have no null value, rows above column top read as 0
+                if (tag == ColumnType.BYTE || tag == ColumnType.SHORT) {
+                    min = 0;
+                    max = 0;
+                } else {
+                    nullCount = Math.min(hi, columnTop) - lo;
+                }
+            }
+            for (long row = Math.max(lo, columnTop); row < hi; row++) {
+                final long value;
+                switch (tag) {
+                    case ColumnType.BYTE:
+                        value = columnMem.getByte(row - columnTop);
+                        break;
+                    case ColumnType.SHORT:
+                        value = columnMem.getShort((row - columnTop) << 1);
+                        break;
+                    case ColumnType.INT:
+                        final int intValue = columnMem.getInt((row - columnTop) << 2);
+                        if (intValue == Numbers.INT_NaN) {
+                            nullCount++;
+                            continue;
+                        }
+                        value = intValue;
+                        break;
+                    default:
+                        value = columnMem.getLong((row - columnTop) << 3);
+                        if (value == Numbers.LONG_NaN) {
+                            nullCount++;
+                            continue;
+                        }
+                        break;
+                }
+                if (value < min) {
+                    min = value;
+                }
+                if (value > max) {
+                    max = value;
+                }
+            }
+            partitionNullCount += nullCount;
+            partitionMinLong = Math.min(partitionMinLong, min);
+            partitionMaxLong = Math.max(partitionMaxLong, max);
+            if (blockRowCount > 0) {
+                putEntry(min, max, nullCount);
+            }
+        }
+        putPartitionEntry(partitionMinLong, partitionMaxLong);
+    }
+
+    private void putEntry(long min, long max, long nullCount) {
+        blockEntries.add(min);
+        blockEntries.add(max);
+        blockEntries.add(nullCount);
+    }
+
+    private void putPartitionEntry(long min, long max) {
+        zoneMapMem.putLong(min);
+        zoneMapMem.putLong(max);
+        zoneMapMem.putLong(partitionNullCount);
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+import io.questdb.std.Unsafe;
+
+/**
+ * Frame-of-reference encoding of integer values. Block minimum is stored once and each value
+ * is bit-packed as its unsigned offset from the minimum, using as many bits as the block range
+ * requires. Block of equal values is stored without any packed bits.
+ * <pre>
+ *     minimum, 8 bytes
+ *     bits per value, 8 bytes
+ *     packed offsets
+ * </pre>
+ */
+public class BitPackCodec implements ColumnCodec {
+    public static final BitPackCodec INSTANCE = new BitPackCodec();
+    private static final int HEADER_SIZE = 16;
+
+    @Override
+    public void decode(long src, long srcSize, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return;
+        }
+        final long min = Unsafe.getUnsafe().getLong(src);
+        final int bitCount = (int) Unsafe.getUnsafe().getLong(src + 8);
+        final long packed = src + HEADER_SIZE;
+        for (long i = 0, bitPos = 0; i < valueCount; i++, bitPos += bitCount) {
+            ColumnCodecs.putValue(dst + (i << sizePow2), sizePow2, min + ColumnCodecs.getBits(packed, bitPos, bitCount));
+        }
+    }
+
+    @Override
+    public long encode(long src, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long i = 0; i < valueCount; i++) {
+            final long value = ColumnCodecs.getValue(src + (i << sizePow2), sizePow2);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        // the difference is unsigned, it does not overflow when the block has null (MIN_VALUE) values
+        final long range = max - min;
+        final int bitCount = range == 0 ? 0 : 64 - Long.numberOfLeadingZeros(range);
+        Unsafe.getUnsafe().putLong(dst, min);
+        Unsafe.getUnsafe().putLong(dst + 8, bitCount);
+        final long packed = dst + HEADER_SIZE;
+        long bitPos = 0;
+        if (bitCount > 0) {
+            for (long i = 0; i < valueCount; i++) {
+                bitPos = ColumnCodecs.putBits(packed, bitPos, ColumnCodecs.getValue(src + (i << sizePow2), sizePow2) - min, bitCount);
+            }
+        }
+        return HEADER_SIZE + ColumnCodecs.bitStreamSize(bitPos);
+    }
+
+    @Override
+    public int getId() {
+        return ColumnCodecs.BITPACK;
+    }
+
+    @Override
+    public long getMaxEncodedSize(long valueCount, int sizePow2) {
+        return HEADER_SIZE + ColumnCodecs.bitStreamSize(valueCount * 64);
+    }
+
+    @Override
+    public String getName() {
+        return "bitpack";
+    }
+
+    @Override
+    public boolean isSupported(int columnType) {
+        return ColumnCodecs.isIntegerType(columnType);
+    }
+}
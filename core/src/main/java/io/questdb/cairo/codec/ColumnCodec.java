@@ -0,0 +1,65 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+/**
+ * Type-aware encoding of fixed-size column values. Codecs are applied to independent blocks
+ * of column data when cold partitions are compressed, see {@link io.questdb.cairo.PartitionCompressor},
+ * and readers decode blocks into contiguous memory on demand. Implementations are stateless
+ * and can be shared between threads.
+ */
+public interface ColumnCodec {
+
+    /**
+     * Decodes values into contiguous memory.
+     *
+     * @param src        address of encoded block
+     * @param srcSize    size of encoded block in bytes
+     * @param valueCount number of values in the block
+     * @param sizePow2   power of 2 size of each value in bytes
+     * @param dst        address to decode values to, must have room for all values
+     */
+    void decode(long src, long srcSize, long valueCount, int sizePow2, long dst);
+
+    /**
+     * Encodes block of values.
+     *
+     * @param src        address of values
+     * @param valueCount number of values to encode
+     * @param sizePow2   power of 2 size of each value in bytes
+     * @param dst        address of buffer, which has at least {@link #getMaxEncodedSize(long, int)} bytes
+     * @return size of encoded block in bytes
+     */
+    long encode(long src, long valueCount, int sizePow2, long dst);
+
+    int getId();
+
+    long getMaxEncodedSize(long valueCount, int sizePow2);
+
+    String getName();
+
+    boolean isSupported(int columnType);
+}
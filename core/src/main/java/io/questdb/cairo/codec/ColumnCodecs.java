@@ -0,0 +1,181 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.LowerCaseCharSequenceIntHashMap;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+
+/**
+ * Registry of column codecs and bit stream primitives shared by them. Codec id is stored in
+ * column flags of table metadata, {@link #NONE} compresses column blocks with deflate.
+ * <p>
+ * Bit streams are written least significant bit first. Writes and reads access memory 8 bytes at
+ * a time, codecs reserve {@link #BIT_STREAM_PADDING} bytes past the last bit of the stream.
+ */
+public final class ColumnCodecs {
+    public static final int NONE = 0;
+    public static final int DELTA = 1;
+    public static final int GORILLA = 2;
+    public static final int BITPACK = 3;
+    public static final int RLE = 4;
+    static final int BIT_STREAM_PADDING = 8;
+    private static final ObjList<ColumnCodec> codecs = new ObjList<>();
+    private static final LowerCaseCharSequenceIntHashMap codecIds = new LowerCaseCharSequenceIntHashMap();
+
+    private ColumnCodecs() {
+    }
+
+    /**
+     * @param id codec id
+     * @return codec or null for {@link #NONE} and unknown ids
+     */
+    public static ColumnCodec get(int id) {
+        return codecs.getQuiet(id);
+    }
+
+    /**
+     * @param name case-insensitive codec name
+     * @return codec id or -1 when name is not known
+     */
+    public static int idOf(CharSequence name) {
+        return codecIds.get(name);
+    }
+
+    public static boolean isSupported(int id, int columnType) {
+        if (id == NONE) {
+            return true;
+        }
+        final ColumnCodec codec = get(id);
+        return codec != null && codec.isSupported(columnType);
+    }
+
+    public static String nameOf(int id) {
+        if (id == NONE) {
+            return "none";
+        }
+        final ColumnCodec codec = get(id);
+        return codec != null ? codec.getName() : "unknown";
+    }
+
+    static long bitStreamSize(long bitCount) {
+        return ((bitCount + 7) >>> 3) + BIT_STREAM_PADDING;
+    }
+
+    static long getBits(long address, long bitPos, int bitCount) {
+        if (bitCount > 32) {
+            final long lo = getBits0(address, bitPos, 32);
+            return lo | (getBits0(address, bitPos + 32, bitCount - 32) << 32);
+        }
+        return getBits0(address, bitPos, bitCount);
+    }
+
+    static long getValue(long address, int sizePow2) {
+        switch (sizePow2) {
+            case 0:
+                return Unsafe.getUnsafe().getByte(address);
+            case 1:
+                return Unsafe.getUnsafe().getShort(address);
+            case 2:
+                return Unsafe.getUnsafe().getInt(address);
+            default:
+                return Unsafe.getUnsafe().getLong(address);
+        }
+    }
+
+    static boolean isIntegerType(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.SYMBOL:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static long putBits(long address, long bitPos, long value, int bitCount) {
+        if (bitCount > 32) {
+            bitPos = putBits0(address, bitPos, value, 32);
+            return putBits0(address, bitPos, value >>> 32, bitCount - 32);
+        }
+        return putBits0(address, bitPos, value, bitCount);
+    }
+
+    static void putValue(long address, int sizePow2, long value) {
+        switch (sizePow2) {
+            case 0:
+                Unsafe.getUnsafe().putByte(address, (byte) value);
+                break;
+            case 1:
+                Unsafe.getUnsafe().putShort(address, (short) value);
+                break;
+            case 2:
+                Unsafe.getUnsafe().putInt(address, (int) value);
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(address, value);
+                break;
+        }
+    }
+
+    private static long getBits0(long address, long bitPos, int bitCount) {
+        final long word = Unsafe.getUnsafe().getLong(address + (bitPos >>> 3));
+        return (word >>> (bitPos & 7)) & ((1L << bitCount) - 1);
+    }
+
+    private static long putBits0(long address, long bitPos, long value, int bitCount) {
+        final long p = address + (bitPos >>> 3);
+        final int shift = (int) (bitPos & 7);
+        // bits past the write position are not written yet, they are cleared rather than preserved
+        final long word = Unsafe.getUnsafe().getLong(p) & ((1L << shift) - 1);
+        Unsafe.getUnsafe().putLong(p, word | ((value & ((1L << bitCount) - 1)) << shift));
+        return bitPos + bitCount;
+    }
+
+    private static void register(ColumnCodec codec) {
+        codecs.extendAndSet(codec.getId(), codec);
+        codecIds.put(codec.getName(), codec.getId());
+    }
+
+    static {
+        codecIds.put("none", NONE);
+        register(DeltaOfDeltaCodec.INSTANCE);
+        register(GorillaCodec.INSTANCE);
+        register(BitPackCodec.INSTANCE);
+        register(RunLengthCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+import io.questdb.cairo.ColumnType;
+
+/**
+ * Delta-of-delta encoding of integer values, which suits timestamps arriving at a regular
+ * interval. First value is stored as is, each following value as zig-zag encoded difference
+ * between consecutive deltas, prefixed by the size bucket:
+ * <pre>
+ *     0     delta is the same as previous one
+ *     10    7 bit difference
+ *     110   12 bit difference
+ *     1110  32 bit difference
+ *     1111  64 bit difference
+ * </pre>
+ */
+public class DeltaOfDeltaCodec implements ColumnCodec {
+    public static final DeltaOfDeltaCodec INSTANCE = new DeltaOfDeltaCodec();
+
+    @Override
+    public void decode(long src, long srcSize, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return;
+        }
+        long value = ColumnCodecs.getBits(src, 0, 64);
+        ColumnCodecs.putValue(dst, sizePow2, value);
+        long bitPos = 64;
+        long delta = 0;
+        for (long i = 1; i < valueCount; i++) {
+            int prefix = 0;
+            while (prefix < 4 && ColumnCodecs.getBits(src, bitPos++, 1) == 1) {
+                prefix++;
+            }
+            final long zz;
+            switch (prefix) {
+                case 0:
+                    zz = 0;
+                    break;
+                case 1:
+                    zz = ColumnCodecs.getBits(src, bitPos, 7);
+                    bitPos += 7;
+                    break;
+                case 2:
+                    zz = ColumnCodecs.getBits(src, bitPos, 12);
+                    bitPos += 12;
+                    break;
+                case 3:
+                    zz = ColumnCodecs.getBits(src, bitPos, 32);
+                    bitPos += 32;
+                    break;
+                default:
+                    zz = ColumnCodecs.getBits(src, bitPos, 64);
+                    bitPos += 64;
+                    break;
+            }
+            delta += (zz >>> 1) ^ -(zz & 1);
+            value += delta;
+            ColumnCodecs.putValue(dst + (i << sizePow2), sizePow2, value);
+        }
+    }
+
+    @Override
+    public long encode(long src, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return 0;
+        }
+        long prev = ColumnCodecs.getValue(src, sizePow2);
+        long bitPos = ColumnCodecs.putBits(dst, 0, prev, 64);
+        long prevDelta = 0;
+        for (long i = 1; i < valueCount; i++) {
+            final long value = ColumnCodecs.getValue(src + (i << sizePow2), sizePow2);
+            final long delta = value - prev;
+            final long dod = delta - prevDelta;
+            final long zz = (dod << 1) ^ (dod >> 63);
+            if (zz == 0) {
+                bitPos = ColumnCodecs.putBits(dst, bitPos, 0, 1);
+            } else if ((zz >>> 7) == 0) {
+                bitPos = ColumnCodecs.putBits(dst, bitPos, 0b01, 2);
+                bitPos = ColumnCodecs.putBits(dst, bitPos, zz, 7);
+            } else if ((zz >>> 12) == 0) {
+                bitPos = ColumnCodecs.putBits(dst, bitPos, 0b011, 3);
+                bitPos = ColumnCodecs.putBits(dst, bitPos, zz, 12);
+            } else if ((zz >>> 32) == 0) {
+                bitPos = ColumnCodecs.putBits(dst, bitPos, 0b0111, 4);
+                bitPos = ColumnCodecs.putBits(dst, bitPos, zz, 32);
+            } else {
+                bitPos = ColumnCodecs.putBits(dst, bitPos, 0b1111, 4);
+                bitPos = ColumnCodecs.putBits(dst, bitPos, zz, 64);
+            }
+            prev = value;
+            prevDelta = delta;
+        }
+        return ColumnCodecs.bitStreamSize(bitPos);
+    }
+
+    @Override
+    public int getId() {
+        return ColumnCodecs.DELTA;
+    }
+
+    @Override
+    public long getMaxEncodedSize(long valueCount, int sizePow2) {
+        return ColumnCodecs.bitStreamSize(valueCount * 68);
+    }
+
+    @Override
+    public String getName() {
+        return "delta";
+    }
+
+    @Override
+    public boolean isSupported(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.Unsafe;
+
+/**
+ * XOR encoding of floating point values as described in Facebook's Gorilla paper. Each value is
+ * XOR-ed with the previous one, equal values take a single bit. Otherwise meaningful bits of the
+ * XOR are stored either within the window of leading and trailing zeros of the previous XOR,
+ * or with a new window, which costs the number of leading zeros and length of meaningful bits.
+ */
+public class GorillaCodec implements ColumnCodec {
+    public static final GorillaCodec INSTANCE = new GorillaCodec();
+
+    @Override
+    public void decode(long src, long srcSize, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return;
+        }
+        final int width = 8 << sizePow2;
+        final int windowBits = windowBits(width);
+        long value = ColumnCodecs.getBits(src, 0, width);
+        putRaw(dst, sizePow2, value);
+        long bitPos = width;
+        int leading = 0;
+        int trailing = 0;
+        for (long i = 1; i < valueCount; i++) {
+            if (ColumnCodecs.getBits(src, bitPos++, 1) != 0) {
+                if (ColumnCodecs.getBits(src, bitPos++, 1) != 0) {
+                    leading = (int) ColumnCodecs.getBits(src, bitPos, windowBits);
+                    bitPos += windowBits;
+                    final int meaningful = (int) ColumnCodecs.getBits(src, bitPos, windowBits) + 1;
+                    bitPos += windowBits;
+                    trailing = width - leading - meaningful;
+                }
+                final int meaningful = width - leading - trailing;
+                value ^= ColumnCodecs.getBits(src, bitPos, meaningful) << trailing;
+                bitPos += meaningful;
+            }
+            putRaw(dst + (i << sizePow2), sizePow2, value);
+        }
+    }
+
+    @Override
+    public long encode(long src, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return 0;
+        }
+        final int width = 8 << sizePow2;
+        final int windowBits = windowBits(width);
+        long prev = getRaw(src, sizePow2);
+        long bitPos = ColumnCodecs.putBits(dst, 0, prev, width);
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (long i = 1; i < valueCount; i++) {
+            final long value = getRaw(src + (i << sizePow2), sizePow2);
+            final long xor = value ^ prev;
+            if (xor == 0) {
+                bitPos = ColumnCodecs.putBits(dst, bitPos, 0, 1);
+            } else {
+                final int leading = Long.numberOfLeadingZeros(xor) - (64 - width);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading != -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    bitPos = ColumnCodecs.putBits(dst, bitPos, 0b01, 2);
+                    bitPos = ColumnCodecs.putBits(dst, bitPos, xor >>> prevTrailing, width - prevLeading - prevTrailing);
+                } else {
+                    final int meaningful = width - leading - trailing;
+                    bitPos = ColumnCodecs.putBits(dst, bitPos, 0b11, 2);
+                    bitPos = ColumnCodecs.putBits(dst, bitPos, leading, windowBits);
+                    bitPos = ColumnCodecs.putBits(dst, bitPos, meaningful - 1, windowBits);
+                    bitPos = ColumnCodecs.putBits(dst, bitPos, xor >>> trailing, meaningful);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = value;
+        }
+        return ColumnCodecs.bitStreamSize(bitPos);
+    }
+
+    @Override
+    public int getId() {
+        return ColumnCodecs.GORILLA;
+    }
+
+    @Override
+    public long getMaxEncodedSize(long valueCount, int sizePow2) {
+        final int width = 8 << sizePow2;
+        return ColumnCodecs.bitStreamSize(valueCount * (2 + 2 * windowBits(width) + width));
+    }
+
+    @Override
+    public String getName() {
+        return "gorilla";
+    }
+
+    @Override
+    public boolean isSupported(int columnType) {
+        final short tag = ColumnType.tagOf(columnType);
+        return tag == ColumnType.FLOAT || tag == ColumnType.DOUBLE;
+    }
+
+    private static long getRaw(long address, int sizePow2) {
+        return sizePow2 == 2 ? Unsafe.getUnsafe().getInt(address) & 0xffffffffL : Unsafe.getUnsafe().getLong(address);
+    }
+
+    private static void putRaw(long address, int sizePow2, long value) {
+        if (sizePow2 == 2) {
+            Unsafe.getUnsafe().putInt(address, (int) value);
+        } else {
+            Unsafe.getUnsafe().putLong(address, value);
+        }
+    }
+
+    private static int windowBits(int width) {
+        return width == 64 ? 6 : 5;
+    }
+}
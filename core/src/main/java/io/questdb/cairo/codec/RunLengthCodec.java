@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.Unsafe;
+import io.questdb.std.Vect;
+
+/**
+ * Run-length encoding, which suits symbol keys and other low cardinality values stored in long
+ * runs. Each run is stored as the value, using the size of the column type, followed by 4 byte
+ * run length.
+ */
+public class RunLengthCodec implements ColumnCodec {
+    public static final RunLengthCodec INSTANCE = new RunLengthCodec();
+
+    @Override
+    public void decode(long src, long srcSize, long valueCount, int sizePow2, long dst) {
+        final long entrySize = (1L << sizePow2) + 4;
+        for (long p = src, lim = src + srcSize; p < lim; p += entrySize) {
+            final long value = ColumnCodecs.getValue(p, sizePow2);
+            final int runLength = Unsafe.getUnsafe().getInt(p + (1L << sizePow2));
+            switch (sizePow2) {
+                case 0:
+                    Vect.memset(dst, runLength, (int) value);
+                    break;
+                case 1:
+                    Vect.setMemoryShort(dst, (short) value, runLength);
+                    break;
+                case 2:
+                    Vect.setMemoryInt(dst, (int) value, runLength);
+                    break;
+                default:
+                    Vect.setMemoryLong(dst, value, runLength);
+                    break;
+            }
+            dst += (long) runLength << sizePow2;
+        }
+    }
+
+    @Override
+    public long encode(long src, long valueCount, int sizePow2, long dst) {
+        if (valueCount == 0) {
+            return 0;
+        }
+        final long valueSize = 1L << sizePow2;
+        long p = dst;
+        long value = ColumnCodecs.getValue(src, sizePow2);
+        int runLength = 1;
+        for (long i = 1; i < valueCount; i++) {
+            final long next = ColumnCodecs.getValue(src + (i << sizePow2), sizePow2);
+            if (next == value && runLength < Integer.MAX_VALUE) {
+                runLength++;
+            } else {
+                ColumnCodecs.putValue(p, sizePow2, value);
+                Unsafe.getUnsafe().putInt(p + valueSize, runLength);
+                p += valueSize + 4;
+                value = next;
+                runLength = 1;
+            }
+        }
+        ColumnCodecs.putValue(p, sizePow2, value);
+        Unsafe.getUnsafe().putInt(p + valueSize, runLength);
+        return p + valueSize + 4 - dst;
+    }
+
+    @Override
+    public int getId() {
+        return ColumnCodecs.RLE;
+    }
+
+    @Override
+    public long getMaxEncodedSize(long valueCount, int sizePow2) {
+        return valueCount * ((1L << sizePow2) + 4);
+    }
+
+    @Override
+    public String getName() {
+        return "rle";
+    }
+
+    @Override
+    public boolean isSupported(int columnType) {
+        return ColumnType.isBoolean(columnType) || ColumnCodecs.isIntegerType(columnType);
+    }
+}
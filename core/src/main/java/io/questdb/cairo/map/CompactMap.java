@@ -293,7 +293,12 @@ public class CompactMap implements Map {
 
         @Override
         public CompactMapValue createValue() {
-            long slot = calculateEntrySlot(currentEntryOffset, currentEntrySize);
+            return createValue(hash());
+        }
+
+        @Override
+        public CompactMapValue createValue(long hash) {
+            long slot = hash & mask;
             long offset = getOffsetAt(slot);
 
             if (offset == -1) {
@@ -326,7 +331,7 @@ public class CompactMap implements Map {
                 }
 
                 grow();
-                return createValue();
+                return createValue(hash);
             }
 
             // this is direct hit, scroll down all keys with same hashcode
@@ -341,7 +346,12 @@ public class CompactMap implements Map {
 
         @Override
         public CompactMapValue findValue() {
-            long slot = calculateEntrySlot(currentEntryOffset, currentEntrySize);
+            return findValue(hash());
+        }
+
+        @Override
+        public CompactMapValue findValue(long hash) {
+            long slot = hash & mask;
             long offset = getOffsetAt(slot);
 
             if (offset == -1) {
@@ -527,6 +537,11 @@ public class CompactMap implements Map {
             return putNewEntryAt(slot, (byte) 0);
         }
 
+        @Override
+        public long hash() {
+            return hashFunction.hash(entries, currentEntryOffset + entryKeyOffset, currentEntrySize - entryKeyOffset);
+        }
+
         private long calculateEntrySlot(long offset, long size) {
             return hashFunction.hash(entries, offset + entryKeyOffset, size - entryKeyOffset) & mask;
         }
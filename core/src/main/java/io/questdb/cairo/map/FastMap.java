@@ -237,6 +237,34 @@ public class FastMap implements Map {
         return size;
     }
 
+    /**
+     * Merges entries of the source map into this map. Both maps must have the same key and
+     * value types. Entries with keys new to this map are copied as is, values of existing keys
+     * are combined by the merge function.
+     * <p>
+     * Source entries are split into 2^partitionShift partitions using the high bits of key hash,
+     * only entries of the given partition are merged. This allows several threads to merge the
+     * same source maps concurrently, each thread into its own map. Source map is not modified.
+     *
+     * @param srcMap         map to read entries from
+     * @param partitionIndex index of partition to merge
+     * @param partitionShift log2 of partition count, zero to merge all entries
+     * @param mergeFunction  combines values of the same key
+     */
+    public void merge(FastMap srcMap, int partitionIndex, int partitionShift, MergeFunction mergeFunction) {
+        assert keyDataOffset == srcMap.keyDataOffset;
+        long p = srcMap.kStart;
+        for (int i = 0, n = srcMap.size; i < n; i++) {
+            final int len = Unsafe.getUnsafe().getInt(p);
+            final int hashCode = hashFunction.hash(p + keyDataOffset, len - keyDataOffset);
+            // hash is never negative, the top bit is always zero
+            if (partitionShift == 0 || hashCode >>> (31 - partitionShift) == partitionIndex) {
+                merge0(p, len, hashCode, mergeFunction);
+            }
+            p += len;
+        }
+    }
+
     @Override
     public MapValue valueAt(long address) {
         return valueOf(address, false, this.value);
@@ -268,15 +296,18 @@ public class FastMap implements Map {
     }
 
     private boolean eq(Key keyWriter, long offset) {
+        return eq(keyWriter.startAddress, keyWriter.len, offset);
+    }
+
+    private boolean eq(long b, int len, long offset) {
         long a = kStart + offset;
-        long b = keyWriter.startAddress;
 
         // check length first
         if (Unsafe.getUnsafe().getInt(a) != Unsafe.getUnsafe().getInt(b)) {
             return false;
         }
 
-        long lim = b + keyWriter.len;
+        long lim = b + len;
 
         // skip to the data
         a += keyDataOffset;
@@ -302,8 +333,8 @@ public class FastMap implements Map {
         return valueColumnCount;
     }
 
-    private int keyIndex() {
-        return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset) & mask;
+    private int keyHash() {
+        return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset);
     }
 
     private FastMapValue probeReadOnly(Key keyWriter, int index, FastMapValue value) {
@@ -316,6 +347,31 @@ public class FastMap implements Map {
         return null;
     }
 
+    private void merge0(long srcAddress, int len, int hashCode, MergeFunction mergeFunction) {
+        int index = hashCode & mask;
+        long offset;
+        while ((offset = offsets.get(index)) != -1) {
+            if (eq(srcAddress, len, offset)) {
+                // value2 is free to use, keys are not being written while maps are merged
+                mergeFunction.merge(valueOf(kStart + offset, false, value), value2.of(srcAddress, false));
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (kPos + len > kLimit) {
+            key.init();
+            resize(len);
+        }
+        Vect.memcpy(srcAddress, kPos, len);
+        offsets.set(index, kPos - kStart);
+        kPos += len;
+        if (--free == 0) {
+            rehash();
+        }
+        size++;
+    }
+
     private void resize(int size) {
         if (nResizes < maxResizes) {
             nResizes++;
@@ -348,8 +404,8 @@ public class FastMap implements Map {
 
     private void rehash() {
         int capacity = keyCapacity << 1;
-        mask = capacity - 1;
         DirectLongList pointers = new DirectLongList(capacity);
+        mask = capacity - 1;
         pointers.setPos(capacity);
         pointers.zero(-1);
 
@@ -379,6 +435,11 @@ public class FastMap implements Map {
         int hash(long address, int len);
     }
 
+    @FunctionalInterface
+    public interface MergeFunction {
+        void merge(MapValue destValue, MapValue srcValue);
+    }
+
     public class Key implements MapKey {
         private long startAddress;
         private long appendAddress;
@@ -400,11 +461,23 @@ public class FastMap implements Map {
             return createValue(value3);
         }
 
+        @Override
+        public MapValue createValue(long hash) {
+            commit();
+            return createValue(value, (int) hash & mask);
+        }
+
         @Override
         public MapValue findValue() {
             return findValue(value);
         }
 
+        @Override
+        public MapValue findValue(long hash) {
+            commit();
+            return findValue(value, (int) hash & mask);
+        }
+
         @Override
         public MapValue findValue2() {
             return findValue(value2);
@@ -415,11 +488,20 @@ public class FastMap implements Map {
             return findValue(value3);
         }
 
+        @Override
+        public long hash() {
+            commit();
+            return keyHash();
+        }
+
         private MapValue createValue(FastMapValue value) {
             commit();
             // calculate hash remembering "key" structure
             // [ len | value block | key offset block | key data block ]
-            int index = keyIndex();
+            return createValue(value, keyHash() & mask);
+        }
+
+        private MapValue createValue(FastMapValue value, int index) {
             long offset = offsets.get(index);
 
             if (offset == -1) {
@@ -433,7 +515,10 @@ public class FastMap implements Map {
 
         private MapValue findValue(FastMapValue value) {
             commit();
-            int index = keyIndex();
+            return findValue(value, keyHash() & mask);
+        }
+
+        private MapValue findValue(FastMapValue value, int index) {
             long offset = offsets.get(index);
 
             if (offset == -1) {
@@ -36,6 +36,11 @@ public interface MapKey extends RecordSinkSPI {
 
     MapValue createValue();
 
+    /**
+     * Same as {@link #createValue()} for the key, which {@link #hash()} is already known.
+     */
+    MapValue createValue(long hash);
+
     default MapValue createValue2() {
         throw new UnsupportedOperationException();
     }
@@ -46,6 +51,11 @@ public interface MapKey extends RecordSinkSPI {
 
     MapValue findValue();
 
+    /**
+     * Same as {@link #findValue()} for the key, which {@link #hash()} is already known.
+     */
+    MapValue findValue(long hash);
+
     default MapValue findValue2() {
         throw new UnsupportedOperationException();
     }
@@ -54,6 +64,12 @@ public interface MapKey extends RecordSinkSPI {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Hash of the key written so far. This is the hash map uses to find the key, callers that also need
+     * a hash of the key can reuse it instead of hashing the key twice.
+     */
+    long hash();
+
     default boolean notFound() {
         return findValue() == null;
     }
@@ -26,6 +26,8 @@ package io.questdb.cairo.pool;
 
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnBlockCache;
+import io.questdb.cairo.ColumnMappingCache;
 import io.questdb.cairo.EntryUnavailableException;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
@@ -33,6 +35,7 @@ import io.questdb.cairo.pool.ex.PoolClosedException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.Misc;
 import io.questdb.std.Unsafe;
 
 import java.util.Arrays;
@@ -51,11 +54,15 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
     private final int maxSegments;
     private final int maxEntries;
+    private final ColumnMappingCache columnMappingCache;
+    private final ColumnBlockCache columnBlockCache;
 
     public ReaderPool(CairoConfiguration configuration) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.columnMappingCache = configuration.isReaderColumnMappingShared() ? new ColumnMappingCache() : null;
+        this.columnBlockCache = new ColumnBlockCache(configuration.getPartitionCompressionCacheSize());
     }
 
     @Override
@@ -139,6 +146,14 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         return count;
     }
 
+    public long getColumnBlockCacheSize() {
+        return columnBlockCache.getCachedSize();
+    }
+
+    public int getColumnMappingCount() {
+        return columnMappingCache != null ? columnMappingCache.getMappingCount() : 0;
+    }
+
     public int getMaxEntries() {
         return maxEntries;
     }
@@ -215,6 +230,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
     @Override
     protected void closePool() {
         super.closePool();
+        Misc.free(columnBlockCache);
         LOG.info().$("closed").$();
     }
 
@@ -350,7 +366,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         private Entry entry;
 
         public R(ReaderPool pool, Entry entry, int index, CharSequence name) {
-            super(pool.getConfiguration(), name);
+            super(pool.getConfiguration(), name, pool.columnMappingCache, pool.columnBlockCache);
             this.pool = pool;
             this.entry = entry;
             this.index = index;
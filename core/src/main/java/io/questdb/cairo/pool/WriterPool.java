@@ -71,6 +71,7 @@ public class WriterPool extends AbstractPool {
     private final CharSequence root;
     @NotNull
     private final MessageBus messageBus;
+    private final TableWriterMetrics metrics;
 
     /**
      * Pool constructor. WriterPool root directory is passed via configuration.
@@ -79,9 +80,21 @@ public class WriterPool extends AbstractPool {
      * @param messageBus    message bus instance to allow index tasks to be communicated to available threads.
      */
     public WriterPool(CairoConfiguration configuration, @NotNull MessageBus messageBus) {
+        this(configuration, messageBus, TableWriterMetrics.DISABLED);
+    }
+
+    /**
+     * Pool constructor. WriterPool root directory is passed via configuration.
+     *
+     * @param configuration configuration parameters.
+     * @param messageBus    message bus instance to allow index tasks to be communicated to available threads.
+     * @param metrics       metrics updated by writers of the pool.
+     */
+    public WriterPool(CairoConfiguration configuration, @NotNull MessageBus messageBus, TableWriterMetrics metrics) {
         super(configuration, configuration.getInactiveWriterTTL());
         this.configuration = configuration;
         this.messageBus = messageBus;
+        this.metrics = metrics;
         this.clock = configuration.getMicrosecondClock();
         this.root = configuration.getRoot();
         notifyListener(Thread.currentThread().getId(), null, PoolListener.EV_POOL_OPEN);
@@ -272,7 +285,7 @@ public class WriterPool extends AbstractPool {
                 // we cache the writer in the writerPool whose access via the engine is thread safe
                 assert writer == null && e.lockFd != -1;
                 LOG.info().$("created [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
-                writer = new TableWriter(configuration, name, messageBus, false, e, root);
+                writer = new TableWriter(configuration, name, messageBus, false, e, root, metrics);
             }
 
             if (writer == null) {
@@ -393,7 +406,7 @@ public class WriterPool extends AbstractPool {
         try {
             checkClosed();
             LOG.info().$("open [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
-            e.writer = new TableWriter(configuration, name, messageBus, true, e, root);
+            e.writer = new TableWriter(configuration, name, messageBus, true, e, root, metrics);
             e.ownershipReason = lockReason;
             return logAndReturn(e, PoolListener.EV_CREATE);
         } catch (CairoException ex) {
@@ -34,10 +34,15 @@ import java.io.Closeable;
 /**
  * A factory interface for dataframe cursors
  */
-public interface DataFrameCursorFactory extends Sinkable, Closeable {
+public interface DataFrameCursorFactory extends Sinkable, Closeable, Plannable {
 
     DataFrameCursor getCursor(SqlExecutionContext executionContext) throws SqlException;
 
+    @Override
+    default void toPlan(PlanSink sink) {
+        sink.val(getClass().getSimpleName());
+    }
+
     /**
      * @param sink to print data frame cursor to
      */
@@ -47,4 +47,24 @@ public interface PageFrameCursor extends Closeable {
     long size();
 
     SymbolMapReader getSymbolMapReader(int columnIndex);
+
+    /**
+     * Some cursors, such as filtered ones, build frames in a bounded number of buffers
+     * that they own. Consumers that keep reading frames after next() has returned, e.g.
+     * from worker threads, must check this after every frame and, when it returns true,
+     * wait for the readers to finish and call {@link #releaseFrames()}. Otherwise the
+     * next frame reuses buffers of the earlier ones.
+     *
+     * @return true when all frame buffers are in use
+     */
+    default boolean mustReleaseFrames() {
+        return false;
+    }
+
+    /**
+     * Tells cursor that none of the frames it has returned so far is read anymore
+     * and their memory can be reused.
+     */
+    default void releaseFrames() {
+    }
 }
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.sql;
+
+import io.questdb.griffin.SqlExecutionContext;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Receives EXPLAIN description of query plan nodes, see {@link Plannable#toPlan(PlanSink)}.
+ * Every node occupies a line, followed by one line per attribute and by the nodes of its inputs.
+ */
+public interface PlanSink {
+
+    /**
+     * Starts new attribute of current node, attribute value is printed via val() methods.
+     */
+    PlanSink attr(CharSequence name);
+
+    /**
+     * Describes input of current node.
+     */
+    PlanSink child(RecordCursorFactory factory);
+
+    /**
+     * @return context EXPLAIN is executed in, null when plan is not being printed
+     */
+    @Nullable
+    SqlExecutionContext getExecutionContext();
+
+    /**
+     * Starts new node of the plan.
+     */
+    PlanSink type(CharSequence type);
+
+    PlanSink val(CharSequence value);
+
+    PlanSink val(long value);
+
+    PlanSink val(char value);
+
+    PlanSink val(Function function);
+
+    PlanSink val(Plannable plannable);
+
+    /**
+     * Prints timestamp in microseconds as ISO 8601 date.
+     */
+    PlanSink valTimestamp(long timestamp);
+}
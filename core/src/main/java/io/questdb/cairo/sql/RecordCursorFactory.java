@@ -53,7 +53,7 @@ import java.io.Closeable;
  * }
  *
  */
-public interface RecordCursorFactory extends Closeable, Sinkable {
+public interface RecordCursorFactory extends Closeable, Sinkable, Plannable {
     @Override
     default void close() {
     }
@@ -91,6 +91,15 @@ public interface RecordCursorFactory extends Closeable, Sinkable {
         return false;
     }
 
+    /**
+     * Factories without inputs are described by their type, factories with inputs and
+     * notable attributes have to describe themselves.
+     */
+    @Override
+    default void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+    }
+
     default void toSink(CharSink sink) {
         throw new UnsupportedOperationException();
     }
@@ -51,7 +51,7 @@ public abstract class AbstractMemoryCR implements MemoryCR {
         return 0;
     }
 
-    public final BinarySequence getBin(long offset) {
+    public BinarySequence getBin(long offset) {
         return getBin(offset, bsview);
     }
 
@@ -76,11 +76,11 @@ public abstract class AbstractMemoryCR implements MemoryCR {
         return pageAddress == 0 ? 0 : 1;
     }
 
-    public final CharSequence getStr(long offset) {
+    public CharSequence getStr(long offset) {
         return getStr(offset, csview);
     }
 
-    public final CharSequence getStr2(long offset) {
+    public CharSequence getStr2(long offset) {
         return getStr(offset, csview2);
     }
 
@@ -0,0 +1,349 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.vm;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnBlockCache;
+import io.questdb.cairo.PartitionCompressor;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.api.MemoryCMR;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectCharSequence;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only memory over column file compressed by {@link PartitionCompressor}. Blocks of the file are
+ * decompressed on demand into {@link ColumnBlockCache}, which is shared by readers of the engine.
+ * <p>
+ * Values are read from the last few blocks this memory touched, these blocks stay pinned until newer
+ * blocks push them out. Values spanning blocks, e.g. strings, are copied into buffer of this memory.
+ * Each block is a page of the memory, pages are pinned by {@link ColumnBlockCache.PagePins} of the
+ * reader until the reader is returned to the pool. File descriptor of the compressed file is kept open,
+ * so that {@link #isDeleted()} detects the column being decompressed by the writer.
+ */
+public class MemoryCMRDeflateImpl extends AbstractMemoryCR implements MemoryCMR {
+    private static final int RECENT_BLOCK_COUNT = 4;
+    private static final int SCRATCH_VALUE = 0;
+    private static final int SCRATCH_STR_A = 1;
+    private static final int SCRATCH_STR_B = 2;
+    private static final int SCRATCH_BIN = 3;
+    private static final int SCRATCH_COUNT = 4;
+    private final ColumnBlockCache cache;
+    private final ColumnBlockCache.PagePins pagePins;
+    private final ColumnBlockCache.Block[] recentBlocks = new ColumnBlockCache.Block[RECENT_BLOCK_COUNT];
+    private final ObjList<ColumnBlockCache.Block> pageBlocks = new ObjList<>();
+    private final long[] scratchAddresses = new long[SCRATCH_COUNT];
+    private final long[] scratchSizes = new long[SCRATCH_COUNT];
+    private final DirectCharSequence csviewA = new DirectCharSequence();
+    private final DirectCharSequence csviewB = new DirectCharSequence();
+    private final DirectBinarySequence bsview = new DirectBinarySequence();
+    private ColumnBlockCache.File file;
+    private ColumnBlockCache.Block lastBlock;
+    private int recentBlockPos;
+    private long pageBlocksGeneration;
+    private long blockSize;
+    private long blockCount;
+
+    public MemoryCMRDeflateImpl(ColumnBlockCache.PagePins pagePins, FilesFacade ff, LPSZ name, long size, int memoryTag) {
+        this.cache = pagePins.getCache();
+        this.pagePins = pagePins;
+        of(ff, name, 0, size, memoryTag);
+    }
+
+    @Override
+    public long addressOf(long offset) {
+        assert offset <= size : "offset=" + offset + ", size=" + size + ", fd=" + fd;
+        if (blockCount == 0) {
+            return 0;
+        }
+        final long block = Math.min(offset / blockSize, blockCount - 1);
+        return blockAddress(block) + offset - block * blockSize;
+    }
+
+    @Override
+    public void close() {
+        releaseBlocks();
+        if (file != null) {
+            cache.release(file);
+            file = null;
+        }
+        for (int i = 0; i < SCRATCH_COUNT; i++) {
+            if (scratchAddresses[i] != 0) {
+                Unsafe.free(scratchAddresses[i], scratchSizes[i], MemoryTag.NATIVE_TABLE_READER);
+                scratchAddresses[i] = 0;
+                scratchSizes[i] = 0;
+            }
+        }
+        fd = -1;
+        size = 0;
+        grownLength = 0;
+        blockSize = 0;
+        blockCount = 0;
+    }
+
+    /**
+     * Copies uncompressed bytes to contiguous memory. Blocks are not pinned past the copy.
+     */
+    public void copyTo(long offset, long len, long dst) {
+        long copied = 0;
+        long block = offset / blockSize;
+        long lo = offset - block * blockSize;
+        while (copied < len) {
+            final long n = Math.min(len - copied, blockSize - lo);
+            final ColumnBlockCache.Block b = cache.acquireBlock(file, (int) block);
+            try {
+                Vect.memcpy(b.getAddress() + lo, dst + copied, n);
+            } finally {
+                cache.release(b);
+            }
+            copied += n;
+            block++;
+            lo = 0;
+        }
+    }
+
+    @Override
+    public void extend(long newSize) {
+        if (newSize > file.getUncompressedSize()) {
+            throw CairoException.instance(0).put("compressed column is too short [fd=").put(fd)
+                    .put(", size=").put(file.getUncompressedSize())
+                    .put(", requested=").put(newSize)
+                    .put(']');
+        }
+        grownLength = Math.max(newSize, grownLength);
+        size = Math.max(newSize, size);
+    }
+
+    @Override
+    public BinarySequence getBin(long offset) {
+        final long len = getLong(offset);
+        if (len > -1) {
+            return bsview.of(contiguous(offset + Long.BYTES, len, SCRATCH_BIN), len);
+        }
+        return null;
+    }
+
+    @Override
+    public BinarySequence getBin(long offset, ByteSequenceView view) {
+        return getBin(offset);
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return Unsafe.getUnsafe().getByte(addressOf(offset));
+    }
+
+    @Override
+    public char getChar(long offset) {
+        return Unsafe.getUnsafe().getChar(contiguous(offset, Character.BYTES, SCRATCH_VALUE));
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        return Unsafe.getUnsafe().getDouble(contiguous(offset, Double.BYTES, SCRATCH_VALUE));
+    }
+
+    @Override
+    public float getFloat(long offset) {
+        return Unsafe.getUnsafe().getFloat(contiguous(offset, Float.BYTES, SCRATCH_VALUE));
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return Unsafe.getUnsafe().getInt(contiguous(offset, Integer.BYTES, SCRATCH_VALUE));
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return Unsafe.getUnsafe().getLong(contiguous(offset, Long.BYTES, SCRATCH_VALUE));
+    }
+
+    @Override
+    public void getLong256(long offset, CharSink sink) {
+        final long addr = contiguous(offset, Long256.BYTES, SCRATCH_VALUE);
+        Numbers.appendLong256(
+                Unsafe.getUnsafe().getLong(addr),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 2),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 3),
+                sink
+        );
+    }
+
+    @Override
+    public void getLong256(long offset, Long256Acceptor sink) {
+        final long addr = contiguous(offset, Long256.BYTES, SCRATCH_VALUE);
+        sink.setAll(
+                Unsafe.getUnsafe().getLong(addr),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 2),
+                Unsafe.getUnsafe().getLong(addr + Long.BYTES * 3)
+        );
+    }
+
+    @Override
+    public long getPageAddress(int pageIndex) {
+        if (pageIndex >= blockCount) {
+            return 0;
+        }
+        if (pageBlocksGeneration != pagePins.getGeneration()) {
+            // reader released pages since they were pinned
+            pageBlocks.clear();
+            pageBlocksGeneration = pagePins.getGeneration();
+        }
+        ColumnBlockCache.Block block = pageBlocks.getQuiet(pageIndex);
+        if (block == null) {
+            block = cache.acquireBlock(file, pageIndex);
+            pagePins.add(block);
+            pageBlocks.extendAndSet(pageIndex, block);
+        }
+        return block.getAddress();
+    }
+
+    @Override
+    public int getPageCount() {
+        return (int) blockCount;
+    }
+
+    @Override
+    public long getPageSize() {
+        return blockSize;
+    }
+
+    @Override
+    public short getShort(long offset) {
+        return Unsafe.getUnsafe().getShort(contiguous(offset, Short.BYTES, SCRATCH_VALUE));
+    }
+
+    @Override
+    public CharSequence getStr(long offset) {
+        return getStr(offset, csviewA, SCRATCH_STR_A);
+    }
+
+    @Override
+    public CharSequence getStr(long offset, CharSequenceView view) {
+        return getStr(offset);
+    }
+
+    @Override
+    public CharSequence getStr2(long offset) {
+        return getStr(offset, csviewB, SCRATCH_STR_B);
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long extendSegmentSize, long size, int memoryTag) {
+        final ColumnBlockCache.File file = cache.acquireFile(ff, name, memoryTag);
+        close();
+        this.ff = ff;
+        this.file = file;
+        this.fd = file.getFd();
+        this.blockSize = file.getBlockSize();
+        this.blockCount = file.getBlockCount();
+        try {
+            extend(size);
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long offsetInPage(long offset) {
+        return offset % blockSize;
+    }
+
+    @Override
+    public int pageIndex(long offset) {
+        return (int) (offset / blockSize);
+    }
+
+    private long blockAddress(long blockIndex) {
+        final ColumnBlockCache.Block last = lastBlock;
+        if (last != null && last.getIndex() == blockIndex) {
+            return last.getAddress();
+        }
+        for (int i = 0; i < RECENT_BLOCK_COUNT; i++) {
+            final ColumnBlockCache.Block block = recentBlocks[i];
+            if (block != null && block.getIndex() == blockIndex) {
+                lastBlock = block;
+                return block.getAddress();
+            }
+        }
+        final ColumnBlockCache.Block block = cache.acquireBlock(file, (int) blockIndex);
+        final ColumnBlockCache.Block evicted = recentBlocks[recentBlockPos];
+        recentBlocks[recentBlockPos] = block;
+        recentBlockPos = (recentBlockPos + 1) % RECENT_BLOCK_COUNT;
+        lastBlock = block;
+        if (evicted != null) {
+            cache.release(evicted);
+        }
+        return block.getAddress();
+    }
+
+    // address of len bytes at the offset, bytes are copied when they span blocks
+    private long contiguous(long offset, long len, int scratchIndex) {
+        if (len == 0) {
+            return 0;
+        }
+        final long block = offset / blockSize;
+        final long lo = offset - block * blockSize;
+        if (lo + len <= blockSize) {
+            return blockAddress(block) + lo;
+        }
+        if (scratchSizes[scratchIndex] < len) {
+            scratchAddresses[scratchIndex] = Unsafe.realloc(scratchAddresses[scratchIndex], scratchSizes[scratchIndex], len, MemoryTag.NATIVE_TABLE_READER);
+            scratchSizes[scratchIndex] = len;
+        }
+        copyTo(offset, len, scratchAddresses[scratchIndex]);
+        return scratchAddresses[scratchIndex];
+    }
+
+    private CharSequence getStr(long offset, DirectCharSequence view, int scratchIndex) {
+        final int len = getInt(offset);
+        if (len != TableUtils.NULL_LEN) {
+            if (len + 4 + offset <= size) {
+                final long lo = contiguous(offset + Vm.STRING_LENGTH_BYTES, len * 2L, scratchIndex);
+                return view.of(lo, lo + len * 2L);
+            }
+            throw CairoException.instance(0).put("String is outside of file boundary [offset=").put(offset).put(", len=").put(len).put(", size=").put(size).put(']');
+        }
+        return null;
+    }
+
+    private void releaseBlocks() {
+        for (int i = 0; i < RECENT_BLOCK_COUNT; i++) {
+            if (recentBlocks[i] != null) {
+                cache.release(recentBlocks[i]);
+                recentBlocks[i] = null;
+            }
+        }
+        lastBlock = null;
+        recentBlockPos = 0;
+        // page blocks are released by the reader
+        pageBlocks.clear();
+    }
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+import java.io.Closeable;
+
+/**
+ * Copies committed WAL transactions into their tables. Transactions of a table are applied
+ * in sequencer order, segment columns are copied as blocks and committed to the table in
+ * batches of up to {@link CairoConfiguration#getWalApplyBatchRowCount()} rows. Out-of-order
+ * rows are merged by the table writer as usual. Tables, writers of which are busy, are retried
+ * on the next run.
+ */
+public class WalApplyJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalApplyJob.class);
+    private final CairoEngine engine;
+    private final CharSequence root;
+    private final ObjList<WalSequencer> sequencers = new ObjList<>();
+    private final LongList txn = new LongList();
+    private final IntList columnIndexes = new IntList();
+    private final WalSegmentReader segmentReader;
+
+    public WalApplyJob(CairoEngine engine) {
+        this.engine = engine;
+        this.root = engine.getConfiguration().getRoot();
+        this.segmentReader = new WalSegmentReader(engine.getConfiguration());
+    }
+
+    @Override
+    public void close() {
+        Misc.free(segmentReader);
+    }
+
+    /**
+     * Applies pending transactions of the table, up to the batch row count per call.
+     *
+     * @return true when transactions were applied
+     */
+    public boolean applyPending(WalSequencer sequencer) {
+        final long txnCount = sequencer.getTxnCount();
+        if (sequencer.getAppliedTxnCount() >= txnCount) {
+            // segments of closed writers may be waiting for removal
+            sequencer.purgeAppliedSegments();
+            return false;
+        }
+        final String tableName = sequencer.getTableName();
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, tableName, "walApply");
+        } catch (EntryUnavailableException e) {
+            LOG.debug().$("table is busy, WAL is not applied [table=").$(tableName).$(']').$();
+            return false;
+        }
+        long appliedTxnCount = -1;
+        try {
+            appliedTxnCount = sequencer.recoverAppliedTxnCount(writer.getTxn());
+            final long batchRowCount = engine.getConfiguration().getWalApplyBatchRowCount();
+            long rowCount = 0;
+            long batchTxnCount = appliedTxnCount;
+            while (batchTxnCount < txnCount && rowCount < batchRowCount) {
+                sequencer.readTxn(batchTxnCount, txn);
+                segmentReader.of(root, tableName, txn.getQuick(0), txn.getQuick(1));
+                mapColumns(writer.getMetadata());
+                final long rowLo = txn.getQuick(2);
+                final long rowHi = txn.getQuick(3);
+                writer.appendWalBlock(segmentReader.getColumns(), columnIndexes, rowLo, rowHi);
+                rowCount += rowHi - rowLo;
+                batchTxnCount++;
+            }
+            if (batchTxnCount > appliedTxnCount) {
+                // commit and applied count cannot be updated atomically, marker tells which one is behind after a crash
+                sequencer.beginApply(batchTxnCount, writer.getTxn());
+                writer.commit();
+                sequencer.setAppliedTxnCount(batchTxnCount);
+            }
+            sequencer.purgeAppliedSegments();
+            LOG.info().$("applied WAL [table=").$(tableName)
+                    .$(", txnCount=").$(batchTxnCount)
+                    .$(", pending=").$(txnCount - batchTxnCount)
+                    .$(", rows=").$(rowCount)
+                    .$(']').$();
+            return true;
+        } catch (Throwable e) {
+            writer.rollback();
+            LOG.error().$("could not apply WAL [table=").$(tableName).$(", txn=").$(appliedTxnCount).$(']').$(e).$();
+            return false;
+        } finally {
+            segmentReader.clear();
+            writer.close();
+        }
+    }
+
+    @Override
+    protected boolean runSerially() {
+        engine.copyWalSequencers(sequencers);
+        boolean useful = false;
+        for (int i = 0, n = sequencers.size(); i < n; i++) {
+            try {
+                useful |= applyPending(sequencers.getQuick(i));
+            } catch (CairoException e) {
+                // sequencer was closed concurrently
+                LOG.info().$("WAL is not applied [table=").$(sequencers.getQuick(i).getTableName()).$(", msg=").$(e.getFlyweightMessage()).$(']').$();
+            }
+        }
+        sequencers.clear();
+        return useful;
+    }
+
+    // maps segment columns to table columns by name, columns dropped or retyped since are skipped
+    private void mapColumns(TableWriterMetadata metadata) {
+        columnIndexes.clear();
+        for (int i = 0, n = segmentReader.getColumnCount(); i < n; i++) {
+            final int index = metadata.getColumnIndexQuiet(segmentReader.getColumnName(i));
+            if (index > -1 && metadata.getColumnType(index) == segmentReader.getColumnType(i)) {
+                columnIndexes.add(index);
+            } else {
+                columnIndexes.add(-1);
+            }
+        }
+    }
+}
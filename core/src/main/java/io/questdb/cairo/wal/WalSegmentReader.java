@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryMR;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Read-only view of a WAL segment, column files are mapped to their current length.
+ */
+class WalSegmentReader implements Closeable {
+    private final FilesFacade ff;
+    private final MemoryMR metaMem = Vm.getMRInstance();
+    private final ObjList<MemoryMR> columns = new ObjList<>();
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final Path path = new Path();
+    private int columnCount;
+    private int timestampIndex;
+
+    WalSegmentReader(CairoConfiguration configuration) {
+        this.ff = configuration.getFilesFacade();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(path);
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    ObjList<MemoryMR> getColumns() {
+        return columns;
+    }
+
+    CharSequence getColumnName(int columnIndex) {
+        return columnNames.getQuick(columnIndex);
+    }
+
+    int getColumnType(int columnIndex) {
+        return columnTypes.getQuick(columnIndex);
+    }
+
+    MemoryMR getPrimaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2);
+    }
+
+    MemoryMR getSecondaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2 + 1);
+    }
+
+    int getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    void of(CharSequence root, CharSequence tableName, long walId, long segmentId) {
+        clear();
+        WalWriter.segmentPath(path.of(root).concat(tableName), walId, segmentId);
+        final int segmentDirLen = path.length();
+        metaMem.smallFile(ff, path.concat(WalWriter.META_FILE_NAME).$(), MemoryTag.MMAP_TABLE_READER);
+        columnCount = metaMem.getInt(0);
+        timestampIndex = metaMem.getInt(Integer.BYTES);
+        long offset = 2 * Integer.BYTES;
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metaMem.getInt(offset);
+            final CharSequence name = metaMem.getStr(offset + Integer.BYTES);
+            offset += Integer.BYTES + Vm.getStorageLength(name);
+            columnTypes.add(type);
+            columnNames.add(Chars.toString(name));
+            openColumn(i * 2, TableUtils.dFile(path.trimTo(segmentDirLen), name));
+            if (WalWriter.isVariableLength(type)) {
+                openColumn(i * 2 + 1, TableUtils.iFile(path.trimTo(segmentDirLen), name));
+            }
+        }
+        metaMem.close();
+    }
+
+    void clear() {
+        metaMem.close();
+        // memory instances are kept for the next segment
+        Misc.freeObjListAndKeepObjects(columns);
+        columnNames.clear();
+        columnTypes.clear();
+        columnCount = 0;
+    }
+
+    private void openColumn(int index, LPSZ name) {
+        MemoryMR mem = columns.getQuiet(index);
+        if (mem == null) {
+            mem = Vm.getMRInstance();
+            columns.extendAndSet(index, mem);
+        }
+        mem.of(ff, name, ff.getMapPageSize(), ff.length(name), MemoryTag.MMAP_TABLE_READER);
+    }
+}
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.CommitMode;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Orders commits of all WAL writers of a table. Each commit becomes a transaction in
+ * "[table]/wal/_txnlog", transaction refers to rows of a segment of one WAL writer.
+ * Transactions are applied to the table in the order of this log.
+ * <p>
+ * Log layout is a header of {@link #HEADER_SIZE} bytes followed by entries of
+ * {@link #ENTRY_SIZE} bytes: WAL id, segment id, first row and last row + 1.
+ * <p>
+ * Closed segments, which wait for their transactions to be applied before they are removed,
+ * are listed in "[table]/wal/_segments" so that they are purged after restart too.
+ */
+public class WalSequencer implements Closeable {
+    public static final String WAL_DIR_NAME = "wal";
+    public static final String TXN_LOG_FILE_NAME = "_txnlog";
+    public static final String SEGMENTS_FILE_NAME = "_segments";
+    static final long TXN_COUNT_OFFSET = 0;
+    static final long APPLIED_TXN_COUNT_OFFSET = 8;
+    static final long WAL_ID_OFFSET = 16;
+    // transaction count and table transaction of the batch being applied, see beginApply()
+    static final long APPLYING_TXN_COUNT_OFFSET = 24;
+    static final long APPLYING_TABLE_TXN_OFFSET = 32;
+    static final long HEADER_SIZE = 48;
+    static final long ENTRY_SIZE = 32;
+    private static final Log LOG = LogFactory.getLog(WalSequencer.class);
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final String tableName;
+    private final MemoryCMARW txnLog = Vm.getCMARWInstance();
+    private final MemoryCMARW segmentsMem = Vm.getCMARWInstance();
+    private final Path path = new Path();
+    private final int tableDirLen;
+    // WAL id, segment id, number of transactions when segment was closed and 1 when
+    // segment was the last one of its WAL writer
+    private final LongList closedSegments = new LongList();
+    private int writerCount;
+    private boolean closed;
+
+    public WalSequencer(CairoConfiguration configuration, String tableName) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.tableName = tableName;
+        try {
+            path.of(configuration.getRoot()).concat(tableName);
+            tableDirLen = path.length();
+            path.concat(WAL_DIR_NAME).slash$();
+            if (!ff.exists(path) && ff.mkdirs(path, configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create WAL directory [path=").put(path).put(']');
+            }
+            path.trimTo(tableDirLen).concat(WAL_DIR_NAME).concat(TXN_LOG_FILE_NAME).$();
+            final boolean exists = ff.exists(path);
+            txnLog.of(ff, path, ff.getPageSize(), exists ? ff.length(path) : -1, MemoryTag.MMAP_DEFAULT);
+            if (!exists || txnLog.size() < HEADER_SIZE) {
+                txnLog.jumpTo(0);
+                for (long offset = 0; offset < HEADER_SIZE; offset += Long.BYTES) {
+                    txnLog.putLong(0);
+                }
+            }
+            txnLog.jumpTo(HEADER_SIZE + getTxnCount() * ENTRY_SIZE);
+            openSegments();
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        txnLog.close(false);
+        segmentsMem.close(false);
+        Misc.free(path);
+    }
+
+    public synchronized long getAppliedTxnCount() {
+        checkOpen();
+        return txnLog.getLong(APPLIED_TXN_COUNT_OFFSET);
+    }
+
+    /**
+     * Transaction count of the batch, commit of which to the table was started
+     * but not confirmed by {@link #setAppliedTxnCount(long)}.
+     */
+    public synchronized long getApplyingTxnCount() {
+        checkOpen();
+        return txnLog.getLong(APPLYING_TXN_COUNT_OFFSET);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public synchronized long getTxnCount() {
+        checkOpen();
+        return txnLog.getLong(TXN_COUNT_OFFSET);
+    }
+
+    /**
+     * @return true when sequencer can be closed without losing track of transactions or segments
+     */
+    public synchronized boolean isIdle() {
+        return closed || (writerCount == 0 && getAppliedTxnCount() == getTxnCount() && closedSegments.size() == 0);
+    }
+
+    /**
+     * @return id for a new WAL writer, ids are never reused
+     */
+    public synchronized long nextWalId() {
+        checkOpen();
+        final long walId = txnLog.getLong(WAL_ID_OFFSET) + 1;
+        txnLog.putLong(WAL_ID_OFFSET, walId);
+        return walId;
+    }
+
+    /**
+     * Removes directories of closed segments, all transactions of which are applied to the table.
+     */
+    synchronized void purgeAppliedSegments() {
+        checkOpen();
+        final long appliedTxnCount = getAppliedTxnCount();
+        boolean removed = false;
+        for (int i = closedSegments.size() - 4; i > -1; i -= 4) {
+            if (closedSegments.getQuick(i + 2) <= appliedTxnCount) {
+                final long walId = closedSegments.getQuick(i);
+                final long segmentId = closedSegments.getQuick(i + 1);
+                // when writer is gone its directory is removed together with the segment
+                WalWriter.walPath(path.trimTo(tableDirLen), walId);
+                if (closedSegments.getQuick(i + 3) == 0) {
+                    path.slash().put(segmentId);
+                }
+                // directory is gone when segment was purged before restart, but the list was not updated
+                if (ff.exists(path.$()) && ff.rmdir(path) != 0) {
+                    LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                }
+                closedSegments.removeIndexBlock(i, 4);
+                removed = true;
+            }
+        }
+        if (removed) {
+            segmentsMem.jumpTo(Long.BYTES);
+            for (int i = 0, n = closedSegments.size(); i < n; i++) {
+                segmentsMem.putLong(closedSegments.getQuick(i));
+            }
+            segmentsMem.putLong(0, closedSegments.size() / 4);
+            sync(segmentsMem);
+        }
+    }
+
+    public synchronized void writerClosed() {
+        writerCount--;
+    }
+
+    /**
+     * Registers new writer of this sequencer.
+     *
+     * @return false when sequencer is already closed and cannot be used
+     */
+    public synchronized boolean writerOpened() {
+        if (closed) {
+            return false;
+        }
+        writerCount++;
+        return true;
+    }
+
+    /**
+     * Records batch of transactions, which is about to be committed to the table. When commit is
+     * not confirmed by {@link #setAppliedTxnCount(long)}, e.g. after a crash, the batch is known to be
+     * applied once table transaction is past the recorded one, see {@link #recoverAppliedTxnCount(long)}.
+     *
+     * @param txnCount transaction count once batch is applied
+     * @param tableTxn table transaction before the batch is committed
+     */
+    synchronized void beginApply(long txnCount, long tableTxn) {
+        checkOpen();
+        txnLog.putLong(APPLYING_TABLE_TXN_OFFSET, tableTxn);
+        txnLog.putLong(APPLYING_TXN_COUNT_OFFSET, txnCount);
+        sync(txnLog);
+    }
+
+    synchronized void readTxn(long txn, LongList sink) {
+        checkOpen();
+        final long offset = HEADER_SIZE + txn * ENTRY_SIZE;
+        sink.clear();
+        sink.add(txnLog.getLong(offset));
+        sink.add(txnLog.getLong(offset + 8));
+        sink.add(txnLog.getLong(offset + 16));
+        sink.add(txnLog.getLong(offset + 24));
+    }
+
+    /**
+     * Resolves batch left in flight by a failed apply. Must be called while table writer is held.
+     *
+     * @param tableTxn current table transaction
+     * @return applied transaction count
+     */
+    synchronized long recoverAppliedTxnCount(long tableTxn) {
+        checkOpen();
+        final long appliedTxnCount = getAppliedTxnCount();
+        final long applyingTxnCount = getApplyingTxnCount();
+        if (applyingTxnCount > appliedTxnCount) {
+            if (tableTxn > txnLog.getLong(APPLYING_TABLE_TXN_OFFSET)) {
+                LOG.info().$("recovered applied WAL batch [table=").$(tableName).$(", txnCount=").$(applyingTxnCount).$(']').$();
+                setAppliedTxnCount(applyingTxnCount);
+                return applyingTxnCount;
+            }
+            // batch was not committed, it is applied again
+            setAppliedTxnCount(appliedTxnCount);
+        }
+        return appliedTxnCount;
+    }
+
+    synchronized void segmentClosed(long walId, long segmentId, boolean lastSegment) {
+        checkOpen();
+        final long txnCount = getTxnCount();
+        closedSegments.add(walId);
+        closedSegments.add(segmentId);
+        closedSegments.add(txnCount);
+        closedSegments.add(lastSegment ? 1 : 0);
+        segmentsMem.putLong(walId);
+        segmentsMem.putLong(segmentId);
+        segmentsMem.putLong(txnCount);
+        segmentsMem.putLong(lastSegment ? 1 : 0);
+        segmentsMem.putLong(0, closedSegments.size() / 4);
+        sync(segmentsMem);
+    }
+
+    synchronized void setAppliedTxnCount(long txnCount) {
+        checkOpen();
+        txnLog.putLong(APPLIED_TXN_COUNT_OFFSET, txnCount);
+        txnLog.putLong(APPLYING_TXN_COUNT_OFFSET, txnCount);
+        sync(txnLog);
+    }
+
+    /**
+     * Publishes committed rows of a WAL segment as the next transaction.
+     *
+     * @return transaction number
+     */
+    synchronized long commit(long walId, long segmentId, long rowLo, long rowHi) {
+        checkOpen();
+        final long txn = getTxnCount();
+        txnLog.putLong(walId);
+        txnLog.putLong(segmentId);
+        txnLog.putLong(rowLo);
+        txnLog.putLong(rowHi);
+        txnLog.putLong(TXN_COUNT_OFFSET, txn + 1);
+        sync(txnLog);
+        return txn;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw CairoException.instance(0).put("WAL sequencer is closed [table=").put(tableName).put(']');
+        }
+    }
+
+    private void openSegments() {
+        path.trimTo(tableDirLen).concat(WAL_DIR_NAME).concat(SEGMENTS_FILE_NAME).$();
+        final boolean exists = ff.exists(path);
+        segmentsMem.of(ff, path, ff.getPageSize(), exists ? ff.length(path) : -1, MemoryTag.MMAP_DEFAULT);
+        if (!exists || segmentsMem.size() < Long.BYTES) {
+            segmentsMem.jumpTo(0);
+            segmentsMem.putLong(0);
+        }
+        final long segmentCount = segmentsMem.getLong(0);
+        for (long i = 0; i < segmentCount; i++) {
+            final long offset = Long.BYTES + i * 4 * Long.BYTES;
+            closedSegments.add(segmentsMem.getLong(offset));
+            closedSegments.add(segmentsMem.getLong(offset + 8));
+            closedSegments.add(segmentsMem.getLong(offset + 16));
+            closedSegments.add(segmentsMem.getLong(offset + 24));
+        }
+        segmentsMem.jumpTo(Long.BYTES + segmentCount * 4 * Long.BYTES);
+    }
+
+    private void sync(MemoryCMARW mem) {
+        if (configuration.getCommitMode() != CommitMode.NOSYNC) {
+            mem.sync(configuration.getCommitMode() == CommitMode.ASYNC);
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCMARW;
+import io.questdb.cairo.vm.api.MemoryMA;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Appends rows of a table to a private write-ahead log instead of the table itself, so
+ * that any number of WAL writers can be used concurrently. Committed rows are published to
+ * the table's {@link WalSequencer} and copied into the table by {@link WalApplyJob}.
+ * <p>
+ * Rows are written to "[table]/wal/wal[id]/[segment]" directories. Segment contains a column
+ * file per table column and "_meta" file with column names and types as they were when
+ * writer was created. Symbols are stored as strings. WAL writer is not thread safe,
+ * each writing thread must use its own instance.
+ */
+public class WalWriter implements TableWriterAPI {
+    public static final String META_FILE_NAME = "_meta";
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final WalSequencer sequencer;
+    private final long walId;
+    private final int columnCount;
+    private final int timestampIndex;
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    // primary and secondary memory per column, secondary is only used by variable length columns
+    private final ObjList<MemoryCMARW> columns = new ObjList<>();
+    private final LongList refs = new LongList();
+    private final long segmentRolloverRowCount;
+    private final Path path = new Path();
+    private final int tableDirLen;
+    private final Row row = new Row();
+    private final GenericRecordMetadata metadata;
+    private final long structureVersion;
+    private long committedTxn = -1;
+    private long segmentId = -1;
+    private long rowCount;
+    private long committedRowCount;
+    private boolean open;
+
+    public WalWriter(CairoConfiguration configuration, WalSequencer sequencer, RecordMetadata metadata, long structureVersion) {
+        this.configuration = configuration;
+        this.metadata = GenericRecordMetadata.copyOf(metadata);
+        this.structureVersion = structureVersion;
+        this.ff = configuration.getFilesFacade();
+        this.sequencer = sequencer;
+        this.columnCount = metadata.getColumnCount();
+        this.timestampIndex = metadata.getTimestampIndex();
+        this.segmentRolloverRowCount = configuration.getWalSegmentRolloverRowCount();
+        for (int i = 0; i < columnCount; i++) {
+            columnNames.add(Chars.toString(metadata.getColumnName(i)));
+            columnTypes.add(metadata.getColumnType(i));
+            columns.add(Vm.getCMARWInstance());
+            columns.add(isVariableLength(metadata.getColumnType(i)) ? Vm.getCMARWInstance() : null);
+            refs.add(-1);
+        }
+        try {
+            this.walId = sequencer.nextWalId();
+            path.of(configuration.getRoot()).concat(sequencer.getTableName());
+            tableDirLen = path.length();
+            openNewSegment();
+            open = true;
+        } catch (Throwable e) {
+            freeColumns();
+            Misc.free(path);
+            throw e;
+        }
+    }
+
+    static boolean isVariableLength(int columnType) {
+        return ColumnType.isVariableLength(columnType) || ColumnType.isSymbol(columnType);
+    }
+
+    static Path segmentPath(Path tablePath, long walId, long segmentId) {
+        return walPath(tablePath, walId).slash().put(segmentId);
+    }
+
+    static Path walPath(Path tablePath, long walId) {
+        return tablePath.concat(WalSequencer.WAL_DIR_NAME).concat(WalSequencer.WAL_DIR_NAME).put(walId);
+    }
+
+    /**
+     * Columns cannot be added through WAL writer, they are added by table writer, after which
+     * new WAL writer is created.
+     */
+    @Override
+    public void addColumn(CharSequence name, int type) {
+        throw CairoException.instance(0).put("cannot add column to WAL [table=").put(getTableName()).put(", column=").put(name).put(']');
+    }
+
+    /**
+     * Commits once default maximum of uncommitted rows is reached, WAL has no commit lag.
+     */
+    @Override
+    public boolean checkMaxAndCommitLag(int commitMode) {
+        if (getUncommittedRowCount() < configuration.getMaxUncommittedRows()) {
+            return false;
+        }
+        commit();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            try {
+                rollback();
+                sequencer.segmentClosed(walId, segmentId, true);
+            } finally {
+                freeColumns();
+                Misc.free(path);
+                sequencer.writerClosed();
+            }
+        }
+    }
+
+    /**
+     * Publishes rows appended since last commit as a single transaction of the table,
+     * see {@link #getCommittedTxn()}.
+     */
+    @Override
+    public void commit() {
+        if (rowCount == committedRowCount) {
+            return;
+        }
+        if (configuration.getCommitMode() != CommitMode.NOSYNC) {
+            final boolean async = configuration.getCommitMode() == CommitMode.ASYNC;
+            for (int i = 0, n = columns.size(); i < n; i++) {
+                final MemoryCMARW mem = columns.getQuick(i);
+                if (mem != null) {
+                    mem.sync(async);
+                }
+            }
+        }
+        committedTxn = sequencer.commit(walId, segmentId, committedRowCount, rowCount);
+        committedRowCount = rowCount;
+        if (rowCount >= segmentRolloverRowCount) {
+            sequencer.segmentClosed(walId, segmentId, false);
+            openNewSegment();
+        }
+    }
+
+    /**
+     * Rows are not held back, they are ordered when applied to the table.
+     */
+    @Override
+    public void commitWithLag(long commitLag) {
+        commit();
+    }
+
+    /**
+     * @return transaction number of the last commit or -1 when nothing was committed yet
+     */
+    public long getCommittedTxn() {
+        return committedTxn;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    @Override
+    public String getTableName() {
+        return sequencer.getTableName();
+    }
+
+    /**
+     * @return number of rows appended since last commit
+     */
+    public long getUncommittedRowCount() {
+        return rowCount - committedRowCount;
+    }
+
+    public long getWalId() {
+        return walId;
+    }
+
+    @Override
+    public Row newRow() {
+        return newRow(0L);
+    }
+
+    @Override
+    public Row newRow(long timestamp) {
+        if (timestampIndex != -1) {
+            if (timestamp == Numbers.LONG_NaN) {
+                throw CairoException.instance(0).put("timestamp before 1970-01-01 is not allowed");
+            }
+            row.putTimestamp(timestampIndex, timestamp);
+        }
+        return row;
+    }
+
+    /**
+     * Discards rows appended since last commit.
+     */
+    @Override
+    public void rollback() {
+        setRowCount(committedRowCount);
+    }
+
+    private void freeColumns() {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final MemoryCMARW mem = columns.getQuick(i);
+            if (mem != null) {
+                mem.close(true);
+            }
+        }
+    }
+
+    private MemoryCMARW getPrimaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2);
+    }
+
+    private MemoryCMARW getSecondaryColumn(int columnIndex) {
+        return columns.getQuick(columnIndex * 2 + 1);
+    }
+
+    private void openNewSegment() {
+        freeColumns();
+        segmentId++;
+        rowCount = 0;
+        committedRowCount = 0;
+        refs.setAll(columnCount, -1);
+        segmentPath(path.trimTo(tableDirLen), walId, segmentId);
+        final int segmentDirLen = path.length();
+        try {
+            if (ff.mkdirs(path.slash$(), configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create WAL segment directory [path=").put(path).put(']');
+            }
+            final long pageSize = ff.getPageSize();
+            for (int i = 0; i < columnCount; i++) {
+                final CharSequence name = columnNames.getQuick(i);
+                getPrimaryColumn(i).of(ff, TableUtils.dFile(path.trimTo(segmentDirLen), name), pageSize, -1, MemoryTag.MMAP_TABLE_WRITER);
+                final MemoryCMARW secondary = getSecondaryColumn(i);
+                if (secondary != null) {
+                    secondary.of(ff, TableUtils.iFile(path.trimTo(segmentDirLen), name), pageSize, -1, MemoryTag.MMAP_TABLE_WRITER);
+                    secondary.putLong(0);
+                }
+            }
+            writeMeta(path.trimTo(segmentDirLen));
+        } finally {
+            path.trimTo(tableDirLen);
+        }
+        LOG.info().$("opened WAL segment [table=").$(sequencer.getTableName()).$(", wal=").$(walId).$(", segment=").$(segmentId).$(']').$();
+    }
+
+    private void setRowCount(long count) {
+        for (int i = 0; i < columnCount; i++) {
+            final MemoryCMARW primary = getPrimaryColumn(i);
+            final MemoryCMARW secondary = getSecondaryColumn(i);
+            if (secondary != null) {
+                if (secondary.getAppendOffset() > (count + 1) * Long.BYTES) {
+                    primary.jumpTo(secondary.getLong(count * Long.BYTES));
+                    secondary.jumpTo((count + 1) * Long.BYTES);
+                }
+            } else {
+                primary.jumpTo(count << ColumnType.pow2SizeOf(columnTypes.getQuick(i)));
+            }
+            if (refs.getQuick(i) >= count) {
+                refs.setQuick(i, -1);
+            }
+        }
+        rowCount = count;
+    }
+
+    private void writeMeta(Path segmentPath) {
+        final MemoryMA metaMem = Vm.getMAInstance();
+        try {
+            metaMem.of(ff, segmentPath.concat(META_FILE_NAME).$(), ff.getPageSize(), MemoryTag.MMAP_TABLE_WRITER);
+            metaMem.putInt(columnCount);
+            metaMem.putInt(timestampIndex);
+            for (int i = 0; i < columnCount; i++) {
+                metaMem.putInt(columnTypes.getQuick(i));
+                metaMem.putStr(columnNames.getQuick(i));
+            }
+        } finally {
+            metaMem.close(true);
+        }
+    }
+
+    public class Row implements TableWriter.Row {
+
+        @Override
+        public void append() {
+            for (int i = 0; i < columnCount; i++) {
+                if (refs.getQuick(i) != rowCount) {
+                    putNull(i);
+                }
+            }
+            rowCount++;
+        }
+
+        @Override
+        public void cancel() {
+            setRowCount(rowCount);
+        }
+
+        @Override
+        public void putBin(int index, long address, long len) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(address, len));
+            notNull(index);
+        }
+
+        @Override
+        public void putBin(int index, BinarySequence sequence) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(sequence));
+            notNull(index);
+        }
+
+        @Override
+        public void putBool(int index, boolean value) {
+            getPrimaryColumn(index).putBool(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putByte(int index, byte value) {
+            getPrimaryColumn(index).putByte(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putChar(int index, char value) {
+            getPrimaryColumn(index).putChar(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putDate(int index, long value) {
+            putLong(index, value);
+        }
+
+        @Override
+        public void putDouble(int index, double value) {
+            getPrimaryColumn(index).putDouble(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putFloat(int index, float value) {
+            getPrimaryColumn(index).putFloat(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putGeoHash(int index, long value) {
+            final MemoryCMARW primaryColumn = getPrimaryColumn(index);
+            switch (ColumnType.tagOf(columnTypes.getQuick(index))) {
+                case ColumnType.GEOBYTE:
+                    primaryColumn.putByte((byte) value);
+                    break;
+                case ColumnType.GEOSHORT:
+                    primaryColumn.putShort((short) value);
+                    break;
+                case ColumnType.GEOINT:
+                    primaryColumn.putInt((int) value);
+                    break;
+                default:
+                    primaryColumn.putLong(value);
+                    break;
+            }
+            notNull(index);
+        }
+
+        @Override
+        public void putGeoHashDeg(int index, double lat, double lon) {
+            putGeoHash(index, GeoHashes.fromCoordinatesDegUnsafe(lat, lon, ColumnType.getGeoHashBits(columnTypes.getQuick(index))));
+        }
+
+        @Override
+        public void putGeoStr(int index, CharSequence hash) {
+            putGeoHash(index, GeoHashes.fromStringTruncatingOrNull(hash, ColumnType.getGeoHashBits(columnTypes.getQuick(index))));
+        }
+
+        @Override
+        public void putInt(int index, int value) {
+            getPrimaryColumn(index).putInt(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong(int index, long value) {
+            getPrimaryColumn(index).putLong(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, long l0, long l1, long l2, long l3) {
+            getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, Long256 value) {
+            getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, CharSequence hexString) {
+            getPrimaryColumn(index).putLong256(hexString);
+            notNull(index);
+        }
+
+        @Override
+        public void putLong256(int index, @NotNull CharSequence hexString, int start, int end) {
+            getPrimaryColumn(index).putLong256(hexString, start, end);
+            notNull(index);
+        }
+
+        @Override
+        public void putShort(int index, short value) {
+            getPrimaryColumn(index).putShort(value);
+            notNull(index);
+        }
+
+        @Override
+        public void putStr(int index, CharSequence value) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            notNull(index);
+        }
+
+        @Override
+        public void putStr(int index, char value) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            notNull(index);
+        }
+
+        @Override
+        public void putStr(int index, CharSequence value, int pos, int len) {
+            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
+            notNull(index);
+        }
+
+        @Override
+        public void putSym(int index, CharSequence value) {
+            putStr(index, value);
+        }
+
+        @Override
+        public void putSym(int index, char value) {
+            putStr(index, value);
+        }
+
+        @Override
+        public void putSymIndex(int index, int symIndex) {
+            throw CairoException.instance(0).put("symbol keys are not supported by WAL [table=").put(getTableName()).put(", column=").put(columnNames.getQuick(index)).put(']');
+        }
+
+        @Override
+        public void putTimestamp(int index, long value) {
+            putLong(index, value);
+        }
+
+        @Override
+        public void putTimestamp(int index, CharSequence value) {
+            final long timestamp;
+            try {
+                timestamp = value != null ? IntervalUtils.parseFloorPartialDate(value) : Numbers.LONG_NaN;
+            } catch (NumericException e) {
+                throw CairoException.instance(0).put("Invalid timestamp: ").put(value);
+            }
+            putTimestamp(index, timestamp);
+        }
+
+        private void notNull(int index) {
+            refs.setQuick(index, rowCount);
+        }
+
+        private void putNull(int index) {
+            final MemoryCMARW primary = getPrimaryColumn(index);
+            switch (ColumnType.tagOf(columnTypes.getQuick(index))) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                    primary.putByte((byte) 0);
+                    break;
+                case ColumnType.SHORT:
+                    primary.putShort((short) 0);
+                    break;
+                case ColumnType.CHAR:
+                    primary.putChar((char) 0);
+                    break;
+                case ColumnType.INT:
+                    primary.putInt(Numbers.INT_NaN);
+                    break;
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                    primary.putLong(Numbers.LONG_NaN);
+                    break;
+                case ColumnType.FLOAT:
+                    primary.putFloat(Float.NaN);
+                    break;
+                case ColumnType.DOUBLE:
+                    primary.putDouble(Double.NaN);
+                    break;
+                case ColumnType.LONG256:
+                    primary.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN);
+                    break;
+                case ColumnType.STRING:
+                case ColumnType.SYMBOL:
+                    getSecondaryColumn(index).putLong(primary.putNullStr());
+                    break;
+                case ColumnType.BINARY:
+                    getSecondaryColumn(index).putLong(primary.putNullBin());
+                    break;
+                case ColumnType.GEOBYTE:
+                    primary.putByte(GeoHashes.BYTE_NULL);
+                    break;
+                case ColumnType.GEOSHORT:
+                    primary.putShort(GeoHashes.SHORT_NULL);
+                    break;
+                case ColumnType.GEOINT:
+                    primary.putInt(GeoHashes.INT_NULL);
+                    break;
+                case ColumnType.GEOLONG:
+                    primary.putLong(GeoHashes.NULL);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -32,8 +32,10 @@ import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.TableBlockWriter.TableBlockWriterJob;
 import io.questdb.cutlass.http.processors.*;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.engine.groupby.PageFrameGroupByJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
 import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
@@ -189,6 +191,8 @@ public class HttpServer implements Closeable {
         workerPool.assign(new GroupByJob(messageBus));
         workerPool.assign(new TableBlockWriterJob(messageBus));
         workerPool.assign(new LatestByAllIndexedJob(messageBus));
+        workerPool.assign(new PageFrameFilterJob(messageBus));
+        workerPool.assign(new PageFrameGroupByJob(messageBus));
     }
 
     @Nullable
@@ -580,7 +580,13 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         this.recordCursorFactory = factory;
         queryCacheable = true;
-        this.cursor = factory.getCursor(sqlExecutionContext);
+        final MemoryAccountant memoryAccountant = sqlExecutionContext.getMemoryAccountant();
+        memoryAccountant.enter();
+        try {
+            this.cursor = factory.getCursor(sqlExecutionContext);
+        } finally {
+            memoryAccountant.exit();
+        }
         final RecordMetadata metadata = factory.getMetadata();
         HttpRequestHeader header = httpConnectionContext.getRequestHeader();
         DirectByteCharSequence columnNames = header.getUrlParam("cols");
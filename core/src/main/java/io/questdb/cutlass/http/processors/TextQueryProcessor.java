@@ -43,6 +43,7 @@ import io.questdb.network.NoSpaceLeftInResponseBufferException;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.std.Chars;
+import io.questdb.std.MemoryAccountant;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
@@ -130,7 +131,13 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     do {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            final MemoryAccountant memoryAccountant = sqlExecutionContext.getMemoryAccountant();
+                            memoryAccountant.enter();
+                            try {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            } finally {
+                                memoryAccountant.exit();
+                            }
                             runQuery = false;
                         } catch (ReaderOutOfDateException e) {
                             info(state).$(e.getFlyweightMessage()).$();
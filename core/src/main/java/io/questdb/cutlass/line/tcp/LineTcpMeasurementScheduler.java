@@ -27,6 +27,7 @@ package io.questdb.cutlass.line.tcp;
 import io.questdb.Telemetry;
 import io.questdb.cairo.*;
 import io.questdb.cairo.TableWriter.Row;
+import io.questdb.cairo.codec.ColumnCodecs;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.cairo.vm.Vm;
@@ -65,6 +66,7 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final CairoEngine engine;
     private final CairoSecurityContext securityContext;
     private final CairoConfiguration cairoConfiguration;
+    private final boolean walEnabled;
     private final MillisecondClock milliClock;
     private final RingQueue<LineTcpMeasurementEvent> queue;
     private final ReadWriteLock tableUpdateDetailsLock = new SimpleReadWriteLock();
@@ -98,6 +100,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         this.cairoConfiguration = engine.getConfiguration();
         this.milliClock = cairoConfiguration.getMillisecondClock();
         this.commitMode = cairoConfiguration.getCommitMode();
+        this.walEnabled = cairoConfiguration.isWalEnabled();
 
         this.netIoJobs = new NetworkIOJob[ioWorkerPool.getWorkerCount()];
         for (int i = 0; i < ioWorkerPool.getWorkerCount(); i++) {
@@ -638,7 +641,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         void processMeasurementEvent(WriterJob job) {
             Row row = null;
             try {
-                TableWriter writer = tableUpdateDetails.getWriter();
+                TableWriterAPI writer = tableUpdateDetails.getWriter();
                 long bufPos = bufLo;
                 long timestamp = Unsafe.getUnsafe().getLong(bufPos);
                 bufPos += Long.BYTES;
@@ -676,7 +679,7 @@ class LineTcpMeasurementScheduler implements Closeable {
                             row = null;
                             int colType = DEFAULT_COLUMN_TYPES[entityType];
                             if (TableUtils.isValidInfluxColumnName(job.charSink)) {
-                                writer.addColumn(job.charSink, colType);
+                                writer = tableUpdateDetails.addColumn(job.charSink, colType);
                             } else {
                                 throw CairoException.instance(0)
                                         .put("invalid column name [table=").put(writer.getTableName())
@@ -697,8 +700,12 @@ class LineTcpMeasurementScheduler implements Closeable {
                             bufPos += Integer.BYTES;
                             long hi = bufPos + 2L * len;
                             job.floatingCharSink.asCharSequence(bufPos, hi);
-                            int symIndex = writer.getSymbolIndex(colIndex, job.floatingCharSink);
-                            row.putSymIndex(colIndex, symIndex);
+                            if (walEnabled) {
+                                // WAL keeps symbol values, keys are assigned when WAL is applied
+                                row.putSym(colIndex, job.floatingCharSink);
+                            } else {
+                                row.putSymIndex(colIndex, ((TableWriter) writer).getSymbolIndex(colIndex, job.floatingCharSink));
+                            }
                             bufPos = hi;
                             break;
                         }
@@ -939,7 +946,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         // Number of updates since the last load rebalance, this is an estimate because its incremented by
         // multiple threads without synchronisation
         private int nUpdates = 0;
-        private TableWriter writer;
+        private TableWriterAPI writer;
         private boolean assignedToJob = false;
         private long lastMeasurementMillis = Long.MAX_VALUE;
         private long lastCommitMillis;
@@ -993,18 +1000,38 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
         }
 
+        /**
+         * Adds column to the table. WAL writer cannot add columns, column is added by table writer and
+         * WAL writer is recreated with the new column.
+         *
+         * @return writer rows are appended to
+         */
+        TableWriterAPI addColumn(CharSequence columnName, int columnType) {
+            if (walEnabled) {
+                writer.commit();
+                writer = Misc.free(writer);
+                try (TableWriter tableWriter = engine.getWriter(securityContext, tableName, "ilpTcp")) {
+                    tableWriter.addColumn(columnName, columnType);
+                }
+                return getWriter();
+            }
+            writer.addColumn(columnName, columnType);
+            return writer;
+        }
+
         int getSymbolIndex(ThreadLocalDetails localDetails, int colIndex, CharSequence symValue) {
-            if (colIndex >= 0) {
+            // symbol keys of the table are of no use to WAL
+            if (colIndex >= 0 && !walEnabled) {
                 return localDetails.getSymbolIndex(colIndex, symValue);
             }
             return SymbolTable.VALUE_NOT_FOUND;
         }
 
-        TableWriter getWriter() {
+        TableWriterAPI getWriter() {
             if (null != writer) {
                 return writer;
             }
-            return writer = engine.getWriter(securityContext, tableName, "ilpTcp");
+            return writer = engine.getTableWriterAPI(securityContext, tableName, "ilpTcp");
         }
 
         void handleRowAppended() {
@@ -1039,6 +1066,10 @@ class LineTcpMeasurementScheduler implements Closeable {
                 LOG.debug().$("maintenance commit [table=").$(writer.getTableName()).I$();
                 try {
                     writer.commit();
+                    if (writer instanceof TableWriter) {
+                        // writer is held by ingestion, compressed partitions are attached here
+                        engine.getPartitionCompressionJob().attach((TableWriter) writer);
+                    }
                 } catch (Throwable e) {
                     LOG.error().$("could not commit [table=").$(writer.getTableName()).I$();
                     writer = Misc.free(writer);
@@ -1530,6 +1561,16 @@ class LineTcpMeasurementScheduler implements Closeable {
             return false;
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getColumnCodec(int columnIndex) {
+            return ColumnCodecs.NONE;
+        }
+
         @Override
         public int getPartitionBy() {
             return defaultPartitionBy;
@@ -1565,6 +1606,11 @@ class LineTcpMeasurementScheduler implements Closeable {
             return cairoConfiguration.getCommitLag();
         }
 
+        @Override
+        public long getTtl() {
+            return 0;
+        }
+
         TableStructureAdapter of(CharSequence tableName, NewLineProtoParser protoParser) {
             this.tableName = tableName;
             this.protoParser = protoParser;
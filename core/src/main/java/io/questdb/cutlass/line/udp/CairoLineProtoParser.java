@@ -25,6 +25,7 @@
 package io.questdb.cutlass.line.udp;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.codec.ColumnCodecs;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
@@ -545,6 +546,16 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             return false;
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getColumnCodec(int columnIndex) {
+            return ColumnCodecs.NONE;
+        }
+
         @Override
         public int getPartitionBy() {
             return PartitionBy.NONE;
@@ -580,6 +591,11 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             return configuration.getCommitLag();
         }
 
+        @Override
+        public long getTtl() {
+            return 0;
+        }
+
         TableStructureAdapter of(CharSequenceCache cache) {
             this.cache = cache;
             this.timestampIndex = columnNameType.size() / 2;
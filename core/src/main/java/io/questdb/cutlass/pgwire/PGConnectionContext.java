@@ -116,7 +116,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     private final WeakObjectPool<Portal> namedPortalPool;
     private final WeakAutoClosableObjectPool<TypesAndInsert> typesAndInsertPool;
     private final DateLocale locale;
-    private final CharSequenceObjHashMap<TableWriter> pendingWriters;
+    private final CharSequenceObjHashMap<TableWriterAPI> pendingWriters;
     private final DirectCharSink utf8Sink;
     private final TypeManager typeManager;
     private final AssociativeCache<TypesAndInsert> typesAndInsertCache;
@@ -324,12 +324,12 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     }
 
     @Override
-    public TableWriter getWriter(CairoSecurityContext context, CharSequence name, CharSequence lockReason) {
+    public TableWriterAPI getTableWriterAPI(CairoSecurityContext context, CharSequence name, CharSequence lockReason) {
         final int index = pendingWriters.keyIndex(name);
         if (index < 0) {
             return pendingWriters.valueAt(index);
         }
-        return engine.getWriter(context, name, lockReason);
+        return engine.getTableWriterAPI(context, name, lockReason);
     }
 
     public void handleClientOperation(
@@ -1236,7 +1236,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
     }
 
     private void executeInsert() throws SqlException {
-        final TableWriter w;
+        final TableWriterAPI w;
         try {
             switch (transactionState) {
                 case IN_TRANSACTION:
@@ -1282,7 +1282,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             case COMMIT_TRANSACTION:
                 try {
                     for (int i = 0, n = pendingWriters.size(); i < n; i++) {
-                        final TableWriter m = pendingWriters.valueQuick(i);
+                        final TableWriterAPI m = pendingWriters.valueQuick(i);
                         m.commit();
                         Misc.free(m);
                     }
@@ -1294,7 +1294,7 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             case ROLLING_BACK_TRANSACTION:
                 try {
                     for (int i = 0, n = pendingWriters.size(); i < n; i++) {
-                        final TableWriter m = pendingWriters.valueQuick(i);
+                        final TableWriterAPI m = pendingWriters.valueQuick(i);
                         m.rollback();
                         Misc.free(m);
                     }
@@ -2215,6 +2215,8 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
             boolean recompileStale = true;
             do {
                 currentFactory = typesAndSelect.getFactory();
+                final MemoryAccountant memoryAccountant = sqlExecutionContext.getMemoryAccountant();
+                memoryAccountant.enter();
                 try {
                     currentCursor = currentFactory.getCursor(sqlExecutionContext);
                     recompileStale = false;
@@ -2228,6 +2230,8 @@ public class PGConnectionContext implements IOContext, Mutable, WriterSource {
                 } catch (Throwable e) {
                     currentFactory = Misc.free(currentFactory);
                     throw e;
+                } finally {
+                    memoryAccountant.exit();
                 }
             } while (recompileStale);
         }
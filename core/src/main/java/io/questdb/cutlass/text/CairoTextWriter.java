@@ -25,6 +25,7 @@
 package io.questdb.cutlass.text;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.codec.ColumnCodecs;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
@@ -402,6 +403,16 @@ public class CairoTextWriter implements Closeable, Mutable {
             return false;
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getColumnCodec(int columnIndex) {
+            return ColumnCodecs.NONE;
+        }
+
         @Override
         public int getPartitionBy() {
             return partitionBy;
@@ -437,6 +448,11 @@ public class CairoTextWriter implements Closeable, Mutable {
             return configuration.getCommitLag();
         }
 
+        @Override
+        public long getTtl() {
+            return 0;
+        }
+
         TableStructureAdapter of(ObjList<CharSequence> names, ObjList<TypeAdapter> types) throws TextException {
             this.names = names;
             this.types = types;
@@ -33,6 +33,7 @@ import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.explain.AnalyzeRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.constants.LongConstant;
@@ -42,6 +43,7 @@ import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
 import io.questdb.griffin.engine.table.*;
@@ -82,6 +84,7 @@ public class SqlCodeGenerator implements Mutable {
     private final ListColumnFilter listColumnFilterB = new ListColumnFilter();
     private final CairoConfiguration configuration;
     private final RecordComparatorCompiler recordComparatorCompiler;
+    private final FilterCompiler filterCompiler;
     private final IntHashSet intHashSet = new IntHashSet();
     private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
@@ -101,7 +104,11 @@ public class SqlCodeGenerator implements Mutable {
     private final IntList recordFunctionPositions = new IntList();
     private final IntList groupByFunctionPositions = new IntList();
     private boolean fullFatJoins = false;
+    private boolean analyze = false;
     private final LongList prefixes = new LongList();
+    private final IntList zoneMapColumnIndexes = new IntList();
+    private final IntList zoneMapOps = new IntList();
+    private final LongList zoneMapValues = new LongList();
 
     static {
         joinsRequiringTimestamp[JOIN_INNER] = false;
@@ -121,6 +128,7 @@ public class SqlCodeGenerator implements Mutable {
         this.configuration = configuration;
         this.functionParser = functionParser;
         this.recordComparatorCompiler = new RecordComparatorCompiler(asm);
+        this.filterCompiler = new FilterCompiler(asm);
     }
 
     @Override
@@ -132,6 +140,13 @@ public class SqlCodeGenerator implements Mutable {
     public Function compileFilter(ExpressionNode expr, RecordMetadata metadata, SqlExecutionContext executionContext) throws SqlException {
         final Function filter = functionParser.parseFunction(expr, metadata, executionContext);
         if (ColumnType.isBoolean(filter.getType())) {
+            if (configuration.isSqlJitFilterEnabled() && !filter.isConstant()) {
+                final Function compiled = filterCompiler.compile(expr, metadata, functionParser, executionContext);
+                if (compiled != null) {
+                    Misc.free(filter);
+                    return compiled;
+                }
+            }
             return filter;
         }
         Misc.free(filter);
@@ -516,6 +531,18 @@ public class SqlCodeGenerator implements Mutable {
         valueTypes.add(ColumnType.LONG);
         valueTypes.add(ColumnType.LONG);
 
+        // inner hash join copies master records to disk when slave side does not fit in memory
+        RecordSink masterSink = null;
+        if (joinType == JOIN_INNER) {
+            entityColumnFilter.of(masterMetadata.getColumnCount());
+            masterSink = RecordSinkFactory.getInstance(
+                    asm,
+                    masterMetadata,
+                    entityColumnFilter,
+                    false
+            );
+        }
+
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == JOIN_INNER) {
                 return new HashJoinLightRecordCursorFactory(
@@ -527,6 +554,7 @@ public class SqlCodeGenerator implements Mutable {
                         valueTypes,
                         masterKeySink,
                         slaveKeySink,
+                        masterSink,
                         masterMetadata.getColumnCount()
                 );
             }
@@ -563,6 +591,7 @@ public class SqlCodeGenerator implements Mutable {
                     masterKeySink,
                     slaveKeySink,
                     slaveSink,
+                    masterSink,
                     masterMetadata.getColumnCount()
             );
         }
@@ -676,6 +705,19 @@ public class SqlCodeGenerator implements Mutable {
         return generateQuery(model, executionContext, true);
     }
 
+    /**
+     * Generates factory for EXPLAIN ANALYZE. Every plan node, where node is a step of
+     * query model such as select, filter, order by and limit, is wrapped to collect statistics.
+     */
+    RecordCursorFactory generateAnalyzed(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        analyze = true;
+        try {
+            return generateQuery(model, executionContext, true);
+        } finally {
+            analyze = false;
+        }
+    }
+
     private RecordCursorFactory generateFilter(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         final ExpressionNode filter = model.getWhereClause();
         return filter == null ? factory : generateFilter0(factory, model, executionContext, filter);
@@ -697,7 +739,7 @@ public class SqlCodeGenerator implements Mutable {
                 f.close();
             }
         }
-        return new FilteredRecordCursorFactory(factory, f);
+        return new FilteredRecordCursorFactory(configuration, factory, f);
     }
 
     private RecordCursorFactory generateFunctionQuery(QueryModel model) throws SqlException {
@@ -903,7 +945,7 @@ public class SqlCodeGenerator implements Mutable {
                 // check if there are post-filters
                 ExpressionNode filter = slaveModel.getPostJoinWhereClause();
                 if (filter != null) {
-                    master = new FilteredRecordCursorFactory(master, functionParser.parseFunction(filter, master.getMetadata(), executionContext));
+                    master = new FilteredRecordCursorFactory(configuration, master, functionParser.parseFunction(filter, master.getMetadata(), executionContext));
                 }
             }
 
@@ -1141,6 +1183,136 @@ public class SqlCodeGenerator implements Mutable {
         return new LimitRecordCursorFactory(factory, loFunc, hiFunc);
     }
 
+    @Nullable
+    private RecordCursorFactory generateParallelGroupBy(
+            QueryModel model,
+            RecordCursorFactory factory,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions,
+            RecordMetadata groupByMetadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final int workerCount = executionContext.getWorkerCount();
+        if (!configuration.isSqlParallelGroupByEnabled()
+                || workerCount < 2
+                || !factory.supportPageFrameCursor()
+                || !Chars.equalsLowerCaseAscii(configuration.getDefaultMapType(), "fast")) {
+            return null;
+        }
+
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (!groupByFunctions.getQuick(i).isParallelismSupported()) {
+                return null;
+            }
+        }
+
+        // keys are copied from page frames as is, function arguments are evaluated by workers
+        // and are subject to the same constraints as parallel filters
+        final RecordMetadata metadata = factory.getMetadata();
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final IntList argColumnIndexes = new IntList();
+        intHashSet.clear();
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            final ExpressionNode ast = columns.getQuick(i).getAst();
+            if (ast.type != LITERAL && !isParallelFilterSupported(ast, metadata, argColumnIndexes)) {
+                return null;
+            }
+        }
+
+        // each worker gets its own copy of group by functions, the last copy belongs to the thread that owns the cursor
+        final ObjList<ObjList<GroupByFunction>> perWorkerFunctions = new ObjList<>(workerCount + 1);
+        final ArrayColumnTypes workerValueTypes = new ArrayColumnTypes();
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                final ObjList<GroupByFunction> functions = new ObjList<>(groupByFunctions.size());
+                perWorkerFunctions.add(functions);
+                workerValueTypes.clear();
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        metadata,
+                        functionParser,
+                        executionContext,
+                        functions,
+                        groupByFunctionPositions,
+                        workerValueTypes
+                );
+            }
+        } catch (Throwable e) {
+            for (int i = 0, n = perWorkerFunctions.size(); i < n; i++) {
+                Misc.freeObjList(perWorkerFunctions.getQuick(i));
+            }
+            throw e;
+        }
+        perWorkerFunctions.add(groupByFunctions);
+
+        return new AsyncGroupByRecordCursorFactory(
+                configuration,
+                factory,
+                listColumnFilterA,
+                asm,
+                keyTypes,
+                valueTypes,
+                groupByMetadata,
+                perWorkerFunctions,
+                recordFunctions
+        );
+    }
+
+    @Nullable
+    private RecordCursorFactory generateParallelFilter(
+            RecordMetadata metadata,
+            DataFrameCursorFactory dfcFactory,
+            ExpressionNode filterExpr,
+            IntList columnIndexes,
+            boolean framingSupported,
+            IntList columnSizes,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final int workerCount = executionContext.getWorkerCount();
+        if (!configuration.isSqlParallelFilterEnabled() || workerCount < 2) {
+            return null;
+        }
+
+        intHashSet.clear();
+        final IntList filterColumnIndexes = new IntList();
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex == -1 || !isParallelFilterSupported(filterExpr, metadata, filterColumnIndexes) || filterColumnIndexes.size() == 0) {
+            return null;
+        }
+        // page frame cursor measures frames by designated timestamp column
+        if (intHashSet.add(timestampIndex)) {
+            filterColumnIndexes.add(timestampIndex);
+        }
+
+        // each worker gets its own copy of the filter, the last copy is used by the thread that owns the cursor
+        final ObjList<Function> filters = new ObjList<>(workerCount + 1);
+        try {
+            final Function filter = compileFilter(filterExpr, metadata, executionContext);
+            filters.add(filter);
+            if (filter.isConstant()) {
+                Misc.freeObjList(filters);
+                return null;
+            }
+            for (int i = 0; i < workerCount; i++) {
+                filters.add(compileFilter(filterExpr, metadata, executionContext));
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(filters);
+            throw e;
+        }
+
+        return new AsyncFilteredRecordCursorFactory(
+                configuration,
+                metadata,
+                dfcFactory,
+                filters,
+                columnIndexes,
+                filterColumnIndexes,
+                framingSupported,
+                columnSizes
+        );
+    }
+
     private RecordCursorFactory generateNoSelect(
             QueryModel model,
             SqlExecutionContext executionContext
@@ -1156,7 +1328,11 @@ public class SqlCodeGenerator implements Mutable {
         return generateSubQuery(model, executionContext);
     }
 
-    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model) throws SqlException {
+    private RecordCursorFactory generateOrderBy(
+            RecordCursorFactory recordCursorFactory,
+            QueryModel model,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
         if (recordCursorFactory.followedOrderByAdvice()) {
             return recordCursorFactory;
         }
@@ -1221,6 +1397,15 @@ public class SqlCodeGenerator implements Mutable {
                 orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(metadata);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
+                    final int topK = getTopK(model, executionContext);
+                    if (topK > 0) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
+                                orderedMetadata,
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                topK
+                        );
+                    }
                     return new SortedLightRecordCursorFactory(
                             configuration,
                             orderedMetadata,
@@ -1259,12 +1444,16 @@ public class SqlCodeGenerator implements Mutable {
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
-            return generateSetFactory(model, factory, executionContext);
+            final RecordCursorFactory setFactory = generateSetFactory(model, factory, executionContext);
+            return analyze ? wrapAnalyzed(factory, setFactory) : setFactory;
         }
         return factory;
     }
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
+        if (analyze) {
+            return generateQueryAnalyzed(model, executionContext, processJoins);
+        }
         return generateLimit(
                 generateOrderBy(
                         generateFilter(
@@ -1276,13 +1465,21 @@ public class SqlCodeGenerator implements Mutable {
                                 model,
                                 executionContext
                         ),
-                        model
+                        model,
+                        executionContext
                 ),
                 model,
                 executionContext
         );
     }
 
+    private RecordCursorFactory generateQueryAnalyzed(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
+        RecordCursorFactory factory = wrapAnalyzed(null, generateSelect(model, executionContext, processJoins));
+        factory = wrapAnalyzed(factory, generateFilter(factory, model, executionContext));
+        factory = wrapAnalyzed(factory, generateOrderBy(factory, model, executionContext));
+        return wrapAnalyzed(factory, generateLimit(factory, model, executionContext));
+    }
+
     @NotNull
     private RecordCursorFactory generateSampleBy(
             QueryModel model,
@@ -2167,6 +2364,20 @@ public class SqlCodeGenerator implements Mutable {
                 );
             }
 
+            if (!specialCaseKeys) {
+                final RecordCursorFactory parallelGroupByFactory = generateParallelGroupBy(
+                        model,
+                        factory,
+                        groupByFunctions,
+                        recordFunctions,
+                        groupByMetadata,
+                        executionContext
+                );
+                if (parallelGroupByFactory != null) {
+                    return parallelGroupByFactory;
+                }
+            }
+
             return new io.questdb.griffin.engine.groupby.GroupByRecordCursorFactory(
                     configuration,
                     factory,
@@ -2314,6 +2525,11 @@ public class SqlCodeGenerator implements Mutable {
         }
     }
 
+    private static RecordCursorFactory wrapAnalyzed(RecordCursorFactory base, RecordCursorFactory factory) {
+        // sub-query factories are wrapped already
+        return factory == base || factory instanceof AnalyzeRecordCursorFactory ? factory : new AnalyzeRecordCursorFactory(factory);
+    }
+
     private RecordCursorFactory generateSubQuery(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         assert model.getNestedModel() != null;
         return generateQuery(model.getNestedModel(), executionContext, true);
@@ -2512,6 +2728,7 @@ public class SqlCodeGenerator implements Mutable {
                     dfcFactory = new FullFwdDataFrameCursorFactory(engine, tableName, model.getTableId(), model.getTableVersion());
                     intervalHitsOnlyOnePartition = false;
                 }
+                dfcFactory = wrapWithZoneMaps(dfcFactory, intrinsicModel.filter, readerMeta);
 
                 if (intrinsicModel.keyColumn != null) {
                     // existence of column would have been already validated
@@ -2725,6 +2942,21 @@ public class SqlCodeGenerator implements Mutable {
                     }
                 }
 
+                if (intrinsicModel.filter != null) {
+                    final RecordCursorFactory parallelFilterFactory = generateParallelFilter(
+                            myMeta,
+                            dfcFactory,
+                            intrinsicModel.filter,
+                            columnIndexes,
+                            framingSupported,
+                            columnSizes,
+                            executionContext
+                    );
+                    if (parallelFilterFactory != null) {
+                        return parallelFilterFactory;
+                    }
+                }
+
                 model.setWhereClause(intrinsicModel.filter);
                 return new DataFrameRecordCursorFactory(myMeta, dfcFactory, new DataFrameRowCursorFactory(), false, null, framingSupported, columnIndexes, columnSizes);
             }
@@ -2848,6 +3080,78 @@ public class SqlCodeGenerator implements Mutable {
         return metadata.getTimestampIndex();
     }
 
+    /**
+     * Checks that filter can be evaluated by worker threads over page frames. Filter must reference only
+     * fixed-size non-symbol columns, because workers read values directly from column memory and symbol tables
+     * are not thread-safe. Sub-queries are excluded for the same reason.
+     */
+    private boolean isParallelFilterSupported(ExpressionNode node, RecordMetadata metadata, IntList filterColumnIndexes) {
+        if (node == null) {
+            return true;
+        }
+
+        switch (node.type) {
+            case ExpressionNode.QUERY:
+                return false;
+            case LITERAL:
+                final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+                if (columnIndex < 0) {
+                    return false;
+                }
+                final int type = metadata.getColumnType(columnIndex);
+                final int typeSize = ColumnType.sizeOf(type);
+                if (ColumnType.isSymbol(type) || typeSize < Byte.BYTES || typeSize > Long.BYTES) {
+                    return false;
+                }
+                if (intHashSet.add(columnIndex)) {
+                    filterColumnIndexes.add(columnIndex);
+                }
+                return true;
+            default:
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isParallelFilterSupported(node.args.getQuick(i), metadata, filterColumnIndexes)) {
+                        return false;
+                    }
+                }
+                return isParallelFilterSupported(node.lhs, metadata, filterColumnIndexes)
+                        && isParallelFilterSupported(node.rhs, metadata, filterColumnIndexes);
+        }
+    }
+
+    /**
+     * Number of rows that "order by" has to retain when it is followed by constant limit that only
+     * takes rows off the top of the result, e.g. "limit 10" or "limit 10, 20".
+     *
+     * @return row count or -1 when entire result has to be sorted
+     */
+    private int getTopK(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode limitLo = model.getLimitLo();
+        final ExpressionNode limitHi = model.getLimitHi();
+        if (limitLo == null) {
+            return -1;
+        }
+
+        final long lo = evaluateConstantLimit(limitLo, executionContext);
+        final long hi = limitHi == null ? lo : evaluateConstantLimit(limitHi, executionContext);
+        // negative values count rows from the bottom, which requires full sort
+        if (lo < 0 || hi < lo || hi > configuration.getSqlTopKMaxRows()) {
+            return -1;
+        }
+        return (int) hi;
+    }
+
+    private long evaluateConstantLimit(ExpressionNode node, SqlExecutionContext executionContext) throws SqlException {
+        final Function function = functionParser.parseFunction(node, EmptyRecordMetadata.INSTANCE, executionContext);
+        try {
+            if (function.isConstant() && !limitTypes.excludes(function.getType())) {
+                return function.getLong(null);
+            }
+            return -1;
+        } finally {
+            function.close();
+        }
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equals(ast.token, name) && ast.rhs.type == LITERAL;
     }
@@ -2986,6 +3290,112 @@ public class SqlCodeGenerator implements Mutable {
         return ColumnType.isString(columnType) ? Record.GET_STR : Record.GET_SYM;
     }
 
+    private void addZoneMapPredicate(ExpressionNode column, int op, ExpressionNode constant, RecordMetadata metadata) {
+        final int columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex < 0 || !ZoneMapWriter.isSupported(metadata.getColumnType(columnIndex))) {
+            return;
+        }
+        boolean negative = false;
+        if (constant.type == ExpressionNode.OPERATION && constant.paramCount == 1 && Chars.equals(constant.token, '-')) {
+            negative = true;
+            constant = constant.rhs;
+        }
+        if (constant == null || constant.type != ExpressionNode.CONSTANT) {
+            return;
+        }
+        final short columnTag = ColumnType.tagOf(metadata.getColumnType(columnIndex));
+        final long value;
+        try {
+            if (columnTag == ColumnType.FLOAT || columnTag == ColumnType.DOUBLE) {
+                final double d = negative ? -Numbers.parseDouble(constant.token) : Numbers.parseDouble(constant.token);
+                // filter may compare FLOAT column with constant rounded to float, only exact constants are safe
+                if (d != d || (columnTag == ColumnType.FLOAT && (double) (float) d != d)) {
+                    return;
+                }
+                value = Double.doubleToLongBits(d);
+            } else {
+                // integer columns are compared with integer constants only,
+                // constants at or below null value would match nulls
+                final long l = negative ? -Numbers.parseLong(constant.token) : Numbers.parseLong(constant.token);
+                if (l == Numbers.LONG_NaN || (columnTag == ColumnType.INT && l <= Numbers.INT_NaN)) {
+                    return;
+                }
+                value = l;
+            }
+        } catch (NumericException e) {
+            return;
+        }
+        zoneMapColumnIndexes.add(columnIndex);
+        zoneMapOps.add(op);
+        zoneMapValues.add(value);
+    }
+
+    private void collectZoneMapPredicates(ExpressionNode node, RecordMetadata metadata) {
+        if (node == null || node.type != ExpressionNode.OPERATION) {
+            return;
+        }
+        if (isAndKeyword(node.token)) {
+            collectZoneMapPredicates(node.lhs, metadata);
+            collectZoneMapPredicates(node.rhs, metadata);
+            return;
+        }
+        if (node.paramCount != 2) {
+            return;
+        }
+        final int op;
+        if (Chars.equals(node.token, '=')) {
+            op = ZoneMapDataFrameCursorFactory.OP_EQ;
+        } else if (Chars.equals(node.token, '<')) {
+            op = ZoneMapDataFrameCursorFactory.OP_LT;
+        } else if (Chars.equals(node.token, "<=")) {
+            op = ZoneMapDataFrameCursorFactory.OP_LE;
+        } else if (Chars.equals(node.token, '>')) {
+            op = ZoneMapDataFrameCursorFactory.OP_GT;
+        } else if (Chars.equals(node.token, ">=")) {
+            op = ZoneMapDataFrameCursorFactory.OP_GE;
+        } else {
+            return;
+        }
+        if (node.lhs.type == LITERAL) {
+            addZoneMapPredicate(node.lhs, op, node.rhs, metadata);
+        } else if (node.rhs.type == LITERAL) {
+            // constant is on the left, flip comparison around
+            final int flipped;
+            switch (op) {
+                case ZoneMapDataFrameCursorFactory.OP_LT:
+                    flipped = ZoneMapDataFrameCursorFactory.OP_GT;
+                    break;
+                case ZoneMapDataFrameCursorFactory.OP_LE:
+                    flipped = ZoneMapDataFrameCursorFactory.OP_GE;
+                    break;
+                case ZoneMapDataFrameCursorFactory.OP_GT:
+                    flipped = ZoneMapDataFrameCursorFactory.OP_LT;
+                    break;
+                case ZoneMapDataFrameCursorFactory.OP_GE:
+                    flipped = ZoneMapDataFrameCursorFactory.OP_LE;
+                    break;
+                default:
+                    flipped = op;
+                    break;
+            }
+            addZoneMapPredicate(node.rhs, flipped, node.lhs, metadata);
+        }
+    }
+
+    private DataFrameCursorFactory wrapWithZoneMaps(DataFrameCursorFactory dfcFactory, ExpressionNode filter, RecordMetadata metadata) {
+        if (filter == null || !configuration.isZoneMapEnabled()) {
+            return dfcFactory;
+        }
+        zoneMapColumnIndexes.clear();
+        zoneMapOps.clear();
+        zoneMapValues.clear();
+        collectZoneMapPredicates(filter, metadata);
+        if (zoneMapColumnIndexes.size() == 0) {
+            return dfcFactory;
+        }
+        return new ZoneMapDataFrameCursorFactory(dfcFactory, zoneMapColumnIndexes, zoneMapOps, zoneMapValues);
+    }
+
     @FunctionalInterface
     public interface FullFatJoinGenerator {
         RecordCursorFactory create(
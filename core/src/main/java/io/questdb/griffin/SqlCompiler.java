@@ -33,6 +33,7 @@ import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cutlass.text.Atomicity;
 import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
+import io.questdb.griffin.engine.explain.ExplainRecordCursorFactory;
 import io.questdb.griffin.engine.functions.cast.CastCharToStrFunctionFactory;
 import io.questdb.griffin.engine.functions.cast.CastStrToGeoHashFunctionFactory;
 import io.questdb.griffin.engine.functions.catalogue.ShowSearchPathCursorFactory;
@@ -85,6 +86,7 @@ public class SqlCompiler implements Closeable {
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
     private final IntIntHashMap typeCast = new IntIntHashMap();
     private final ObjList<TableWriter> tableWriters = new ObjList<>();
+    private final IntList dedupKeyColumns = new IntList();
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final FunctionParser functionParser;
     private final ExecutableMethod insertAsSelectMethod = this::insertAsSelect;
@@ -132,6 +134,7 @@ public class SqlCompiler implements Closeable {
         final KeywordBasedExecutor dropTable = this::dropTable;
         final KeywordBasedExecutor sqlBackup = backupAgent::sqlBackup;
         final KeywordBasedExecutor sqlShow = this::sqlShow;
+        final KeywordBasedExecutor sqlExplain = this::sqlExplain;
 
         keywordBasedExecutors.put("truncate", truncateTables);
         keywordBasedExecutors.put("TRUNCATE", truncateTables);
@@ -155,6 +158,8 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("BACKUP", sqlBackup);
         keywordBasedExecutors.put("show", sqlShow);
         keywordBasedExecutors.put("SHOW", sqlShow);
+        keywordBasedExecutors.put("explain", sqlExplain);
+        keywordBasedExecutors.put("EXPLAIN", sqlExplain);
 
         configureLexer(lexer);
 
@@ -212,25 +217,25 @@ public class SqlCompiler implements Closeable {
         int rGetStr = asm.poolInterfaceMethod(Record.class, "getStr", "(I)Ljava/lang/CharSequence;");
         int rGetBin = asm.poolInterfaceMethod(Record.class, "getBin", "(I)Lio/questdb/std/BinarySequence;");
         //
-        int wPutInt = asm.poolMethod(TableWriter.Row.class, "putInt", "(II)V");
-        int wPutLong = asm.poolMethod(TableWriter.Row.class, "putLong", "(IJ)V");
-        int wPutLong256 = asm.poolMethod(TableWriter.Row.class, "putLong256", "(ILio/questdb/std/Long256;)V");
-        int wPutDate = asm.poolMethod(TableWriter.Row.class, "putDate", "(IJ)V");
-        int wPutTimestamp = asm.poolMethod(TableWriter.Row.class, "putTimestamp", "(IJ)V");
+        int wPutInt = asm.poolInterfaceMethod(TableWriter.Row.class, "putInt", "(II)V");
+        int wPutLong = asm.poolInterfaceMethod(TableWriter.Row.class, "putLong", "(IJ)V");
+        int wPutLong256 = asm.poolInterfaceMethod(TableWriter.Row.class, "putLong256", "(ILio/questdb/std/Long256;)V");
+        int wPutDate = asm.poolInterfaceMethod(TableWriter.Row.class, "putDate", "(IJ)V");
+        int wPutTimestamp = asm.poolInterfaceMethod(TableWriter.Row.class, "putTimestamp", "(IJ)V");
         //
-        int wPutByte = asm.poolMethod(TableWriter.Row.class, "putByte", "(IB)V");
-        int wPutShort = asm.poolMethod(TableWriter.Row.class, "putShort", "(IS)V");
-        int wPutBool = asm.poolMethod(TableWriter.Row.class, "putBool", "(IZ)V");
-        int wPutFloat = asm.poolMethod(TableWriter.Row.class, "putFloat", "(IF)V");
-        int wPutDouble = asm.poolMethod(TableWriter.Row.class, "putDouble", "(ID)V");
-        int wPutSym = asm.poolMethod(TableWriter.Row.class, "putSym", "(ILjava/lang/CharSequence;)V");
-        int wPutSymChar = asm.poolMethod(TableWriter.Row.class, "putSym", "(IC)V");
-        int wPutStr = asm.poolMethod(TableWriter.Row.class, "putStr", "(ILjava/lang/CharSequence;)V");
-        int wPutGeoStr = asm.poolMethod(TableWriter.Row.class, "putGeoStr", "(ILjava/lang/CharSequence;)V");
-        int wPutTimestampStr = asm.poolMethod(TableWriter.Row.class, "putTimestamp", "(ILjava/lang/CharSequence;)V");
-        int wPutStrChar = asm.poolMethod(TableWriter.Row.class, "putStr", "(IC)V");
-        int wPutChar = asm.poolMethod(TableWriter.Row.class, "putChar", "(IC)V");
-        int wPutBin = asm.poolMethod(TableWriter.Row.class, "putBin", "(ILio/questdb/std/BinarySequence;)V");
+        int wPutByte = asm.poolInterfaceMethod(TableWriter.Row.class, "putByte", "(IB)V");
+        int wPutShort = asm.poolInterfaceMethod(TableWriter.Row.class, "putShort", "(IS)V");
+        int wPutBool = asm.poolInterfaceMethod(TableWriter.Row.class, "putBool", "(IZ)V");
+        int wPutFloat = asm.poolInterfaceMethod(TableWriter.Row.class, "putFloat", "(IF)V");
+        int wPutDouble = asm.poolInterfaceMethod(TableWriter.Row.class, "putDouble", "(ID)V");
+        int wPutSym = asm.poolInterfaceMethod(TableWriter.Row.class, "putSym", "(ILjava/lang/CharSequence;)V");
+        int wPutSymChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putSym", "(IC)V");
+        int wPutStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putStr", "(ILjava/lang/CharSequence;)V");
+        int wPutGeoStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putGeoStr", "(ILjava/lang/CharSequence;)V");
+        int wPutTimestampStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putTimestamp", "(ILjava/lang/CharSequence;)V");
+        int wPutStrChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putStr", "(IC)V");
+        int wPutChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putChar", "(IC)V");
+        int wPutBin = asm.poolInterfaceMethod(TableWriter.Row.class, "putBin", "(ILio/questdb/std/BinarySequence;)V");
         int truncateGeoHashTypes = asm.poolMethod(ColumnType.class, "truncateGeoHashTypes", "(JII)J");
         int encodeCharAsGeoByte = asm.poolMethod(GeoHashes.class, "encodeChar", "(C)B");
 
@@ -276,34 +281,34 @@ public class SqlCompiler implements Closeable {
                     switch (toColumnTypeTag) {
                         case ColumnType.LONG:
                             asm.i2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.i2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.i2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.i2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.i2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                     }
                     break;
@@ -312,34 +317,34 @@ public class SqlCompiler implements Closeable {
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.DATE:
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.l2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.l2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                     }
                     break;
@@ -348,34 +353,34 @@ public class SqlCompiler implements Closeable {
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.TIMESTAMP:
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.l2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.l2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                     }
                     break;
@@ -384,34 +389,34 @@ public class SqlCompiler implements Closeable {
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.l2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.l2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         case ColumnType.DATE:
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                     }
                     break;
@@ -419,34 +424,34 @@ public class SqlCompiler implements Closeable {
                     asm.invokeInterface(rGetByte, 1);
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.i2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.i2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.i2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.i2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.i2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                     }
                     break;
@@ -454,76 +459,76 @@ public class SqlCompiler implements Closeable {
                     asm.invokeInterface(rGetShort, 1);
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.i2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.i2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.i2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.BYTE:
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.i2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.i2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                     }
                     break;
                 case ColumnType.BOOLEAN:
                     asm.invokeInterface(rGetBool, 1);
-                    asm.invokeVirtual(wPutBool);
+                    asm.invokeInterface(wPutBool, 2);
                     break;
                 case ColumnType.FLOAT:
                     asm.invokeInterface(rGetFloat, 1);
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
                             asm.f2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.f2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.f2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.f2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.f2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.f2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.DOUBLE:
                             asm.f2d();
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                         default:
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                     }
                     break;
@@ -532,36 +537,36 @@ public class SqlCompiler implements Closeable {
                     switch (toColumnTypeTag) {
                         case ColumnType.INT:
                             asm.d2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         case ColumnType.LONG:
                             asm.d2l();
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                         case ColumnType.DATE:
                             asm.d2l();
-                            asm.invokeVirtual(wPutDate);
+                            asm.invokeInterface(wPutDate, 3);
                             break;
                         case ColumnType.TIMESTAMP:
                             asm.d2l();
-                            asm.invokeVirtual(wPutTimestamp);
+                            asm.invokeInterface(wPutTimestamp, 3);
                             break;
                         case ColumnType.SHORT:
                             asm.d2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.BYTE:
                             asm.d2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.FLOAT:
                             asm.d2f();
-                            asm.invokeVirtual(wPutFloat);
+                            asm.invokeInterface(wPutFloat, 2);
                             break;
                         default:
-                            asm.invokeVirtual(wPutDouble);
+                            asm.invokeInterface(wPutDouble, 3);
                             break;
                     }
                     break;
@@ -569,10 +574,10 @@ public class SqlCompiler implements Closeable {
                     asm.invokeInterface(rGetChar, 1);
                     switch (toColumnTypeTag) {
                         case ColumnType.STRING:
-                            asm.invokeVirtual(wPutStrChar);
+                            asm.invokeInterface(wPutStrChar, 2);
                             break;
                         case ColumnType.SYMBOL:
-                            asm.invokeVirtual(wPutSymChar);
+                            asm.invokeInterface(wPutSymChar, 2);
                             break;
                         case ColumnType.GEOBYTE:
                             asm.invokeStatic(encodeCharAsGeoByte);
@@ -584,48 +589,48 @@ public class SqlCompiler implements Closeable {
                                 asm.l2i();
                                 asm.i2b();
                             }
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         default:
-                            asm.invokeVirtual(wPutChar);
+                            asm.invokeInterface(wPutChar, 2);
                             break;
                     }
                     break;
                 case ColumnType.SYMBOL:
                     asm.invokeInterface(rGetSym, 1);
                     if (toColumnTypeTag == ColumnType.STRING) {
-                        asm.invokeVirtual(wPutStr);
+                        asm.invokeInterface(wPutStr, 2);
                     } else {
-                        asm.invokeVirtual(wPutSym);
+                        asm.invokeInterface(wPutSym, 2);
                     }
                     break;
                 case ColumnType.STRING:
                     asm.invokeInterface(rGetStr, 1);
                     switch (toColumnTypeTag) {
                         case ColumnType.SYMBOL:
-                            asm.invokeVirtual(wPutSym);
+                            asm.invokeInterface(wPutSym, 2);
                             break;
                         case ColumnType.TIMESTAMP:
-                            asm.invokeVirtual(wPutTimestampStr);
+                            asm.invokeInterface(wPutTimestampStr, 2);
                             break;
                         case ColumnType.GEOBYTE:
                         case ColumnType.GEOSHORT:
                         case ColumnType.GEOINT:
                         case ColumnType.GEOLONG:
-                            asm.invokeVirtual(wPutGeoStr);
+                            asm.invokeInterface(wPutGeoStr, 2);
                             break;
                         default:
-                            asm.invokeVirtual(wPutStr);
+                            asm.invokeInterface(wPutStr, 2);
                             break;
                     }
                     break;
                 case ColumnType.BINARY:
                     asm.invokeInterface(rGetBin, 1);
-                    asm.invokeVirtual(wPutBin);
+                    asm.invokeInterface(wPutBin, 2);
                     break;
                 case ColumnType.LONG256:
                     asm.invokeInterface(rGetLong256, 1);
-                    asm.invokeVirtual(wPutLong256);
+                    asm.invokeInterface(wPutLong256, 2);
                     break;
                 case ColumnType.GEOBYTE:
                     asm.invokeInterface(rGetGeoByte, 1);
@@ -638,7 +643,7 @@ public class SqlCompiler implements Closeable {
                         asm.l2i();
                         asm.i2b();
                     }
-                    asm.invokeVirtual(wPutByte);
+                    asm.invokeInterface(wPutByte, 2);
                     break;
                 case ColumnType.GEOSHORT:
                     asm.invokeInterface(rGetGeoShort, 1);
@@ -649,7 +654,7 @@ public class SqlCompiler implements Closeable {
                         asm.invokeStatic(truncateGeoHashTypes);
                         asm.l2i();
                         asm.i2b();
-                        asm.invokeVirtual(wPutByte);
+                        asm.invokeInterface(wPutByte, 2);
                     } else if (fromColumnType != toColumnType && fromColumnType != ColumnType.NULL && fromColumnType != ColumnType.GEOSHORT) {
                         asm.i2l();
                         asm.iconst(fromColumnType);
@@ -657,9 +662,9 @@ public class SqlCompiler implements Closeable {
                         asm.invokeStatic(truncateGeoHashTypes);
                         asm.l2i();
                         asm.i2s();
-                        asm.invokeVirtual(wPutShort);
+                        asm.invokeInterface(wPutShort, 2);
                     } else {
-                        asm.invokeVirtual(wPutShort);
+                        asm.invokeInterface(wPutShort, 2);
                     }
                     break;
                 case ColumnType.GEOINT:
@@ -672,7 +677,7 @@ public class SqlCompiler implements Closeable {
                             asm.invokeStatic(truncateGeoHashTypes);
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.GEOSHORT:
                             asm.i2l();
@@ -681,7 +686,7 @@ public class SqlCompiler implements Closeable {
                             asm.invokeStatic(truncateGeoHashTypes);
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         default:
                             if (fromColumnType != toColumnType && fromColumnType != ColumnType.NULL && fromColumnType != ColumnType.GEOINT) {
@@ -691,7 +696,7 @@ public class SqlCompiler implements Closeable {
                                 asm.invokeStatic(truncateGeoHashTypes);
                                 asm.l2i();
                             }
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                     }
                     break;
@@ -704,7 +709,7 @@ public class SqlCompiler implements Closeable {
                             asm.invokeStatic(truncateGeoHashTypes);
                             asm.l2i();
                             asm.i2b();
-                            asm.invokeVirtual(wPutByte);
+                            asm.invokeInterface(wPutByte, 2);
                             break;
                         case ColumnType.GEOSHORT:
                             asm.iconst(fromColumnType);
@@ -712,14 +717,14 @@ public class SqlCompiler implements Closeable {
                             asm.invokeStatic(truncateGeoHashTypes);
                             asm.l2i();
                             asm.i2s();
-                            asm.invokeVirtual(wPutShort);
+                            asm.invokeInterface(wPutShort, 2);
                             break;
                         case ColumnType.GEOINT:
                             asm.iconst(fromColumnType);
                             asm.iconst(toColumnType);
                             asm.invokeStatic(truncateGeoHashTypes);
                             asm.l2i();
-                            asm.invokeVirtual(wPutInt);
+                            asm.invokeInterface(wPutInt, 2);
                             break;
                         default:
                             if (fromColumnType != toColumnType && fromColumnType != ColumnType.NULL && fromColumnType != ColumnType.GEOLONG) {
@@ -727,7 +732,7 @@ public class SqlCompiler implements Closeable {
                                 asm.iconst(toColumnType);
                                 asm.invokeStatic(truncateGeoHashTypes);
                             }
-                            asm.invokeVirtual(wPutLong);
+                            asm.invokeInterface(wPutLong, 3);
                             break;
                     }
                     break;
@@ -936,10 +941,13 @@ public class SqlCompiler implements Closeable {
                         final int columnNameNamePosition = lexer.getPosition();
                         tok = expectToken(lexer, "column name");
                         final CharSequence columnName = GenericLexer.immutableOf(tok);
-                        tok = expectToken(lexer, "'add index' or 'cache' or 'nocache'");
+                        tok = expectToken(lexer, "'add index', 'set codec', 'cache' or 'nocache'");
                         if (SqlKeywords.isAddKeyword(tok)) {
                             expectKeyword(lexer, "index");
                             alterTableColumnAddIndex(tableNamePosition, columnNameNamePosition, columnName, writer);
+                        } else if (SqlKeywords.isSetKeyword(tok)) {
+                            expectKeyword(lexer, "codec");
+                            alterTableColumnSetCodec(columnNameNamePosition, columnName, writer);
                         } else {
                             if (SqlKeywords.isCacheKeyword(tok)) {
                                 alterTableColumnCacheFlag(tableNamePosition, columnName, writer, true);
@@ -969,8 +977,18 @@ public class SqlCompiler implements Closeable {
                     } else {
                         throw SqlException.$(lexer.lastTokenPosition(), "'param' expected");
                     }
+                } else if (SqlKeywords.isDedupKeyword(tok)) {
+                    tok = expectToken(lexer, "'enable' or 'disable'");
+                    if (SqlKeywords.isEnableKeyword(tok)) {
+                        alterTableDedupEnable(writer);
+                    } else if (SqlKeywords.isDisableKeyword(tok)) {
+                        dedupKeyColumns.clear();
+                        writer.setMetaDedupKeys(dedupKeyColumns);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'enable' or 'disable' expected");
+                    }
                 } else {
-                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'set' or 'rename' expected");
+                    throw SqlException.$(lexer.lastTokenPosition(), "'add', 'drop', 'attach', 'dedup', 'set' or 'rename' expected");
                 }
             } catch (CairoException e) {
                 LOG.info().$("could not alter table [table=").$(tableName).$(", ex=").$((Sinkable) e).$();
@@ -1184,6 +1202,50 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private void alterTableColumnSetCodec(int columnNamePosition, CharSequence columnName, TableWriter writer) throws SqlException {
+        final RecordMetadata metadata = writer.getMetadata();
+        final int columnIndex = metadata.getColumnIndexQuiet(columnName);
+        if (columnIndex == -1) {
+            throw SqlException.invalidColumn(columnNamePosition, columnName);
+        }
+        final CharSequence tok = expectToken(lexer, "codec name");
+        writer.setMetaColumnCodec(
+                columnIndex,
+                SqlUtil.expectColumnCodec(tok, lexer.lastTokenPosition(), metadata.getColumnType(columnIndex))
+        );
+    }
+
+    private void alterTableDedupEnable(TableWriter writer) throws SqlException {
+        final int dedupPosition = lexer.lastTokenPosition();
+        expectKeyword(lexer, "upsert");
+        expectKeyword(lexer, "keys");
+        expectKeyword(lexer, "(");
+        final RecordMetadata metadata = writer.getMetadata();
+        if (metadata.getTimestampIndex() == -1 || writer.getPartitionBy() == PartitionBy.NONE) {
+            throw SqlException.$(dedupPosition, "dedup is supported only for partitioned tables with designated timestamp");
+        }
+        dedupKeyColumns.clear();
+        CharSequence tok;
+        do {
+            tok = GenericLexer.unquote(expectToken(lexer, "column name"));
+            final int position = lexer.lastTokenPosition();
+            final int columnIndex = metadata.getColumnIndexQuiet(tok);
+            if (columnIndex == -1) {
+                throw SqlException.invalidColumn(position, tok);
+            }
+            SqlUtil.expectDedupKeyType(tok, position, metadata.getColumnType(columnIndex));
+            dedupKeyColumns.add(columnIndex);
+            tok = expectToken(lexer, "',' or ')'");
+        } while (Chars.equals(tok, ','));
+        if (!Chars.equals(tok, ')')) {
+            throw SqlException.$(lexer.lastTokenPosition(), "')' expected");
+        }
+        if (dedupKeyColumns.indexOf(metadata.getTimestampIndex(), 0, dedupKeyColumns.size()) == -1) {
+            throw SqlException.$(dedupPosition, "dedup key list must include designated timestamp");
+        }
+        writer.setMetaDedupKeys(dedupKeyColumns);
+    }
+
     private void alterTableColumnCacheFlag(int tableNamePosition, CharSequence columnName, TableWriter writer, boolean cache) throws SqlException {
         try {
             RecordMetadata metadata = writer.getMetadata();
@@ -1381,6 +1443,12 @@ public class SqlCompiler implements Closeable {
                 throw SqlException.$(paramNameNamePosition, "commitLag must be non negative");
             }
             writer.setMetaCommitLag(commitLag);
+        } else if (isTtlParam(paramName)) {
+            long ttl = SqlUtil.expectMicros(value, paramNameNamePosition);
+            if (ttl < 0) {
+                throw SqlException.$(paramNameNamePosition, "ttl must be non negative");
+            }
+            writer.setMetaTtl(ttl);
         } else {
             throw SqlException.$(paramNameNamePosition, "unknown parameter '").put(paramName).put('\'');
         }
@@ -1457,7 +1525,7 @@ public class SqlCompiler implements Closeable {
         }
     }
 
-    private void copyOrdered(TableWriter writer, RecordMetadata metadata, RecordCursor cursor, RecordToRowCopier copier, int cursorTimestampIndex) {
+    private void copyOrdered(TableWriterAPI writer, RecordMetadata metadata, RecordCursor cursor, RecordToRowCopier copier, int cursorTimestampIndex) {
         if (ColumnType.isSymbolOrString(metadata.getColumnType(cursorTimestampIndex))) {
             copyOrderedStrTimestamp(writer, cursor, copier, cursorTimestampIndex);
         } else {
@@ -1466,7 +1534,7 @@ public class SqlCompiler implements Closeable {
         writer.commit();
     }
 
-    private void copyOrdered0(TableWriter writer, RecordCursor cursor, RecordToRowCopier copier, int cursorTimestampIndex) {
+    private void copyOrdered0(TableWriterAPI writer, RecordCursor cursor, RecordToRowCopier copier, int cursorTimestampIndex) {
         final Record record = cursor.getRecord();
         while (cursor.hasNext()) {
             TableWriter.Row row = writer.newRow(record.getTimestamp(cursorTimestampIndex));
@@ -1476,7 +1544,7 @@ public class SqlCompiler implements Closeable {
     }
 
     private void copyOrderedBatched(
-            TableWriter writer,
+            TableWriterAPI writer,
             RecordMetadata metadata,
             RecordCursor cursor,
             RecordToRowCopier copier,
@@ -1493,7 +1561,7 @@ public class SqlCompiler implements Closeable {
     }
 
     private void copyOrderedBatched0(
-            TableWriter writer,
+            TableWriterAPI writer,
             RecordCursor cursor,
             RecordToRowCopier copier,
             int cursorTimestampIndex,
@@ -1515,7 +1583,7 @@ public class SqlCompiler implements Closeable {
     }
 
     private void copyOrderedBatchedStrTimestamp(
-            TableWriter writer,
+            TableWriterAPI writer,
             RecordCursor cursor,
             RecordToRowCopier copier,
             int cursorTimestampIndex,
@@ -1542,7 +1610,7 @@ public class SqlCompiler implements Closeable {
         }
     }
 
-    private void copyOrderedStrTimestamp(TableWriter writer, RecordCursor cursor, RecordToRowCopier copier, int cursorTimestampIndex) {
+    private void copyOrderedStrTimestamp(TableWriterAPI writer, RecordCursor cursor, RecordToRowCopier copier, int cursorTimestampIndex) {
         final Record record = cursor.getRecord();
         while (cursor.hasNext()) {
             final CharSequence str = record.getStr(cursorTimestampIndex);
@@ -1624,7 +1692,7 @@ public class SqlCompiler implements Closeable {
         }
     }
 
-    private void copyUnordered(RecordCursor cursor, TableWriter writer, RecordToRowCopier copier) {
+    private void copyUnordered(RecordCursor cursor, TableWriterAPI writer, RecordToRowCopier copier) {
         final Record record = cursor.getRecord();
         while (cursor.hasNext()) {
             TableWriter.Row row = writer.newRow();
@@ -1674,27 +1742,31 @@ public class SqlCompiler implements Closeable {
     }
 
     private TableWriter createTableFromCursor(CreateTableModel model, SqlExecutionContext executionContext) throws SqlException {
-        try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext);
-             final RecordCursor cursor = factory.getCursor(executionContext)
-        ) {
-            typeCast.clear();
-            final RecordMetadata metadata = factory.getMetadata();
-            validateTableModelAndCreateTypeCast(model, metadata, typeCast);
-            engine.createTableUnsafe(
-                    executionContext.getCairoSecurityContext(),
-                    mem,
-                    path,
-                    tableStructureAdapter.of(model, metadata, typeCast)
-            );
+        try (final RecordCursorFactory factory = generate(model.getQueryModel(), executionContext)) {
+            final MemoryAccountant memoryAccountant = executionContext.getMemoryAccountant();
+            memoryAccountant.enter();
+            try (final RecordCursor cursor = factory.getCursor(executionContext)) {
+                typeCast.clear();
+                final RecordMetadata metadata = factory.getMetadata();
+                validateTableModelAndCreateTypeCast(model, metadata, typeCast);
+                engine.createTableUnsafe(
+                        executionContext.getCairoSecurityContext(),
+                        mem,
+                        path,
+                        tableStructureAdapter.of(model, metadata, typeCast)
+                );
 
-            try {
-                return copyTableData(model.getName().token, cursor, metadata);
-            } catch (CairoException e) {
-                LOG.error().$(e.getFlyweightMessage()).$(" [errno=").$(e.getErrno()).$(']').$();
-                if (removeTableDirectory(model)) {
-                    throw e;
+                try {
+                    return copyTableData(model.getName().token, cursor, metadata);
+                } catch (CairoException e) {
+                    LOG.error().$(e.getFlyweightMessage()).$(" [errno=").$(e.getErrno()).$(']').$();
+                    if (removeTableDirectory(model)) {
+                        throw e;
+                    }
+                    throw SqlException.$(0, "Concurrent modification could not be handled. Failed to clean up. See log for more details.");
                 }
-                throw SqlException.$(0, "Concurrent modification could not be handled. Failed to clean up. See log for more details.");
+            } finally {
+                memoryAccountant.exit();
             }
         }
     }
@@ -1878,7 +1950,7 @@ public class SqlCompiler implements Closeable {
         final ExpressionNode name = model.getTableName();
         tableExistsOrFail(name.position, name.token, executionContext);
 
-        try (TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), name.token, "insertAsSelect");
+        try (TableWriterAPI writer = engine.getTableWriterAPI(executionContext.getCairoSecurityContext(), name.token, "insertAsSelect");
              RecordCursorFactory factory = generate(model.getQueryModel(), executionContext)) {
 
             final RecordMetadata cursorMetadata = factory.getMetadata();
@@ -1980,6 +2052,8 @@ public class SqlCompiler implements Closeable {
                 copier = assembleRecordToRowCopier(asm, cursorMetadata, writerMetadata, entityColumnFilter);
             }
 
+            final MemoryAccountant memoryAccountant = executionContext.getMemoryAccountant();
+            memoryAccountant.enter();
             try (RecordCursor cursor = factory.getCursor(executionContext)) {
                 try {
                     if (writerTimestampIndex == -1) {
@@ -2004,6 +2078,8 @@ public class SqlCompiler implements Closeable {
                     writer.rollback();
                     throw e;
                 }
+            } finally {
+                memoryAccountant.exit();
             }
         }
         return compiledQuery.ofInsertAsSelect();
@@ -2072,6 +2148,34 @@ public class SqlCompiler implements Closeable {
         textLoader.configureDestination(model.getTableName().token, false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
     }
 
+    private CompiledQuery sqlExplain(SqlExecutionContext executionContext) throws SqlException {
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        if (tok == null) {
+            throw SqlException.position(lexer.getPosition()).put("query expected");
+        }
+
+        final boolean analyze = isAnalyzeKeyword(tok);
+        final int queryPosition;
+        if (analyze) {
+            queryPosition = lexer.getPosition();
+        } else {
+            queryPosition = lexer.lastTokenPosition();
+            lexer.unparse();
+        }
+
+        codeGenerator.clear();
+        final ExecutionModel executionModel = compileExecutionModel(executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.position(queryPosition).put("select query expected");
+        }
+
+        final QueryModel queryModel = (QueryModel) executionModel;
+        final RecordCursorFactory factory = analyze
+                ? codeGenerator.generateAnalyzed(queryModel, executionContext)
+                : generate(queryModel, executionContext);
+        return compiledQuery.of(new ExplainRecordCursorFactory(factory, analyze));
+    }
+
     private CompiledQuery sqlShow(SqlExecutionContext executionContext) throws SqlException {
         CharSequence tok = SqlUtil.fetchNext(lexer);
         if (null != tok) {
@@ -2339,6 +2443,17 @@ public class SqlCompiler implements Closeable {
         if (model.getPartitionBy() != PartitionBy.NONE && model.getTimestampIndex() == -1 && metadata.getTimestampIndex() == -1) {
             throw SqlException.position(0).put("timestamp is not defined");
         }
+
+        for (int i = 0, n = model.getColumnCount(); i < n; i++) {
+            if (model.isDedupKey(i)) {
+                final int castIndex = typeCast.keyIndex(i);
+                SqlUtil.expectDedupKeyType(
+                        model.getColumnName(i),
+                        0,
+                        castIndex < 0 ? typeCast.valueAt(castIndex) : metadata.getColumnType(i)
+                );
+            }
+        }
     }
 
     @FunctionalInterface
@@ -2385,6 +2500,11 @@ public class SqlCompiler implements Closeable {
             return metadata.getColumnType(columnIndex);
         }
 
+        @Override
+        public int getColumnCodec(int columnIndex) {
+            return model.getColumnCodec(columnIndex);
+        }
+
         @Override
         public int getIndexBlockCapacity(int columnIndex) {
             return model.getIndexBlockCapacity(columnIndex);
@@ -2400,6 +2520,11 @@ public class SqlCompiler implements Closeable {
             return model.isSequential(columnIndex);
         }
 
+        @Override
+        public boolean isDedupKey(int columnIndex) {
+            return model.isDedupKey(columnIndex);
+        }
+
         @Override
         public int getPartitionBy() {
             return model.getPartitionBy();
@@ -2444,6 +2569,11 @@ public class SqlCompiler implements Closeable {
             return model.getCommitLag();
         }
 
+        @Override
+        public long getTtl() {
+            return model.getTtl();
+        }
+
         TableStructureAdapter of(CreateTableModel model, RecordMetadata metadata, IntIntHashMap typeCast) {
             if (model.getTimestampIndex() != -1) {
                 timestampIndex = model.getTimestampIndex();
@@ -32,6 +32,7 @@ import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.BindVariableService;
 import io.questdb.cairo.sql.VirtualRecord;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.MemoryAccountant;
 import io.questdb.std.Misc;
 import io.questdb.std.Rnd;
 import io.questdb.std.Transient;
@@ -65,6 +66,12 @@ public interface SqlExecutionContext extends Closeable {
 
     SqlExecutionInterruptor getSqlExecutionInterruptor();
 
+    /**
+     * Accountant of native memory allocated by query, which cursor is being opened. Callers, which open
+     * cursors, enter accountant around getCursor() to subject query to memory limits.
+     */
+    MemoryAccountant getMemoryAccountant();
+
     void storeTelemetry(short event, short origin);
 
     AnalyticContext getAnalyticContext();
@@ -35,6 +35,7 @@ import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.std.IntStack;
+import io.questdb.std.MemoryAccountant;
 import io.questdb.std.Rnd;
 import io.questdb.std.Transient;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
@@ -52,6 +53,7 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
     private final MicrosecondClock clock;
     private final AnalyticContextImpl analyticContext = new AnalyticContextImpl();
     private final RingQueue<TelemetryTask> telemetryQueue;
+    private final MemoryAccountant memoryAccountant;
     private Sequence telemetryPubSeq;
     private TelemetryMethod telemetryMethod = this::storeTelemetryNoop;
     private BindVariableService bindVariableService;
@@ -73,6 +75,10 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         this.cairoEngine = cairoEngine;
         this.clock = cairoConfiguration.getMicrosecondClock();
         this.cairoSecurityContext = AllowAllCairoSecurityContext.INSTANCE;
+        this.memoryAccountant = new MemoryAccountant(
+                cairoConfiguration.getSqlQueryMemoryLimit(),
+                cairoConfiguration.getSqlGlobalQueryMemoryLimit()
+        );
 
         this.telemetryQueue = cairoEngine.getTelemetryQueue();
         if (messageBus != null && telemetryQueue != null) {
@@ -142,6 +148,11 @@ public class SqlExecutionContextImpl implements SqlExecutionContext {
         return interruptor;
     }
 
+    @Override
+    public MemoryAccountant getMemoryAccountant() {
+        return memoryAccountant;
+    }
+
     @Override
     public void storeTelemetry(short event, short origin) {
         telemetryMethod.store(event, origin);
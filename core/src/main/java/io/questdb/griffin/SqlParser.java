@@ -455,11 +455,12 @@ public final class SqlParser {
 
         int maxUncommittedRows = configuration.getMaxUncommittedRows();
         long commitLag = configuration.getCommitLag();
+        long ttl = 0;
 
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -475,6 +476,8 @@ public final class SqlParser {
                             }
                         } else if (isCommitLag(expr.lhs.token)) {
                             commitLag = SqlUtil.expectMicros(expr.rhs.token, lexer.getPosition());
+                        } else if (isTtlParam(expr.lhs.token)) {
+                            ttl = SqlUtil.expectMicros(expr.rhs.token, lexer.getPosition());
                         } else {
                             throw SqlException.position(lexer.getPosition()).put(" unrecognized ").put(expr.lhs.token).put(" after WITH");
                         }
@@ -487,10 +490,16 @@ public final class SqlParser {
                     throw SqlException.position(lexer.getPosition()).put(" expected parameter after WITH");
                 }
             }
+
+            if (tok != null && isDedupKeyword(tok)) {
+                parseCreateTableDedupKeys(lexer, model);
+                tok = optTok(lexer);
+            }
         }
 
         model.setMaxUncommittedRows(maxUncommittedRows);
         model.setCommitLag(commitLag);
+        model.setTtl(ttl);
 
         if (tok == null || Chars.equals(tok, ';')) {
             return model;
@@ -638,6 +647,11 @@ public final class SqlParser {
             }
 
             if (tok == null) {
+                tok = tok(lexer, "'codec', ',' or ')'");
+            }
+
+            if (isCodecKeyword(tok)) {
+                model.codec(SqlUtil.expectColumnCodec(tok(lexer, "codec name"), lexer.lastTokenPosition(), type));
                 tok = tok(lexer, "',' or ')'");
             }
 
@@ -682,16 +696,16 @@ public final class SqlParser {
     }
 
     private CharSequence parseCreateTableInlineIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
-        CharSequence tok = tok(lexer, "')', or 'index'");
+        CharSequence tok = tok(lexer, "')', 'codec' or 'index'");
 
-        if (isFieldTerm(tok)) {
+        if (isFieldTerm(tok) || isCodecKeyword(tok)) {
             model.setIndexFlags(false, configuration.getIndexValueBlockSize());
             return tok;
         }
 
         expectTok(lexer, tok, "index");
 
-        if (isFieldTerm(tok = tok(lexer, ") | , expected"))) {
+        if (isFieldTerm(tok = tok(lexer, ") | , expected")) || isCodecKeyword(tok)) {
             model.setIndexFlags(true, configuration.getIndexValueBlockSize());
             return tok;
         }
@@ -705,6 +719,35 @@ public final class SqlParser {
         return null;
     }
 
+    private void parseCreateTableDedupKeys(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        final int dedupPosition = lexer.lastTokenPosition();
+        if (model.getPartitionBy() == PartitionBy.NONE) {
+            throw SqlException.$(dedupPosition, "dedup is supported only for partitioned tables with designated timestamp");
+        }
+        expectTok(lexer, "upsert");
+        expectTok(lexer, "keys");
+        expectTok(lexer, '(');
+        CharSequence tok;
+        do {
+            tok = tok(lexer, "column name");
+            final int position = lexer.lastTokenPosition();
+            final int columnIndex = getCreateTableColumnIndex(model, GenericLexer.unquote(tok), position);
+            final int columnType = model.getColumnType(columnIndex);
+            // type of "create as select" columns is not known yet, compiler validates them
+            if (columnType != -1) {
+                SqlUtil.expectDedupKeyType(tok, position, columnType);
+            }
+            model.setDedupKey(columnIndex);
+            tok = tok(lexer, "',' or ')'");
+        } while (Chars.equals(tok, ','));
+        expectTok(lexer, tok, ")");
+
+        final int timestampIndex = model.getTimestampIndex();
+        if (timestampIndex == -1 || !model.isDedupKey(timestampIndex)) {
+            throw SqlException.$(dedupPosition, "dedup key list must include designated timestamp");
+        }
+    }
+
     private ExpressionNode parseCreateTablePartition(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (tok != null && isPartitionKeyword(tok)) {
             expectTok(lexer, "by");
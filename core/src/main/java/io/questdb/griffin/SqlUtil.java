@@ -24,6 +24,8 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.codec.ColumnCodecs;
 import io.questdb.griffin.model.ExpressionNode;
 import io.questdb.griffin.model.QueryColumn;
 import io.questdb.std.*;
@@ -136,6 +138,27 @@ public class SqlUtil {
         return queryColumnPool.next().of(alias, nextLiteral(sqlNodePool, column, 0));
     }
 
+    static int expectColumnCodec(CharSequence tok, int position, int columnType) throws SqlException {
+        final int codecId = ColumnCodecs.idOf(tok);
+        if (codecId == -1) {
+            throw SqlException.$(position, "invalid codec [name=").put(tok).put(']');
+        }
+        if (!ColumnCodecs.isSupported(codecId, columnType)) {
+            throw SqlException.$(position, "codec is not supported by column type [codec=").put(tok)
+                    .put(", type=").put(ColumnType.nameOf(columnType))
+                    .put(']');
+        }
+        return codecId;
+    }
+
+    static void expectDedupKeyType(CharSequence columnName, int position, int columnType) throws SqlException {
+        if (ColumnType.isVariableLength(columnType)) {
+            throw SqlException.$(position, "dedup key column must be of fixed size type [column=").put(columnName)
+                    .put(", type=").put(ColumnType.nameOf(columnType))
+                    .put(']');
+        }
+    }
+
     static long expectMicros(CharSequence tok, int position) throws SqlException {
         int k = -1;
 
@@ -51,6 +51,12 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     @Override
     public void close() {
         base.close();
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.explain;
+
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.Rows;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Wraps plan node for EXPLAIN ANALYZE and counts rows it produces, time spent in its cursor
+ * and table partitions it touches. Time includes time spent in the nodes below.
+ */
+public class AnalyzeRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final AnalyzeRecordCursor cursor = new AnalyzeRecordCursor();
+    private final AnalyzePageFrameCursor pageFrameCursor = new AnalyzePageFrameCursor();
+    private final boolean tableScan;
+    private long rowCount;
+    private long timeNanos;
+    private long partitionCount;
+    private long pageFrameCount;
+    private int lastPartitionIndex;
+
+    public AnalyzeRecordCursorFactory(RecordCursorFactory base) {
+        this.base = base;
+        this.tableScan = QueryPlan.isTableScan(base);
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+    }
+
+    @Override
+    public SingleSymbolFilter convertToSampleByIndexDataFrameCursorFactory() {
+        return base.convertToSampleByIndexDataFrameCursorFactory();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    public RecordCursorFactory getBase() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final long start = System.nanoTime();
+        try {
+            cursor.of(base.getCursor(executionContext));
+        } finally {
+            timeNanos += System.nanoTime() - start;
+        }
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) throws SqlException {
+        final long start = System.nanoTime();
+        try {
+            final PageFrameCursor baseCursor = base.getPageFrameCursor(executionContext);
+            if (baseCursor == null) {
+                return null;
+            }
+            pageFrameCursor.of(baseCursor);
+        } finally {
+            timeNanos += System.nanoTime() - start;
+        }
+        return pageFrameCursor;
+    }
+
+    public long getPageFrameCount() {
+        return pageFrameCount;
+    }
+
+    public long getPartitionCount() {
+        return partitionCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public boolean isTableScan() {
+        return tableScan;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        base.toPlan(sink);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        base.toSink(sink);
+    }
+
+    void clearStats() {
+        rowCount = 0;
+        timeNanos = 0;
+        partitionCount = 0;
+        pageFrameCount = 0;
+        lastPartitionIndex = -1;
+    }
+
+    private void touchPartition(int partitionIndex) {
+        if (partitionIndex != lastPartitionIndex) {
+            partitionCount++;
+            lastPartitionIndex = partitionIndex;
+        }
+    }
+
+    private class AnalyzeRecordCursor implements RecordCursor {
+        private RecordCursor base;
+        private Record record;
+
+        @Override
+        public void close() {
+            final long start = System.nanoTime();
+            try {
+                base = Misc.free(base);
+            } finally {
+                timeNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            return base.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            final long start = System.nanoTime();
+            final boolean next = base.hasNext();
+            timeNanos += System.nanoTime() - start;
+            if (next) {
+                rowCount++;
+                if (tableScan) {
+                    touchPartition(Rows.toPartitionIndex(record.getRowId()));
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            base.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+            lastPartitionIndex = -1;
+        }
+
+        void of(RecordCursor base) {
+            this.base = base;
+            this.record = base.getRecord();
+            lastPartitionIndex = -1;
+        }
+    }
+
+    private class AnalyzePageFrameCursor implements PageFrameCursor {
+        private PageFrameCursor base;
+
+        @Override
+        public void close() {
+            base = Misc.free(base);
+        }
+
+        @Override
+        public SymbolMapReader getSymbolMapReader(int columnIndex) {
+            return base.getSymbolMapReader(columnIndex);
+        }
+
+        @Override
+        public boolean mustReleaseFrames() {
+            return base.mustReleaseFrames();
+        }
+
+        @Override
+        public @Nullable PageFrame next() {
+            final long start = System.nanoTime();
+            final PageFrame frame = base.next();
+            timeNanos += System.nanoTime() - start;
+            if (frame != null) {
+                pageFrameCount++;
+                touchPartition(frame.getPartitionIndex());
+            }
+            return frame;
+        }
+
+        @Override
+        public void releaseFrames() {
+            base.releaseFrames();
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+            lastPartitionIndex = -1;
+        }
+
+        void of(PageFrameCursor base) {
+            this.base = base;
+            lastPartitionIndex = -1;
+        }
+    }
+}
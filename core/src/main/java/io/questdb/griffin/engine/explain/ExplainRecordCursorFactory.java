@@ -0,0 +1,185 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.explain;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Result of EXPLAIN, one row per line of the query plan. EXPLAIN ANALYZE executes the query
+ * first and adds row counts and timings to plan nodes, as well as native memory the query
+ * held at the end of execution. Memory is measured with process-wide counters and includes
+ * allocations of concurrent queries.
+ */
+public class ExplainRecordCursorFactory implements RecordCursorFactory {
+    private final static GenericRecordMetadata METADATA = new GenericRecordMetadata();
+    private final RecordCursorFactory base;
+    private final boolean analyze;
+    private final QueryPlan plan = new QueryPlan();
+    private final PlanRecordCursor cursor = new PlanRecordCursor();
+    private final LongList memUsed = new LongList(MemoryTag.SIZE);
+    private final StringSink sink = new StringSink();
+
+    public ExplainRecordCursorFactory(RecordCursorFactory base, boolean analyze) {
+        this.base = base;
+        this.analyze = analyze;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        if (analyze) {
+            analyze(executionContext);
+        } else {
+            plan.of(base, false, executionContext);
+        }
+        cursor.of(plan.getLines());
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return METADATA;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private void analyze(SqlExecutionContext executionContext) throws SqlException {
+        QueryPlan.clearStats(base);
+        memUsed.clear();
+        for (int i = 0; i < MemoryTag.SIZE; i++) {
+            memUsed.add(Unsafe.getMemUsedByTag(i));
+        }
+
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+        final long start = System.nanoTime();
+        long rowCount = 0;
+        try (RecordCursor baseCursor = base.getCursor(executionContext)) {
+            while (baseCursor.hasNext()) {
+                interruptor.checkInterrupted();
+                rowCount++;
+            }
+            for (int i = 0; i < MemoryTag.SIZE; i++) {
+                memUsed.setQuick(i, Unsafe.getMemUsedByTag(i) - memUsed.getQuick(i));
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        plan.of(base, true, executionContext);
+        final ObjList<String> lines = plan.getLines();
+        sink.clear();
+        sink.put("Execution (rows=").put(rowCount).put(" time=").put(elapsed / 1_000_000.0).put("ms)");
+        lines.add(sink.toString());
+        for (int i = 0; i < MemoryTag.SIZE; i++) {
+            final long delta = memUsed.getQuick(i);
+            if (delta != 0) {
+                sink.clear();
+                sink.put("  memory: ").put(MemoryTag.nameOf(i)).put('=').put(delta);
+                lines.add(sink.toString());
+            }
+        }
+    }
+
+    private static class PlanRecordCursor implements NoRandomAccessRecordCursor {
+        private final PlanRecord record = new PlanRecord();
+        private ObjList<String> lines;
+        private int index;
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < lines.size()) {
+                record.line = lines.getQuick(index++);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public long size() {
+            return lines.size();
+        }
+
+        @Override
+        public void toTop() {
+            index = 0;
+        }
+
+        void of(ObjList<String> lines) {
+            this.lines = lines;
+            toTop();
+        }
+    }
+
+    private static class PlanRecord implements Record {
+        private String line;
+
+        @Override
+        public CharSequence getStr(int col) {
+            return line;
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return line;
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return line.length();
+        }
+    }
+
+    static {
+        METADATA.add(new TableColumnMetadata("QUERY PLAN", ColumnType.STRING, null));
+    }
+}
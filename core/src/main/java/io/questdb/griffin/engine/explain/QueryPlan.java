@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.explain;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Renders tree of record cursor factories as text lines, one line per node and per attribute
+ * of the node. Factories describe themselves and their inputs via {@link Plannable#toPlan(PlanSink)}.
+ * The same walk over the tree is used to reset EXPLAIN ANALYZE statistics and to find out whether
+ * a factory scans table data frames.
+ */
+class QueryPlan implements PlanSink {
+    private static final int MAX_DEPTH = 64;
+    private static final int MODE_PRINT = 0;
+    private static final int MODE_CLEAR_STATS = 1;
+    private static final int MODE_FIND_FRAMES = 2;
+    private final ObjList<String> lines = new ObjList<>();
+    private final StringSink sink = new StringSink();
+    private final int mode;
+    private boolean analyze;
+    private SqlExecutionContext executionContext;
+    private AnalyzeRecordCursorFactory stats;
+    private boolean tableScan;
+    private int depth;
+
+    QueryPlan() {
+        this(MODE_PRINT);
+    }
+
+    private QueryPlan(int mode) {
+        this.mode = mode;
+    }
+
+    static void clearStats(RecordCursorFactory factory) {
+        new QueryPlan(MODE_CLEAR_STATS).describe(factory);
+    }
+
+    /**
+     * @return true when factory itself reads table data frames, row ids of such factory encode partition index
+     */
+    static boolean isTableScan(RecordCursorFactory factory) {
+        final QueryPlan plan = new QueryPlan(MODE_FIND_FRAMES);
+        factory.toPlan(plan);
+        return plan.tableScan;
+    }
+
+    @Override
+    public PlanSink attr(CharSequence name) {
+        if (mode == MODE_PRINT) {
+            flush();
+            indent(depth + 1);
+            sink.put(name).put(": ");
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink child(RecordCursorFactory factory) {
+        // frames are looked for in the node itself, not in its inputs
+        if (mode != MODE_FIND_FRAMES && factory != null && depth < MAX_DEPTH) {
+            flush();
+            depth++;
+            describe(factory);
+            depth--;
+        }
+        return this;
+    }
+
+    @Override
+    public @Nullable SqlExecutionContext getExecutionContext() {
+        return mode == MODE_PRINT ? executionContext : null;
+    }
+
+    @Override
+    public PlanSink type(CharSequence type) {
+        if (mode == MODE_PRINT) {
+            flush();
+            indent(depth);
+            sink.put(type);
+            if (analyze && stats != null) {
+                sink.put(" (rows=").put(stats.getRowCount());
+                sink.put(" time=").put(stats.getTimeNanos() / 1_000_000.0).put("ms");
+                if (stats.getPageFrameCount() > 0) {
+                    sink.put(" frames=").put(stats.getPageFrameCount());
+                }
+                if (stats.isTableScan() || stats.getPageFrameCount() > 0) {
+                    sink.put(" partitions=").put(stats.getPartitionCount());
+                }
+                sink.put(')');
+            }
+            stats = null;
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink val(CharSequence value) {
+        if (mode == MODE_PRINT) {
+            sink.put(value != null ? value : "null");
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink val(long value) {
+        if (mode == MODE_PRINT) {
+            sink.put(value);
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink val(char value) {
+        if (mode == MODE_PRINT) {
+            sink.put(value);
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink val(Function function) {
+        if (mode == MODE_PRINT) {
+            final String name = function.getClass().getName();
+            // hidden classes, such as lambdas and compiled filters, have address suffix
+            final int hi = name.indexOf('/');
+            sink.put(name, name.lastIndexOf('.', hi > -1 ? hi : name.length()) + 1, hi > -1 ? hi : name.length());
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink val(Plannable plannable) {
+        if (mode == MODE_PRINT) {
+            plannable.toPlan(this);
+        } else if (mode == MODE_FIND_FRAMES && plannable instanceof DataFrameCursorFactory) {
+            tableScan = true;
+        }
+        return this;
+    }
+
+    @Override
+    public PlanSink valTimestamp(long timestamp) {
+        if (mode == MODE_PRINT) {
+            sink.putISODate(timestamp);
+        }
+        return this;
+    }
+
+    ObjList<String> getLines() {
+        return lines;
+    }
+
+    void of(RecordCursorFactory factory, boolean analyze, SqlExecutionContext executionContext) {
+        this.analyze = analyze;
+        this.executionContext = executionContext;
+        lines.clear();
+        sink.clear();
+        depth = 0;
+        describe(factory);
+        flush();
+        this.executionContext = null;
+    }
+
+    private void describe(RecordCursorFactory factory) {
+        if (factory instanceof AnalyzeRecordCursorFactory) {
+            stats = (AnalyzeRecordCursorFactory) factory;
+            if (mode == MODE_CLEAR_STATS) {
+                stats.clearStats();
+            }
+            factory = stats.getBase();
+        } else {
+            stats = null;
+        }
+        factory.toPlan(this);
+    }
+
+    private void flush() {
+        if (sink.length() > 0) {
+            lines.add(sink.toString());
+            sink.clear();
+        }
+    }
+
+    private void indent(int depth) {
+        for (int i = 0; i < depth; i++) {
+            sink.put("  ");
+        }
+    }
+}
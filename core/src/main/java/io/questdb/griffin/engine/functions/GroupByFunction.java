@@ -49,10 +49,33 @@ public interface GroupByFunction extends Function {
 
     void computeNext(MapValue mapValue, Record record);
 
+    /**
+     * Parallel group by aggregates disjoint sets of rows into separate maps and then
+     * combines values of the same key with {@link #merge(MapValue, MapValue)}.
+     *
+     * @return true when function implements merge
+     */
+    default boolean isParallelismSupported() {
+        return false;
+    }
+
     default boolean isScalar() {
         return true;
     }
 
+    /**
+     * Combines partial aggregate of source value into destination value. Both values
+     * have the same layout, as defined by {@link #pushValueTypes(ArrayColumnTypes)}.
+     * Implementations must not change state of the function, merge can run concurrently
+     * on several threads.
+     *
+     * @param destValue value to be updated
+     * @param srcValue  partial aggregate to be merged into destination value
+     */
+    default void merge(MapValue destValue, MapValue srcValue) {
+        throw new UnsupportedOperationException();
+    }
+
     void pushValueTypes(ArrayColumnTypes columnTypes);
 
     default void setByte(MapValue mapValue, byte value) {
@@ -70,6 +70,23 @@ public class KSumDoubleGroupByFunction extends DoubleFunction implements GroupBy
         }
     }
 
+    @Override
+    public boolean isParallelismSupported() {
+        return true;
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        // fold source compensation into the value before adding it, same as for a single row
+        double sum = destValue.getDouble(valueIndex);
+        double c = destValue.getDouble(valueIndex + 1);
+        double y = (srcValue.getDouble(valueIndex) - srcValue.getDouble(valueIndex + 1)) - c;
+        double t = sum + y;
+        destValue.putDouble(valueIndex, t);
+        destValue.putDouble(valueIndex + 1, t - sum - y);
+        destValue.addLong(valueIndex + 2, srcValue.getLong(valueIndex + 2));
+    }
+
     @Override
     public void pushValueTypes(ArrayColumnTypes columnTypes) {
         this.valueIndex = columnTypes.getColumnCount();
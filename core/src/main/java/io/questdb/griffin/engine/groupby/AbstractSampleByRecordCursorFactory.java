@@ -25,6 +25,7 @@
 package io.questdb.griffin.engine.groupby;
 
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -65,6 +66,12 @@ public abstract class AbstractSampleByRecordCursorFactory implements RecordCurso
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     protected abstract AbstractNoRecordSampleByCursor getRawCursor();
 
     protected RecordCursor initFunctionsAndCursor(
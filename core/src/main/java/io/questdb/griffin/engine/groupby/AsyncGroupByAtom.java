@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * State shared by the units of work of parallel group by. Every thread aggregates rows into
+ * its own slot, i.e. its own map, copy of group by functions and page frame record. The last
+ * slot belongs to the thread that owns the cursor. Once all rows are aggregated, slot maps are
+ * merged into partition maps, where each partition holds keys from a distinct range of hash
+ * codes. Partitions are merged independently of each other.
+ */
+class AsyncGroupByAtom implements FastMap.MergeFunction, Closeable {
+    private final ObjList<FastMap> maps;
+    private final ObjList<FastMap> partitionMaps;
+    private final ObjList<ObjList<GroupByFunction>> functions;
+    private final ObjList<PageFrameRecord> records;
+    private final ObjList<GroupByFunction> mergeFunctions;
+    private final RecordSink mapSink;
+    private final int partitionShift;
+
+    AsyncGroupByAtom(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink mapSink,
+            ObjList<ObjList<GroupByFunction>> functions
+    ) {
+        final int slotCount = functions.size();
+        this.functions = functions;
+        this.mergeFunctions = functions.getLast();
+        this.mapSink = mapSink;
+        this.maps = new ObjList<>(slotCount);
+        this.records = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            maps.add(createMap(configuration, keyTypes, valueTypes));
+            records.add(new PageFrameRecord());
+        }
+        final int partitionCount = Numbers.ceilPow2(slotCount);
+        this.partitionShift = Numbers.msb(partitionCount);
+        this.partitionMaps = new ObjList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitionMaps.add(createMap(configuration, keyTypes, valueTypes));
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(maps);
+        Misc.freeObjList(partitionMaps);
+        for (int i = 0, n = functions.size() - 1; i < n; i++) {
+            // the last slot functions are owned by cursor record functions
+            Misc.freeObjList(functions.getQuick(i));
+        }
+    }
+
+    @Override
+    public void merge(MapValue destValue, MapValue srcValue) {
+        for (int i = 0, n = mergeFunctions.size(); i < n; i++) {
+            mergeFunctions.getQuick(i).merge(destValue, srcValue);
+        }
+    }
+
+    void aggregate(int slot, LongList pageAddresses, long rowCount) {
+        final FastMap map = maps.getQuick(slot);
+        final ObjList<GroupByFunction> functions = this.functions.getQuick(slot);
+        final int n = functions.size();
+        final PageFrameRecord record = records.getQuick(slot);
+        record.of(pageAddresses);
+        for (long r = 0; r < rowCount; r++) {
+            record.setRowIndex(r);
+            final MapKey key = map.withKey();
+            mapSink.copy(record, key);
+            final MapValue value = key.createValue();
+            GroupByUtils.updateFunctions(functions, n, value, record);
+        }
+    }
+
+    ObjList<FastMap> getMaps() {
+        return maps;
+    }
+
+    int getOwnerSlot() {
+        return maps.size() - 1;
+    }
+
+    ObjList<FastMap> getPartitionMaps() {
+        return partitionMaps;
+    }
+
+    void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        for (int i = 0, n = maps.size(); i < n; i++) {
+            maps.getQuick(i).clear();
+            Function.init(functions.getQuick(i), symbolTableSource, executionContext);
+        }
+        for (int i = 0, n = partitionMaps.size(); i < n; i++) {
+            partitionMaps.getQuick(i).clear();
+        }
+    }
+
+    void merge(int partitionIndex) {
+        final FastMap partitionMap = partitionMaps.getQuick(partitionIndex);
+        for (int i = 0, n = maps.size(); i < n; i++) {
+            partitionMap.merge(maps.getQuick(i), partitionIndex, partitionShift, this);
+        }
+    }
+
+    private static FastMap createMap(CairoConfiguration configuration, ColumnTypes keyTypes, ColumnTypes valueTypes) {
+        return new FastMap(
+                configuration.getSqlMapPageSize(),
+                keyTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.sql.*;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Iterates over maps produced by parallel group by one after another. Key sets of the maps
+ * do not overlap, so the result is the concatenation of map contents. Row ids are absolute
+ * map entry addresses, which makes random access independent of the map the entry lives in.
+ */
+class AsyncGroupByRecordCursor implements RecordCursor, SymbolTableSource {
+    private final ObjList<Function> functions;
+    private final VirtualRecord recordA;
+    private final VirtualRecord recordB;
+    private final RecordCursor recordAtCursor;
+    private final SymbolTableSource baseSymbolTableSource = this::getBaseSymbolTable;
+    private PageFrameCursor pageFrameCursor;
+    private ObjList<FastMap> maps;
+    private RecordCursor mapCursor;
+    private int mapIndex;
+
+    AsyncGroupByRecordCursor(ObjList<Function> functions, FastMap recordAtMap) {
+        this.functions = functions;
+        this.recordA = new VirtualRecord(functions);
+        this.recordB = new VirtualRecord(functions);
+        this.recordAtCursor = recordAtMap.getCursor();
+        this.recordB.of(recordAtCursor.getRecordB());
+    }
+
+    @Override
+    public void close() {
+        pageFrameCursor = Misc.free(pageFrameCursor);
+    }
+
+    @Override
+    public Record getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return (SymbolTable) functions.getQuick(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (mapCursor.hasNext()) {
+                return true;
+            }
+            if (++mapIndex < maps.size()) {
+                switchMap();
+            } else {
+                mapIndex--;
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        recordAtCursor.recordAt(((VirtualRecord) record).getBaseRecord(), atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        mapIndex = 0;
+        switchMap();
+        GroupByUtils.toTop(functions);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (int i = 0, n = maps.size(); i < n; i++) {
+            size += maps.getQuick(i).size();
+        }
+        return size;
+    }
+
+    /**
+     * @return symbol tables of the base table, as opposed to symbol tables of this cursor's columns
+     */
+    SymbolTableSource getBaseSymbolTableSource() {
+        return baseSymbolTableSource;
+    }
+
+    void of(PageFrameCursor pageFrameCursor) {
+        this.pageFrameCursor = pageFrameCursor;
+    }
+
+    void of(ObjList<FastMap> maps) {
+        this.maps = maps;
+        this.mapIndex = 0;
+        switchMap();
+    }
+
+    private SymbolTable getBaseSymbolTable(int columnIndex) {
+        return pageFrameCursor.getSymbolMapReader(columnIndex);
+    }
+
+    private void switchMap() {
+        mapCursor = maps.getQuick(mapIndex).getCursor();
+        recordA.of(mapCursor.getRecord());
+    }
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.std.str.CharSink;
+import io.questdb.tasks.PageFrameGroupByTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keyed group by that aggregates page frames of the base factory on worker threads. Each thread
+ * fills its own map, maps are then merged in parallel, one hash partition per unit of work.
+ * Merge relies on {@link GroupByFunction#merge(io.questdb.cairo.map.MapValue, io.questdb.cairo.map.MapValue)},
+ * which is why all group by functions must support parallelism. Key columns and function
+ * arguments are read straight from page frames, so they must be fixed-size.
+ */
+public class AsyncGroupByRecordCursorFactory implements RecordCursorFactory {
+    private static final Log LOG = LogFactory.getLog(AsyncGroupByRecordCursorFactory.class);
+    private final RecordCursorFactory base;
+    private final RecordMetadata metadata;
+    private final ObjList<Function> recordFunctions;
+    private final AsyncGroupByAtom atom;
+    private final AsyncGroupByRecordCursor cursor;
+    private final ObjList<PageFrameGroupByEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final ObjList<FastMap> singleMap = new ObjList<>(1);
+    private final int columnCount;
+    private final long maxFrameRows;
+
+    public AsyncGroupByRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            RecordMetadata groupByMetadata,
+            ObjList<ObjList<GroupByFunction>> groupByFunctions,
+            ObjList<Function> recordFunctions
+    ) {
+        try {
+            final RecordSink mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            this.atom = new AsyncGroupByAtom(configuration, keyTypes, valueTypes, mapSink, groupByFunctions);
+            this.base = base;
+            this.metadata = groupByMetadata;
+            this.recordFunctions = recordFunctions;
+            this.columnCount = base.getMetadata().getColumnCount();
+            this.maxFrameRows = configuration.getSqlPageFrameMaxRows();
+            this.cursor = new AsyncGroupByRecordCursor(recordFunctions, atom.getPartitionMaps().getQuick(0));
+        } catch (Throwable e) {
+            for (int i = 0, n = groupByFunctions.size() - 1; i < n; i++) {
+                Misc.freeObjList(groupByFunctions.getQuick(i));
+            }
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.free(atom);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            cursor.of(pageFrameCursor);
+            atom.init(cursor.getBaseSymbolTableSource(), executionContext);
+            Function.init(recordFunctions, cursor.getBaseSymbolTableSource(), executionContext);
+
+            final MessageBus bus = executionContext.getMessageBus();
+            assert bus != null;
+            final RingQueue<PageFrameGroupByTask> queue = bus.getPageFrameGroupByQueue();
+            final Sequence pubSeq = bus.getPageFrameGroupByPubSeq();
+
+            // aggregate page frames into per-thread maps
+            int entryCount = 0;
+            doneLatch.reset();
+            try {
+                PageFrame frame;
+                while ((frame = pageFrameCursor.next()) != null) {
+                    // any of the frame columns will do, column tops report size in rows rather than bytes
+                    final long frameRowCount = frame.getPageAddress(0) == 0 ? frame.getPageSize(0) : frame.getPageSize(0) >> frame.getColumnSize(0);
+                    for (long lo = 0; lo < frameRowCount; lo += maxFrameRows) {
+                        executionContext.getSqlExecutionInterruptor().checkInterrupted();
+                        final PageFrameGroupByEntry entry = nextEntry(entryCount);
+                        entry.of(entryCount++, atom, frame, columnCount, lo, Math.min(frameRowCount, lo + maxFrameRows), doneLatch);
+                        dispatch(queue, pubSeq, entry);
+                    }
+                    if (pageFrameCursor.mustReleaseFrames()) {
+                        // frame buffers of the cursor are exhausted, wait for the frames to be aggregated
+                        awaitEntries(entryCount);
+                        pageFrameCursor.releaseFrames();
+                    }
+                }
+            } catch (Throwable e) {
+                cancelEntries(entryCount);
+                throw e;
+            }
+            final int frameEntryCount = entryCount;
+            awaitEntries(frameEntryCount);
+
+            // merge is only needed when more than one thread has got rows to aggregate
+            final ObjList<FastMap> maps = atom.getMaps();
+            FastMap nonEmptyMap = null;
+            int nonEmptyCount = 0;
+            for (int i = 0, n = maps.size(); i < n; i++) {
+                if (maps.getQuick(i).size() > 0) {
+                    nonEmptyMap = maps.getQuick(i);
+                    nonEmptyCount++;
+                }
+            }
+
+            if (nonEmptyCount > 1) {
+                final int partitionCount = atom.getPartitionMaps().size();
+                doneLatch.reset();
+                for (int i = 0; i < partitionCount; i++) {
+                    final PageFrameGroupByEntry entry = nextEntry(i);
+                    entry.of(i, atom, i, doneLatch);
+                    dispatch(queue, pubSeq, entry);
+                }
+                awaitEntries(partitionCount);
+                cursor.of(atom.getPartitionMaps());
+            } else {
+                singleMap.clear();
+                singleMap.add(nonEmptyMap == null ? maps.getQuick(0) : nonEmptyMap);
+                cursor.of(singleMap);
+            }
+            LOG.debug().$("aggregated [frames=").$(frameEntryCount).$(", maps=").$(nonEmptyCount).$(']').$();
+            return cursor;
+        } catch (Throwable e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("AsyncGroupByRecordCursorFactory");
+        sink.child(base);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AsyncGroupByRecordCursorFactory\", \"workers\":").put(atom.getOwnerSlot()).put(", \"base\":");
+        base.toSink(sink);
+        sink.put('}');
+    }
+
+    private static void dispatch(RingQueue<PageFrameGroupByTask> queue, Sequence pubSeq, PageFrameGroupByEntry entry) {
+        final long seq = pubSeq.next();
+        if (seq > -1) {
+            queue.get(seq).entry = entry;
+            pubSeq.done(seq);
+        } else {
+            // queue is full, do the work ourselves
+            entry.runByOwner();
+        }
+    }
+
+    private void awaitEntries(int entryCount) {
+        // help workers out starting from the back to reduce the chance of clashing
+        for (int i = entryCount - 1; i > -1 && doneLatch.getCount() > -entryCount; i--) {
+            entries.getQuick(i).runByOwner();
+        }
+        doneLatch.await(entryCount);
+
+        for (int i = 0; i < entryCount; i++) {
+            final Throwable error = entries.getQuick(i).getError();
+            if (error != null) {
+                if (error instanceof CairoException) {
+                    throw (CairoException) error;
+                }
+                throw CairoException.instance(0).put("group by failed [error=").put(error.getMessage()).put(']');
+            }
+        }
+    }
+
+    private void cancelEntries(int entryCount) {
+        // workers may still be reading page frames, wait for them before memory is released
+        for (int i = 0; i < entryCount; i++) {
+            entries.getQuick(i).cancel();
+        }
+        doneLatch.await(entryCount);
+    }
+
+    private PageFrameGroupByEntry nextEntry(int index) {
+        if (index == entries.size()) {
+            entries.add(new PageFrameGroupByEntry());
+        }
+        return entries.getQuick(index);
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.AbstractLockable;
+import io.questdb.std.LongList;
+
+/**
+ * Unit of work for parallel group by. Entry either aggregates a slice of a page frame into the
+ * map of the thread that runs it, or merges one hash partition of all thread-local maps.
+ * <p>
+ * Entry is executed exactly once, either by a worker thread or by the thread that owns the
+ * cursor, whichever locks it first.
+ */
+public class PageFrameGroupByEntry extends AbstractLockable {
+    private final LongList pageAddresses = new LongList();
+    private AsyncGroupByAtom atom;
+    private CountDownLatchSPI doneLatch;
+    private long rowCount;
+    // negative value denotes aggregation entry
+    private int partitionIndex;
+    private Throwable error;
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean run(int workerId) {
+        // worker ids outside of atom slots cannot run this entry, the owner will pick it up
+        if (workerId < atom.getOwnerSlot() && tryLock()) {
+            run0(workerId);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean runByOwner() {
+        if (tryLock()) {
+            run0(atom.getOwnerSlot());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Locks entry without running it. Used when query fails while entries are still in flight.
+     *
+     * @return true when entry will not be run by any thread
+     */
+    boolean cancel() {
+        if (tryLock()) {
+            doneLatch.countDown();
+            return true;
+        }
+        return false;
+    }
+
+    void of(int sequence, AsyncGroupByAtom atom, PageFrame frame, int columnCount, long lo, long hi, CountDownLatchSPI doneLatch) {
+        pageAddresses.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final long address = frame.getPageAddress(i);
+            pageAddresses.add(address == 0 ? 0 : address + (lo << frame.getColumnSize(i)));
+        }
+        this.rowCount = hi - lo;
+        of(sequence, atom, -1, doneLatch);
+    }
+
+    void of(int sequence, AsyncGroupByAtom atom, int partitionIndex, CountDownLatchSPI doneLatch) {
+        this.atom = atom;
+        this.partitionIndex = partitionIndex;
+        this.doneLatch = doneLatch;
+        this.error = null;
+        of(sequence);
+    }
+
+    private void run0(int slot) {
+        try {
+            if (partitionIndex < 0) {
+                atom.aggregate(slot, pageAddresses, rowCount);
+            } else {
+                atom.merge(partitionIndex);
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            doneLatch.countDown();
+        }
+    }
+}
@@ -134,6 +134,12 @@ public class SampleByFirstLastRecordCursorFactory implements RecordCursorFactory
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     private void buildFirstLastIndex(
             int[] firstLastIndex,
             int[] queryToFrameColumnMapping,
@@ -426,6 +426,12 @@ public class SampleByInterpolateRecordCursorFactory implements RecordCursorFacto
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     private void computeYPoints(MapValue x1Value, MapValue x2value) {
         for (int i = 0; i < groupByScalarFunctionCount; i++) {
             InterpolationUtil.StoreYFunction storeYFunction = storeYFunctions.getQuick(i);
@@ -51,6 +51,8 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
     private final RecordMetadata metadata;
     private final GroupByNotKeyedVectorRecordCursor cursor;
+    // count() has no column, it sizes frames by a column of another function
+    private final int countColumnIndex;
 
     public GroupByNotKeyedVectorRecordCursorFactory(
             CairoConfiguration configuration,
@@ -64,9 +66,23 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         this.metadata = metadata;
         this.vafList = new ObjList<>(vafList.size());
         this.vafList.addAll(vafList);
+        int countColumnIndex = 0;
+        for (int i = 0, n = vafList.size(); i < n; i++) {
+            final int columnIndex = vafList.getQuick(i).getColumnIndex();
+            if (columnIndex > -1) {
+                countColumnIndex = columnIndex;
+                break;
+            }
+        }
+        this.countColumnIndex = countColumnIndex;
         this.cursor = new GroupByNotKeyedVectorRecordCursor(this.vafList);
     }
 
+    @Override
+    public void close() {
+        Misc.free(base);
+    }
+
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
         final MessageBus bus = executionContext.getMessageBus();
@@ -102,30 +118,42 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         }
 
         PageFrame frame;
-        while ((frame = cursor.next()) != null) {
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                final int columnIndex = vaf.getColumnIndex();
-                final long pageAddress = frame.getPageAddress(columnIndex);
-                final long pageSize = frame.getPageSize(columnIndex);
-                final int colSizeShr = frame.getColumnSize(columnIndex);
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    // diy the func
-                    // vaf need to know which column it is hitting in the frame and will need to
-                    // aggregate between frames until done
-                    vaf.aggregate(pageAddress, pageSize, colSizeShr, workerId);
-                    ownCount++;
-                } else {
-                    final VectorAggregateEntry entry = entryPool.next();
-                    // null pRosti means that we do not need keyed aggregation
-                    entry.of(queuedCount++, vaf, null, 0, pageAddress, pageSize, colSizeShr, doneLatch);
-                    activeEntries.add(entry);
-                    queue.get(seq).entry = entry;
-                    pubSeq.done(seq);
+        try {
+            while ((frame = cursor.next()) != null) {
+                for (int i = 0; i < vafCount; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    final int columnIndex = vaf.getColumnIndex() > -1 ? vaf.getColumnIndex() : countColumnIndex;
+                    final long pageAddress = frame.getPageAddress(columnIndex);
+                    final long pageSize = frame.getPageSize(columnIndex);
+                    final int colSizeShr = frame.getColumnSize(columnIndex);
+                    long seq = pubSeq.next();
+                    if (seq < 0) {
+                        // diy the func
+                        // vaf need to know which column it is hitting in the frame and will need to
+                        // aggregate between frames until done
+                        vaf.aggregate(pageAddress, pageSize, colSizeShr, workerId);
+                        ownCount++;
+                    } else {
+                        final VectorAggregateEntry entry = entryPool.next();
+                        // null pRosti means that we do not need keyed aggregation
+                        entry.of(queuedCount++, vaf, null, 0, pageAddress, pageSize, colSizeShr, doneLatch);
+                        activeEntries.add(entry);
+                        queue.get(seq).entry = entry;
+                        pubSeq.done(seq);
+                    }
+                    total++;
+                }
+                if (cursor.mustReleaseFrames()) {
+                    // frame buffers of the cursor are exhausted, wait for the frames to be aggregated
+                    reclaimed = getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+                    cursor.releaseFrames();
                 }
-                total++;
             }
+        } catch (Throwable e) {
+            // frames may be released by the cursor, wait for published tasks before closing it
+            getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+            Misc.free(cursor);
+            throw e;
         }
 
         // all done? great start consuming the queue we just published
@@ -150,6 +178,12 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     static int getRunWhatsLeft(int queuedCount, int reclaimed, int workerId, ObjList<VectorAggregateEntry> activeEntries, SOUnboundedCountDownLatch doneLatch, Log log) {
         for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
             if (activeEntries.getQuick(i).run(workerId)) {
@@ -155,6 +155,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         for (int i = 0, n = pRosti.length; i < n; i++) {
             Rosti.free(pRosti[i]);
         }
+        Misc.free(base);
     }
 
     @Override
@@ -198,41 +199,53 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         }
 
         PageFrame frame;
-        while ((frame = cursor.next()) != null) {
-            final long keyAddress = frame.getPageAddress(keyColumnIndex);
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                // when column index = -1 we assume that vector function does not have value
-                // argument and it can only derive count via memory size
-                final int columnIndex = vaf.getColumnIndex();
-                final long valueAddress = columnIndex > -1 ? frame.getPageAddress(columnIndex) : 0;
-                final int pageColIndex = columnIndex > -1 ? columnIndex : keyColumnIndex;
-                final int columnSizeShr = frame.getColumnSize(pageColIndex);
-                final long valueAddressSize = frame.getPageSize(pageColIndex);
-
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    if (keyAddress == 0) {
-                        vaf.aggregate(valueAddress, valueAddressSize, columnSizeShr, workerId);
-                    } else {
-                        vaf.aggregate(pRosti[workerId], keyAddress, valueAddress, valueAddressSize, columnSizeShr, workerId);
-                    }
-                    ownCount++;
-                } else {
-                    if (keyAddress != 0 || valueAddress != 0) {
-                        final VectorAggregateEntry entry = entryPool.next();
+        try {
+            while ((frame = cursor.next()) != null) {
+                final long keyAddress = frame.getPageAddress(keyColumnIndex);
+                for (int i = 0; i < vafCount; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    // when column index = -1 we assume that vector function does not have value
+                    // argument and it can only derive count via memory size
+                    final int columnIndex = vaf.getColumnIndex();
+                    final long valueAddress = columnIndex > -1 ? frame.getPageAddress(columnIndex) : 0;
+                    final int pageColIndex = columnIndex > -1 ? columnIndex : keyColumnIndex;
+                    final int columnSizeShr = frame.getColumnSize(pageColIndex);
+                    final long valueAddressSize = frame.getPageSize(pageColIndex);
+
+                    long seq = pubSeq.next();
+                    if (seq < 0) {
                         if (keyAddress == 0) {
-                            entry.of(queuedCount++, vaf, null, 0, valueAddress, valueAddressSize, columnSizeShr, doneLatch);
+                            vaf.aggregate(valueAddress, valueAddressSize, columnSizeShr, workerId);
                         } else {
-                            entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueAddressSize, columnSizeShr, doneLatch);
+                            vaf.aggregate(pRosti[workerId], keyAddress, valueAddress, valueAddressSize, columnSizeShr, workerId);
+                        }
+                        ownCount++;
+                    } else {
+                        if (keyAddress != 0 || valueAddress != 0) {
+                            final VectorAggregateEntry entry = entryPool.next();
+                            if (keyAddress == 0) {
+                                entry.of(queuedCount++, vaf, null, 0, valueAddress, valueAddressSize, columnSizeShr, doneLatch);
+                            } else {
+                                entry.of(queuedCount++, vaf, pRosti, keyAddress, valueAddress, valueAddressSize, columnSizeShr, doneLatch);
+                            }
+                            activeEntries.add(entry);
+                            queue.get(seq).entry = entry;
+                            pubSeq.done(seq);
                         }
-                        activeEntries.add(entry);
-                        queue.get(seq).entry = entry;
-                        pubSeq.done(seq);
                     }
+                    total++;
+                }
+                if (cursor.mustReleaseFrames()) {
+                    // frame buffers of the cursor are exhausted, wait for the frames to be aggregated
+                    reclaimed = GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+                    cursor.releaseFrames();
                 }
-                total++;
             }
+        } catch (Throwable e) {
+            // frames may be released by the cursor, wait for published tasks before closing it
+            GroupByNotKeyedVectorRecordCursorFactory.getRunWhatsLeft(queuedCount, reclaimed, workerId, activeEntries, doneLatch, LOG);
+            Misc.free(cursor);
+            throw e;
         }
 
         // all done? great start consuming the queue we just published
@@ -275,6 +288,12 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
+
     private static class RostiRecordCursor implements RecordCursor {
         private final RostiRecord record;
         private final long pRosti;
@@ -24,10 +24,7 @@
 
 package io.questdb.griffin.engine.join;
 
-import io.questdb.cairo.AbstractRecordCursorFactory;
-import io.questdb.cairo.CairoConfiguration;
-import io.questdb.cairo.ColumnTypes;
-import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.*;
 import io.questdb.cairo.map.Map;
 import io.questdb.cairo.map.MapFactory;
 import io.questdb.cairo.map.MapKey;
@@ -36,10 +33,13 @@ import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.table.FilteredRecordCursorFactory;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
 public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final ArrayColumnTypes ROW_ID_TYPES = new ArrayColumnTypes();
+    private static final RecordSink ROW_ID_SINK = (r, w) -> w.putLong(r.getRowId());
     private final Map joinKeyMap;
     private final LongChain slaveChain;
     private final RecordCursorFactory masterFactory;
@@ -47,6 +47,10 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private final RecordSink masterKeySink;
     private final RecordSink slaveKeySink;
     private final HashJoinRecordCursor cursor;
+    private final SpilledJoinPartitions partitions;
+    private final JoinKeyBloomFilter bloomFilter;
+    private final JoinKeyBloomFilterFunction masterKeyFilter;
+    private final long spillThreshold;
 
     public HashJoinLightRecordCursorFactory(
             CairoConfiguration configuration,
@@ -57,16 +61,28 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
             RecordSink masterKeySink,
             RecordSink slaveKeySink,
+            RecordSink masterChainSink,
             int columnSplit
 
     ) {
         super(metadata);
-        this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
         joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes);
+        this.bloomFilter = new JoinKeyBloomFilter(configuration);
+        if (configuration.isSqlHashJoinBloomFilterEnabled()) {
+            // master rows are filtered as they are scanned
+            this.masterKeyFilter = new JoinKeyBloomFilterFunction(joinKeyMap, masterKeySink, bloomFilter);
+            this.masterFactory = new FilteredRecordCursorFactory(configuration, masterFactory, masterKeyFilter);
+        } else {
+            this.masterKeyFilter = null;
+            this.masterFactory = masterFactory;
+        }
         slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
+        // slave partitions keep row ids only, slave records are read back via random access
+        this.partitions = new SpilledJoinPartitions(configuration, masterFactory.getMetadata(), masterChainSink, ROW_ID_TYPES, ROW_ID_SINK);
+        this.spillThreshold = configuration.getSqlHashJoinSpillThreshold();
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
     }
 
@@ -74,6 +90,8 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     public void close() {
         joinKeyMap.close();
         slaveChain.close();
+        partitions.close();
+        bloomFilter.close();
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -82,13 +100,26 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
         RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        RecordCursor masterCursor = null;
         try {
-            buildMapOfSlaveRecords(slaveCursor, executionContext.getSqlExecutionInterruptor());
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+            if (buildMapOfSlaveRecords(slaveCursor, interruptor)) {
+                masterCursor = masterFactory.getCursor(executionContext);
+                cursor.of(masterCursor, slaveCursor);
+            } else {
+                // slave side does not fit in memory, join one partition pair at a time
+                slaveCursor.toTop();
+                partitions.partitionSlave(slaveCursor, slaveKeySink, interruptor);
+                masterCursor = masterFactory.getCursor(executionContext);
+                partitions.partitionMaster(masterCursor, masterKeySink, interruptor);
+                cursor.ofPartitions(masterCursor, slaveCursor, interruptor);
+            }
         } catch (Throwable e) {
+            Misc.free(masterCursor);
             slaveCursor.close();
+            partitions.clear();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
         return cursor;
     }
 
@@ -97,23 +128,68 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         return false;
     }
 
-    private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    private void addSlaveRecord(Record record, long rowId) {
+        MapKey key = joinKeyMap.withKey();
+        key.put(record, slaveKeySink);
+        final long hash = key.hash();
+        MapValue value = key.createValue(hash);
+        if (value.isNew()) {
+            bloomFilter.add(hash);
+            final long offset = slaveChain.put(rowId, -1);
+            value.putLong(0, offset);
+            value.putLong(1, offset);
+        } else {
+            value.putLong(1, slaveChain.put(rowId, value.getLong(1)));
+        }
+    }
+
+    /**
+     * @return false when slave records exceed spill threshold, map is incomplete in this case
+     */
+    private boolean buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
         slaveChain.clear();
         joinKeyMap.clear();
+        bloomFilter.clear();
         final Record record = slaveCursor.getRecord();
         while (slaveCursor.hasNext()) {
             interruptor.checkInterrupted();
-            MapKey key = joinKeyMap.withKey();
-            key.put(record, slaveKeySink);
-            MapValue value = key.createValue();
-            if (value.isNew()) {
-                final long offset = slaveChain.put(record.getRowId(), -1);
-                value.putLong(0, offset);
-                value.putLong(1, offset);
-            } else {
-                value.putLong(1, slaveChain.put(record.getRowId(), value.getLong(1)));
+            addSlaveRecord(record, record.getRowId());
+            if (slaveChain.getMemUsed() > spillThreshold) {
+                slaveChain.clear();
+                joinKeyMap.clear();
+                bloomFilter.clear();
+                return false;
             }
         }
+        bloomFilter.build();
+        return true;
+    }
+
+    private void buildMapOfSlavePartition(RecordCursor slaveCursor, RecordChain slavePartition, SqlExecutionInterruptor interruptor) {
+        slaveChain.clear();
+        joinKeyMap.clear();
+        bloomFilter.clear();
+        final Record rowIdRecord = slavePartition.getRecord();
+        final Record record = slaveCursor.getRecord();
+        slavePartition.toTop();
+        while (slavePartition.hasNext()) {
+            interruptor.checkInterrupted();
+            final long rowId = rowIdRecord.getLong(0);
+            slaveCursor.recordAt(record, rowId);
+            addSlaveRecord(record, rowId);
+        }
+        bloomFilter.build();
+    }
+
+    static {
+        ROW_ID_TYPES.add(ColumnType.LONG);
     }
 
     private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
@@ -121,11 +197,15 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         private final LongChain slaveChain;
         private final Map joinKeyMap;
         private final int columnSplit;
+        private RecordCursor baseMasterCursor;
         private RecordCursor masterCursor;
         private RecordCursor slaveCursor;
         private Record masterRecord;
         private LongChain.TreeCursor slaveChainCursor;
         private Record slaveRecord;
+        private SqlExecutionInterruptor interruptor;
+        private boolean spilled;
+        private int partitionIndex;
 
         public HashJoinRecordCursor(
                 int columnSplit,
@@ -140,8 +220,10 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
 
         @Override
         public void close() {
-            masterCursor = Misc.free(masterCursor);
+            baseMasterCursor = Misc.free(baseMasterCursor);
+            masterCursor = null;
             slaveCursor = Misc.free(slaveCursor);
+            partitions.clear();
         }
 
         @Override
@@ -152,7 +234,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         @Override
         public SymbolTable getSymbolTable(int columnIndex) {
             if (columnIndex < columnSplit) {
-                return masterCursor.getSymbolTable(columnIndex);
+                return baseMasterCursor.getSymbolTable(columnIndex);
             }
             return slaveCursor.getSymbolTable(columnIndex - columnSplit);
         }
@@ -164,8 +246,13 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
 
         @Override
         public void toTop() {
-            masterCursor.toTop();
             slaveChainCursor = null;
+            if (spilled) {
+                partitionIndex = -1;
+                nextPartition();
+            } else {
+                masterCursor.toTop();
+            }
         }
 
         @Override
@@ -175,29 +262,67 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
                 return true;
             }
 
-            while (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterKeySink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChainCursor = slaveChain.getCursor(value.getLong(0));
-                    // we know cursor has values
-                    // advance to get first value
-                    slaveChainCursor.hasNext();
-                    slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
-                    return true;
+            do {
+                while (masterCursor.hasNext()) {
+                    final MapValue value = findMasterKey();
+                    if (value != null) {
+                        slaveChainCursor = slaveChain.getCursor(value.getLong(0));
+                        // we know cursor has values
+                        // advance to get first value
+                        slaveChainCursor.hasNext();
+                        slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                        return true;
+                    }
                 }
-            }
+            } while (nextPartition());
             return false;
         }
 
+        private MapValue findMasterKey() {
+            if (masterKeyFilter != null && !spilled) {
+                // master scan has applied bloom filter already
+                return masterKeyFilter.findValue(masterRecord);
+            }
+            MapKey key = joinKeyMap.withKey();
+            key.put(masterRecord, masterKeySink);
+            final long hash = key.hash();
+            return bloomFilter.mightContain(hash) ? key.findValue(hash) : null;
+        }
+
+        private boolean nextPartition() {
+            if (!spilled || partitionIndex + 1 >= partitions.getPartitionCount()) {
+                return false;
+            }
+            partitionIndex++;
+            slaveChainCursor = null;
+            buildMapOfSlavePartition(slaveCursor, partitions.getSlave(partitionIndex), interruptor);
+            RecordChain masterPartition = partitions.getMaster(partitionIndex);
+            masterPartition.toTop();
+            masterCursor = masterPartition;
+            masterRecord = masterPartition.getRecord();
+            record.of(masterRecord, slaveRecord);
+            return true;
+        }
+
         void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
+            this.baseMasterCursor = masterCursor;
             this.masterCursor = masterCursor;
             this.slaveCursor = slaveCursor;
             this.masterRecord = masterCursor.getRecord();
             this.slaveRecord = slaveCursor.getRecordB();
             record.of(masterRecord, slaveRecord);
             slaveChainCursor = null;
+            spilled = false;
+        }
+
+        void ofPartitions(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+            this.baseMasterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.slaveRecord = slaveCursor.getRecordB();
+            this.interruptor = interruptor;
+            this.spilled = true;
+            this.partitionIndex = -1;
+            nextPartition();
         }
     }
 }
@@ -33,6 +33,7 @@ import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.table.FilteredRecordCursorFactory;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
@@ -44,6 +45,10 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordSink masterSink;
     private final RecordSink slaveKeySink;
     private final HashJoinRecordCursor cursor;
+    private final SpilledJoinPartitions partitions;
+    private final JoinKeyBloomFilter bloomFilter;
+    private final JoinKeyBloomFilterFunction masterKeyFilter;
+    private final long spillThreshold;
 
     public HashJoinRecordCursorFactory(
             CairoConfiguration configuration,
@@ -55,16 +60,27 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             RecordSink masterSink,
             RecordSink slaveKeySink,
             RecordSink slaveChainSink,
+            RecordSink masterChainSink,
             int columnSplit
 
     ) {
         super(metadata);
-        this.masterFactory = masterFactory;
         this.slaveFactory = slaveFactory;
         joinKeyMap = MapFactory.createMap(configuration, joinColumnTypes, valueTypes);
+        this.bloomFilter = new JoinKeyBloomFilter(configuration);
+        if (configuration.isSqlHashJoinBloomFilterEnabled()) {
+            // master rows are filtered as they are scanned
+            this.masterKeyFilter = new JoinKeyBloomFilterFunction(joinKeyMap, masterSink, bloomFilter);
+            this.masterFactory = new FilteredRecordCursorFactory(configuration, masterFactory, masterKeyFilter);
+        } else {
+            this.masterKeyFilter = null;
+            this.masterFactory = masterFactory;
+        }
         slaveChain = new RecordChain(slaveFactory.getMetadata(), slaveChainSink, configuration.getSqlHashJoinValuePageSize(), configuration.getSqlHashJoinValueMaxPages());
         this.masterSink = masterSink;
         this.slaveKeySink = slaveKeySink;
+        this.partitions = new SpilledJoinPartitions(configuration, masterFactory.getMetadata(), masterChainSink, slaveFactory.getMetadata(), slaveChainSink);
+        this.spillThreshold = configuration.getSqlHashJoinSpillThreshold();
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
     }
 
@@ -72,6 +88,8 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     public void close() {
         joinKeyMap.close();
         slaveChain.close();
+        partitions.close();
+        bloomFilter.close();
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -80,13 +98,26 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
         RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        RecordCursor masterCursor = null;
         try {
-            buildMapOfSlaveRecords(slaveCursor, executionContext.getSqlExecutionInterruptor());
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+            if (buildMap(slaveCursor, spillThreshold, interruptor)) {
+                masterCursor = masterFactory.getCursor(executionContext);
+                cursor.of(masterCursor, slaveCursor);
+            } else {
+                // slave side does not fit in memory, join one partition pair at a time
+                slaveCursor.toTop();
+                partitions.partitionSlave(slaveCursor, slaveKeySink, interruptor);
+                masterCursor = masterFactory.getCursor(executionContext);
+                partitions.partitionMaster(masterCursor, masterSink, interruptor);
+                cursor.ofPartitions(masterCursor, slaveCursor, interruptor);
+            }
         } catch (Throwable e) {
+            Misc.free(masterCursor);
             slaveCursor.close();
+            partitions.clear();
             throw e;
         }
-        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
         return cursor;
     }
 
@@ -95,8 +126,44 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         return false;
     }
 
-    private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
-        HashOuterJoinRecordCursorFactory.buildMap(slaveCursor, slaveCursor.getRecord(), joinKeyMap, slaveKeySink, slaveChain, interruptor);
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
+    /**
+     * @return false when slave records exceed spill threshold, map is incomplete in this case
+     */
+    private boolean buildMap(RecordCursor slaveCursor, long spillThreshold, SqlExecutionInterruptor interruptor) {
+        joinKeyMap.clear();
+        slaveChain.clear();
+        bloomFilter.clear();
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            interruptor.checkInterrupted();
+            MapKey key = joinKeyMap.withKey();
+            key.put(record, slaveKeySink);
+            final long hash = key.hash();
+            MapValue value = key.createValue(hash);
+            if (value.isNew()) {
+                bloomFilter.add(hash);
+                long offset = slaveChain.put(record, -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+            } else {
+                value.putLong(1, slaveChain.put(record, value.getLong(1)));
+            }
+            if (slaveChain.getMemUsed() > spillThreshold) {
+                joinKeyMap.clear();
+                slaveChain.clear();
+                bloomFilter.clear();
+                return false;
+            }
+        }
+        bloomFilter.build();
+        return true;
     }
 
     private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
@@ -104,10 +171,14 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         private final RecordChain slaveChain;
         private final Map joinKeyMap;
         private final int columnSplit;
+        private RecordCursor baseMasterCursor;
         private RecordCursor masterCursor;
         private RecordCursor slaveCursor;
         private Record masterRecord;
         private boolean useSlaveCursor;
+        private SqlExecutionInterruptor interruptor;
+        private boolean spilled;
+        private int partitionIndex;
 
         public HashJoinRecordCursor(int columnSplit, Map joinKeyMap, RecordChain slaveChain) {
             this.recordA = new JoinRecord(columnSplit);
@@ -118,8 +189,10 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
 
         @Override
         public void close() {
-            masterCursor = Misc.free(masterCursor);
+            baseMasterCursor = Misc.free(baseMasterCursor);
+            masterCursor = null;
             slaveCursor = Misc.free(slaveCursor);
+            partitions.clear();
         }
 
         @Override
@@ -130,7 +203,7 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         @Override
         public SymbolTable getSymbolTable(int columnIndex) {
             if (columnIndex < columnSplit) {
-                return masterCursor.getSymbolTable(columnIndex);
+                return baseMasterCursor.getSymbolTable(columnIndex);
             }
             return slaveCursor.getSymbolTable(columnIndex - columnSplit);
         }
@@ -146,29 +219,63 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
                 return true;
             }
 
-            while (masterCursor.hasNext()) {
-                MapKey key = joinKeyMap.withKey();
-                key.put(masterRecord, masterSink);
-                MapValue value = key.findValue();
-                if (value != null) {
-                    slaveChain.of(value.getLong(0));
-                    // we know cursor has values
-                    // advance to get first value
-                    slaveChain.hasNext();
-                    useSlaveCursor = true;
-                    return true;
+            do {
+                while (masterCursor.hasNext()) {
+                    final MapValue value = findMasterKey();
+                    if (value != null) {
+                        slaveChain.of(value.getLong(0));
+                        // we know cursor has values
+                        // advance to get first value
+                        slaveChain.hasNext();
+                        useSlaveCursor = true;
+                        return true;
+                    }
                 }
-            }
+            } while (nextPartition());
             return false;
         }
 
         @Override
         public void toTop() {
-            masterCursor.toTop();
             useSlaveCursor = false;
+            if (spilled) {
+                partitionIndex = -1;
+                nextPartition();
+            } else {
+                masterCursor.toTop();
+            }
+        }
+
+        private MapValue findMasterKey() {
+            if (masterKeyFilter != null && !spilled) {
+                // master scan has applied bloom filter already
+                return masterKeyFilter.findValue(masterRecord);
+            }
+            MapKey key = joinKeyMap.withKey();
+            key.put(masterRecord, masterSink);
+            final long hash = key.hash();
+            return bloomFilter.mightContain(hash) ? key.findValue(hash) : null;
+        }
+
+        private boolean nextPartition() {
+            if (!spilled || partitionIndex + 1 >= partitions.getPartitionCount()) {
+                return false;
+            }
+            partitionIndex++;
+            useSlaveCursor = false;
+            final RecordChain slavePartition = partitions.getSlave(partitionIndex);
+            slavePartition.toTop();
+            buildMap(slavePartition, Long.MAX_VALUE, interruptor);
+            final RecordChain masterPartition = partitions.getMaster(partitionIndex);
+            masterPartition.toTop();
+            masterCursor = masterPartition;
+            masterRecord = masterPartition.getRecord();
+            recordA.of(masterRecord, slaveChain.getRecord());
+            return true;
         }
 
         void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
+            this.baseMasterCursor = masterCursor;
             this.masterCursor = masterCursor;
             this.slaveCursor = slaveCursor;
             this.masterRecord = masterCursor.getRecord();
@@ -176,6 +283,17 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
             this.slaveChain.setSymbolTableResolver(slaveCursor);
             recordA.of(masterRecord, slaveRecord);
             useSlaveCursor = false;
+            spilled = false;
+        }
+
+        void ofPartitions(RecordCursor masterCursor, RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+            this.baseMasterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.slaveChain.setSymbolTableResolver(slaveCursor);
+            this.interruptor = interruptor;
+            this.spilled = true;
+            this.partitionIndex = -1;
+            nextPartition();
         }
     }
 }
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Bloom filter over join keys of hash join build side. Probe side consults the filter
+ * with the hash of the key it has written to the map, rows with keys absent from the build
+ * side are rejected without map lookup. Both sides use the hash of the map itself, so keys are
+ * hashed once. The filter is small enough to stay in CPU cache when the map does not.
+ * <p>
+ * Hashes of distinct build side keys are buffered until {@link #build()}, which sizes the filter.
+ * Build sides with more distinct keys than configured maximum are not filtered.
+ * <p>
+ * When the filter keeps passing almost every probe it switches itself off, so that
+ * joins where most keys match do not pay for the extra lookup.
+ */
+class JoinKeyBloomFilter implements Mutable, Closeable {
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASH_COUNT = 3;
+    private static final int SAMPLE_SIZE = 4096;
+    // probes have to reject at least 1/8 of the sample to keep the filter on
+    private static final int MIN_REJECT_SHIFT = 3;
+    private static final long INITIAL_HASH_CAPACITY = 1024;
+    private final boolean enabled;
+    private final long maxKeyCount;
+    private long hashesAddress;
+    private long hashesCapacity;
+    private long keyCount;
+    private long address;
+    private long size;
+    private long bitMask;
+    private boolean active;
+    private long probeCount;
+    private long rejectCount;
+
+    JoinKeyBloomFilter(CairoConfiguration configuration) {
+        this.enabled = configuration.isSqlHashJoinBloomFilterEnabled();
+        this.maxKeyCount = configuration.getSqlHashJoinBloomFilterMaxKeys();
+    }
+
+    /**
+     * Records hash of build side key, as returned by {@link io.questdb.cairo.map.MapKey#hash()}.
+     * Only distinct keys need to be added.
+     */
+    void add(long hash) {
+        if (!enabled || keyCount++ >= maxKeyCount) {
+            return;
+        }
+        if (keyCount > hashesCapacity) {
+            final long newCapacity = Math.min(Math.max(hashesCapacity * 2, INITIAL_HASH_CAPACITY), maxKeyCount);
+            hashesAddress = Unsafe.realloc(hashesAddress, hashesCapacity * Long.BYTES, newCapacity * Long.BYTES, MemoryTag.NATIVE_HASH_JOIN);
+            hashesCapacity = newCapacity;
+        }
+        Unsafe.getUnsafe().putLong(hashesAddress + (keyCount - 1) * Long.BYTES, hash);
+    }
+
+    /**
+     * Builds the filter from keys added since last {@link #clear()}.
+     */
+    void build() {
+        active = enabled && keyCount <= maxKeyCount;
+        probeCount = 0;
+        rejectCount = 0;
+        if (active) {
+            final long bitCount = Math.max(Numbers.ceilPow2(keyCount * BITS_PER_KEY), Long.SIZE);
+            final long newSize = bitCount / Byte.SIZE;
+            if (newSize != size) {
+                freeBits();
+                address = Unsafe.malloc(newSize, MemoryTag.NATIVE_HASH_JOIN);
+                size = newSize;
+            }
+            Vect.memset(address, size, 0);
+            bitMask = bitCount - 1;
+
+            for (long p = hashesAddress, lim = hashesAddress + keyCount * Long.BYTES; p < lim; p += Long.BYTES) {
+                final long hash = mix(Unsafe.getUnsafe().getLong(p));
+                final long h1 = hash;
+                final long h2 = (hash >>> 32) | 1;
+                for (int j = 0; j < HASH_COUNT; j++) {
+                    final long bit = (h1 + j * h2) & bitMask;
+                    final long bitAddress = address + (bit >>> 6) * Long.BYTES;
+                    Unsafe.getUnsafe().putLong(bitAddress, Unsafe.getUnsafe().getLong(bitAddress) | (1L << bit));
+                }
+            }
+        }
+        keyCount = 0;
+    }
+
+    @Override
+    public void clear() {
+        keyCount = 0;
+        active = false;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        freeBits();
+        if (hashesAddress != 0) {
+            Unsafe.free(hashesAddress, hashesCapacity * Long.BYTES, MemoryTag.NATIVE_HASH_JOIN);
+            hashesAddress = 0;
+            hashesCapacity = 0;
+        }
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * @param hash hash of probe side key, as returned by {@link io.questdb.cairo.map.MapKey#hash()}
+     * @return false when build side definitely does not have the key
+     */
+    boolean mightContain(long hash) {
+        if (!active) {
+            return true;
+        }
+
+        hash = mix(hash);
+        final long h1 = hash;
+        final long h2 = (hash >>> 32) | 1;
+        boolean found = true;
+        for (int j = 0; j < HASH_COUNT; j++) {
+            final long bit = (h1 + j * h2) & bitMask;
+            if ((Unsafe.getUnsafe().getLong(address + (bit >>> 6) * Long.BYTES) & (1L << bit)) == 0) {
+                found = false;
+                break;
+            }
+        }
+
+        if (!found) {
+            rejectCount++;
+        }
+        if (++probeCount == SAMPLE_SIZE && rejectCount < (SAMPLE_SIZE >>> MIN_REJECT_SHIFT)) {
+            active = false;
+        }
+        return found;
+    }
+
+    // map hashes can be as narrow as 32 bits, spread them over both halves of long
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private void freeBits() {
+        if (address != 0) {
+            Unsafe.free(address, size, MemoryTag.NATIVE_HASH_JOIN);
+            address = 0;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+
+/**
+ * Inner hash join pushes its bloom filter into the scan of probe side (master) rows as this
+ * filter function, so that rows with keys absent from build side are dropped before they reach
+ * the join. The function writes the key of the row to the join map and keeps the key hash,
+ * join then looks the accepted row up via {@link #findValue(Record)} without writing and hashing
+ * the key again.
+ */
+class JoinKeyBloomFilterFunction extends BooleanFunction {
+    private final Map joinKeyMap;
+    private final RecordSink keySink;
+    private final JoinKeyBloomFilter bloomFilter;
+    private MapKey key;
+    private long hash;
+    private boolean hashed;
+
+    JoinKeyBloomFilterFunction(Map joinKeyMap, RecordSink keySink, JoinKeyBloomFilter bloomFilter) {
+        this.joinKeyMap = joinKeyMap;
+        this.keySink = keySink;
+        this.bloomFilter = bloomFilter;
+    }
+
+    @Override
+    public boolean getBool(Record rec) {
+        // filter is inactive while the map is built and when it stops rejecting rows
+        hashed = bloomFilter.isActive();
+        if (hashed) {
+            putKey(rec);
+            return bloomFilter.mightContain(hash);
+        }
+        return true;
+    }
+
+    @Override
+    public void toTop() {
+        hashed = false;
+    }
+
+    /**
+     * Looks up key of the record this function has accepted last.
+     */
+    MapValue findValue(Record record) {
+        if (!hashed) {
+            putKey(record);
+        }
+        hashed = false;
+        return key.findValue(hash);
+    }
+
+    private void putKey(Record record) {
+        key = joinKeyMap.withKey();
+        key.put(record, keySink);
+        hash = key.hash();
+    }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.RecordSinkSPI;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Hash;
+import io.questdb.std.Long256;
+
+/**
+ * Hashes join key written by {@link RecordSink}. Master and slave key sinks write the same
+ * sequence of values for equal keys, therefore equal keys hash the same on both sides of the join.
+ */
+class JoinKeyHasher implements RecordSinkSPI {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private long hash;
+
+    public int hash(Record record, RecordSink keySink) {
+        hash = 0;
+        keySink.copy(record, this);
+        return Hash.spread((int) (hash ^ (hash >>> 32)));
+    }
+
+    @Override
+    public void putBin(BinarySequence value) {
+        if (value == null) {
+            mix(-1);
+        } else {
+            final long len = value.length();
+            mix(len);
+            for (long i = 0; i < len; i++) {
+                mix(value.byteAt(i));
+            }
+        }
+    }
+
+    @Override
+    public void putBool(boolean value) {
+        mix(value ? 1 : 0);
+    }
+
+    @Override
+    public void putByte(byte value) {
+        mix(value);
+    }
+
+    @Override
+    public void putDate(long value) {
+        mix(value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        mix(Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void putFloat(float value) {
+        mix(Float.floatToRawIntBits(value));
+    }
+
+    @Override
+    public void putInt(int value) {
+        mix(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        mix(value);
+    }
+
+    @Override
+    public void putLong256(Long256 value) {
+        mix(value.getLong0());
+        mix(value.getLong1());
+        mix(value.getLong2());
+        mix(value.getLong3());
+    }
+
+    @Override
+    public void putShort(short value) {
+        mix(value);
+    }
+
+    @Override
+    public void putChar(char value) {
+        mix(value);
+    }
+
+    @Override
+    public void putStr(CharSequence value) {
+        if (value == null) {
+            mix(-1);
+        } else {
+            putStr(value, 0, value.length());
+        }
+    }
+
+    @Override
+    public void putStr(CharSequence value, int lo, int hi) {
+        mix(hi - lo);
+        for (int i = lo; i < hi; i++) {
+            mix(value.charAt(i));
+        }
+    }
+
+    @Override
+    public void putRecord(Record value) {
+        // not part of the key
+    }
+
+    @Override
+    public void putTimestamp(long value) {
+        mix(value);
+    }
+
+    @Override
+    public void skip(int bytes) {
+        // padding does not contribute to the hash
+    }
+
+    private void mix(long value) {
+        hash = (hash + value) * MULTIPLIER;
+    }
+}
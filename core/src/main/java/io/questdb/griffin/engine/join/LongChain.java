@@ -37,7 +37,7 @@ public class LongChain implements Closeable, Mutable {
     private final TreeCursor cursor;
 
     public LongChain(long valuePageSize, int valueMaxPages) {
-        this.valueChain = Vm.getARWInstance(valuePageSize, valueMaxPages, MemoryTag.NATIVE_DEFAULT);
+        this.valueChain = Vm.getARWInstance(valuePageSize, valueMaxPages, MemoryTag.NATIVE_RECORD_CHAIN);
         this.cursor = new TreeCursor();
     }
 
@@ -56,6 +56,13 @@ public class LongChain implements Closeable, Mutable {
         return cursor;
     }
 
+    /**
+     * @return number of bytes occupied by values added to the chain
+     */
+    public long getMemUsed() {
+        return valueChain.getAppendOffset();
+    }
+
     public long put(long value, long parentOffset) {
         final long appendOffset = valueChain.getAppendOffset();
         if (parentOffset != -1) {
@@ -72,6 +72,13 @@ public class LtJoinNoKeyRecordCursorFactory extends AbstractRecordCursorFactory
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     private static class LtJoinNoKeyJoinRecordCursor implements NoRandomAccessRecordCursor {
         private final OuterJoinRecord record;
         private final int columnSplit;
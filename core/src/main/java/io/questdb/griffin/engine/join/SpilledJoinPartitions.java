@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Numbers;
+import io.questdb.std.Transient;
+
+import java.io.Closeable;
+
+/**
+ * Splits both sides of hash join into partitions by hash of the join key and writes
+ * them to spill files. Equal keys land in partitions with the same index, so that each
+ * pair of partitions can be joined independently with a map that fits in memory.
+ */
+class SpilledJoinPartitions implements Mutable, Closeable {
+    private final JoinKeyHasher hasher = new JoinKeyHasher();
+    private final LongList tails = new LongList();
+    private final SpilledRecordChains masterPartitions;
+    private final SpilledRecordChains slavePartitions;
+    private final int partitionCount;
+
+    SpilledJoinPartitions(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes masterTypes,
+            RecordSink masterSink,
+            @Transient ColumnTypes slaveTypes,
+            RecordSink slaveSink
+    ) {
+        final long pageSize = configuration.getSqlHashJoinValuePageSize();
+        this.partitionCount = Numbers.ceilPow2(configuration.getSqlHashJoinSpillPartitions());
+        this.masterPartitions = new SpilledRecordChains(configuration, masterTypes, masterSink, pageSize, "join_master");
+        this.slavePartitions = new SpilledRecordChains(configuration, slaveTypes, slaveSink, pageSize, "join_slave");
+    }
+
+    @Override
+    public void clear() {
+        masterPartitions.clear();
+        slavePartitions.clear();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(masterPartitions);
+        Misc.free(slavePartitions);
+    }
+
+    RecordChain getMaster(int partitionIndex) {
+        return masterPartitions.get(partitionIndex);
+    }
+
+    int getPartitionCount() {
+        return partitionCount;
+    }
+
+    RecordChain getSlave(int partitionIndex) {
+        return slavePartitions.get(partitionIndex);
+    }
+
+    void partitionMaster(RecordCursor cursor, RecordSink keySink, SqlExecutionInterruptor interruptor) {
+        partition(cursor, keySink, masterPartitions, interruptor);
+    }
+
+    void partitionSlave(RecordCursor cursor, RecordSink keySink, SqlExecutionInterruptor interruptor) {
+        partition(cursor, keySink, slavePartitions, interruptor);
+    }
+
+    private void partition(RecordCursor cursor, RecordSink keySink, SpilledRecordChains partitions, SqlExecutionInterruptor interruptor) {
+        partitions.clear();
+        tails.clear();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.next().setSymbolTableResolver(cursor);
+            tails.add(-1);
+        }
+
+        final int mask = partitionCount - 1;
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            interruptor.checkInterrupted();
+            final int partitionIndex = hasher.hash(record, keySink) & mask;
+            tails.setQuick(partitionIndex, partitions.get(partitionIndex).put(record, tails.getQuick(partitionIndex)));
+        }
+    }
+}
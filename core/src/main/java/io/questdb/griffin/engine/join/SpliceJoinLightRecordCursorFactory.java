@@ -115,6 +115,13 @@ public class SpliceJoinLightRecordCursorFactory extends AbstractRecordCursorFact
         return false;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     private class SpliceJoinLightRecordCursor implements NoRandomAccessRecordCursor {
         private final JoinRecord record;
         private final Map joinKeyMap;
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.LongList;
+
+/**
+ * Keeps row ids of the first N rows in sort order. Retained rows form a binary heap with the
+ * row that sorts last at the top, so that a row which does not make it into the result costs a
+ * single comparison and a row that does costs O(log N) of them. Retained rows are sorted once,
+ * after the base cursor is exhausted. Rows that compare equal are kept in the reverse order of
+ * arrival, which is the order {@link LongTreeChain} would produce, so that the result is the
+ * same as sorting everything and taking N rows off the top.
+ * <p>
+ * Comparator copies values of its left record, but string values remain views of that record.
+ * Comparing two retained rows therefore needs two records, the base record is borrowed for
+ * that and is positioned back at the current row before the base cursor moves on.
+ */
+class LimitedSizeSortedLightRecordCursor implements DelegatingRecordCursor {
+    private final RecordComparator comparator;
+    private final int limit;
+    // heap of retained rows and their arrival sequence numbers, which break ties
+    private final LongList rowIds;
+    private final LongList sequences;
+    private RecordCursor base;
+    private Record baseRecord;
+    private Record placeHolderRecord;
+    private int index;
+
+    public LimitedSizeSortedLightRecordCursor(RecordComparator comparator, int limit) {
+        this.comparator = comparator;
+        this.limit = limit;
+        this.rowIds = new LongList(limit);
+        this.sequences = new LongList(limit);
+    }
+
+    @Override
+    public void close() {
+        rowIds.clear();
+        sequences.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return rowIds.size();
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < rowIds.size()) {
+            base.recordAt(baseRecord, rowIds.getQuick(index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        // base record is the one being iterated, stored rows are positioned with our own record
+        this.placeHolderRecord = base.getRecordB();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        rowIds.clear();
+        sequences.clear();
+        long sequence = 0;
+        while (base.hasNext()) {
+            interruptor.checkInterrupted();
+            comparator.setLeft(baseRecord);
+            final long rowId = baseRecord.getRowId();
+            if (rowIds.size() < limit) {
+                rowIds.add(rowId);
+                sequences.add(sequence++);
+                siftUp(rowIds.size() - 1);
+                continue;
+            }
+
+            // most rows do not make it past the top of the heap, check it first
+            base.recordAt(placeHolderRecord, rowIds.getQuick(0));
+            if (comparator.compare(placeHolderRecord) > 0) {
+                sequence++;
+                continue;
+            }
+            replaceTop(rowId, sequence++);
+        }
+        sort();
+        index = 0;
+    }
+
+    private static int parent(int i) {
+        return (i - 1) >>> 1;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    private void replaceTop(long rowId, long sequence) {
+        // descend along the children that sort last, comparing them needs the base record
+        final int n = rowIds.size();
+        int i = 0;
+        int child;
+        while ((child = 2 * i + 1) < n) {
+            i = child + 1 < n && sortsAfter(child + 1, child) ? child + 1 : child;
+        }
+
+        base.recordAt(baseRecord, rowId);
+        comparator.setLeft(baseRecord);
+        // climb back up to the first row that does not sort before the new one
+        while (i > 0) {
+            base.recordAt(placeHolderRecord, rowIds.getQuick(i));
+            if (comparator.compare(placeHolderRecord) <= 0) {
+                break;
+            }
+            i = parent(i);
+        }
+
+        // new row takes that place, rows above it move one level up and the top is dropped
+        long carryRowId = rowId;
+        long carrySequence = sequence;
+        while (true) {
+            final long r = rowIds.getQuick(i);
+            final long s = sequences.getQuick(i);
+            rowIds.setQuick(i, carryRowId);
+            sequences.setQuick(i, carrySequence);
+            if (i == 0) {
+                break;
+            }
+            carryRowId = r;
+            carrySequence = s;
+            i = parent(i);
+        }
+    }
+
+    private void siftDown(int i, int n) {
+        int child;
+        while ((child = 2 * i + 1) < n) {
+            if (child + 1 < n && sortsAfter(child + 1, child)) {
+                child++;
+            }
+            if (!sortsAfter(child, i)) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void siftUp(int i) {
+        // comparator left record is the new row, which arrived last and wins ties
+        while (i > 0) {
+            final int p = parent(i);
+            base.recordAt(placeHolderRecord, rowIds.getQuick(p));
+            if (comparator.compare(placeHolderRecord) <= 0) {
+                break;
+            }
+            swap(i, p);
+            i = p;
+        }
+    }
+
+    private void sort() {
+        // base cursor is exhausted, base record is free to be positioned at any row
+        for (int n = rowIds.size() - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+    }
+
+    private boolean sortsAfter(int a, int b) {
+        base.recordAt(baseRecord, rowIds.getQuick(a));
+        comparator.setLeft(baseRecord);
+        base.recordAt(placeHolderRecord, rowIds.getQuick(b));
+        final int cmp = comparator.compare(placeHolderRecord);
+        return cmp > 0 || (cmp == 0 && sequences.getQuick(a) < sequences.getQuick(b));
+    }
+
+    private void swap(int a, int b) {
+        final long rowId = rowIds.getQuick(a);
+        rowIds.setQuick(a, rowIds.getQuick(b));
+        rowIds.setQuick(b, rowId);
+        final long sequence = sequences.getQuick(a);
+        sequences.setQuick(a, sequences.getQuick(b));
+        sequences.setQuick(b, sequence);
+    }
+}
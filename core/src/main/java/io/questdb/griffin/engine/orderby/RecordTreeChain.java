@@ -157,6 +157,13 @@ public class RecordTreeChain implements Closeable, Mutable {
         Misc.free(mem);
     }
 
+    /**
+     * @return number of bytes occupied by tree nodes and record copies
+     */
+    public long getMemUsed() {
+        return mem.size() + recordChain.getMemUsed();
+    }
+
     public TreeCursor getCursor(RecordCursor base) {
         cursor.of(base);
         return cursor;
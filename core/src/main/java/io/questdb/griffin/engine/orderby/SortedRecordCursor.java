@@ -33,51 +33,58 @@ import io.questdb.griffin.SqlExecutionInterruptor;
 
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
+    private final SpillMergeCursor spill;
+    private final long spillThreshold;
     private RecordTreeChain.TreeCursor chainCursor;
+    // either tree cursor or merge of spilled runs
+    private RecordCursor cursor;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(RecordTreeChain chain, SpillMergeCursor spill, long spillThreshold) {
         this.chain = chain;
+        this.spill = spill;
+        this.spillThreshold = spillThreshold;
     }
 
     @Override
     public void close() {
         chainCursor.close();
         chain.clear();
+        spill.clear();
     }
 
     @Override
     public Record getRecord() {
-        return chainCursor.getRecord();
+        return cursor.getRecord();
     }
 
     @Override
     public SymbolTable getSymbolTable(int columnIndex) {
-        return chainCursor.getSymbolTable(columnIndex);
+        return cursor.getSymbolTable(columnIndex);
     }
 
     @Override
     public boolean hasNext() {
-        return chainCursor.hasNext();
+        return cursor.hasNext();
     }
 
     @Override
     public Record getRecordB() {
-        return chainCursor.getRecordB();
+        return cursor.getRecordB();
     }
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        chainCursor.recordAt(record, atRowId);
+        cursor.recordAt(record, atRowId);
     }
 
     @Override
     public void toTop() {
-        chainCursor.toTop();
+        cursor.toTop();
     }
 
     @Override
     public long size() {
-        return chainCursor.size();
+        return cursor.size();
     }
 
     @Override
@@ -86,8 +93,9 @@ class SortedRecordCursor implements DelegatingRecordCursor {
             this.chainCursor = chain.getCursor(base);
             final Record record = base.getRecord();
             SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
-
             chain.clear();
+            spill.clear();
+            spill.of(base);
             while (base.hasNext()) {
                 interruptor.checkInterrupted();
                 // Tree chain is liable to re-position record to
@@ -95,11 +103,30 @@ class SortedRecordCursor implements DelegatingRecordCursor {
                 // own record instance in case base cursor keeps
                 // state in the record it returns.
                 chain.put(record);
+                if (chain.getMemUsed() > spillThreshold) {
+                    spillChain();
+                }
+            }
+
+            if (spill.getRunCount() > 0) {
+                if (chain.getMemUsed() > 0) {
+                    spillChain();
+                }
+                cursor = spill;
+            } else {
+                cursor = chainCursor;
             }
-            chainCursor.toTop();
+            cursor.toTop();
         } catch (Throwable ex) {
+            spill.clear();
             base.close();
             throw ex;
         }
     }
+
+    private void spillChain() {
+        chainCursor.toTop();
+        spill.spill(chainCursor);
+        chain.clear();
+    }
 }
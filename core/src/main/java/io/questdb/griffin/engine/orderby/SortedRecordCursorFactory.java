@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
@@ -38,6 +39,7 @@ import io.questdb.griffin.engine.RecordComparator;
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final RecordTreeChain chain;
+    private final SpillMergeCursor spill;
     private final SortedRecordCursor cursor;
 
     public SortedRecordCursorFactory(
@@ -58,14 +60,16 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValuePageSize(),
                 configuration.getSqlSortValueMaxPages()
         );
+        this.spill = new SpillMergeCursor(configuration, columnTypes, recordSink, comparator);
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.cursor = new SortedRecordCursor(chain, spill, configuration.getSqlSortSpillThreshold());
     }
 
     @Override
     public void close() {
         base.close();
         chain.close();
+        spill.close();
     }
 
     @Override
@@ -78,4 +82,10 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(getClass().getSimpleName());
+        sink.child(base);
+    }
 }
@@ -0,0 +1,370 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Sorted runs of records spilled to disk and k-way merge of these runs. Each run is a
+ * {@link RecordChain} on top of memory mapped file, see {@link SpilledRecordChains}. Runs are merged
+ * with the same comparator that sorted them. Equal records are returned in the order they
+ * were added, same as {@link RecordTreeChain} returns them.
+ * <p>
+ * Row id of a merged record is the run index in the high bits and record offset in the run.
+ */
+class SpillMergeCursor implements RecordCursor, Mutable {
+    private static final Log LOG = LogFactory.getLog(SpillMergeCursor.class);
+    private static final int RUN_SHIFT = 48;
+    private static final long OFFSET_MASK = (1L << RUN_SHIFT) - 1;
+    private static final int MAX_RUNS = (int) (Long.MAX_VALUE >>> RUN_SHIFT);
+    private final SpilledRecordChains runs;
+    private final RecordComparator comparator;
+    private final IntList heap = new IntList();
+    private final SpillRecord recordA = new SpillRecord();
+    private final SpillRecord recordB = new SpillRecord();
+    private int current = -1;
+    private RecordCursor base;
+
+    SpillMergeCursor(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes columnTypes,
+            RecordSink recordSink,
+            RecordComparator comparator
+    ) {
+        this.runs = new SpilledRecordChains(configuration, columnTypes, recordSink, configuration.getSqlSortValuePageSize(), "sort");
+        this.comparator = comparator;
+    }
+
+    @Override
+    public void clear() {
+        runs.clear();
+        heap.clear();
+        current = -1;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        runs.close();
+    }
+
+    @Override
+    public Record getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current != -1) {
+            if (!runs.get(current).hasNext()) {
+                // run is exhausted, replace it with the last heap entry
+                final int last = heap.size() - 1;
+                heap.setQuick(0, heap.getQuick(last));
+                heap.setPos(last);
+            }
+            if (heap.size() > 0) {
+                siftDown();
+            }
+        }
+
+        if (heap.size() > 0) {
+            current = heap.getQuick(0);
+            recordA.of(runs.get(current).getRecord(), current);
+            return true;
+        }
+        current = -1;
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        ((SpillRecord) record).at(atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        heap.clear();
+        current = -1;
+        for (int i = 0, n = runs.size(); i < n; i++) {
+            final RecordChain run = runs.get(i);
+            run.toTop();
+            if (run.hasNext()) {
+                heap.add(i);
+                siftUp(heap.size() - 1);
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    int getRunCount() {
+        return runs.size();
+    }
+
+    void of(RecordCursor base) {
+        this.base = base;
+    }
+
+    /**
+     * Writes records of sorted cursor to a new run file.
+     *
+     * @param sorted cursor positioned at the top of sorted records
+     */
+    void spill(RecordCursor sorted) {
+        if (runs.size() == MAX_RUNS) {
+            throw CairoException.instance(0).put("too many sort spill runs [max=").put(MAX_RUNS).put(']');
+        }
+
+        final RecordChain chain = runs.next();
+        chain.setSymbolTableResolver(base);
+        final Record record = sorted.getRecord();
+        long offset = -1L;
+        while (sorted.hasNext()) {
+            offset = chain.put(record, offset);
+        }
+        LOG.debug().$("spilled sort run [run=").$(runs.size() - 1).$(", size=").$(chain.getMemUsed()).$(']').$();
+    }
+
+    /**
+     * Heap order: record of run "a" goes before record of run "b". Equal records go out
+     * from the earlier run first to keep the order of in-memory sort.
+     */
+    private boolean before(int a, int b) {
+        comparator.setLeft(runs.get(a).getRecord());
+        final int cmp = comparator.compare(runs.get(b).getRecord());
+        return cmp < 0 || (cmp == 0 && a < b);
+    }
+
+    private void siftDown() {
+        final int size = heap.size();
+        int pos = 0;
+        final int run = heap.getQuick(0);
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                break;
+            }
+            int childRun = heap.getQuick(child);
+            if (child + 1 < size) {
+                final int rightRun = heap.getQuick(child + 1);
+                if (before(rightRun, childRun)) {
+                    child++;
+                    childRun = rightRun;
+                }
+            }
+            if (!before(childRun, run)) {
+                break;
+            }
+            heap.setQuick(pos, childRun);
+            pos = child;
+        }
+        heap.setQuick(pos, run);
+    }
+
+    private void siftUp(int pos) {
+        final int run = heap.getQuick(pos);
+        while (pos > 0) {
+            final int parent = (pos - 1) / 2;
+            final int parentRun = heap.getQuick(parent);
+            if (!before(run, parentRun)) {
+                break;
+            }
+            heap.setQuick(pos, parentRun);
+            pos = parent;
+        }
+        heap.setQuick(pos, run);
+    }
+
+    private class SpillRecord implements Record {
+        // records positioned by recordAt(), one per run
+        private final ObjList<Record> runRecords = new ObjList<>();
+        private Record base;
+        private int run;
+
+        @Override
+        public BinarySequence getBin(int col) {
+            return base.getBin(col);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            return base.getBinLen(col);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return base.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return base.getByte(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return base.getChar(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            return base.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return base.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return base.getFloat(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            return base.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            return base.getLong(col);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink sink) {
+            base.getLong256(col, sink);
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return base.getLong256A(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return base.getLong256B(col);
+        }
+
+        @Override
+        public long getRowId() {
+            return ((long) run << RUN_SHIFT) | base.getRowId();
+        }
+
+        @Override
+        public short getShort(int col) {
+            return base.getShort(col);
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return base.getStrB(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return base.getStrLen(col);
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return base.getSym(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return base.getSymB(col);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return base.getTimestamp(col);
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            return base.getGeoByte(col);
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            return base.getGeoShort(col);
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            return base.getGeoInt(col);
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            return base.getGeoLong(col);
+        }
+
+        private void at(long rowId) {
+            final int run = (int) (rowId >>> RUN_SHIFT);
+            final RecordChain chain = runs.get(run);
+            Record record = runRecords.getQuiet(run);
+            if (record == null) {
+                record = chain.newRecord();
+                runRecords.extendAndSet(run, record);
+            }
+            chain.recordAt(record, rowId & OFFSET_MASK);
+            of(record, run);
+        }
+
+        private void of(Record base, int run) {
+            this.base = base;
+            this.run = run;
+        }
+    }
+}
@@ -81,6 +81,30 @@ public abstract class AbstractDeferredTreeSetRecordCursorFactory extends Abstrac
         this.deferredSymbols = deferredSymbols;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("symbols").val("column=").val(columnIndex).val(" keys=[");
+        for (int i = 0, n = symbolKeys.size(); i < n; i++) {
+            if (i > 0) {
+                sink.val(", ");
+            }
+            // index keys are symbol keys shifted by one to make room for nulls
+            sink.val(symbolKeys.get(i) - 1);
+        }
+        sink.val(']');
+        if (deferredSymbols != null) {
+            sink.val(" deferred=[");
+            for (int i = 0, n = deferredSymbols.size(); i < n; i++) {
+                if (i > 0) {
+                    sink.val(", ");
+                }
+                sink.val(deferredSymbols.get(i));
+            }
+            sink.val(']');
+        }
+    }
+
     @Override
     protected AbstractDataFrameRecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
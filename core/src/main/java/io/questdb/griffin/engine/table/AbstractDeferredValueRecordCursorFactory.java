@@ -60,6 +60,15 @@ abstract class AbstractDeferredValueRecordCursorFactory extends AbstractDataFram
         }
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("symbol").val("column=").val(columnIndex).val(" value=").val(symbol);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+    }
+
     protected abstract AbstractDataFrameRecordCursor createDataFrameCursorFor(int symbolKey);
 
     @Override
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.PageFrameFilterTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cursor slices page frames of the underlying table into bounded units of work and
+ * publishes them on the message bus queue. Worker threads evaluate filter over their
+ * frames, while this cursor returns matching rows frame by frame in the original order.
+ * The number of frames in flight is bounded to keep memory footprint constant regardless
+ * of the table size.
+ */
+class AsyncFilteredRecordCursor extends AbstractDataFrameRecordCursor {
+    private static final Log LOG = LogFactory.getLog(AsyncFilteredRecordCursor.class);
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameFilterEntry> entries;
+    private final DataFrameRecordCursorFactory.TableReaderPageFrameCursor pageFrameCursor;
+    private final int entryCount;
+    private final long maxFrameRows;
+    private RingQueue<PageFrameFilterTask> queue;
+    private Sequence pubSeq;
+    private PageFrame frame;
+    private long frameRowCount;
+    private long frameRowLo;
+    private long dispatchedCount;
+    private long consumedCount;
+    private long ownCount;
+    private PageFrameFilterEntry entry;
+    private long entryRowIndex;
+    private long entryRowCount;
+
+    public AsyncFilteredRecordCursor(
+            @NotNull IntList columnIndexes,
+            @NotNull ObjList<Function> filters,
+            @NotNull ObjList<PageFrameRecord> records,
+            @NotNull DataFrameRecordCursorFactory.TableReaderPageFrameCursor pageFrameCursor,
+            @NotNull IntList filterColumnIndexes,
+            long maxFrameRows
+    ) {
+        super(columnIndexes);
+        this.filters = filters;
+        this.pageFrameCursor = pageFrameCursor;
+        this.maxFrameRows = maxFrameRows;
+        // allow each worker to have a frame in the queue while another one is being consumed
+        this.entryCount = 2 * filters.size();
+        this.entries = new ObjList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new PageFrameFilterEntry(filters, records, filterColumnIndexes, columnIndexes.size()));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (dataFrameCursor != null) {
+            cancelEntries();
+            LOG.debug().$("closed [dispatched=").$(dispatchedCount).$(", ownCount=").$(ownCount).$(']').$();
+        }
+        super.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (entry != null) {
+                if (entryRowIndex < entryRowCount) {
+                    recordA.jumpTo(entry.getPartitionIndex(), entry.getRow(entryRowIndex++));
+                    return true;
+                }
+                entry = null;
+                consumedCount++;
+            }
+
+            dispatch();
+
+            if (consumedCount == dispatchedCount) {
+                return false;
+            }
+
+            final PageFrameFilterEntry next = entries.getQuick((int) (consumedCount % entryCount));
+            awaitEntry(next);
+
+            final Throwable error = next.getError();
+            if (error != null) {
+                if (error instanceof CairoException) {
+                    throw (CairoException) error;
+                }
+                throw CairoException.instance(0).put("filter failed [error=").put(error.getMessage()).put(']');
+            }
+
+            entry = next;
+            entryRowIndex = 0;
+            entryRowCount = next.getRowCount();
+        }
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        cancelEntries();
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            filters.getQuick(i).toTop();
+        }
+        pageFrameCursor.toTop();
+        reset();
+    }
+
+    void freeEntries() {
+        Misc.freeObjList(entries);
+    }
+
+    @Override
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) throws SqlException {
+        if (this.dataFrameCursor != dataFrameCursor) {
+            close();
+            this.dataFrameCursor = dataFrameCursor;
+        }
+        this.recordA.of(dataFrameCursor.getTableReader());
+        this.recordB.of(dataFrameCursor.getTableReader());
+        this.pageFrameCursor.of(dataFrameCursor);
+
+        final MessageBus bus = executionContext.getMessageBus();
+        assert bus != null;
+        this.queue = bus.getPageFrameFilterQueue();
+        this.pubSeq = bus.getPageFrameFilterPubSeq();
+
+        // all filters are initialised by this thread before any of them is used by workers
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            filters.getQuick(i).init(this, executionContext);
+        }
+        reset();
+    }
+
+    private void awaitEntry(PageFrameFilterEntry entry) {
+        if (entry.runByOwner()) {
+            ownCount++;
+            return;
+        }
+
+        // entry is being processed by a worker, help out with the entries queued after it
+        long index = consumedCount + 1;
+        while (!entry.isDone()) {
+            if (index < dispatchedCount) {
+                if (entries.getQuick((int) (index++ % entryCount)).runByOwner()) {
+                    ownCount++;
+                }
+            } else {
+                LockSupport.parkNanos(1);
+            }
+        }
+    }
+
+    private void cancelEntries() {
+        // workers may still be reading page frames, wait for them before memory is released
+        for (long i = consumedCount; i < dispatchedCount; i++) {
+            final PageFrameFilterEntry e = entries.getQuick((int) (i % entryCount));
+            if (!e.cancel()) {
+                while (!e.isDone()) {
+                    LockSupport.parkNanos(1);
+                }
+            }
+        }
+        consumedCount = dispatchedCount;
+        entry = null;
+    }
+
+    private void dispatch() {
+        while (dispatchedCount - consumedCount < entryCount) {
+            final PageFrameFilterEntry e = entries.getQuick((int) (dispatchedCount % entryCount));
+            if (!nextSlice(e)) {
+                break;
+            }
+            dispatchedCount++;
+
+            final long seq = pubSeq.next();
+            if (seq > -1) {
+                queue.get(seq).entry = e;
+                pubSeq.done(seq);
+            }
+            // when queue is full entry stays unclaimed and this cursor will run it on its own
+        }
+    }
+
+    private boolean nextSlice(PageFrameFilterEntry e) {
+        while (frame == null || frameRowLo == frameRowCount) {
+            frame = pageFrameCursor.next();
+            if (frame == null) {
+                return false;
+            }
+            // any of the frame columns will do, column tops report size in rows rather than bytes
+            frameRowCount = frame.getPageAddress(0) == 0 ? frame.getPageSize(0) : frame.getPageSize(0) >> frame.getColumnSize(0);
+            frameRowLo = 0;
+        }
+        final long hi = Math.min(frameRowCount, frameRowLo + maxFrameRows);
+        e.of(frame, frameRowLo, hi);
+        frameRowLo = hi;
+        return true;
+    }
+
+    private void reset() {
+        frame = null;
+        frameRowCount = 0;
+        frameRowLo = 0;
+        dispatchedCount = 0;
+        consumedCount = 0;
+        ownCount = 0;
+        entry = null;
+    }
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Filters table rows using worker threads. Filter is compiled once per worker and once more for
+ * the thread that owns the cursor, so that stateful functions are never shared between threads.
+ * Workers read filter columns straight from page frames, which is why all columns referenced
+ * by the filter must be fixed-size. Rows are returned in the same order as the underlying
+ * data frames. Page frames, when supported, are filtered by the same workers.
+ */
+public class AsyncFilteredRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
+    private final AsyncFilteredRecordCursor cursor;
+    private final ObjList<Function> filters;
+    private final IntList columnIndexes;
+    private final IntList columnSizes;
+    private final boolean framingSupported;
+    private final CairoConfiguration configuration;
+    private DataFrameRecordCursorFactory.TableReaderPageFrameCursor tableReaderPageFrameCursor;
+    private FilteredPageFrameCursor pageFrameCursor;
+
+    public AsyncFilteredRecordCursorFactory(
+            @NotNull CairoConfiguration configuration,
+            @NotNull RecordMetadata metadata,
+            @NotNull DataFrameCursorFactory dataFrameCursorFactory,
+            @NotNull ObjList<Function> filters,
+            @NotNull IntList columnIndexes,
+            @NotNull IntList filterColumnIndexes,
+            boolean framingSupported,
+            @Nullable IntList columnSizes
+    ) {
+        super(metadata, dataFrameCursorFactory);
+        this.filters = filters;
+        this.columnIndexes = columnIndexes;
+        this.columnSizes = columnSizes;
+        this.framingSupported = framingSupported;
+        this.configuration = configuration;
+
+        // page frames are built only for the columns filter needs
+        final IntList frameColumnIndexes = new IntList(filterColumnIndexes.size());
+        final IntList frameColumnSizes = new IntList(filterColumnIndexes.size());
+        int frameTimestampIndex = -1;
+        for (int i = 0, n = filterColumnIndexes.size(); i < n; i++) {
+            final int columnIndex = filterColumnIndexes.getQuick(i);
+            frameColumnIndexes.add(columnIndexes.getQuick(columnIndex));
+            frameColumnSizes.add(Numbers.msb(ColumnType.sizeOf(metadata.getColumnType(columnIndex))));
+            if (columnIndex == metadata.getTimestampIndex()) {
+                frameTimestampIndex = i;
+            }
+        }
+
+        final ObjList<PageFrameRecord> records = new ObjList<>(filters.size());
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            records.add(new PageFrameRecord());
+        }
+
+        this.cursor = new AsyncFilteredRecordCursor(
+                columnIndexes,
+                filters,
+                records,
+                new DataFrameRecordCursorFactory.TableReaderPageFrameCursor(frameColumnIndexes, frameColumnSizes, frameTimestampIndex),
+                filterColumnIndexes,
+                configuration.getSqlPageFrameMaxRows()
+        );
+    }
+
+    @Override
+    public void close() {
+        cursor.freeEntries();
+        if (pageFrameCursor != null) {
+            pageFrameCursor.freeEntries();
+            pageFrameCursor.close();
+        }
+        Misc.freeObjList(filters);
+        Misc.free(dataFrameCursorFactory);
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) throws SqlException {
+        if (!framingSupported) {
+            return null;
+        }
+        if (pageFrameCursor == null) {
+            tableReaderPageFrameCursor = new DataFrameRecordCursorFactory.TableReaderPageFrameCursor(
+                    columnIndexes,
+                    columnSizes,
+                    getMetadata().getTimestampIndex()
+            );
+            pageFrameCursor = new FilteredPageFrameCursor(configuration, filters, columnIndexes.size());
+        }
+        final DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext);
+        return pageFrameCursor.of(tableReaderPageFrameCursor.of(dataFrameCursor), executionContext);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return framingSupported;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("filter").val(filters.getQuick(0));
+        sink.attr("workers").val(filters.size() - 1);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("{\"name\":\"AsyncFilteredRecordCursorFactory\", \"workers\":").put(filters.size() - 1).put(", \"cursorFactory\":");
+        dataFrameCursorFactory.toSink(sink);
+        sink.put('}');
+    }
+
+    @Override
+    protected RecordCursor getCursorInstance(
+            DataFrameCursor dataFrameCursor,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        cursor.of(dataFrameCursor, executionContext);
+        return cursor;
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+
+/**
+ * Base class for filters generated by {@link FilterCompiler}. Generated subclass implements
+ * {@link #getBool(io.questdb.cairo.sql.Record)} as a single method that reads record columns
+ * directly. Constants and bind variables of the filter are kept here as functions and their
+ * values are copied into generated fields every time filter is initialised.
+ * <p>
+ * Generated code must not call instance methods of this class. Anonymous class cannot be
+ * resolved by name and verifier would fail to check that generated class is assignable to this one.
+ * <p>
+ * Static comparison methods follow null semantics of the corresponding interpreted functions.
+ */
+public abstract class CompiledFilter extends BooleanFunction {
+    private ObjList<Function> args;
+
+    public static boolean argBool(ObjList<Function> args, int index) {
+        return args.getQuick(index).getBool(null);
+    }
+
+    public static double argDouble(ObjList<Function> args, int index) {
+        return args.getQuick(index).getDouble(null);
+    }
+
+    public static int argInt(ObjList<Function> args, int index) {
+        return args.getQuick(index).getInt(null);
+    }
+
+    public static long argLong(ObjList<Function> args, int index) {
+        return args.getQuick(index).getLong(null);
+    }
+
+    public static long argTimestamp(ObjList<Function> args, int index) {
+        return args.getQuick(index).getTimestamp(null);
+    }
+
+    public static boolean eqDouble(double l, double r) {
+        return l != l && r != r || Math.abs(l - r) < 0.0000000001;
+    }
+
+    public static boolean eqInt(int l, int r) {
+        return l == r;
+    }
+
+    public static boolean eqLong(long l, long r) {
+        return l == r;
+    }
+
+    public static boolean geDouble(double l, double r) {
+        return l >= r;
+    }
+
+    public static boolean geInt(int l, int r) {
+        return l != Numbers.INT_NaN && r != Numbers.INT_NaN && l >= r;
+    }
+
+    public static boolean geLong(long l, long r) {
+        return l != Numbers.LONG_NaN && r != Numbers.LONG_NaN && l >= r;
+    }
+
+    public static boolean ltDouble(double l, double r) {
+        return l < r;
+    }
+
+    public static boolean ltInt(int l, int r) {
+        return l != Numbers.INT_NaN && r != Numbers.INT_NaN && l < r;
+    }
+
+    public static boolean ltLong(long l, long r) {
+        return l != Numbers.LONG_NaN && r != Numbers.LONG_NaN && l < r;
+    }
+
+    @Override
+    public void close() {
+        // cursors close their filter and then init it again when re-opened
+        Misc.freeObjListAndKeepObjects(args);
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) throws SqlException {
+        Function.init(args, symbolTableSource, executionContext);
+        copyArgs(args);
+    }
+
+    public void of(ObjList<Function> args) {
+        this.args = args;
+    }
+
+    /**
+     * Generated method, copies current values of constants and bind variables into fields.
+     *
+     * @param args constant and bind variable functions in the order of generated fields
+     */
+    public abstract void copyArgs(ObjList<Function> args);
+}
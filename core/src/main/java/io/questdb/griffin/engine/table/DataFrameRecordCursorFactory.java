@@ -39,6 +39,7 @@ import org.jetbrains.annotations.Nullable;
 
 public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
+    private final RowCursorFactory rowCursorFactory;
     private final boolean followsOrderByAdvice;
     private final Function filter;
     private final boolean framingSupported;
@@ -60,6 +61,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         super(metadata, dataFrameCursorFactory);
 
         this.cursor = new DataFrameRecordCursor(rowCursorFactory, rowCursorFactory.isEntity(), filter, columnIndexes);
+        this.rowCursorFactory = rowCursorFactory;
         this.followsOrderByAdvice = followsOrderByAdvice;
         this.filter = filter;
         this.framingSupported = framingSupported;
@@ -101,6 +103,15 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         return framingSupported;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.attr("rows").val(rowCursorFactory);
+    }
+
     @Override
     public void toSink(CharSink sink) {
         sink.put("{\"name\":\"DataFrameRecordCursorFactory\", \"cursorFactory\":");
@@ -199,17 +210,19 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                                 columnPageNextAddress.setQuick(i, 0);
                                 pageNRowsRemaining.setQuick(i, 0);
                             } else {
-                                int page = pages.getQuick(i);
-                                long pageSize = col.getPageSize() >> columnSizes.getQuick(i);
-                                if (pageSize < loRemaining) {
-                                    throw CairoException.instance(0).put("partition is not mapped as single page, cannot perform vector calculation");
+                                // compressed columns are paged by block, skip pages below the frame
+                                final long pageSize = col.getPageSize() >> columnSizes.getQuick(i);
+                                if (pageSize == 0) {
+                                    throw CairoException.instance(0).put("partition is not mapped, cannot perform vector calculation");
                                 }
+                                final int page = (int) (loRemaining / pageSize);
+                                final long offsetInPage = loRemaining - page * pageSize;
                                 long addr = col.getPageAddress(page);
-                                addr += loRemaining << columnSizes.getQuick(i);
+                                addr += offsetInPage << columnSizes.getQuick(i);
                                 columnPageNextAddress.setQuick(i, addr);
-                                long pageHi = Math.min(partitionHi, pageSize);
-                                pageNRowsRemaining.setQuick(i, pageHi - partitionLo);
-                                pages.setQuick(i, page);
+                                pageNRowsRemaining.setQuick(i, Math.min(pageSize - offsetInPage, partitionHi - partitionLo));
+                                // next page to map once this one is exhausted
+                                pages.setQuick(i, page + 1);
                             }
                         }
                     }
@@ -245,6 +258,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
         public TableReaderPageFrameCursor of(DataFrameCursor dataFrameCursor) {
             this.reader = dataFrameCursor.getTableReader();
+            reader.selectColumns(columnIndexes);
             this.dataFrameCursor = dataFrameCursor;
             toTop();
             return this;
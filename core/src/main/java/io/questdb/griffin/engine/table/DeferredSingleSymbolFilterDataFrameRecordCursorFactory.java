@@ -93,6 +93,12 @@ public class DeferredSingleSymbolFilterDataFrameRecordCursorFactory extends Data
         return this.convertedToFrame;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("symbol").val("column=").val(symbolColumnIndex).val(" value=").val(symbolValue);
+    }
+
     @Override
     protected RecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
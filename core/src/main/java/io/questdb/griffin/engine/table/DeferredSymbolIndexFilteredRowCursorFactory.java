@@ -28,6 +28,7 @@ import io.questdb.cairo.EmptyRowCursor;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.griffin.SqlException;
@@ -61,6 +62,16 @@ public class DeferredSymbolIndexFilteredRowCursorFactory implements FunctionBase
         return cursor.of(dataFrame);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("DeferredSymbolIndexFilteredRowCursorFactory column=").val(columnIndex).val(" symbol=");
+        if (symbolFunction.isConstant()) {
+            sink.val(symbolFunction.getStr(null));
+        } else {
+            sink.val(symbolFunction);
+        }
+    }
+
     @Override
     public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) throws SqlException {
         symbolFunction.init(tableReader, sqlExecutionContext);
@@ -29,6 +29,7 @@ import io.questdb.cairo.TableReader;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.griffin.SqlException;
@@ -70,6 +71,16 @@ public class DeferredSymbolIndexRowCursorFactory implements FunctionBasedRowCurs
                 .getCursor(cachedIndexReaderCursor, symbolKey, dataFrame.getRowLo(), dataFrame.getRowHi() - 1);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("DeferredSymbolIndexRowCursorFactory column=").val(columnIndex).val(" symbol=");
+        if (symbol.isConstant()) {
+            sink.val(symbol.getSymbol(null));
+        } else {
+            sink.val(symbol);
+        }
+    }
+
     @Override
     public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) throws SqlException {
         symbol.init(tableReader, sqlExecutionContext);
@@ -0,0 +1,486 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.ex.BytecodeException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compiles filter expression into a single generated {@link CompiledFilter} class. Generated
+ * getBool() method reads columns via record getters with constant column indexes and evaluates
+ * comparisons via static methods of {@link CompiledFilter}, so that there are no virtual calls
+ * between filter tree nodes.
+ * <p>
+ * Supported expressions are and/or/not combinations of boolean columns and comparisons
+ * (=, !=, &lt;, &lt;=, &gt;, &gt;=) between INT, LONG, TIMESTAMP and DOUBLE columns, constants and bind variables.
+ * Compiler returns null for anything else and caller is expected to use interpreted filter instead.
+ * <p>
+ * Generated method has no branches, all and/or operands are evaluated. Generally it looks like:
+ * <pre>
+ * public boolean getBool(Record rec) {
+ *     return CompiledFilter.ltDouble(f0, rec.getDouble(2)) &amp; CompiledFilter.eqInt(rec.getInt(3), f1);
+ * }
+ * </pre>
+ * where fields f0, f1 are set from constants and bind variables when filter is initialised.
+ */
+public class FilterCompiler {
+    private static final Log LOG = LogFactory.getLog(FilterCompiler.class);
+
+    private static final int KIND_INT = 0;
+    private static final int KIND_LONG = 1;
+    private static final int KIND_TIMESTAMP = 2;
+    private static final int KIND_DOUBLE = 3;
+    private static final int KIND_BOOL = 4;
+    private static final int KIND_COUNT = 5;
+
+    private static final int OP_COLUMN = 0;
+    private static final int OP_ARG = 1;
+    private static final int OP_CMP = 2;
+    private static final int OP_AND = 3;
+    private static final int OP_OR = 4;
+    private static final int OP_NOT = 5;
+
+    private static final int CMP_EQ = 0;
+    private static final int CMP_LT = 1;
+    private static final int CMP_GE = 2;
+    private static final int CMP_COUNT = 3;
+
+    private static final String[] CMP_NAMES = {"eq", "lt", "ge"};
+    private static final String[] KIND_GETTERS = {"getInt", "getLong", "getTimestamp", "getDouble", "getBool"};
+    private static final String[] KIND_ARG_GETTERS = {"argInt", "argLong", "argTimestamp", "argDouble", "argBool"};
+    private static final String[] KIND_CMP_SUFFIXES = {"Int", "Long", "Long", "Double", null};
+    private static final String[] KIND_TYPES = {"I", "J", "J", "D", "Z"};
+    private static final int[] KIND_SLOTS = {1, 2, 2, 2, 1};
+
+    private final BytecodeAssembler asm;
+    // filter in postfix form, pairs of opcode and operand
+    private final IntList program = new IntList();
+    private final ObjList<Function> args = new ObjList<>();
+    private final IntList argKinds = new IntList();
+    private final IntList getterIndices = new IntList(KIND_COUNT);
+    private final IntList argGetterIndices = new IntList(KIND_COUNT);
+    private final IntList cmpIndices = new IntList(KIND_COUNT * CMP_COUNT);
+    private final IntList fieldIndices = new IntList();
+    private final IntList fieldNameIndices = new IntList();
+    private final IntList fieldTypeIndices = new IntList();
+    private RecordMetadata metadata;
+    private FunctionParser functionParser;
+    private SqlExecutionContext executionContext;
+    private int columnCount;
+
+    public FilterCompiler(BytecodeAssembler asm) {
+        this.asm = asm;
+    }
+
+    /**
+     * Generates filter class for the given expression.
+     *
+     * @param expr             filter expression, which is already known to be a valid boolean expression
+     * @param metadata         metadata of the records filter is going to be evaluated against
+     * @param functionParser   parser used to create functions for constants and bind variables
+     * @param executionContext execution context
+     * @return filter instance or null when expression cannot be compiled
+     */
+    @Nullable
+    public Function compile(
+            ExpressionNode expr,
+            RecordMetadata metadata,
+            FunctionParser functionParser,
+            SqlExecutionContext executionContext
+    ) {
+        this.metadata = metadata;
+        this.functionParser = functionParser;
+        this.executionContext = executionContext;
+        program.clear();
+        args.clear();
+        argKinds.clear();
+        columnCount = 0;
+
+        try {
+            if (predicate(expr) && columnCount > 0) {
+                final CompiledFilter filter = generate();
+                filter.of(new ObjList<>(args));
+                return filter;
+            }
+        } catch (SqlException | BytecodeException e) {
+            LOG.info().$("could not compile filter [expr=").$(expr).$(", e=").$(e.getMessage()).$(']').$();
+        } finally {
+            this.metadata = null;
+            this.functionParser = null;
+            this.executionContext = null;
+        }
+        Misc.freeObjList(args);
+        args.clear();
+        return null;
+    }
+
+    private static boolean isArgCompatible(int kind, int argType) {
+        switch (ColumnType.tagOf(argType)) {
+            case ColumnType.INT:
+                return kind != KIND_BOOL;
+            case ColumnType.LONG:
+                return kind == KIND_LONG || kind == KIND_TIMESTAMP || kind == KIND_DOUBLE;
+            case ColumnType.TIMESTAMP:
+                return kind == KIND_TIMESTAMP;
+            case ColumnType.DOUBLE:
+                return kind == KIND_DOUBLE;
+            case ColumnType.BOOLEAN:
+                return kind == KIND_BOOL;
+            default:
+                return false;
+        }
+    }
+
+    // true for expressions made of constants, bind variables and operators only,
+    // functions are not re-parsed because they are not guaranteed to be free of side effects
+    private static boolean isConstantExpression(ExpressionNode node) {
+        if (node == null) {
+            return true;
+        }
+        switch (node.type) {
+            case ExpressionNode.CONSTANT:
+            case ExpressionNode.BIND_VARIABLE:
+                return true;
+            case ExpressionNode.OPERATION:
+                for (int i = 0, n = node.args.size(); i < n; i++) {
+                    if (!isConstantExpression(node.args.getQuick(i))) {
+                        return false;
+                    }
+                }
+                return isConstantExpression(node.lhs) && isConstantExpression(node.rhs);
+            default:
+                return false;
+        }
+    }
+
+    private static int kindOf(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+                return KIND_INT;
+            case ColumnType.LONG:
+                return KIND_LONG;
+            case ColumnType.TIMESTAMP:
+                return KIND_TIMESTAMP;
+            case ColumnType.DOUBLE:
+                return KIND_DOUBLE;
+            case ColumnType.BOOLEAN:
+                return KIND_BOOL;
+            default:
+                return -1;
+        }
+    }
+
+    private boolean arg(ExpressionNode node, int kind) throws SqlException {
+        if (!isConstantExpression(node)) {
+            return false;
+        }
+        final Function function = functionParser.parseFunction(node, metadata, executionContext);
+        if (isArgCompatible(kind, function.getType())) {
+            program.add(OP_ARG);
+            program.add(args.size());
+            args.add(function);
+            argKinds.add(kind);
+            return true;
+        }
+        Misc.free(function);
+        return false;
+    }
+
+    private boolean binary(ExpressionNode node, int op) throws SqlException {
+        if (predicate(node.lhs) && predicate(node.rhs)) {
+            program.add(op);
+            program.add(0);
+            return true;
+        }
+        return false;
+    }
+
+    private int columnIndex(ExpressionNode node) {
+        if (node.type == ExpressionNode.LITERAL) {
+            return metadata.getColumnIndexQuiet(node.token);
+        }
+        return -1;
+    }
+
+    private boolean comparison(ExpressionNode node, int cmp, boolean swap) throws SqlException {
+        final ExpressionNode lhs = swap ? node.rhs : node.lhs;
+        final ExpressionNode rhs = swap ? node.lhs : node.rhs;
+        final int lhsColumn = columnIndex(lhs);
+        final int rhsColumn = columnIndex(rhs);
+
+        final int kind;
+        if (lhsColumn > -1 && rhsColumn > -1) {
+            final int lhsType = metadata.getColumnType(lhsColumn);
+            if (lhsType != metadata.getColumnType(rhsColumn)) {
+                return false;
+            }
+            kind = kindOf(lhsType);
+        } else if (lhsColumn > -1) {
+            kind = kindOf(metadata.getColumnType(lhsColumn));
+        } else if (rhsColumn > -1) {
+            kind = kindOf(metadata.getColumnType(rhsColumn));
+        } else {
+            return false;
+        }
+
+        if (kind == -1 || kind == KIND_BOOL) {
+            return false;
+        }
+
+        if (operand(lhs, lhsColumn, kind) && operand(rhs, rhsColumn, kind)) {
+            program.add(OP_CMP);
+            program.add(kind * CMP_COUNT + cmp);
+            return true;
+        }
+        return false;
+    }
+
+    private CompiledFilter generate() {
+        asm.init(CompiledFilter.class);
+        asm.setupPool();
+        final int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/engine/table/compiledfilter"));
+        final int superclassIndex = asm.poolClass(CompiledFilter.class);
+        final int superConstructorIndex = asm.poolMethod(superclassIndex, "<init>", "()V");
+        final int recordClassIndex = asm.poolClass(Record.class);
+
+        getterIndices.clear();
+        argGetterIndices.clear();
+        cmpIndices.clear();
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            getterIndices.add(asm.poolInterfaceMethod(recordClassIndex, KIND_GETTERS[kind], "(I)" + KIND_TYPES[kind]));
+            argGetterIndices.add(asm.poolMethod(superclassIndex, KIND_ARG_GETTERS[kind], "(Lio/questdb/std/ObjList;I)" + KIND_TYPES[kind]));
+            for (int cmp = 0; cmp < CMP_COUNT; cmp++) {
+                final String suffix = KIND_CMP_SUFFIXES[kind];
+                if (suffix != null) {
+                    final String type = KIND_TYPES[kind];
+                    cmpIndices.add(asm.poolMethod(superclassIndex, CMP_NAMES[cmp] + suffix, "(" + type + type + ")Z"));
+                } else {
+                    cmpIndices.add(-1);
+                }
+            }
+        }
+
+        fieldIndices.clear();
+        fieldNameIndices.clear();
+        fieldTypeIndices.clear();
+        for (int i = 0, n = argKinds.size(); i < n; i++) {
+            final int nameIndex = asm.poolUtf8().put('f').put(i).$();
+            final int typeIndex = asm.poolUtf8(KIND_TYPES[argKinds.getQuick(i)]);
+            fieldNameIndices.add(nameIndex);
+            fieldTypeIndices.add(typeIndex);
+            fieldIndices.add(asm.poolField(thisClassIndex, asm.poolNameAndType(nameIndex, typeIndex)));
+        }
+
+        final int getBoolNameIndex = asm.poolUtf8("getBool");
+        final int getBoolDescIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;)Z");
+        final int copyArgsNameIndex = asm.poolUtf8("copyArgs");
+        final int copyArgsDescIndex = asm.poolUtf8("(Lio/questdb/std/ObjList;)V");
+
+        asm.finishPool();
+        asm.defineClass(thisClassIndex, superclassIndex);
+        asm.interfaceCount(0);
+        asm.fieldCount(fieldNameIndices.size());
+        for (int i = 0, n = fieldNameIndices.size(); i < n; i++) {
+            asm.defineField(fieldNameIndices.getQuick(i), fieldTypeIndices.getQuick(i));
+        }
+        asm.methodCount(3);
+        asm.defineDefaultConstructor(superConstructorIndex);
+        instrumentGetBoolMethod(getBoolNameIndex, getBoolDescIndex);
+        instrumentCopyArgsMethod(copyArgsNameIndex, copyArgsDescIndex);
+        // class attribute count
+        asm.putShort(0);
+        return asm.newInstance();
+    }
+
+    /*
+     * copyArgs(ObjList args)
+     *
+     * f0 = CompiledFilter.argInt(args, 0);
+     * f1 = CompiledFilter.argDouble(args, 1);
+     * ...
+     */
+    private void instrumentCopyArgsMethod(int nameIndex, int descIndex) {
+        asm.startMethod(nameIndex, descIndex, 4, 2);
+        for (int i = 0, n = argKinds.size(); i < n; i++) {
+            asm.aload(0);
+            asm.aload(1);
+            asm.iconst(i);
+            asm.invokeStatic(argGetterIndices.getQuick(argKinds.getQuick(i)));
+            asm.putfield(fieldIndices.getQuick(i));
+        }
+        asm.return_();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+    }
+
+    private void instrumentGetBoolMethod(int nameIndex, int descIndex) {
+        // work out max stack depth first, it has to be written before the code
+        int stack = 0;
+        int maxStack = 0;
+        for (int i = 0, n = program.size(); i < n; i += 2) {
+            final int operand = program.getQuick(i + 1);
+            switch (program.getQuick(i)) {
+                case OP_COLUMN:
+                    // record and column index
+                    maxStack = Math.max(maxStack, stack + 2);
+                    stack += KIND_SLOTS[operand >> 16];
+                    break;
+                case OP_ARG:
+                    maxStack = Math.max(maxStack, stack + 1);
+                    stack += KIND_SLOTS[argKinds.getQuick(operand)];
+                    break;
+                case OP_CMP:
+                    stack -= 2 * KIND_SLOTS[operand / CMP_COUNT] - 1;
+                    break;
+                case OP_NOT:
+                    maxStack = Math.max(maxStack, stack + 1);
+                    break;
+                default:
+                    // and, or
+                    stack--;
+                    break;
+            }
+            maxStack = Math.max(maxStack, stack);
+        }
+        assert stack == 1;
+
+        asm.startMethod(nameIndex, descIndex, maxStack, 2);
+        for (int i = 0, n = program.size(); i < n; i += 2) {
+            final int operand = program.getQuick(i + 1);
+            switch (program.getQuick(i)) {
+                case OP_COLUMN:
+                    asm.aload(1);
+                    asm.iconst(operand & 0xffff);
+                    asm.invokeInterface(getterIndices.getQuick(operand >> 16), 1);
+                    break;
+                case OP_ARG:
+                    asm.aload(0);
+                    asm.getfield(fieldIndices.getQuick(operand));
+                    break;
+                case OP_CMP:
+                    asm.invokeStatic(cmpIndices.getQuick(operand));
+                    break;
+                case OP_AND:
+                    asm.iand();
+                    break;
+                case OP_OR:
+                    asm.ior();
+                    break;
+                default:
+                    // not
+                    asm.iconst(1);
+                    asm.ixor();
+                    break;
+            }
+        }
+        asm.ireturn();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+    }
+
+    private boolean not(boolean compiled) {
+        if (compiled) {
+            program.add(OP_NOT);
+            program.add(0);
+        }
+        return compiled;
+    }
+    private boolean operand(ExpressionNode node, int columnIndex, int kind) throws SqlException {
+        if (columnIndex > -1) {
+            if (columnIndex > 0xffff) {
+                return false;
+            }
+            program.add(OP_COLUMN);
+            program.add((kind << 16) | columnIndex);
+            columnCount++;
+            return true;
+        }
+        return arg(node, kind);
+    }
+
+    private boolean predicate(ExpressionNode node) throws SqlException {
+        if (node.type == ExpressionNode.LITERAL) {
+            final int columnIndex = columnIndex(node);
+            return columnIndex > -1 && kindOf(metadata.getColumnType(columnIndex)) == KIND_BOOL && operand(node, columnIndex, KIND_BOOL);
+        }
+
+        if (node.type == ExpressionNode.OPERATION) {
+            final CharSequence token = node.token;
+            if (node.paramCount == 2) {
+                if (SqlKeywords.isAndKeyword(token)) {
+                    return binary(node, OP_AND);
+                }
+                if (SqlKeywords.isOrKeyword(token)) {
+                    return binary(node, OP_OR);
+                }
+                if (Chars.equals(token, '=')) {
+                    return comparison(node, CMP_EQ, false);
+                }
+                if (Chars.equals(token, "!=") || Chars.equals(token, "<>")) {
+                    return not(comparison(node, CMP_EQ, false));
+                }
+                if (Chars.equals(token, '<')) {
+                    return comparison(node, CMP_LT, false);
+                }
+                if (Chars.equals(token, ">=")) {
+                    return comparison(node, CMP_GE, false);
+                }
+                if (Chars.equals(token, '>')) {
+                    // a > b is b < a
+                    return comparison(node, CMP_LT, true);
+                }
+                if (Chars.equals(token, "<=")) {
+                    // a <= b is b >= a
+                    return comparison(node, CMP_GE, true);
+                }
+            } else if (node.paramCount == 1 && SqlKeywords.isNotKeyword(token)) {
+                return not(predicate(node.rhs));
+            }
+        }
+
+        // boolean constant or bind variable
+        return arg(node, KIND_BOOL);
+    }
+}
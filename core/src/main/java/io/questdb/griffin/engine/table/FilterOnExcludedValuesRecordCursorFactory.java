@@ -93,6 +93,22 @@ public class FilterOnExcludedValuesRecordCursorFactory extends AbstractDataFrame
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("excluded").val('[');
+        for (int i = 0, n = excludedValues.size(); i < n; i++) {
+            if (i > 0) {
+                sink.val(", ");
+            }
+            sink.val(excludedValues.getQuick(i));
+        }
+        sink.val(']');
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+    }
+
     public void recalculateIncludedValues(TableReader tableReader) {
         excludedValues.clear();
         for (int i = 0, n = keyExcludedValueFunctions.size(); i < n; i++) {
@@ -81,6 +81,15 @@ public class FilterOnSubQueryRecordCursorFactory extends AbstractDataFrameRecord
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.child(recordCursorFactory);
+    }
+
     @Override
     protected RecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
@@ -42,6 +42,7 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
     private final int columnIndex;
     private final Function filter;
     private final ObjList<FunctionBasedRowCursorFactory> cursorFactories;
+    private final RowCursorFactory rowCursorFactory;
     private final boolean followedOrderByAdvice;
     private final IntList columnIndexes;
     private final int orderDirection;
@@ -76,10 +77,11 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
             }
         }
         if (orderByMnemonic == OrderByMnemonic.ORDER_BY_INVARIANT) {
-            this.cursor = new DataFrameRecordCursor(new SequentialRowCursorFactory(cursorFactories), false, filter, columnIndexes);
+            this.rowCursorFactory = new SequentialRowCursorFactory(cursorFactories);
         } else {
-            this.cursor = new DataFrameRecordCursor(new HeapRowCursorFactory(cursorFactories), false, filter, columnIndexes);
+            this.rowCursorFactory = new HeapRowCursorFactory(cursorFactories);
         }
+        this.cursor = new DataFrameRecordCursor(rowCursorFactory, false, filter, columnIndexes);
         this.followedOrderByAdvice = followedOrderByAdvice;
     }
 
@@ -98,6 +100,15 @@ public class FilterOnValuesRecordCursorFactory extends AbstractDataFrameRecordCu
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.attr("rows").val(rowCursorFactory);
+    }
+
     private void addSymbolKey(int symbolKey, Function symbolFunction, int indexDirection) {
         final FunctionBasedRowCursorFactory rowCursorFactory;
         if (filter == null) {
@@ -0,0 +1,441 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.PageFrameFilterTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies filter to page frames of the base cursor. Every frame is split into slices that
+ * are filtered by worker threads, each with its own copy of the filter, the same way
+ * {@link AsyncFilteredRecordCursor} filters table rows. Matching rows of the slices make up
+ * selection vector, which is then used to gather matching values of all columns into
+ * contiguous native memory. Resulting frames are dense, so that vector aggregate functions
+ * can consume them unchanged. Frames without matching rows are skipped, frames where all
+ * rows match are passed through as is and frames where matching rows are contiguous are
+ * returned as a slice of the base frame.
+ * <p>
+ * Frames are typically aggregated asynchronously, which is why gathered frames stay valid
+ * after next() returns. They are built in a bounded pool of buffers, the consumer releases
+ * the buffers once it has waited for the frames to be aggregated.
+ */
+public class FilteredPageFrameCursor implements PageFrameCursor, SymbolTableSource {
+    // selection vector entry layout matches index used by native re-shuffle functions
+    private static final int INDEX_ENTRY_SHR = 4;
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameFilterEntry> entries;
+    private final int entryCount;
+    private final int columnCount;
+    private final long maxFrameRows;
+    private final LongList baseAddresses = new LongList();
+    private final LongList pageAddresses = new LongList();
+    private final LongList pageSizes = new LongList();
+    // address and capacity pairs of the frame buffer pool
+    private final LongList buffers = new LongList();
+    private final FilteredPageFrame frame = new FilteredPageFrame();
+    private PageFrameCursor base;
+    private SqlExecutionInterruptor interruptor;
+    private RingQueue<PageFrameFilterTask> queue;
+    private Sequence pubSeq;
+    private PageFrame currentFrame;
+    private long firstRowId;
+    private long selectionAddress;
+    private long selectionCapacity;
+    private int usedBufferCount;
+    private long dispatchedCount;
+    private long consumedCount;
+
+    /**
+     * @param filters     one filter per worker thread and one more, the last one, for the thread that owns the cursor;
+     *                    a single filter means that frames are filtered by the owner alone
+     * @param columnCount number of columns in page frames of the base cursor
+     */
+    public FilteredPageFrameCursor(CairoConfiguration configuration, ObjList<Function> filters, int columnCount) {
+        this.filters = filters;
+        this.columnCount = columnCount;
+        this.maxFrameRows = configuration.getSqlPageFrameMaxRows();
+        baseAddresses.setAll(columnCount, 0);
+        pageAddresses.setAll(columnCount, 0);
+        pageSizes.setAll(columnCount, 0);
+        buffers.setAll(2 * Math.max(1, configuration.getSqlPageFrameFilterBufferCount()), 0);
+
+        final ObjList<PageFrameRecord> records = new ObjList<>(filters.size());
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            final PageFrameRecord record = new PageFrameRecord();
+            record.setSymbolTableSource(this);
+            records.add(record);
+        }
+        final IntList frameColumnIndexes = new IntList(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            frameColumnIndexes.add(i);
+        }
+        // allow each worker to have a slice in the queue while another one is being consumed
+        this.entryCount = 2 * filters.size();
+        this.entries = new ObjList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new PageFrameFilterEntry(filters, records, frameColumnIndexes, columnCount));
+        }
+    }
+
+    @Override
+    public void close() {
+        freeBuffers();
+        if (selectionAddress != 0) {
+            Unsafe.free(selectionAddress, selectionCapacity << INDEX_ENTRY_SHR, MemoryTag.NATIVE_PAGE_FRAME);
+            selectionAddress = 0;
+            selectionCapacity = 0;
+        }
+        base = Misc.free(base);
+    }
+
+    @Override
+    public SymbolMapReader getSymbolMapReader(int columnIndex) {
+        return base.getSymbolMapReader(columnIndex);
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolMapReader(columnIndex);
+    }
+
+    @Override
+    public boolean mustReleaseFrames() {
+        return usedBufferCount == buffers.size() / 2;
+    }
+
+    @Override
+    public @Nullable PageFrame next() {
+        PageFrame baseFrame;
+        while ((baseFrame = base.next()) != null) {
+            final long rowCount = getRowCount(baseFrame);
+            if (rowCount == 0) {
+                continue;
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                baseAddresses.setQuick(i, baseFrame.getPageAddress(i));
+            }
+
+            final long selectedCount = filter(baseFrame, rowCount);
+            if (selectedCount == rowCount) {
+                return baseFrame;
+            }
+
+            if (selectedCount > 0) {
+                currentFrame = baseFrame;
+                final long firstRow = Unsafe.getUnsafe().getLong(selectionAddress + Long.BYTES);
+                final long lastRow = Unsafe.getUnsafe().getLong(selectionAddress + ((selectedCount - 1) << INDEX_ENTRY_SHR) + Long.BYTES);
+                firstRowId = baseFrame.getFirstRowId() + firstRow;
+                if (lastRow - firstRow + 1 == selectedCount) {
+                    slice(baseFrame, firstRow, selectedCount);
+                } else {
+                    gather(baseFrame, selectedCount);
+                }
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    public FilteredPageFrameCursor of(PageFrameCursor base, SqlExecutionContext executionContext) throws SqlException {
+        this.base = base;
+        this.interruptor = executionContext.getSqlExecutionInterruptor();
+        final MessageBus bus = executionContext.getMessageBus();
+        if (bus != null) {
+            this.queue = bus.getPageFrameFilterQueue();
+            this.pubSeq = bus.getPageFrameFilterPubSeq();
+        }
+        usedBufferCount = 0;
+        // all filters are initialised by this thread before any of them is used by workers
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            filters.getQuick(i).init(this, executionContext);
+        }
+        return this;
+    }
+
+    @Override
+    public void releaseFrames() {
+        usedBufferCount = 0;
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void toTop() {
+        usedBufferCount = 0;
+        base.toTop();
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            filters.getQuick(i).toTop();
+        }
+    }
+
+    void freeEntries() {
+        Misc.freeObjList(entries);
+    }
+
+    private static long getRowCount(PageFrame frame) {
+        final long pageSize = frame.getPageSize(0);
+        // zero address means column top, in which case page size is row count
+        return frame.getPageAddress(0) == 0 ? pageSize : pageSize >> frame.getColumnSize(0);
+    }
+
+    private void awaitEntry(PageFrameFilterEntry entry) {
+        if (entry.runByOwner(interruptor)) {
+            return;
+        }
+
+        // entry is being processed by a worker, help out with the entries queued after it
+        long index = consumedCount + 1;
+        while (!entry.isDone()) {
+            if (index < dispatchedCount) {
+                entries.getQuick((int) (index++ % entryCount)).runByOwner(interruptor);
+            } else {
+                LockSupport.parkNanos(1);
+            }
+        }
+    }
+
+    private void cancelEntries() {
+        // workers may still be reading the frame, wait for them before it is released
+        for (long i = consumedCount; i < dispatchedCount; i++) {
+            final PageFrameFilterEntry e = entries.getQuick((int) (i % entryCount));
+            if (!e.cancel()) {
+                while (!e.isDone()) {
+                    LockSupport.parkNanos(1);
+                }
+            }
+        }
+        consumedCount = dispatchedCount;
+    }
+
+    private void ensureSelectionCapacity(long rowCount) {
+        if (rowCount > selectionCapacity) {
+            selectionAddress = Unsafe.realloc(
+                    selectionAddress,
+                    selectionCapacity << INDEX_ENTRY_SHR,
+                    rowCount << INDEX_ENTRY_SHR,
+                    MemoryTag.NATIVE_PAGE_FRAME
+            );
+            selectionCapacity = rowCount;
+        }
+    }
+
+    /**
+     * Filters frame slice by slice and writes frame-relative indexes of matching rows to
+     * the selection vector.
+     *
+     * @return number of matching rows
+     */
+    private long filter(PageFrame baseFrame, long rowCount) {
+        ensureSelectionCapacity(rowCount);
+        final long frameFirstRowId = baseFrame.getFirstRowId();
+        long selectedCount = 0;
+        long lo = 0;
+        dispatchedCount = 0;
+        consumedCount = 0;
+        try {
+            while (true) {
+                while (lo < rowCount && dispatchedCount - consumedCount < entryCount) {
+                    interruptor.checkInterrupted();
+                    final PageFrameFilterEntry e = entries.getQuick((int) (dispatchedCount % entryCount));
+                    final long hi = Math.min(rowCount, lo + maxFrameRows);
+                    e.of(baseFrame, lo, hi);
+                    dispatchedCount++;
+                    lo = hi;
+                    // single filter cannot be shared with workers, the owner runs entries on its own
+                    if (filters.size() > 1) {
+                        final long seq = pubSeq.next();
+                        if (seq > -1) {
+                            queue.get(seq).entry = e;
+                            pubSeq.done(seq);
+                        }
+                    }
+                }
+
+                if (consumedCount == dispatchedCount) {
+                    return selectedCount;
+                }
+
+                final PageFrameFilterEntry e = entries.getQuick((int) (consumedCount % entryCount));
+                awaitEntry(e);
+                consumedCount++;
+
+                final Throwable error = e.getError();
+                if (error != null) {
+                    if (error instanceof CairoException) {
+                        throw (CairoException) error;
+                    }
+                    throw CairoException.instance(0).put("filter failed [error=").put(error.getMessage()).put(']');
+                }
+
+                for (long i = 0, n = e.getRowCount(); i < n; i++) {
+                    final long p = selectionAddress + (selectedCount++ << INDEX_ENTRY_SHR);
+                    Unsafe.getUnsafe().putLong(p, 0);
+                    Unsafe.getUnsafe().putLong(p + Long.BYTES, e.getRow(i) - frameFirstRowId);
+                }
+            }
+        } catch (Throwable e) {
+            cancelEntries();
+            throw e;
+        }
+    }
+
+    private void freeBuffers() {
+        for (int i = 0, n = buffers.size(); i < n; i += 2) {
+            final long address = buffers.getQuick(i);
+            if (address != 0) {
+                Unsafe.free(address, buffers.getQuick(i + 1), MemoryTag.NATIVE_PAGE_FRAME);
+                buffers.setQuick(i, 0);
+                buffers.setQuick(i + 1, 0);
+            }
+        }
+        usedBufferCount = 0;
+    }
+
+    private void gather(PageFrame baseFrame, long selectedCount) {
+        long bufferSize = 0;
+        for (int i = 0; i < columnCount; i++) {
+            if (baseAddresses.getQuick(i) != 0) {
+                bufferSize += selectedCount << baseFrame.getColumnSize(i);
+            }
+        }
+
+        long dst = bufferSize > 0 ? nextBuffer(bufferSize) : 0;
+        for (int i = 0; i < columnCount; i++) {
+            final long src = baseAddresses.getQuick(i);
+            if (src == 0) {
+                // column top remains column top, it only gets shorter
+                pageAddresses.setQuick(i, 0);
+                pageSizes.setQuick(i, selectedCount);
+                continue;
+            }
+
+            final int shr = baseFrame.getColumnSize(i);
+            switch (shr) {
+                case 0:
+                    Vect.indexReshuffle8Bit(src, dst, selectionAddress, selectedCount);
+                    break;
+                case 1:
+                    Vect.indexReshuffle16Bit(src, dst, selectionAddress, selectedCount);
+                    break;
+                case 2:
+                    Vect.indexReshuffle32Bit(src, dst, selectionAddress, selectedCount);
+                    break;
+                default:
+                    Vect.indexReshuffle64Bit(src, dst, selectionAddress, selectedCount);
+                    break;
+            }
+            final long size = selectedCount << shr;
+            pageAddresses.setQuick(i, dst);
+            pageSizes.setQuick(i, size);
+            dst += size;
+        }
+    }
+
+    private long nextBuffer(long size) {
+        if (usedBufferCount == buffers.size() / 2) {
+            // consumer does not read frames after moving on to the next one
+            usedBufferCount = 0;
+        }
+        final int index = 2 * usedBufferCount++;
+        long address = buffers.getQuick(index);
+        final long capacity = buffers.getQuick(index + 1);
+        if (capacity < size) {
+            address = Unsafe.realloc(address, capacity, size, MemoryTag.NATIVE_PAGE_FRAME);
+            buffers.setQuick(index, address);
+            buffers.setQuick(index + 1, size);
+        }
+        return address;
+    }
+
+    private void slice(PageFrame baseFrame, long firstRow, long selectedCount) {
+        for (int i = 0; i < columnCount; i++) {
+            final long src = baseAddresses.getQuick(i);
+            if (src == 0) {
+                pageAddresses.setQuick(i, 0);
+                pageSizes.setQuick(i, selectedCount);
+            } else {
+                final int shr = baseFrame.getColumnSize(i);
+                pageAddresses.setQuick(i, src + (firstRow << shr));
+                pageSizes.setQuick(i, selectedCount << shr);
+            }
+        }
+    }
+
+    private class FilteredPageFrame implements PageFrame {
+        @Override
+        public BitmapIndexReader getBitmapIndexReader(int columnIndex, int dirForward) {
+            return currentFrame.getBitmapIndexReader(columnIndex, dirForward);
+        }
+
+        /**
+         * Row id of the first row of the frame. Rows of a frame sliced from the base one
+         * are contiguous, rows of a gathered frame are in ascending, but not necessarily
+         * contiguous, order.
+         */
+        @Override
+        public long getFirstRowId() {
+            return firstRowId;
+        }
+
+        @Override
+        public int getPartitionIndex() {
+            return currentFrame.getPartitionIndex();
+        }
+
+        @Override
+        public long getPageAddress(int columnIndex) {
+            return pageAddresses.getQuick(columnIndex);
+        }
+
+        @Override
+        public long getPageSize(int columnIndex) {
+            return pageSizes.getQuick(columnIndex);
+        }
+
+        @Override
+        public int getColumnSize(int columnIndex) {
+            return currentFrame.getColumnSize(columnIndex);
+        }
+    }
+}
@@ -24,20 +24,22 @@
 
 package io.questdb.griffin.engine.table;
 
-import io.questdb.cairo.sql.Function;
-import io.questdb.cairo.sql.RecordCursor;
-import io.questdb.cairo.sql.RecordCursorFactory;
-import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
 
 public class FilteredRecordCursorFactory implements RecordCursorFactory {
     private final RecordCursorFactory base;
     private final FilteredRecordCursor cursor;
     private final Function filter;
+    private final CairoConfiguration configuration;
+    private FilteredPageFrameCursor pageFrameCursor;
 
-    public FilteredRecordCursorFactory(RecordCursorFactory base, Function filter) {
-        assert !(base instanceof FilteredRecordCursorFactory);
+    public FilteredRecordCursorFactory(CairoConfiguration configuration, RecordCursorFactory base, Function filter) {
+        this.configuration = configuration;
         this.base = base;
         this.cursor = new FilteredRecordCursor(filter);
         this.filter = filter;
@@ -45,6 +47,10 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
 
     @Override
     public void close() {
+        if (pageFrameCursor != null) {
+            pageFrameCursor.freeEntries();
+            pageFrameCursor.close();
+        }
         base.close();
         filter.close();
     }
@@ -56,6 +62,16 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
         return this.cursor;
     }
 
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) throws SqlException {
+        if (pageFrameCursor == null) {
+            final ObjList<Function> filters = new ObjList<>(1);
+            filters.add(filter);
+            pageFrameCursor = new FilteredPageFrameCursor(configuration, filters, base.getMetadata().getColumnCount());
+        }
+        return pageFrameCursor.of(base.getPageFrameCursor(executionContext), executionContext);
+    }
+
     @Override
     public RecordMetadata getMetadata() {
         return base.getMetadata();
@@ -65,4 +81,16 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
     }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("FilteredRecordCursorFactory");
+        sink.attr("filter").val(filter);
+        sink.child(base);
+    }
 }
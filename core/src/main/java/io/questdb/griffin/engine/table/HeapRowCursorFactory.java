@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 import io.questdb.griffin.SqlException;
@@ -57,6 +58,18 @@ public class HeapRowCursorFactory implements RowCursorFactory {
         return cursor;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("HeapRowCursorFactory [");
+        for (int i = 0, n = cursorFactories.size(); i < n; i++) {
+            if (i > 0) {
+                sink.val(", ");
+            }
+            sink.val(cursorFactories.getQuick(i));
+        }
+        sink.val(']');
+    }
+
     @Override
     public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) throws SqlException {
         RowCursorFactory.prepareCursor(cursorFactories, tableReader, sqlExecutionContext);
@@ -29,6 +29,7 @@ import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.vm.MemoryCMRDeflateImpl;
 import io.questdb.cairo.vm.api.MemoryR;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
@@ -38,7 +39,9 @@ import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.std.DirectLongList;
 import io.questdb.std.IntList;
+import io.questdb.std.MemoryTag;
 import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
 import io.questdb.tasks.LatestByTask;
 import org.jetbrains.annotations.NotNull;
@@ -131,108 +134,131 @@ class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
         int frameColumnIndex = columnIndexes.getQuick(columnIndex);
 
         final TableReader reader = this.dataFrameCursor.getTableReader();
+        if (hashColumnIndex > -1) {
+            // hash column is read directly, it might not be in the projection
+            reader.selectColumn(hashColumnIndex);
+        }
 
-        long foundRowCount = 0;
-        while ((frame = this.dataFrameCursor.next()) != null && foundRowCount < keyCount) {
-            doneLatch.reset();
-            final BitmapIndexReader indexReader = frame.getBitmapIndexReader(frameColumnIndex, BitmapIndexReader.DIR_BACKWARD);
-
-            final long rowLo = frame.getRowLo();
-            final long rowHi = frame.getRowHi() - 1;
-
-            final long keyBaseAddress = indexReader.getKeyBaseAddress();
-            final long keysMemorySize = indexReader.getKeyMemorySize();
-            final long valueBaseAddress = indexReader.getValueBaseAddress();
-            final long valuesMemorySize = indexReader.getValueMemorySize();
-            final int valueBlockCapacity = indexReader.getValueBlockCapacity();
-            final long unIndexedNullCount = indexReader.getUnIndexedNullCount();
-            final int partitionIndex = frame.getPartitionIndex();
-
-            long hashColumnAddress = 0;
-
-            //hashColumnIndex can be -1 for latest by part only (no prefixes to match)
-            if (hashColumnIndex > -1) {
-                final int columnBase = reader.getColumnBase(partitionIndex);
-                final int primaryColumnIndex = TableReader.getPrimaryColumnIndex(columnBase, hashColumnIndex);
-                final MemoryR column = reader.getColumn(primaryColumnIndex);
-                hashColumnAddress = column.getPageAddress(0);
-            }
-
-            // -1 must be dead case here
-            final int hashesColumnSize = ColumnType.isGeoHash(hashColumnType) ? getPow2SizeOfGeoHashType(hashColumnType) : -1;
-
-            int queuedCount = 0;
-            for (long i = 0; i < taskCount; ++i) {
-                final long argsAddress = argumentsAddress + i * LatestByArguments.MEMORY_SIZE;
-                final long found = LatestByArguments.getRowsSize(argsAddress);
-                final long keyHi = LatestByArguments.getKeyHi(argsAddress);
-                final long keyLo = LatestByArguments.getKeyLo(argsAddress);
+        // -1 must be dead case here
+        final int hashesColumnSize = ColumnType.isGeoHash(hashColumnType) ? getPow2SizeOfGeoHashType(hashColumnType) : -1;
+        // compressed hash column is decompressed block by block, native code needs it contiguous
+        long hashCopyAddress = 0;
+        long hashCopySize = 0;
 
-                // Skip range if all keys found
-                if (found >= keyHi - keyLo) {
-                    continue;
+        long foundRowCount = 0;
+        try {
+            while ((frame = this.dataFrameCursor.next()) != null && foundRowCount < keyCount) {
+                doneLatch.reset();
+                final BitmapIndexReader indexReader = frame.getBitmapIndexReader(frameColumnIndex, BitmapIndexReader.DIR_BACKWARD);
+
+                final long rowLo = frame.getRowLo();
+                final long rowHi = frame.getRowHi() - 1;
+
+                final long keyBaseAddress = indexReader.getKeyBaseAddress();
+                final long keysMemorySize = indexReader.getKeyMemorySize();
+                final long valueBaseAddress = indexReader.getValueBaseAddress();
+                final long valuesMemorySize = indexReader.getValueMemorySize();
+                final int valueBlockCapacity = indexReader.getValueBlockCapacity();
+                final long unIndexedNullCount = indexReader.getUnIndexedNullCount();
+                final int partitionIndex = frame.getPartitionIndex();
+
+                long hashColumnAddress = 0;
+
+                //hashColumnIndex can be -1 for latest by part only (no prefixes to match)
+                if (hashColumnIndex > -1) {
+                    final int columnBase = reader.getColumnBase(partitionIndex);
+                    final int primaryColumnIndex = TableReader.getPrimaryColumnIndex(columnBase, hashColumnIndex);
+                    final MemoryR column = reader.getColumn(primaryColumnIndex);
+                    if (column instanceof MemoryCMRDeflateImpl) {
+                        final long len = Math.min((rowHi + 1) * hashesColumnSize, column.size());
+                        if (len > hashCopySize) {
+                            hashCopyAddress = Unsafe.realloc(hashCopyAddress, hashCopySize, len, MemoryTag.NATIVE_DEFAULT);
+                            hashCopySize = len;
+                        }
+                        ((MemoryCMRDeflateImpl) column).copyTo(0, len, hashCopyAddress);
+                        hashColumnAddress = hashCopyAddress;
+                    } else {
+                        hashColumnAddress = column.getPageAddress(0);
+                    }
                 }
-                // Update hash column address with current frame value
-                LatestByArguments.setHashesAddress(argsAddress, hashColumnAddress);
-
-                final long seq = pubSeq.next();
-
-                if (seq < 0) {
-                    GeoHashNative.latestByAndFilterPrefix(
-                            keyBaseAddress,
-                            keysMemorySize,
-                            valueBaseAddress,
-                            valuesMemorySize,
-                            argsAddress,
-                            unIndexedNullCount,
-                            rowHi,
-                            rowLo,
-                            partitionIndex,
-                            valueBlockCapacity,
-                            hashColumnAddress,
-                            hashesColumnSize,
-                            prefixesAddress,
-                            prefixesCount
-                    );
-                } else {
-                    queue.get(seq).of(
-                            keyBaseAddress,
-                            keysMemorySize,
-                            valueBaseAddress,
-                            valuesMemorySize,
-                            argsAddress,
-                            unIndexedNullCount,
-                            rowHi,
-                            rowLo,
-                            partitionIndex,
-                            valueBlockCapacity,
-                            hashColumnAddress,
-                            hashesColumnSize,
-                            prefixesAddress,
-                            prefixesCount,
-                            doneLatch
-                    );
-                    pubSeq.done(seq);
-                    queuedCount++;
+
+                int queuedCount = 0;
+                for (long i = 0; i < taskCount; ++i) {
+                    final long argsAddress = argumentsAddress + i * LatestByArguments.MEMORY_SIZE;
+                    final long found = LatestByArguments.getRowsSize(argsAddress);
+                    final long keyHi = LatestByArguments.getKeyHi(argsAddress);
+                    final long keyLo = LatestByArguments.getKeyLo(argsAddress);
+
+                    // Skip range if all keys found
+                    if (found >= keyHi - keyLo) {
+                        continue;
+                    }
+                    // Update hash column address with current frame value
+                    LatestByArguments.setHashesAddress(argsAddress, hashColumnAddress);
+
+                    final long seq = pubSeq.next();
+
+                    if (seq < 0) {
+                        GeoHashNative.latestByAndFilterPrefix(
+                                keyBaseAddress,
+                                keysMemorySize,
+                                valueBaseAddress,
+                                valuesMemorySize,
+                                argsAddress,
+                                unIndexedNullCount,
+                                rowHi,
+                                rowLo,
+                                partitionIndex,
+                                valueBlockCapacity,
+                                hashColumnAddress,
+                                hashesColumnSize,
+                                prefixesAddress,
+                                prefixesCount
+                        );
+                    } else {
+                        queue.get(seq).of(
+                                keyBaseAddress,
+                                keysMemorySize,
+                                valueBaseAddress,
+                                valuesMemorySize,
+                                argsAddress,
+                                unIndexedNullCount,
+                                rowHi,
+                                rowLo,
+                                partitionIndex,
+                                valueBlockCapacity,
+                                hashColumnAddress,
+                                hashesColumnSize,
+                                prefixesAddress,
+                                prefixesCount,
+                                doneLatch
+                        );
+                        pubSeq.done(seq);
+                        queuedCount++;
+                    }
                 }
-            }
 
-            // process our own queue
-            // this should fix deadlock with 1 worker configuration
-            while (doneLatch.getCount() > -queuedCount) {
-                long seq = subSeq.next();
-                if (seq > -1) {
-                    queue.get(seq).run();
-                    subSeq.done(seq);
+                // process our own queue
+                // this should fix deadlock with 1 worker configuration
+                while (doneLatch.getCount() > -queuedCount) {
+                    long seq = subSeq.next();
+                    if (seq > -1) {
+                        queue.get(seq).run();
+                        subSeq.done(seq);
+                    }
                 }
-            }
 
-            doneLatch.await(queuedCount);
+                doneLatch.await(queuedCount);
 
-            foundRowCount = 0; // Reset found counter
-            for (int i = 0; i < taskCount; i++) {
-                final long address = argumentsAddress + i * LatestByArguments.MEMORY_SIZE;
-                foundRowCount += LatestByArguments.getRowsSize(address);
+                foundRowCount = 0; // Reset found counter
+                for (int i = 0; i < taskCount; i++) {
+                    final long address = argumentsAddress + i * LatestByArguments.MEMORY_SIZE;
+                    foundRowCount += LatestByArguments.getRowsSize(address);
+                }
+            }
+        } finally {
+            if (hashCopyAddress != 0) {
+                Unsafe.free(hashCopyAddress, hashCopySize, MemoryTag.NATIVE_DEFAULT);
             }
         }
         final long rowCount = GeoHashNative.slideFoundBlocks(argumentsAddress, taskCount);
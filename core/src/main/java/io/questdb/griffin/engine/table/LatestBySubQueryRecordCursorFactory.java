@@ -113,4 +113,13 @@ public class LatestBySubQueryRecordCursorFactory extends AbstractTreeSetRecordCu
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+        sink.child(recordCursorFactory);
+    }
 }
@@ -28,6 +28,7 @@ import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.EmptyRowCursor;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 import io.questdb.cairo.sql.SymbolTable;
@@ -64,6 +65,11 @@ public class LatestByValueDeferredIndexedRowCursorFactory implements RowCursorFa
         return EmptyRowCursor.INSTANCE;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("LatestByValueDeferredIndexedRowCursorFactory column=").val(columnIndex).val(" symbol=").val(symbol);
+    }
+
     @Override
     public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) {
         if (symbolKey == SymbolTable.VALUE_NOT_FOUND) {
@@ -35,6 +35,8 @@ public class LatestByValueFilteredRecordCursorFactory extends AbstractDataFrameR
 
     private final AbstractDataFrameRecordCursor cursor;
     private final Function filter;
+    private final int columnIndex;
+    private final int symbolKey;
 
     public LatestByValueFilteredRecordCursorFactory(
             RecordMetadata metadata,
@@ -51,6 +53,8 @@ public class LatestByValueFilteredRecordCursorFactory extends AbstractDataFrameR
             this.cursor = new LatestByValueFilteredRecordCursor(columnIndex, symbolKey, filter, columnIndexes);
         }
         this.filter = filter;
+        this.columnIndex = columnIndex;
+        this.symbolKey = symbolKey;
     }
 
     @Override
@@ -66,6 +70,15 @@ public class LatestByValueFilteredRecordCursorFactory extends AbstractDataFrameR
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("symbol").val("column=").val(columnIndex).val(" key=").val(symbolKey);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+    }
+
     @Override
     protected RecordCursor getCursorInstance(
             DataFrameCursor dataFrameCursor,
@@ -34,6 +34,8 @@ import org.jetbrains.annotations.NotNull;
 public class LatestByValueIndexedFilteredRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final LatestByValueIndexedFilteredRecordCursor cursor;
     private final Function filter;
+    private final int columnIndex;
+    private final int symbolKey;
 
     public LatestByValueIndexedFilteredRecordCursorFactory(
             @NotNull RecordMetadata metadata,
@@ -46,6 +48,8 @@ public class LatestByValueIndexedFilteredRecordCursorFactory extends AbstractDat
         super(metadata, dataFrameCursorFactory);
         this.cursor = new LatestByValueIndexedFilteredRecordCursor(columnIndex, TableUtils.toIndexKey(symbolKey), filter, columnIndexes);
         this.filter = filter;
+        this.columnIndex = columnIndex;
+        this.symbolKey = symbolKey;
     }
 
     @Override
@@ -59,6 +63,15 @@ public class LatestByValueIndexedFilteredRecordCursorFactory extends AbstractDat
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("symbol").val("column=").val(columnIndex).val(" key=").val(symbolKey);
+        if (filter != null) {
+            sink.attr("filter").val(filter);
+        }
+    }
+
     @Override
     protected RecordCursor getCursorInstance(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext)
             throws SqlException {
@@ -28,6 +28,7 @@ import io.questdb.cairo.BitmapIndexReader;
 import io.questdb.cairo.EmptyRowCursor;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.cairo.sql.RowCursorFactory;
 
@@ -57,6 +58,11 @@ public class LatestByValueIndexedRowCursorFactory implements RowCursorFactory {
         return EmptyRowCursor.INSTANCE;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("LatestByValueIndexedRowCursorFactory column=").val(columnIndex).val(" key=").val(symbolKey - 1);
+    }
+
     @Override
     public boolean isEntity() {
         return false;
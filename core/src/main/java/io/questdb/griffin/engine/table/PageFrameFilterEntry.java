@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Unit of work for parallel filter execution. Entry describes a slice of a page frame
+ * and collects partition-local row ids of the rows that satisfy the filter.
+ * <p>
+ * Entry is executed exactly once, either by a worker thread or by the thread that owns the
+ * cursor. Both race to claim the entry and the winner evaluates filter. Entries are reused
+ * by the cursor, which is why the owner must publish all slice attributes before the entry is
+ * made claimable.
+ */
+public class PageFrameFilterEntry implements Closeable {
+    private static final long CLAIMED_OFFSET;
+    private final LongList pageAddresses = new LongList();
+    private final DirectLongList rows;
+    // one filter and one record per worker; the last slot belongs to the cursor owner
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameRecord> records;
+    private final IntList columnIndexes;
+    private int partitionIndex;
+    private long rowLo;
+    private long rowCount;
+    private Throwable error;
+    private volatile boolean done = true;
+    @SuppressWarnings({"FieldMayBeFinal", "unused"})
+    private int claimed = 1;
+
+    public PageFrameFilterEntry(
+            ObjList<Function> filters,
+            ObjList<PageFrameRecord> records,
+            IntList columnIndexes,
+            int columnCount
+    ) {
+        this.filters = filters;
+        this.records = records;
+        this.columnIndexes = columnIndexes;
+        this.pageAddresses.setAll(columnCount, 0);
+        this.rows = new DirectLongList(1024);
+    }
+
+    @Override
+    public void close() {
+        rows.close();
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public long getRow(long index) {
+        return rows.get(index);
+    }
+
+    public long getRowCount() {
+        return rows.size();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Claims entry without evaluating filter. Used when cursor is closed or rewound
+     * while entries are still in flight.
+     *
+     * @return true when claim succeeded and the entry will not be touched by worker threads
+     */
+    public boolean cancel() {
+        if (tryClaim()) {
+            rows.clear();
+            done = true;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean run(int workerId) {
+        // worker ids outside of filter slots cannot run this entry, the owner will pick it up
+        if (workerId < filters.size() - 1 && tryClaim()) {
+            run0(workerId, null);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean runByOwner() {
+        return runByOwner(null);
+    }
+
+    /**
+     * Runs entry on the thread that owns the cursor, checking the interruptor for every row.
+     * Interruption is reported as entry error.
+     */
+    public boolean runByOwner(SqlExecutionInterruptor interruptor) {
+        if (tryClaim()) {
+            run0(filters.size() - 1, interruptor);
+            return true;
+        }
+        return false;
+    }
+
+    void of(PageFrame frame, long lo, long hi) {
+        for (int i = 0, n = columnIndexes.size(); i < n; i++) {
+            final long address = frame.getPageAddress(i);
+            pageAddresses.setQuick(
+                    columnIndexes.getQuick(i),
+                    address == 0 ? 0 : address + (lo << frame.getColumnSize(i))
+            );
+        }
+        this.partitionIndex = frame.getPartitionIndex();
+        this.rowLo = frame.getFirstRowId() + lo;
+        this.rowCount = hi - lo;
+        this.error = null;
+        this.rows.clear();
+        this.done = false;
+        // make entry claimable only after all the above is visible to other threads
+        Unsafe.getUnsafe().putIntVolatile(this, CLAIMED_OFFSET, 0);
+    }
+
+    private void run0(int slot, SqlExecutionInterruptor interruptor) {
+        final Function filter = filters.getQuick(slot);
+        final PageFrameRecord record = records.getQuick(slot);
+        record.of(pageAddresses);
+        try {
+            for (long r = 0; r < rowCount; r++) {
+                if (interruptor != null) {
+                    interruptor.checkInterrupted();
+                }
+                record.setRowIndex(r);
+                if (filter.getBool(record)) {
+                    rows.add(rowLo + r);
+                }
+            }
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            done = true;
+        }
+    }
+
+    private boolean tryClaim() {
+        return Unsafe.cas(this, CLAIMED_OFFSET, 0, 1);
+    }
+
+    static {
+        CLAIMED_OFFSET = Unsafe.getFieldOffset(PageFrameFilterEntry.class, "claimed");
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Record that reads fixed-size column values directly from page frame memory. Page addresses
+ * are indexed by column index in record metadata. Zero address denotes column top, e.g. the
+ * column was added to the table after page frame rows were written. Values in column top
+ * are nulls. Symbol values are resolved only when symbol table source is set.
+ */
+public class PageFrameRecord implements Record {
+    private LongList pageAddresses;
+    private long rowIndex;
+    private SymbolTableSource symbolTableSource;
+
+    @Override
+    public boolean getBool(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address != 0 && Unsafe.getUnsafe().getByte(address + rowIndex) == 1;
+    }
+
+    @Override
+    public byte getByte(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getByte(address + rowIndex);
+    }
+
+    @Override
+    public char getChar(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getChar(address + (rowIndex << 1));
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? Double.NaN : Unsafe.getUnsafe().getDouble(address + (rowIndex << 3));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? Float.NaN : Unsafe.getUnsafe().getFloat(address + (rowIndex << 2));
+    }
+
+    @Override
+    public int getInt(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? Numbers.INT_NaN : Unsafe.getUnsafe().getInt(address + (rowIndex << 2));
+    }
+
+    @Override
+    public long getLong(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? Numbers.LONG_NaN : Unsafe.getUnsafe().getLong(address + (rowIndex << 3));
+    }
+
+    @Override
+    public short getShort(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? 0 : Unsafe.getUnsafe().getShort(address + (rowIndex << 1));
+    }
+
+    @Override
+    public CharSequence getSym(int col) {
+        return symbolTableSource.getSymbolTable(col).valueOf(getInt(col));
+    }
+
+    @Override
+    public CharSequence getSymB(int col) {
+        return symbolTableSource.getSymbolTable(col).valueBOf(getInt(col));
+    }
+
+    @Override
+    public byte getGeoByte(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? GeoHashes.BYTE_NULL : Unsafe.getUnsafe().getByte(address + rowIndex);
+    }
+
+    @Override
+    public short getGeoShort(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? GeoHashes.SHORT_NULL : Unsafe.getUnsafe().getShort(address + (rowIndex << 1));
+    }
+
+    @Override
+    public int getGeoInt(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? GeoHashes.INT_NULL : Unsafe.getUnsafe().getInt(address + (rowIndex << 2));
+    }
+
+    @Override
+    public long getGeoLong(int col) {
+        final long address = pageAddresses.getQuick(col);
+        return address == 0 ? GeoHashes.NULL : Unsafe.getUnsafe().getLong(address + (rowIndex << 3));
+    }
+
+    public void of(LongList pageAddresses) {
+        this.pageAddresses = pageAddresses;
+        this.rowIndex = 0;
+    }
+
+    public void setRowIndex(long rowIndex) {
+        this.rowIndex = rowIndex;
+    }
+
+    public void setSymbolTableSource(SymbolTableSource symbolTableSource) {
+        this.symbolTableSource = symbolTableSource;
+    }
+}
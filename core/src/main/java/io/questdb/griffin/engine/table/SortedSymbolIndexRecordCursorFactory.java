@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.table;
 
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlException;
@@ -35,6 +36,7 @@ import org.jetbrains.annotations.NotNull;
 
 public class SortedSymbolIndexRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
+    private final SortedSymbolIndexRowCursorFactory rowCursorFactory;
 
     public SortedSymbolIndexRecordCursorFactory(
             @NotNull RecordMetadata metadata,
@@ -45,12 +47,13 @@ public class SortedSymbolIndexRecordCursorFactory extends AbstractDataFrameRecor
             @NotNull IntList columnIndexes
     ) {
         super(metadata, dataFrameCursorFactory);
+        this.rowCursorFactory = new SortedSymbolIndexRowCursorFactory(
+                columnIndex,
+                columnOrderAsc,
+                indexDirection
+        );
         this.cursor = new DataFrameRecordCursor(
-                new SortedSymbolIndexRowCursorFactory(
-                        columnIndex,
-                        columnOrderAsc,
-                        indexDirection
-                ),
+                rowCursorFactory,
                 true,
                 null,
                 columnIndexes
@@ -68,6 +71,12 @@ public class SortedSymbolIndexRecordCursorFactory extends AbstractDataFrameRecor
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        super.toPlan(sink);
+        sink.attr("rows").val(rowCursorFactory);
+    }
+
     @Override
     protected RecordCursor getCursorInstance(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext)
             throws SqlException {
@@ -92,6 +92,11 @@ public class SortedSymbolIndexRowCursorFactory implements RowCursorFactory {
         return cursor;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("SortedSymbolIndexRowCursorFactory column=").val(columnIndex).val(columnOrderDirectionAsc ? " asc" : " desc");
+    }
+
     @Override
     public boolean isEntity() {
         return false;
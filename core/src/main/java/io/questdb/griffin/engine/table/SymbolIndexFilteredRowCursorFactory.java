@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.table;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
@@ -34,6 +35,8 @@ import io.questdb.std.IntList;
 public class SymbolIndexFilteredRowCursorFactory implements FunctionBasedRowCursorFactory {
     private final SymbolIndexFilteredRowCursor cursor;
     private final Function symbolFunction;
+    private final int columnIndex;
+    private final int symbolKey;
 
     public SymbolIndexFilteredRowCursorFactory(
             int columnIndex,
@@ -53,6 +56,8 @@ public class SymbolIndexFilteredRowCursorFactory implements FunctionBasedRowCurs
                 columnIndexes
         );
         this.symbolFunction = symbolFunction;
+        this.columnIndex = columnIndex;
+        this.symbolKey = symbolKey;
     }
 
     @Override
@@ -60,6 +65,11 @@ public class SymbolIndexFilteredRowCursorFactory implements FunctionBasedRowCurs
         return cursor.of(dataFrame);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.val("SymbolIndexFilteredRowCursorFactory column=").val(columnIndex).val(" key=").val(symbolKey);
+    }
+
     @Override
     public void prepareCursor(TableReader tableReader, SqlExecutionContext sqlExecutionContext) {
         this.cursor.prepare(tableReader);
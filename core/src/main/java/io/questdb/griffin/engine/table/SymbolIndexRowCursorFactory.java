@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.table;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PlanSink;
 import io.questdb.cairo.sql.RowCursor;
 
 public class SymbolIndexRowCursorFactory implements FunctionBasedRowCursorFactory {
@@ -57,6 +58,12 @@ public class SymbolIndexRowCursorFactory implements FunctionBasedRowCursorFactor
                 .getCursor(cachedIndexReaderCursor, symbolKey, dataFrame.getRowLo(), dataFrame.getRowHi() - 1);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        // index keys are symbol keys shifted by one to make room for nulls
+        sink.val("SymbolIndexRowCursorFactory column=").val(columnIndex).val(" key=").val(symbolKey - 1);
+    }
+
     @Override
     public boolean isEntity() {
         return false;
@@ -27,6 +27,7 @@ package io.questdb.griffin.model;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableStructure;
+import io.questdb.cairo.codec.ColumnCodecs;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 
@@ -34,6 +35,9 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     public static final ObjectFactory<CreateTableModel> FACTORY = CreateTableModel::new;
     private static final int COLUMN_FLAG_CACHED = 1;
     private static final int COLUMN_FLAG_INDEXED = 2;
+    private static final int COLUMN_FLAG_DEDUP_KEY = 4;
+    private static final int COLUMN_CODEC_SHIFT = 8;
+    private static final int COLUMN_CODEC_MASK = 0xff << COLUMN_CODEC_SHIFT;
     private final CharSequenceObjHashMap<ColumnCastModel> columnCastModels = new CharSequenceObjHashMap<>();
     private final LongList columnBits = new LongList();
     private final ObjList<CharSequence> columnNames = new ObjList<>();
@@ -44,6 +48,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     private ExpressionNode partitionBy;
     private int maxUncommittedRows;
     private long commitLag;
+    private long ttl;
     private boolean ignoreIfExists = false;
 
     private CreateTableModel() {
@@ -75,6 +80,14 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return this;
     }
 
+    public CreateTableModel codec(int codecId) {
+        int last = columnBits.size() - 1;
+        assert last > 0;
+        final int flags = (getLowAt(last) & ~COLUMN_CODEC_MASK) | (codecId << COLUMN_CODEC_SHIFT);
+        columnBits.setQuick(last, Numbers.encodeLowHighInts(flags, getHighAt(last)));
+        return this;
+    }
+
     @Override
     public void clear() {
         columnCastModels.clear();
@@ -107,6 +120,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return getLowAt(index * 2);
     }
 
+    @Override
+    public int getColumnCodec(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_CODEC_MASK) >>> COLUMN_CODEC_SHIFT;
+    }
+
     @Override
     public int getIndexBlockCapacity(int index) {
         return getHighAt(index * 2 + 1);
@@ -117,6 +135,16 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return (getLowAt(index * 2 + 1) & COLUMN_FLAG_INDEXED) != 0;
     }
 
+    @Override
+    public boolean isDedupKey(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_FLAG_DEDUP_KEY) != 0;
+    }
+
+    public void setDedupKey(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_DEDUP_KEY, getHighAt(index)));
+    }
+
     @Override
     public boolean isSequential(int columnIndex) {
         // todo: expose this flag on CREATE TABLE statement
@@ -280,6 +308,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
                     sink.put(" index capacity ");
                     sink.put(getIndexBlockCapacity(i));
                 }
+
+                if (getColumnCodec(i) != ColumnCodecs.NONE) {
+                    sink.put(" codec ");
+                    sink.put(ColumnCodecs.nameOf(getColumnCodec(i)));
+                }
             }
             sink.put(')');
         }
@@ -293,6 +326,18 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         if (partitionBy != null) {
             sink.put(" partition by ").put(partitionBy.token);
         }
+
+        boolean dedup = false;
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isDedupKey(i)) {
+                sink.put(dedup ? ", " : " dedup upsert keys(");
+                sink.put(getColumnName(i));
+                dedup = true;
+            }
+        }
+        if (dedup) {
+            sink.put(')');
+        }
     }
 
     private int getHighAt(int index) {
@@ -331,4 +376,13 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     public void setCommitLag(long micros) {
         this.commitLag = micros;
     }
+
+    @Override
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long micros) {
+        this.ttl = micros;
+    }
 }
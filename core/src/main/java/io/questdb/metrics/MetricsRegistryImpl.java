@@ -60,6 +60,13 @@ public class MetricsRegistryImpl implements MetricsRegistry {
         return gauge;
     }
 
+    @Override
+    public GaugeWithOneLabel newGauge(CharSequence name, CharSequence labelName0) {
+        GaugeWithOneLabel gauge = new GaugeWithOneLabelImpl(name, labelName0);
+        metrics.add(gauge);
+        return gauge;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         for (int i = 0, n = metrics.size(); i < n; i++) {
@@ -26,7 +26,7 @@ package io.questdb.metrics;
 
 import io.questdb.std.str.CharSink;
 
-class NullGauge implements Gauge {
+class NullGauge implements Gauge, GaugeWithOneLabel {
     public static final NullGauge INSTANCE = new NullGauge();
 
     private NullGauge() {
@@ -40,6 +40,14 @@ class NullGauge implements Gauge {
     public void dec() {
     }
 
+    @Override
+    public void remove(CharSequence labelValue0) {
+    }
+
+    @Override
+    public void setValue(CharSequence labelValue0, long value) {
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
     }
@@ -50,6 +50,11 @@ public class NullMetricsRegistry implements MetricsRegistry {
         return NullGauge.INSTANCE;
     }
 
+    @Override
+    public GaugeWithOneLabel newGauge(CharSequence name, CharSequence labelName0) {
+        return NullGauge.INSTANCE;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
     }
@@ -245,6 +245,10 @@ public class BytecodeAssembler {
         putByte(0x60);
     }
 
+    public void iand() {
+        putByte(0x7e);
+    }
+
     public void iconst(int v) {
         if (v == -1) {
             putByte(iconst_m1);
@@ -317,6 +321,10 @@ public class BytecodeAssembler {
         putShort(index);
     }
 
+    public void ior() {
+        putByte(0x80);
+    }
+
     public void irem() {
         putByte(0x70);
     }
@@ -333,6 +341,10 @@ public class BytecodeAssembler {
         putByte(0x64);
     }
 
+    public void ixor() {
+        putByte(0x82);
+    }
+
     public void l2d() {
         putShort(0x8A);
     }
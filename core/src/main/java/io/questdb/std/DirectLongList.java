@@ -182,8 +182,8 @@ public class DirectLongList implements Mutable, Closeable {
     // desired capacity in bytes (not count of LONG values)
     private void extendBytes(long capacity) {
         final long oldCapacity = this.capacity;
-        this.capacity = capacity;
         long address = Unsafe.realloc(this.address, oldCapacity, capacity, MemoryTag.NATIVE_LONG_LIST);
+        this.capacity = capacity;
         this.pos = address + (this.pos - this.start);
         this.address = address;
         this.start = address;
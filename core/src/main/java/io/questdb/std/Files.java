@@ -40,9 +40,16 @@ public final class Files {
     public static final int DT_DIR = 4;
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    public static final int POSIX_MADV_NORMAL = 0;
+    public static final int POSIX_MADV_RANDOM = 1;
+    public static final int POSIX_MADV_SEQUENTIAL = 2;
+    public static final int POSIX_MADV_WILLNEED = 3;
+    // Linux specific, backs memory range with transparent huge pages
+    public static final int MADV_HUGEPAGE = 4;
     public static final char SEPARATOR;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
+    private static final boolean MADVISE_SUPPORTED;
     private static LongHashSet openFds;
 
     private Files() {
@@ -193,6 +200,19 @@ public final class Files {
         return address;
     }
 
+    /**
+     * Gives kernel a hint about how mapped memory is going to be accessed. Hint is advisory, failure
+     * to apply it is not an error.
+     *
+     * @param address page aligned address of mapped memory
+     * @param len     length of memory range
+     * @param advice  one of POSIX_MADV_* constants or MADV_HUGEPAGE
+     * @return 0 on success, -1 when hint was not applied
+     */
+    public static int madvise(long address, long len, int advice) {
+        return MADVISE_SUPPORTED ? madvise0(address, len, advice) : -1;
+    }
+
     public static native int msync(long addr, long len, boolean async);
 
     public static void munmap(long address, long len, int memoryTag) {
@@ -299,6 +319,18 @@ public final class Files {
 
     private static native int munmap0(long address, long len);
 
+    private static native int madvise0(long address, long len, int advice);
+
+    private static boolean isMadviseSupported() {
+        // native library built before madvise0() was added does not export it
+        try {
+            madvise0(0, 0, POSIX_MADV_NORMAL);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
     private static native long mremap0(long fd, long address, long previousSize, long newSize, long offset, int flags);
 
     private static native long mmap0(long fd, long len, long offset, int flags, long baseAddress);
@@ -337,6 +369,7 @@ public final class Files {
         Os.init();
         UTF_8 = StandardCharsets.UTF_8;
         PAGE_SIZE = getPageSize();
+        MADVISE_SUPPORTED = isMadviseSupported();
         SEPARATOR = Os.type == Os.WINDOWS ? '\\' : '/';
     }
 }
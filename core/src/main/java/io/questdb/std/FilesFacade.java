@@ -54,6 +54,8 @@ public interface FilesFacade {
 
     long getLastModified(LPSZ path);
 
+    int madvise(long address, long len, int advice);
+
     int msync(long addr, long len, boolean async);
 
     int fsync(long fd);
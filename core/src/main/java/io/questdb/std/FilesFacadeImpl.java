@@ -102,6 +102,11 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.getLastModified(path);
     }
 
+    @Override
+    public int madvise(long address, long len, int advice) {
+        return Files.madvise(address, len, advice);
+    }
+
     @Override
     public int msync(long addr, long len, boolean async) {
         return Files.msync(addr, len, async);
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+import io.questdb.griffin.engine.LimitOverflowException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts native memory, which query-scoped structures, e.g. FastMap, CompactMap, RecordChain,
+ * tree chains and DirectLongList, allocate while query cursor is being opened. Accountant is owned by
+ * SqlExecutionContext and is entered on the thread, which opens the cursor. Allocations of query memory
+ * tags made by that thread are charged before memory is allocated and are refused with
+ * LimitOverflowException when either per-query limit or limit on memory of all queries being opened
+ * would be exceeded. Structures are left unchanged, as they are when their own page or resize limits
+ * are reached.
+ * <p>
+ * Memory freed by the thread is credited back. Charge of the query is released when accountant is
+ * exited for the last time, memory kept by cached structures after that is not accounted.
+ */
+public class MemoryAccountant {
+    private static final AtomicLong GLOBAL_USED = new AtomicLong();
+    private static final java.lang.ThreadLocal<MemoryAccountant> ACTIVE = new java.lang.ThreadLocal<>();
+    private static final boolean[] QUERY_TAGS = new boolean[MemoryTag.SIZE];
+    private final long queryLimit;
+    private final long globalLimit;
+    private long used;
+    private int depth;
+    private MemoryAccountant previous;
+
+    public MemoryAccountant(long queryLimit, long globalLimit) {
+        this.queryLimit = queryLimit;
+        this.globalLimit = globalLimit;
+    }
+
+    public static long getGlobalUsed() {
+        return GLOBAL_USED.get();
+    }
+
+    public static boolean isQueryTag(int memoryTag) {
+        return QUERY_TAGS[memoryTag];
+    }
+
+    public void enter() {
+        if (depth++ == 0) {
+            previous = ACTIVE.get();
+            ACTIVE.set(this);
+        }
+    }
+
+    public void exit() {
+        assert depth > 0;
+        if (--depth == 0) {
+            ACTIVE.set(previous);
+            previous = null;
+            GLOBAL_USED.addAndGet(-used);
+            used = 0;
+        }
+    }
+
+    public long getUsed() {
+        return used;
+    }
+
+    static void charge(long size, int memoryTag) {
+        if (QUERY_TAGS[memoryTag]) {
+            final MemoryAccountant accountant = ACTIVE.get();
+            if (accountant != null) {
+                accountant.charge(size);
+            }
+        }
+    }
+
+    static void release(long size, int memoryTag) {
+        if (QUERY_TAGS[memoryTag]) {
+            final MemoryAccountant accountant = ACTIVE.get();
+            if (accountant != null) {
+                accountant.release(size);
+            }
+        }
+    }
+
+    private void charge(long size) {
+        if (used + size > queryLimit) {
+            throw LimitOverflowException.instance().put("query memory limit exceeded [limit=").put(queryLimit)
+                    .put(", used=").put(used)
+                    .put(", requested=").put(size)
+                    .put(']');
+        }
+        final long globalUsed = GLOBAL_USED.addAndGet(size);
+        if (globalUsed > globalLimit) {
+            GLOBAL_USED.addAndGet(-size);
+            throw LimitOverflowException.instance().put("global query memory limit exceeded [limit=").put(globalLimit)
+                    .put(", used=").put(globalUsed - size)
+                    .put(", requested=").put(size)
+                    .put(']');
+        }
+        used += size;
+    }
+
+    private void release(long size) {
+        // memory allocated before accountant was entered is not credited
+        final long credit = Math.min(size, used);
+        used -= credit;
+        GLOBAL_USED.addAndGet(-credit);
+    }
+
+    static {
+        QUERY_TAGS[MemoryTag.NATIVE_RECORD_CHAIN] = true;
+        QUERY_TAGS[MemoryTag.NATIVE_TREE_CHAIN] = true;
+        QUERY_TAGS[MemoryTag.NATIVE_COMPACT_MAP] = true;
+        QUERY_TAGS[MemoryTag.NATIVE_FAST_MAP] = true;
+        QUERY_TAGS[MemoryTag.NATIVE_LONG_LIST] = true;
+        QUERY_TAGS[MemoryTag.NATIVE_PAGE_FRAME] = true;
+        QUERY_TAGS[MemoryTag.NATIVE_HASH_JOIN] = true;
+    }
+}
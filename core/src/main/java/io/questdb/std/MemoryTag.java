@@ -42,7 +42,11 @@ public final class MemoryTag {
     public static final int MMAP_INDEX_WRITER = 14;
     public static final int MMAP_INDEX_SLIDER = 15;
     public static final int MMAP_BLOCK_WRITER = 16;
-    public static final int SIZE = MMAP_BLOCK_WRITER + 1;
+    public static final int MMAP_SPILL = 17;
+    public static final int NATIVE_TABLE_READER = 18;
+    public static final int NATIVE_PAGE_FRAME = 19;
+    public static final int NATIVE_HASH_JOIN = 20;
+    public static final int SIZE = NATIVE_HASH_JOIN + 1;
 
     private static final ObjList<String> tagNameMap = new ObjList<>(SIZE);
 
@@ -68,5 +72,9 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(MMAP_INDEX_WRITER, "MMAP_INDEX_WRITER");
         tagNameMap.extendAndSet(MMAP_INDEX_SLIDER, "MMAP_INDEX_SLIDER");
         tagNameMap.extendAndSet(MMAP_BLOCK_WRITER, "MMAP_BLOCK_WRITER");
+        tagNameMap.extendAndSet(MMAP_SPILL, "MMAP_SPILL");
+        tagNameMap.extendAndSet(NATIVE_TABLE_READER, "NATIVE_TABLE_READER");
+        tagNameMap.extendAndSet(NATIVE_PAGE_FRAME, "NATIVE_PAGE_FRAME");
+        tagNameMap.extendAndSet(NATIVE_HASH_JOIN, "NATIVE_HASH_JOIN");
     }
 }
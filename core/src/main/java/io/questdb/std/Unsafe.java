@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 public final class Unsafe {
+    public static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024;
     public static final long INT_OFFSET;
     public static final long INT_SCALE;
     public static final long LONG_OFFSET;
@@ -44,6 +45,7 @@ public final class Unsafe {
     private static final Method implAddExports;
     //#endif
     private static final LongAdder[] COUNTERS = new LongAdder[MemoryTag.SIZE];
+    private static final boolean[] HUGE_PAGES = new boolean[MemoryTag.SIZE];
 
     static {
         try {
@@ -154,6 +156,7 @@ public final class Unsafe {
 
     public static void free(long ptr, long size, int memoryTag) {
         getUnsafe().freeMemory(ptr);
+        MemoryAccountant.release(size, memoryTag);
         FREE_COUNT.incrementAndGet();
         recordMemAlloc(-size, memoryTag);
     }
@@ -191,15 +194,32 @@ public final class Unsafe {
         return UNSAFE;
     }
 
+    public static boolean isHugePagesEnabled(int memoryTag) {
+        return HUGE_PAGES[memoryTag];
+    }
+
     public static long malloc(long size, int memoryTag) {
+        // query memory is charged before it is allocated, refused allocation leaves nothing to free
+        MemoryAccountant.charge(size, memoryTag);
         long ptr = getUnsafe().allocateMemory(size);
+        if (size >= HUGE_PAGE_SIZE && HUGE_PAGES[memoryTag]) {
+            adviseHugePages(ptr, size);
+        }
         recordMemAlloc(size, memoryTag);
         MALLOC_COUNT.incrementAndGet();
         return ptr;
     }
 
     public static long realloc(long address, long oldSize, long newSize, int memoryTag) {
+        if (newSize > oldSize) {
+            MemoryAccountant.charge(newSize - oldSize, memoryTag);
+        } else {
+            MemoryAccountant.release(oldSize - newSize, memoryTag);
+        }
         long ptr = getUnsafe().reallocateMemory(address, newSize);
+        if (newSize >= HUGE_PAGE_SIZE && HUGE_PAGES[memoryTag]) {
+            adviseHugePages(ptr, newSize);
+        }
         recordMemAlloc(-oldSize + newSize, memoryTag);
         return ptr;
     }
@@ -211,6 +231,29 @@ public final class Unsafe {
         COUNTERS[memoryTag].add(size);
     }
 
+    /**
+     * Allocations of the tag, which are at least HUGE_PAGE_SIZE long, are advised to be backed by
+     * transparent huge pages. Allocator is not changed, large blocks are mapped by malloc() anyway,
+     * so the advice covers huge page aligned part of the block. Memory is freed and reallocated as usual.
+     * Smaller allocations of the tag are not affected. Advice is a no-op on systems without
+     * transparent huge pages.
+     *
+     * @param memoryTag one of MemoryTag constants
+     * @param enabled   true to advise huge pages for large allocations of the tag
+     */
+    public static void setHugePagesEnabled(int memoryTag, boolean enabled) {
+        assert memoryTag >= 0 && memoryTag < MemoryTag.SIZE;
+        HUGE_PAGES[memoryTag] = enabled;
+    }
+
+    private static void adviseHugePages(long ptr, long size) {
+        final long lo = (ptr + HUGE_PAGE_SIZE - 1) & -HUGE_PAGE_SIZE;
+        final long hi = (ptr + size) & -HUGE_PAGE_SIZE;
+        if (hi > lo) {
+            Files.madvise(lo, hi - lo, Files.MADV_HUGEPAGE);
+        }
+    }
+
     private static int msb(int value) {
         return 31 - Integer.numberOfLeadingZeros(value);
     }
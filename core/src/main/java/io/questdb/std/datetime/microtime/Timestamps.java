@@ -76,6 +76,12 @@ final public class Timestamps {
     public static final TimestampCeilMethod CEIL_MM = Timestamps::ceilMM;
     public static final TimestampAddMethod ADD_MM = Timestamps::addMonths;
     public static final TimestampAddMethod ADD_YYYY = Timestamps::addYear;
+    public static final TimestampFloorMethod FLOOR_HH = Timestamps::floorHH;
+    public static final TimestampCeilMethod CEIL_HH = Timestamps::ceilHH;
+    public static final TimestampAddMethod ADD_HH = Timestamps::addHours;
+    public static final TimestampFloorMethod FLOOR_WW = Timestamps::floorWW;
+    public static final TimestampCeilMethod CEIL_WW = Timestamps::ceilWW;
+    public static final TimestampAddMethod ADD_WW = Timestamps::addWeeks;
     private static final char BEFORE_ZERO = '0' - 1;
     private static final char AFTER_NINE = '9' + 1;
 
@@ -200,6 +206,10 @@ final public class Timestamps {
         return floorSS(micros) + SECOND_MICROS;
     }
 
+    public static long ceilWW(long micros) {
+        return floorWW(micros) + WEEK_MICROS;
+    }
+
     public static long ceilYYYY(long micros) {
         int y;
         boolean l;
@@ -243,6 +253,13 @@ final public class Timestamps {
         return floorMS(micros) + MILLI_MICROS;
     }
 
+    /**
+     * Floors timestamp to Monday 00:00 of its week, weeks start on Monday as in ISO 8601.
+     */
+    public static long floorWW(long micros) {
+        return floorDD(previousOrSameDayOfWeek(micros, 1));
+    }
+
     public static long floorYYYY(long micros) {
         int y;
         return yearMicros(y = getYear(micros), isLeapYear(y));
@@ -254,6 +271,28 @@ final public class Timestamps {
         return (int) ((micros - yearMicros) / DAY_MICROS) + 1;
     }
 
+    /**
+     * @return ISO 8601 week-numbering year, it starts on Monday of the week with the year's first Thursday
+     */
+    public static int getIsoYear(long micros) {
+        return getYear(floorWW(micros) + 3 * DAY_MICROS);
+    }
+
+    /**
+     * @return ISO 8601 week of week-numbering year, 1 to 53
+     */
+    public static int getIsoWeekOfYear(long micros) {
+        return (int) ((floorWW(micros) - isoYearMicros(getIsoYear(micros))) / WEEK_MICROS) + 1;
+    }
+
+    /**
+     * @return timestamp of Monday 00:00 that starts week 1 of ISO 8601 week-numbering year
+     */
+    public static long isoYearMicros(int isoYear) {
+        // first week of the year is the one with January 4th
+        return floorWW(yearMicros(isoYear, isLeapYear(isoYear)) + 3 * DAY_MICROS);
+    }
+
     public static int getDayOfWeek(long micros) {
         // 1970-01-01 is Thursday.
         long d;
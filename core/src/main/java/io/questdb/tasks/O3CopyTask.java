@@ -48,6 +48,7 @@ public class O3CopyTask extends AbstractLockable {
     private long srcDataHi;
     private long srcDataTop;
     private long srcDataMax;
+    private long dedupRowCount;
     private long srcOooFixAddr;
     private long srcOooVarAddr;
     private long srcOooLo;
@@ -92,6 +93,10 @@ public class O3CopyTask extends AbstractLockable {
         return columnType;
     }
 
+    public long getDedupRowCount() {
+        return dedupRowCount;
+    }
+
     public long getDstFixAddr() {
         return dstFixAddr;
     }
@@ -290,6 +295,7 @@ public class O3CopyTask extends AbstractLockable {
             long srcDataHi,
             long srcDataTop,
             long srcDataMax,
+            long dedupRowCount,
             long srcOooFixAddr,
             long srcOooVarAddr,
             long srcOooLo,
@@ -339,6 +345,7 @@ public class O3CopyTask extends AbstractLockable {
         this.srcDataLo = srcDataLo;
         this.srcDataHi = srcDataHi;
         this.srcDataMax = srcDataMax;
+        this.dedupRowCount = dedupRowCount;
         this.srcOooFixAddr = srcOooFixAddr;
         this.srcOooVarAddr = srcOooVarAddr;
         this.srcOooLo = srcOooLo;
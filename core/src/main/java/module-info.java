@@ -36,11 +36,13 @@ open module io.questdb {
     exports io.questdb;
     exports io.questdb.cairo;
     exports io.questdb.cairo.vm;
+    exports io.questdb.cairo.codec;
     exports io.questdb.cairo.map;
     exports io.questdb.cairo.sql;
     exports io.questdb.cairo.pool;
     exports io.questdb.cairo.pool.ex;
     exports io.questdb.cairo.security;
+    exports io.questdb.cairo.wal;
 
     exports io.questdb.cutlass.http;
     exports io.questdb.cutlass.http.processors;
@@ -75,6 +77,7 @@ open module io.questdb {
     exports io.questdb.griffin.engine.groupby;
     exports io.questdb.griffin.engine.groupby.vect;
     exports io.questdb.griffin.engine.analytic;
+    exports io.questdb.griffin.engine.table;
 
     exports io.questdb.std;
     exports io.questdb.std.datetime;
@@ -60,11 +60,26 @@ public class AbstractCairoTest {
     protected static FilesFacade ff;
     protected static long configOverrideCommitLag = -1;
     protected static int configOverrideMaxUncommittedRows = -1;
+    protected static long configOverrideSqlSortSpillThreshold = -1;
+    protected static long configOverrideSqlHashJoinSpillThreshold = -1;
+    protected static long configOverrideWalSegmentRolloverRowCount = -1;
+    protected static long configOverrideWalApplyBatchRowCount = -1;
+    protected static long configOverrideZoneMapBlockRowCount = -1;
+    protected static long configOverridePartitionCompressionAge = -1;
+    protected static long configOverridePartitionCompressionBlockSize = -1;
+    protected static long configOverridePartitionCompressionCacheSize = -1;
+    protected static CharSequence configOverrideColdRoot = null;
+    protected static long configOverridePartitionColdAge = -1;
+    protected static long configOverrideO3PartitionSplitMinSize = -1;
+    protected static long configOverrideO3PartitionSquashLag = -1;
+    protected static double configOverrideO3AdaptiveCommitLagTargetRate = -1;
     protected static Metrics metrics = Metrics.enabled();
     protected static int capacity = -1;
     protected static int sampleByIndexSearchPageSize;
     protected static int binaryEncodingMaxLength = -1;
     protected static CharSequence defaultMapType;
+    protected static boolean sqlJitFilterDisabled;
+    protected static boolean walEnabled;
 
     @Rule
     public TestName testName = new TestName();
@@ -117,6 +132,84 @@ public class AbstractCairoTest {
                 return super.getMaxUncommittedRows();
             }
 
+            @Override
+            public long getSqlSortSpillThreshold() {
+                if (configOverrideSqlSortSpillThreshold >= 0) return configOverrideSqlSortSpillThreshold;
+                return super.getSqlSortSpillThreshold();
+            }
+
+            @Override
+            public long getSqlHashJoinSpillThreshold() {
+                if (configOverrideSqlHashJoinSpillThreshold >= 0) return configOverrideSqlHashJoinSpillThreshold;
+                return super.getSqlHashJoinSpillThreshold();
+            }
+
+            @Override
+            public long getWalApplyBatchRowCount() {
+                if (configOverrideWalApplyBatchRowCount >= 0) return configOverrideWalApplyBatchRowCount;
+                return super.getWalApplyBatchRowCount();
+            }
+
+            @Override
+            public long getWalSegmentRolloverRowCount() {
+                if (configOverrideWalSegmentRolloverRowCount >= 0) return configOverrideWalSegmentRolloverRowCount;
+                return super.getWalSegmentRolloverRowCount();
+            }
+
+            @Override
+            public long getZoneMapBlockRowCount() {
+                if (configOverrideZoneMapBlockRowCount >= 0) return configOverrideZoneMapBlockRowCount;
+                return super.getZoneMapBlockRowCount();
+            }
+
+            @Override
+            public long getPartitionCompressionAge() {
+                if (configOverridePartitionCompressionAge >= 0) return configOverridePartitionCompressionAge;
+                return super.getPartitionCompressionAge();
+            }
+
+            @Override
+            public long getPartitionCompressionBlockSize() {
+                if (configOverridePartitionCompressionBlockSize > 0) return configOverridePartitionCompressionBlockSize;
+                return super.getPartitionCompressionBlockSize();
+            }
+
+            @Override
+            public long getPartitionCompressionCacheSize() {
+                if (configOverridePartitionCompressionCacheSize >= 0) return configOverridePartitionCompressionCacheSize;
+                return super.getPartitionCompressionCacheSize();
+            }
+
+            @Override
+            public CharSequence getColdRoot() {
+                if (configOverrideColdRoot != null) return configOverrideColdRoot;
+                return super.getColdRoot();
+            }
+
+            @Override
+            public long getPartitionColdAge() {
+                if (configOverridePartitionColdAge >= 0) return configOverridePartitionColdAge;
+                return super.getPartitionColdAge();
+            }
+
+            @Override
+            public long getO3PartitionSplitMinSize() {
+                if (configOverrideO3PartitionSplitMinSize >= 0) return configOverrideO3PartitionSplitMinSize;
+                return super.getO3PartitionSplitMinSize();
+            }
+
+            @Override
+            public long getO3PartitionSquashLag() {
+                if (configOverrideO3PartitionSquashLag >= 0) return configOverrideO3PartitionSquashLag;
+                return super.getO3PartitionSquashLag();
+            }
+
+            @Override
+            public double getO3AdaptiveCommitLagTargetRate() {
+                if (configOverrideO3AdaptiveCommitLagTargetRate >= 0) return configOverrideO3AdaptiveCommitLagTargetRate;
+                return super.getO3AdaptiveCommitLagTargetRate();
+            }
+
             public int getSampleByIndexSearchPageSize() {
                 return sampleByIndexSearchPageSize > 0 ? sampleByIndexSearchPageSize : super.getSampleByIndexSearchPageSize();
             }
@@ -133,8 +226,18 @@ public class AbstractCairoTest {
                 }
                 return defaultMapType;
             }
+
+            @Override
+            public boolean isSqlJitFilterEnabled() {
+                return !sqlJitFilterDisabled && super.isSqlJitFilterEnabled();
+            }
+
+            @Override
+            public boolean isWalEnabled() {
+                return walEnabled || super.isWalEnabled();
+            }
         };
-        engine = new CairoEngine(configuration);
+        engine = new CairoEngine(configuration, metrics);
         messageBus = engine.getMessageBus();
     }
 
@@ -159,9 +262,24 @@ public class AbstractCairoTest {
         TestUtils.removeTestPath(root);
         configOverrideMaxUncommittedRows = -1;
         configOverrideCommitLag = -1;
+        configOverrideSqlSortSpillThreshold = -1;
+        configOverrideSqlHashJoinSpillThreshold = -1;
+        configOverrideWalSegmentRolloverRowCount = -1;
+        configOverrideWalApplyBatchRowCount = -1;
+        configOverrideZoneMapBlockRowCount = -1;
+        configOverridePartitionCompressionAge = -1;
+        configOverridePartitionCompressionBlockSize = -1;
+        configOverridePartitionCompressionCacheSize = -1;
+        configOverrideColdRoot = null;
+        configOverridePartitionColdAge = -1;
+        configOverrideO3PartitionSplitMinSize = -1;
+        configOverrideO3PartitionSquashLag = -1;
+        configOverrideO3AdaptiveCommitLagTargetRate = -1;
         currentMicros = -1;
         sampleByIndexSearchPageSize = -1;
         defaultMapType = null;
+        sqlJitFilterDisabled = false;
+        walEnabled = false;
     }
 
     protected static void assertMemoryLeak(TestUtils.LeakProneCode code) throws Exception {
@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.VirtualRecord;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionInterruptor;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.std.MemoryAccountant;
 import io.questdb.std.Rnd;
 import org.jetbrains.annotations.Nullable;
 
@@ -96,6 +97,11 @@ public final class AllowAllSqlSecurityContext {
             return null;
         }
 
+        @Override
+        public MemoryAccountant getMemoryAccountant() {
+            return null;
+        }
+
         @Override
         public void storeTelemetry(short event, short origin) {
 
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommitLagEstimatorTest extends AbstractCairoTest {
+
+    @Test
+    public void testBounds() {
+        final CommitLagEstimator estimator = new CommitLagEstimator(0.01, 500, 100_000, 1_000_000);
+        estimator.of(0, 0);
+        Assert.assertEquals(500, estimator.getLag());
+        observeLateRows(estimator);
+        Assert.assertEquals(100_000, estimator.computeLag());
+        observeInOrderRows(estimator, 10_000);
+        Assert.assertEquals(500, estimator.computeLag());
+    }
+
+    @Test
+    public void testDecay() {
+        final CommitLagEstimator estimator = new CommitLagEstimator(0.05, 0, Long.MAX_VALUE, 100);
+        estimator.of(0, 0);
+        estimator.observe(1_000_000);
+        for (int i = 0; i < 49; i++) {
+            estimator.observe(1_000_000 - 1000);
+        }
+        Assert.assertEquals(1023, estimator.computeLag());
+        // lateness of older rows fades out
+        observeInOrderRows(estimator, 1000);
+        Assert.assertEquals(0, estimator.computeLag());
+    }
+
+    @Test
+    public void testInOrderRows() {
+        final CommitLagEstimator estimator = new CommitLagEstimator(0.01, 0, Long.MAX_VALUE, 1_000_000);
+        estimator.of(Long.MIN_VALUE, 300_000_000);
+        // lag is kept until rows are observed
+        Assert.assertEquals(300_000_000, estimator.computeLag());
+        observeInOrderRows(estimator, 1000);
+        Assert.assertEquals(0, estimator.computeLag());
+    }
+
+    @Test
+    public void testTargetRate() {
+        assertLag(0.01, 131071);
+        assertLag(0.05, 1023);
+        assertLag(0.2, 0);
+    }
+
+    @Test
+    public void testWriterCommitLag() throws Exception {
+        configOverrideO3AdaptiveCommitLagTargetRate = 0.05;
+        assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("i", ColumnType.INT)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                long ts = 1_000_000_000;
+                for (int i = 0; i < 1000; i++) {
+                    // every tenth row is 50ms late
+                    final boolean late = i % 10 == 9;
+                    TableWriter.Row row = writer.newRow(late ? ts - 50_000 : (ts += 1000));
+                    row.putInt(0, i);
+                    row.append();
+                }
+                writer.commitWithLag();
+                Assert.assertEquals(65535, writer.getCommitLag());
+
+                final StringSink sink = new StringSink();
+                metrics.scrapeIntoPrometheus(sink);
+                TestUtils.assertContains(sink, "questdb_commit_lag_micros{table=\"x\"} 65535\n");
+
+                writer.commit();
+                Assert.assertEquals(1000, writer.size());
+            }
+        });
+    }
+
+    private static void assertLag(double targetRate, long expected) {
+        final CommitLagEstimator estimator = new CommitLagEstimator(targetRate, 0, Long.MAX_VALUE, 1_000_000);
+        estimator.of(0, 0);
+        observeLateRows(estimator);
+        Assert.assertEquals(expected, estimator.computeLag());
+    }
+
+    private static void observeInOrderRows(CommitLagEstimator estimator, int count) {
+        for (int i = 0; i < count; i++) {
+            estimator.observe(2_000_000 + i);
+        }
+    }
+
+    // 100 rows, 10 of them 1ms late and 2 of them 100ms late
+    private static void observeLateRows(CommitLagEstimator estimator) {
+        long ts = 1_000_000;
+        for (int i = 0; i < 100; i++) {
+            estimator.observe(ts += 10);
+            if (i % 10 == 0) {
+                estimator.observe(ts - 1000);
+            }
+            if (i % 50 == 0) {
+                estimator.observe(ts - 100_000);
+            }
+        }
+    }
+}
@@ -733,6 +733,66 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         testSymbolIndexReadAfterRollback(PartitionBy.YEAR, 1000000 * 60 * 5 * 24L * 10L, 2);
     }
 
+    @Test
+    public void testSequentialScanHints() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final IntList adviceCounts = new IntList();
+            adviceCounts.setAll(4, 0);
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public int madvise(long address, long len, int advice) {
+                    adviceCounts.increment(advice);
+                    return super.madvise(address, len, advice);
+                }
+            };
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+
+                @Override
+                public boolean isReaderPrefetchEnabled() {
+                    return true;
+                }
+            };
+
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY).
+                    col("a", ColumnType.INT).
+                    col("b", ColumnType.INT).
+                    timestamp()
+            ) {
+                CairoTestUtils.create(model);
+            }
+
+            long timestamp = TimestampFormatUtils.parseTimestamp("1970-01-03T08:00:00.000Z");
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 30; i++) {
+                    TableWriter.Row row = writer.newRow(timestamp + i * Timestamps.HOUR_MICROS * 2);
+                    row.putInt(0, i);
+                    row.putInt(1, i);
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(3, reader.getPartitionCount());
+                FullFwdDataFrameCursor cursor = new FullFwdDataFrameCursor();
+                cursor.of(reader);
+                int frameCount = 0;
+                while (cursor.next() != null) {
+                    frameCount++;
+                }
+                Assert.assertEquals(3, frameCount);
+            }
+
+            // three columns of every partition are read sequentially, two partitions are read ahead
+            Assert.assertEquals(9, adviceCounts.getQuick(Files.POSIX_MADV_SEQUENTIAL));
+            Assert.assertEquals(6, adviceCounts.getQuick(Files.POSIX_MADV_WILLNEED));
+        });
+    }
+
     @Test
     public void testSimpleSymbolIndex() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -2618,5 +2678,35 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         public Sequence getLatestBySubSeq() {
             return null;
         }
+
+        @Override
+        public Sequence getPageFrameFilterPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameFilterSubSeq() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameGroupByPubSeq() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<PageFrameGroupByTask> getPageFrameGroupByQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameGroupBySubSeq() {
+            return null;
+        }
     }
 }
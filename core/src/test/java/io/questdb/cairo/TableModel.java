@@ -24,6 +24,7 @@
 
 package io.questdb.cairo;
 
+import io.questdb.cairo.codec.ColumnCodecs;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.std.*;
@@ -81,6 +82,16 @@ public class TableModel implements TableStructure, Closeable {
         return false;
     }
 
+    @Override
+    public boolean isDedupKey(int columnIndex) {
+        return false;
+    }
+
+    @Override
+    public int getColumnCodec(int columnIndex) {
+        return ColumnCodecs.NONE;
+    }
+
     @Override
     public boolean getSymbolCacheFlag(int index) {
         return (columnBits.getQuick(index * 2 + 1) & COLUMN_FLAG_CACHED) == COLUMN_FLAG_CACHED;
@@ -190,4 +201,9 @@ public class TableModel implements TableStructure, Closeable {
     public long getCommitLag() {
         return cairoCfg.getCommitLag();
     }
+
+    @Override
+    public long getTtl() {
+        return 0;
+    }
 }
@@ -2478,6 +2478,69 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartitionReload(PartitionBy.YEAR, "2020", 3000, current -> Timestamps.addYear(Timestamps.floorYYYY(current), 1));
     }
 
+    @Test
+    public void testSelectColumns() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("a", ColumnType.SYMBOL).indexed(true, 2)
+                    .col("b", ColumnType.INT)
+                    .col("c", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            long ts = TimestampFormatUtils.parseTimestamp("2018-01-06T10:00:00.000Z");
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 20; i++) {
+                    TableWriter.Row row = writer.newRow(ts + i * Timestamps.HOUR_MICROS * 4);
+                    row.putSym(0, i % 2 == 0 ? "x" : "y");
+                    row.putInt(1, i);
+                    row.putStr(2, "s" + i);
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                final IntList columnIndexes = new IntList();
+                columnIndexes.add(1);
+                reader.selectColumns(columnIndexes);
+                Assert.assertEquals(4, reader.openPartition(0));
+
+                final int base = reader.getColumnBase(0);
+                Assert.assertNull(reader.getColumn(TableReader.getPrimaryColumnIndex(base, 0)));
+                Assert.assertNotNull(reader.getColumn(TableReader.getPrimaryColumnIndex(base, 1)));
+                Assert.assertNull(reader.getColumn(TableReader.getPrimaryColumnIndex(base, 2)));
+                // timestamp is always mapped
+                Assert.assertNotNull(reader.getColumn(TableReader.getPrimaryColumnIndex(base, 3)));
+
+                // index lookup maps the column
+                Assert.assertNotNull(reader.getBitmapIndexReader(0, 0, BitmapIndexReader.DIR_FORWARD));
+                Assert.assertNotNull(reader.getColumn(TableReader.getPrimaryColumnIndex(base, 0)));
+
+                // open partition maps columns added to the selection
+                reader.selectColumn(2);
+                reader.openPartition(0);
+                Assert.assertNotNull(reader.getColumn(TableReader.getPrimaryColumnIndex(base, 2)));
+
+                // full cursor maps all columns
+                reader.goPassive();
+                reader.goActive();
+                columnIndexes.setQuick(0, 0);
+                reader.selectColumns(columnIndexes);
+                int count = 0;
+                RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                while (cursor.hasNext()) {
+                    Assert.assertEquals(count, record.getInt(1));
+                    TestUtils.assertEquals("s" + count, record.getStr(2));
+                    count++;
+                }
+                Assert.assertEquals(20, count);
+            }
+        });
+    }
+
     @Test
     public void testSymbolIndex() throws Exception {
         String expected = "{\"columnCount\":3,\"columns\":[{\"index\":0,\"name\":\"a\",\"type\":\"SYMBOL\",\"indexed\":true,\"indexValueBlockCapacity\":2},{\"index\":1,\"name\":\"b\",\"type\":\"INT\"},{\"index\":2,\"name\":\"timestamp\",\"type\":\"TIMESTAMP\"}],\"timestampIndex\":2}";
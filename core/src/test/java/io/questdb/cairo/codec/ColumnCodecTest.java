@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.codec;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnCodecTest {
+    private final Rnd rnd = new Rnd();
+
+    @Test
+    public void testBitPackByte() throws Exception {
+        assertRoundTrip(BitPackCodec.INSTANCE, 0, 1000, i -> rnd.nextByte());
+    }
+
+    @Test
+    public void testBitPackConstant() throws Exception {
+        assertRoundTrip(BitPackCodec.INSTANCE, 2, 1000, i -> 42);
+    }
+
+    @Test
+    public void testBitPackLongExtremes() throws Exception {
+        assertRoundTrip(BitPackCodec.INSTANCE, 3, 1000, i -> i % 3 == 0 ? Numbers.LONG_NaN : i % 3 == 1 ? Long.MAX_VALUE : rnd.nextLong());
+    }
+
+    @Test
+    public void testBitPackNarrowRange() throws Exception {
+        final long encodedSize = assertRoundTrip(BitPackCodec.INSTANCE, 3, 1000, i -> 1_000_000 + rnd.nextInt(16));
+        // 4 bits per value
+        Assert.assertTrue(encodedSize <= 16 + 500 + ColumnCodecs.BIT_STREAM_PADDING);
+    }
+
+    @Test
+    public void testBitPackShort() throws Exception {
+        assertRoundTrip(BitPackCodec.INSTANCE, 1, 1000, i -> rnd.nextShort());
+    }
+
+    @Test
+    public void testDeltaInt() throws Exception {
+        assertRoundTrip(DeltaOfDeltaCodec.INSTANCE, 2, 1000, i -> i % 7 == 0 ? Numbers.INT_NaN : rnd.nextInt());
+    }
+
+    @Test
+    public void testDeltaIrregular() throws Exception {
+        final long[] ts = {0};
+        assertRoundTrip(DeltaOfDeltaCodec.INSTANCE, 3, 1000, i -> ts[0] += rnd.nextPositiveInt() % 5 == 0 ? rnd.nextLong() : rnd.nextInt(1000));
+    }
+
+    @Test
+    public void testDeltaRegular() throws Exception {
+        final long encodedSize = assertRoundTrip(DeltaOfDeltaCodec.INSTANCE, 3, 1000, i -> 1_600_000_000_000_000L + i * 1_000_000);
+        // first value and delta take 100 bits, then 1 bit per value
+        Assert.assertTrue(encodedSize < 150);
+    }
+
+    @Test
+    public void testGorillaDouble() throws Exception {
+        assertRoundTrip(GorillaCodec.INSTANCE, 3, 1000, i -> {
+            switch ((int) (i % 6)) {
+                case 0:
+                    return Double.doubleToRawLongBits(Double.NaN);
+                case 1:
+                    return Double.doubleToRawLongBits(-0.0);
+                case 2:
+                    return Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+                default:
+                    return Double.doubleToRawLongBits(rnd.nextDouble());
+            }
+        });
+    }
+
+    @Test
+    public void testGorillaFloat() throws Exception {
+        assertRoundTrip(GorillaCodec.INSTANCE, 2, 1000, i -> i % 5 == 0 ? Float.floatToRawIntBits(Float.NaN) : Float.floatToRawIntBits(rnd.nextFloat()));
+    }
+
+    @Test
+    public void testGorillaRepeated() throws Exception {
+        final long encodedSize = assertRoundTrip(GorillaCodec.INSTANCE, 3, 1000, i -> Double.doubleToRawLongBits(i / 100 * 0.5));
+        Assert.assertTrue(encodedSize < 1000);
+    }
+
+    @Test
+    public void testRegistry() {
+        Assert.assertEquals(ColumnCodecs.NONE, ColumnCodecs.idOf("none"));
+        Assert.assertEquals(ColumnCodecs.DELTA, ColumnCodecs.idOf("DELTA"));
+        Assert.assertEquals(ColumnCodecs.GORILLA, ColumnCodecs.idOf("gorilla"));
+        Assert.assertEquals(ColumnCodecs.BITPACK, ColumnCodecs.idOf("bitpack"));
+        Assert.assertEquals(ColumnCodecs.RLE, ColumnCodecs.idOf("rle"));
+        Assert.assertEquals(-1, ColumnCodecs.idOf("lz4"));
+        Assert.assertNull(ColumnCodecs.get(ColumnCodecs.NONE));
+        Assert.assertTrue(ColumnCodecs.isSupported(ColumnCodecs.NONE, ColumnType.STRING));
+        Assert.assertTrue(ColumnCodecs.isSupported(ColumnCodecs.DELTA, ColumnType.TIMESTAMP));
+        Assert.assertFalse(ColumnCodecs.isSupported(ColumnCodecs.DELTA, ColumnType.DOUBLE));
+        Assert.assertFalse(ColumnCodecs.isSupported(ColumnCodecs.GORILLA, ColumnType.LONG));
+        Assert.assertTrue(ColumnCodecs.isSupported(ColumnCodecs.RLE, ColumnType.SYMBOL));
+        Assert.assertFalse(ColumnCodecs.isSupported(ColumnCodecs.BITPACK, ColumnType.STRING));
+    }
+
+    @Test
+    public void testRleRandom() throws Exception {
+        assertRoundTrip(RunLengthCodec.INSTANCE, 2, 1000, i -> rnd.nextInt());
+    }
+
+    @Test
+    public void testRleRuns() throws Exception {
+        final long encodedSize = assertRoundTrip(RunLengthCodec.INSTANCE, 0, 1000, i -> i / 250);
+        Assert.assertEquals(4 * 5, encodedSize);
+    }
+
+    @Test
+    public void testSingleValue() throws Exception {
+        for (int id = ColumnCodecs.DELTA; id <= ColumnCodecs.RLE; id++) {
+            assertRoundTrip(ColumnCodecs.get(id), 3, 1, i -> 123456789L);
+        }
+    }
+
+    private static long assertRoundTrip(ColumnCodec codec, int sizePow2, int valueCount, ValueGenerator generator) throws Exception {
+        final long[] encodedSize = new long[1];
+        TestUtils.assertMemoryLeak(() -> {
+            final long size = (long) valueCount << sizePow2;
+            final long maxEncodedSize = codec.getMaxEncodedSize(valueCount, sizePow2);
+            final long src = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            final long encoded = Unsafe.malloc(maxEncodedSize, MemoryTag.NATIVE_DEFAULT);
+            final long decoded = Unsafe.malloc(size, MemoryTag.NATIVE_DEFAULT);
+            try {
+                for (int i = 0; i < valueCount; i++) {
+                    ColumnCodecs.putValue(src + ((long) i << sizePow2), sizePow2, generator.next(i));
+                }
+                encodedSize[0] = codec.encode(src, valueCount, sizePow2, encoded);
+                Assert.assertTrue(encodedSize[0] <= maxEncodedSize);
+                codec.decode(encoded, encodedSize[0], valueCount, sizePow2, decoded);
+                for (int i = 0; i < valueCount; i++) {
+                    final long offset = (long) i << sizePow2;
+                    Assert.assertEquals(ColumnCodecs.getValue(src + offset, sizePow2), ColumnCodecs.getValue(decoded + offset, sizePow2));
+                }
+            } finally {
+                Unsafe.free(src, size, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(encoded, maxEncodedSize, MemoryTag.NATIVE_DEFAULT);
+                Unsafe.free(decoded, size, MemoryTag.NATIVE_DEFAULT);
+            }
+        });
+        return encodedSize[0];
+    }
+
+    @FunctionalInterface
+    private interface ValueGenerator {
+        long next(long index);
+    }
+}
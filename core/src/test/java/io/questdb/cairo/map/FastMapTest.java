@@ -230,6 +230,62 @@ public class FastMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testMergePartitioned() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int N = 1000;
+            final int partitionCount = 4;
+            final SingleColumnType keyTypes = new SingleColumnType(ColumnType.STRING);
+            final SingleColumnType valueTypes = new SingleColumnType(ColumnType.LONG);
+            final FastMap.MergeFunction sum = (destValue, srcValue) -> destValue.addLong(0, srcValue.getLong(0));
+            try (
+                    FastMap mapA = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5f, Integer.MAX_VALUE);
+                    FastMap mapB = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5f, Integer.MAX_VALUE)
+            ) {
+                // keys of map B overlap with the second half of map A keys
+                for (int i = 0; i < N; i++) {
+                    MapKey key = mapA.withKey();
+                    key.putStr("k" + i);
+                    key.createValue().putLong(0, i);
+
+                    key = mapB.withKey();
+                    key.putStr("k" + (i + N / 2));
+                    key.createValue().putLong(0, 1);
+                }
+
+                final ObjList<FastMap> partitions = new ObjList<>();
+                try {
+                    long totalSize = 0;
+                    for (int p = 0; p < partitionCount; p++) {
+                        final FastMap partition = new FastMap(Numbers.SIZE_1MB, keyTypes, valueTypes, 16, 0.5f, Integer.MAX_VALUE);
+                        partitions.add(partition);
+                        partition.merge(mapA, p, Numbers.msb(partitionCount), sum);
+                        partition.merge(mapB, p, Numbers.msb(partitionCount), sum);
+                        totalSize += partition.size();
+                    }
+                    Assert.assertEquals(N + N / 2, totalSize);
+
+                    for (int i = 0; i < N + N / 2; i++) {
+                        int found = 0;
+                        for (int p = 0; p < partitionCount; p++) {
+                            MapKey key = partitions.getQuick(p).withKey();
+                            key.putStr("k" + i);
+                            MapValue value = key.findValue();
+                            if (value != null) {
+                                found++;
+                                final long expected = (i < N ? i : 0) + (i >= N / 2 ? 1 : 0);
+                                Assert.assertEquals(expected, value.getLong(0));
+                            }
+                        }
+                        Assert.assertEquals(1, found);
+                    }
+                } finally {
+                    Misc.freeObjList(partitions);
+                }
+            }
+        });
+    }
+
     @Test
     public void testAppendUnique() throws Exception {
         testAppendUnique(3);
@@ -316,6 +372,42 @@ public class FastMapTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testHugePages() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            Unsafe.setHugePagesEnabled(MemoryTag.NATIVE_FAST_MAP, true);
+            try (FastMap map = new FastMap(
+                    Numbers.SIZE_1MB,
+                    new SingleColumnType(ColumnType.LONG),
+                    new SingleColumnType(ColumnType.LONG),
+                    64,
+                    0.5f,
+                    Integer.MAX_VALUE)) {
+                final int N = 200_000;
+                for (int i = 0; i < N; i++) {
+                    MapKey key = map.withKey();
+                    key.putLong(i);
+                    MapValue value = key.createValue();
+                    Assert.assertTrue(value.isNew());
+                    value.putLong(0, i * 2L);
+                }
+                // keys are grown past huge page size and are advised while being reallocated
+                Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.NATIVE_FAST_MAP) >= Unsafe.HUGE_PAGE_SIZE);
+                Assert.assertEquals(N, map.size());
+
+                for (int i = 0; i < N; i++) {
+                    MapKey key = map.withKey();
+                    key.putLong(i);
+                    MapValue value = key.findValue();
+                    Assert.assertNotNull(value);
+                    Assert.assertEquals(i * 2L, value.getLong(0));
+                }
+            } finally {
+                Unsafe.setHugePagesEnabled(MemoryTag.NATIVE_FAST_MAP, false);
+            }
+        });
+    }
+
     @Test
     public void testLargeBinSequence() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -27,6 +27,8 @@ package io.questdb.cairo.pool;
 import io.questdb.cairo.*;
 import io.questdb.cairo.pool.ex.EntryLockedException;
 import io.questdb.cairo.pool.ex.PoolClosedException;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.std.*;
 import io.questdb.std.str.LPSZ;
@@ -804,6 +806,48 @@ public class ReaderPoolTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testReadersShareColumnMappings() throws Exception {
+        assertWithPool(pool -> {
+            try (TableWriter writer = new TableWriter(configuration, "u")) {
+                for (int i = 0; i < 100; i++) {
+                    TableWriter.Row row = writer.newRow();
+                    row.putDate(0, i);
+                    row.append();
+                }
+                writer.commit();
+
+                try (TableReader reader1 = pool.get("u"); TableReader reader2 = pool.get("u")) {
+                    Assert.assertNotSame(reader1, reader2);
+                    Assert.assertEquals(4950, sumDates(reader1));
+                    Assert.assertEquals(4950, sumDates(reader2));
+                    Assert.assertEquals(1, pool.getColumnMappingCount());
+                    Assert.assertEquals(
+                            reader1.getColumn(TableReader.getPrimaryColumnIndex(reader1.getColumnBase(0), 0)).getPageAddress(0),
+                            reader2.getColumn(TableReader.getPrimaryColumnIndex(reader2.getColumnBase(0), 0)).getPageAddress(0)
+                    );
+
+                    for (int i = 100; i < 200; i++) {
+                        TableWriter.Row row = writer.newRow();
+                        row.putDate(0, i);
+                        row.append();
+                    }
+                    writer.commit();
+
+                    // readers move to mapping of the new size, the old one is released
+                    Assert.assertTrue(reader1.reload());
+                    Assert.assertEquals(19900, sumDates(reader1));
+                    Assert.assertEquals(2, pool.getColumnMappingCount());
+                    Assert.assertTrue(reader2.reload());
+                    Assert.assertEquals(19900, sumDates(reader2));
+                    Assert.assertEquals(1, pool.getColumnMappingCount());
+                }
+            }
+            Assert.assertTrue(pool.releaseAll());
+            Assert.assertEquals(0, pool.getColumnMappingCount());
+        });
+    }
+
     @Test
     public void testSerialOpenClose() throws Exception {
         assertWithPool(pool -> {
@@ -881,6 +925,16 @@ public class ReaderPoolTest extends AbstractCairoTest {
         });
     }
 
+    private static long sumDates(TableReader reader) {
+        long sum = 0;
+        RecordCursor cursor = reader.getCursor();
+        Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            sum += record.getDate(0);
+        }
+        return sum;
+    }
+
     private interface PoolAwareCode {
         void run(ReaderPool pool) throws Exception;
     }
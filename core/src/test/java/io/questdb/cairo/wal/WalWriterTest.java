@@ -0,0 +1,369 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo.wal;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WalWriterTest extends AbstractGriffinTest {
+
+    private static final long TS_2022 = 1640995200000000L;
+
+    @Test
+    public void testApplyIsBoundedByBatchRowCount() throws Exception {
+        configOverrideWalApplyBatchRowCount = 10;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                for (int i = 0; i < 25; i++) {
+                    appendRow(walWriter, i, TS_2022 + i);
+                    if (i % 5 == 4) {
+                        walWriter.commit();
+                    }
+                }
+            }
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            assertSql("select count() from x", "count\n10\n");
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            assertSql("select count() from x", "count\n20\n");
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+            assertSql("select count(), sum(i) from x", "count\tsum\n25\t300\n");
+        });
+    }
+
+    @Test
+    public void testApplyToNonPartitionedTables() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, s string, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            compiler.compile("create table y (sym symbol, s string, ts timestamp)", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 'table', '2022-01-01')");
+            executeInsert("insert into y values ('a', 'table', '2022-01-01')");
+            try (
+                    WalWriter walWriterX = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    WalWriter walWriterY = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "y")
+            ) {
+                for (int i = 0; i < 2; i++) {
+                    for (WalWriter walWriter : new WalWriter[]{walWriterX, walWriterY}) {
+                        WalWriter.Row row = walWriter.newRow(TS_2022 + i + 1);
+                        row.putSym(0, i == 0 ? "b" : "a");
+                        row.putStr(1, "wal" + i);
+                        if (walWriter == walWriterY) {
+                            row.putTimestamp(2, TS_2022 + i + 1);
+                        }
+                        row.append();
+                        walWriter.commit();
+                    }
+                }
+            }
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            final String expected = "sym\ts\tts\n" +
+                    "a\ttable\t2022-01-01T00:00:00.000000Z\n" +
+                    "b\twal0\t2022-01-01T00:00:00.000001Z\n" +
+                    "a\twal1\t2022-01-01T00:00:00.000002Z\n";
+            assertSql("x", expected);
+            assertSql("y", expected);
+        });
+    }
+
+    @Test
+    public void testApplyRecoversInterruptedBatch() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(walWriter, 1, TS_2022);
+                walWriter.commit();
+
+                final ObjList<WalSequencer> sequencers = new ObjList<>();
+                engine.copyWalSequencers(sequencers);
+                final WalSequencer sequencer = sequencers.getQuick(0);
+                final long tableTxn;
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                    tableTxn = writer.getTxn();
+                }
+
+                // batch was marked but table commit did not happen, batch is applied again
+                sequencer.beginApply(1, tableTxn);
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                Assert.assertEquals(1, sequencer.getAppliedTxnCount());
+                assertSql("x", "i\tts\n1\t2022-01-01T00:00:00.000000Z\n");
+
+                // table commit happened but applied count was not updated, batch is not applied twice
+                sequencer.setAppliedTxnCount(0);
+                sequencer.beginApply(1, tableTxn);
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                Assert.assertEquals(1, sequencer.getAppliedTxnCount());
+                Assert.assertEquals(1, sequencer.getApplyingTxnCount());
+                assertSql("x", "i\tts\n1\t2022-01-01T00:00:00.000000Z\n");
+            }
+            // closed segment is purged
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+        });
+    }
+
+    @Test
+    public void testApplySkipsBusyTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                appendRow(walWriter, 1, TS_2022);
+                walWriter.commit();
+            }
+
+            // freshly opened writer purges unknown directories, WAL must survive
+            engine.releaseAllWriters();
+            try (TableWriter ignored = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                Assert.assertFalse(engine.getWalApplyJob().run(0));
+            }
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+            assertSql("x", "i\tts\n1\t2022-01-01T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, i int, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final int threadCount = 2;
+            final int rowCount = 1000;
+            final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+            final AtomicInteger errors = new AtomicInteger();
+            final Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                final int id = t;
+                threads[t] = new Thread(() -> {
+                    try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        barrier.await();
+                        for (int i = 0; i < rowCount; i++) {
+                            // rows of both writers interleave in time
+                            WalWriter.Row row = walWriter.newRow(TS_2022 + (i * threadCount + id) * 1000L);
+                            row.putSym(0, "w" + id);
+                            row.putInt(1, i);
+                            row.putStr(2, "s" + i);
+                            row.append();
+                            if (i % 100 == 99) {
+                                walWriter.commit();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        errors.incrementAndGet();
+                    } finally {
+                        Path.clearThreadLocals();
+                    }
+                });
+                threads[t].start();
+            }
+            for (int t = 0; t < threadCount; t++) {
+                threads[t].join();
+            }
+            Assert.assertEquals(0, errors.get());
+
+            assertSql("select count() from x", "count\n0\n");
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+
+            assertSql(
+                    "select sym, count(), sum(i), min(ts), max(ts) from x order by sym",
+                    "sym\tcount\tsum\tmin\tmax\n" +
+                            "w0\t1000\t499500\t2022-01-01T00:00:00.000000Z\t2022-01-01T00:00:01.998000Z\n" +
+                            "w1\t1000\t499500\t2022-01-01T00:00:00.001000Z\t2022-01-01T00:00:01.999000Z\n"
+            );
+            assertSql(
+                    "x limit 4",
+                    "sym\ti\ts\tts\n" +
+                            "w0\t0\ts0\t2022-01-01T00:00:00.000000Z\n" +
+                            "w1\t0\ts0\t2022-01-01T00:00:00.001000Z\n" +
+                            "w0\t1\ts1\t2022-01-01T00:00:00.002000Z\n" +
+                            "w1\t1\ts1\t2022-01-01T00:00:00.003000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInsertAsSelectGoesThroughWal() throws Exception {
+        walEnabled = true;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile(
+                    "insert into x select rnd_symbol('a','b'), cast(x as int), timestamp_sequence('2022-01-01', 1000) from long_sequence(100)",
+                    sqlExecutionContext
+            );
+            assertSql("select count() from x", "count\n0\n");
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+            assertSql("select count(), sum(i), max(ts) from x", "count\tsum\tmax\n100\t5050\t2022-01-01T00:00:00.099000Z\n");
+        });
+    }
+
+    @Test
+    public void testInsertGoesThroughWal() throws Exception {
+        walEnabled = true;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, s string, g geohash(2c), ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values ('a', 'first', 'u3', '2022-01-01T00:00:01')");
+            executeInsert("insert into x values ('b', null, 'u33', '2022-01-01')");
+            assertSql("select count() from x", "count\n0\n");
+
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+            assertSql(
+                    "x",
+                    "sym\ts\tg\tts\n" +
+                            "b\t\tu3\t2022-01-01T00:00:00.000000Z\n" +
+                            "a\tfirst\tu3\t2022-01-01T00:00:01.000000Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testRollbackAndMissingColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, i int, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                WalWriter.Row row = walWriter.newRow(TS_2022);
+                row.putInt(1, 1);
+                row.append();
+
+                row = walWriter.newRow(TS_2022 + 1);
+                row.putStr(2, "cancelled");
+                row.cancel();
+
+                row = walWriter.newRow(TS_2022 + 2);
+                row.putSym(0, "a");
+                row.putStr(2, "b");
+                row.append();
+                walWriter.commit();
+                Assert.assertEquals(0, walWriter.getCommittedTxn());
+
+                row = walWriter.newRow(TS_2022 + 3);
+                row.putStr(2, "rolled back");
+                row.append();
+                walWriter.rollback();
+                // nothing to commit
+                walWriter.commit();
+                Assert.assertEquals(0, walWriter.getCommittedTxn());
+
+                row = walWriter.newRow(TS_2022 + 4);
+                row.putInt(1, 3);
+                row.append();
+                // uncommitted row is discarded on close
+            }
+
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            assertSql(
+                    "x",
+                    "sym\ti\ts\tts\n" +
+                            "\t1\t\t2022-01-01T00:00:00.000000Z\n" +
+                            "a\tNaN\tb\t2022-01-01T00:00:00.000002Z\n"
+            );
+        });
+    }
+
+    @Test
+    public void testSegmentsArePurgedOnceApplied() throws Exception {
+        configOverrideWalSegmentRolloverRowCount = 10;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (
+                    WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    Path path = new Path()
+            ) {
+                for (int i = 0; i < 25; i++) {
+                    appendRow(walWriter, i, TS_2022 + i);
+                    if (i % 5 == 4) {
+                        walWriter.commit();
+                    }
+                }
+                final long walId = walWriter.getWalId();
+                WalWriter.walPath(path.of(configuration.getRoot()).concat("x"), walId);
+                final int walLen = path.length();
+                Assert.assertTrue(configuration.getFilesFacade().exists(path.slash().put(0).$()));
+                Assert.assertTrue(configuration.getFilesFacade().exists(path.trimTo(walLen).slash().put(2).$()));
+
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                Assert.assertFalse(configuration.getFilesFacade().exists(path.trimTo(walLen).slash().put(0).$()));
+                Assert.assertFalse(configuration.getFilesFacade().exists(path.trimTo(walLen).slash().put(1).$()));
+                // writer is still appending to this segment
+                Assert.assertTrue(configuration.getFilesFacade().exists(path.trimTo(walLen).slash().put(2).$()));
+
+                walWriter.close();
+                Assert.assertFalse(engine.getWalApplyJob().run(0));
+                Assert.assertFalse(configuration.getFilesFacade().exists(path.trimTo(walLen).$()));
+            }
+            assertSql("select count(), sum(i) from x", "count\tsum\n25\t300\n");
+        });
+    }
+
+    @Test
+    public void testSegmentsArePurgedAfterReopen() throws Exception {
+        configOverrideWalSegmentRolloverRowCount = 10;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (Path path = new Path()) {
+                final long walId;
+                try (WalWriter walWriter = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    for (int i = 0; i < 20; i++) {
+                        appendRow(walWriter, i, TS_2022 + i);
+                        if (i % 10 == 9) {
+                            walWriter.commit();
+                        }
+                    }
+                    walId = walWriter.getWalId();
+                }
+                WalWriter.walPath(path.of(configuration.getRoot()).concat("x"), walId);
+                final int walLen = path.length();
+                Assert.assertTrue(configuration.getFilesFacade().exists(path.slash().put(0).$()));
+
+                // sequencer of a restarted server knows of the closed segments
+                try (WalSequencer sequencer = new WalSequencer(configuration, "x")) {
+                    Assert.assertFalse(sequencer.isIdle());
+                    Assert.assertTrue(engine.getWalApplyJob().applyPending(sequencer));
+                    Assert.assertTrue(sequencer.isIdle());
+                }
+                // sequencer of the engine is left with nothing to do
+                Assert.assertFalse(engine.getWalApplyJob().run(0));
+                Assert.assertFalse(configuration.getFilesFacade().exists(path.trimTo(walLen).$()));
+            }
+            assertSql("select count(), sum(i) from x", "count\tsum\n20\t190\n");
+        });
+    }
+
+    private static void appendRow(WalWriter walWriter, int i, long timestamp) {
+        WalWriter.Row row = walWriter.newRow(timestamp);
+        row.putInt(0, i);
+        row.append();
+    }
+}
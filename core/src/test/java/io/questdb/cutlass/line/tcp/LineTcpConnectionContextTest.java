@@ -1122,6 +1122,58 @@ public class LineTcpConnectionContextTest extends BaseLineTcpContextTest {
         });
     }
 
+    @Test
+    public void testWalAddColumns() throws Exception {
+        String table = "walAddColumns";
+        walEnabled = true;
+        runInContext(() -> {
+            recvBuffer =
+                    table + ",location=us-midwest temperature=82 1465839830100400200\n" +
+                            table + ",location=us-eastcoast,city=york temperature=81,humidity=23 1465839830101400200\n" +
+                            table + ",location=us-midwest temperature=85 1465839830100300200\n";
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            closeContext();
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+            String expected = "location\ttemperature\ttimestamp\tcity\thumidity\n" +
+                    "us-midwest\t85.0\t2016-06-13T17:43:50.100300Z\t\tNaN\n" +
+                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\t\tNaN\n" +
+                    "us-eastcoast\t81.0\t2016-06-13T17:43:50.101400Z\tyork\t23.0\n";
+            assertTable(expected, table);
+        });
+    }
+
+    @Test
+    public void testWalAddToExistingTable() throws Exception {
+        String table = "walAddToExisting";
+        addTable(table);
+        walEnabled = true;
+        runInContext(() -> {
+            recvBuffer = makeMessages(table);
+            do {
+                handleContextIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            closeContext();
+            // rows are in WAL until it is applied
+            assertTable("location\ttemperature\ttimestamp\n", table);
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            String expected = "location\ttemperature\ttimestamp\n" +
+                    "us-midwest\t82.0\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-midwest\t83.0\t2016-06-13T17:43:50.100500Z\n" +
+                    "us-eastcoast\t81.0\t2016-06-13T17:43:50.101400Z\n" +
+                    "us-midwest\t85.0\t2016-06-13T17:43:50.102300Z\n" +
+                    "us-eastcoast\t89.0\t2016-06-13T17:43:50.102400Z\n" +
+                    "us-eastcoast\t80.0\t2016-06-13T17:43:50.102400Z\n" +
+                    "us-westcost\t82.0\t2016-06-13T17:43:50.102500Z\n";
+            assertTable(expected, table);
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+        });
+    }
+
     private void addTable(String table) {
         try (
                 TableModel model = new TableModel(configuration, table, PartitionBy.NONE)
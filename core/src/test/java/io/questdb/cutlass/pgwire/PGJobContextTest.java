@@ -906,6 +906,39 @@ public class PGJobContextTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testInsertGoesThroughWal() throws Exception {
+        walEnabled = true;
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer ignored = createPGServer(1);
+                    final Connection connection = getConnection(false, true)
+            ) {
+                compiler.compile("create table x (a int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+                PreparedStatement insert = connection.prepareStatement("insert into x values(?, ?)");
+                insert.setInt(1, 1);
+                insert.setTimestamp(2, new Timestamp(1000));
+                insert.execute();
+
+                connection.setAutoCommit(false);
+                insert.setInt(1, 2);
+                insert.setTimestamp(2, new Timestamp(0));
+                insert.execute();
+                connection.commit();
+            }
+
+            Assert.assertTrue(engine.getWalApplyJob().run(0));
+            Assert.assertFalse(engine.getWalApplyJob().run(0));
+            assertSql(
+                    "x",
+                    "a\tts\n" +
+                            "2\t1970-01-01T00:00:00.000000Z\n" +
+                            "1\t1970-01-01T00:00:00.001000Z\n"
+            );
+        });
+    }
+
     @Test
     public void testInsertAllTypesBinary() throws Exception {
         testInsertAllTypes(true);
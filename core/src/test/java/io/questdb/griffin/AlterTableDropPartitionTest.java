@@ -114,6 +114,66 @@ public class AlterTableDropPartitionTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testDropPartitionListByHour() throws Exception {
+        assertMemoryLeak(() -> {
+                    // a row every 12 minutes
+                    createX("HOUR", 720000000);
+                    Assert.assertTrue(new File(Paths.get(root.toString(), "x", "2018-01-01T05").toString()).exists());
+
+                    assertPartitionResult("count\n5\n", "2018-01-01T05");
+                    // out-of-order row goes into an older hour
+                    executeInsert("insert into x (i, timestamp) values (-1, '2018-01-01T03:30:00.000000Z')");
+                    assertPartitionResult("count\n6\n", "2018-01-01T03");
+
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2018-01-01T03', '2018-01-01T05'", sqlExecutionContext).getType());
+
+                    assertPartitionResult("count\n0\n", "2018-01-01T03");
+                    assertPartitionResult("count\n5\n", "2018-01-01T04");
+                    assertPartitionResult("count\n0\n", "2018-01-01T05");
+                    Assert.assertFalse(new File(Paths.get(root.toString(), "x", "2018-01-01T05").toString()).exists());
+
+                    try {
+                        compiler.compile("alter table x drop partition list '2018-01-01'", sqlExecutionContext);
+                        Assert.fail();
+                    } catch (SqlException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "'YYYY-MM-DDTHH' expected");
+                    }
+                }
+        );
+    }
+
+    @Test
+    public void testDropPartitionListByWeek() throws Exception {
+        assertMemoryLeak(() -> {
+                    // a row every 12 hours, 2018-01-01 is Monday
+                    createX("WEEK", 12 * 3600000000L);
+                    Assert.assertTrue(new File(Paths.get(root.toString(), "x", "2018-W02").toString()).exists());
+
+                    assertSql("select count() from x where timestamp >= '2018-01-08' and timestamp < '2018-01-15'", "count\n14\n");
+
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2018-W02'", sqlExecutionContext).getType());
+
+                    assertSql("select count() from x where timestamp >= '2018-01-08' and timestamp < '2018-01-15'", "count\n0\n");
+                    assertSql("select count() from x where timestamp >= '2018-01-01' and timestamp < '2018-01-08'", "count\n13\n");
+                    Assert.assertFalse(new File(Paths.get(root.toString(), "x", "2018-W02").toString()).exists());
+
+                    // 2018-12-31 is the first day of 2019-W01
+                    assertSql("select min(timestamp) from x where timestamp >= '2018-12-25' and timestamp < '2019-01-07'", "min\n2018-12-25T00:00:00.000000Z\n");
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition list '2019-W01'", sqlExecutionContext).getType());
+                    assertSql("select count() from x where timestamp >= '2018-12-31' and timestamp < '2019-01-07'", "count\n0\n");
+                    assertSql("select count() from x where timestamp >= '2018-12-24' and timestamp < '2018-12-31'", "count\n14\n");
+
+                    try {
+                        compiler.compile("alter table x drop partition list '2018-W54'", sqlExecutionContext);
+                        Assert.fail();
+                    } catch (SqlException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "'YYYY-Www' expected");
+                    }
+                }
+        );
+    }
+
     @Test
     public void testDropPartitionNameMissing() throws Exception {
         assertFailure("alter table x drop partition list ,", 34, "partition name missing");
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
+import io.questdb.std.datetime.microtime.Timestamps;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DedupTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAlterTableDedup() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (ts timestamp, k symbol, v int) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'a', 1)");
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'a', 2)");
+            assertDedup(false);
+
+            compiler.compile("alter table x dedup enable upsert keys(ts, k)", sqlExecutionContext);
+            assertDedup(true);
+            // duplicates written before dedup was enabled are both replaced by the new row
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'a', 3)");
+            assertSql("x", "ts\tk\tv\n1970-01-01T10:00:00.000000Z\ta\t3\n");
+
+            // dedup keys survive metadata rewrite
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            assertDedup(true);
+
+            compiler.compile("alter table x dedup disable", sqlExecutionContext);
+            assertDedup(false);
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'a', 4, null)");
+            assertSql(
+                    "x",
+                    "ts\tk\tv\tz\n" +
+                            "1970-01-01T10:00:00.000000Z\ta\t3\tNaN\n" +
+                            "1970-01-01T10:00:00.000000Z\ta\t4\tNaN\n"
+            );
+        });
+    }
+
+    @Test
+    public void testCreateTableDedupKeys() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (ts timestamp, k symbol, v int) timestamp(ts) partition by DAY dedup upsert keys(ts, k)",
+                    sqlExecutionContext
+            );
+            assertDedup(true);
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'a', 1)");
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'b', 2)");
+            // in-order row with the same key
+            executeInsert("insert into x values ('1970-01-01T10:00:00.000000Z', 'a', 3)");
+            assertSql(
+                    "x order by ts, v",
+                    "ts\tk\tv\n" +
+                            "1970-01-01T10:00:00.000000Z\tb\t2\n" +
+                            "1970-01-01T10:00:00.000000Z\ta\t3\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupInBatch() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (ts timestamp, k symbol, v int) timestamp(ts) partition by DAY dedup upsert keys(ts, k)",
+                    sqlExecutionContext
+            );
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                appendRow(writer, "1970-01-02T10:00:00.000000Z", "a", 1);
+                appendRow(writer, "1970-01-01T10:00:00.000000Z", "a", 2);
+                appendRow(writer, "1970-01-02T10:00:00.000000Z", "a", 3);
+                appendRow(writer, "1970-01-02T10:00:00.000000Z", null, 4);
+                appendRow(writer, "1970-01-01T10:00:00.000000Z", "a", 5);
+                appendRow(writer, "1970-01-02T10:00:00.000000Z", null, 6);
+                writer.commit();
+            }
+            assertSql(
+                    "x order by ts, v",
+                    "ts\tk\tv\n" +
+                            "1970-01-01T10:00:00.000000Z\ta\t5\n" +
+                            "1970-01-02T10:00:00.000000Z\ta\t3\n" +
+                            "1970-01-02T10:00:00.000000Z\t\t6\n"
+            );
+        });
+    }
+
+    @Test
+    public void testDedupKeyMustBeFixedSize() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, s string) timestamp(ts) partition by DAY dedup upsert keys(ts, s)",
+                null,
+                93,
+                "dedup key column must be of fixed size type"
+        );
+    }
+
+    @Test
+    public void testDedupKeyMustIncludeTimestamp() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, k int) timestamp(ts) partition by DAY dedup upsert keys(k)",
+                null,
+                68,
+                "dedup key list must include designated timestamp"
+        );
+    }
+
+    @Test
+    public void testDedupMergesExistingPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " cast(x % 3 as int) k," +
+                            " cast(x as long) v," +
+                            " cast((x - 1) * 3600000000 as timestamp) ts" +
+                            " from long_sequence(72)" +
+                            ") timestamp(ts) partition by DAY dedup upsert keys(ts, k)",
+                    sqlExecutionContext
+            );
+            // replaces every other row of the first two partitions
+            compiler.compile(
+                    "insert into x select" +
+                            " cast(x % 3 as int) k," +
+                            " cast(x + 1000 as long) v," +
+                            " cast((x - 1) * 3600000000 as timestamp) ts" +
+                            " from long_sequence(48)" +
+                            " where x % 2 = 0",
+                    sqlExecutionContext
+            );
+            assertSql("select count(), sum(v) from x", "count\tsum\n72\t26628\n");
+
+            // key mismatch, rows are added
+            compiler.compile(
+                    "insert into x select" +
+                            " cast(x % 3 + 1 as int) k," +
+                            " cast(x + 1000 as long) v," +
+                            " cast(" + Timestamps.DAY_MICROS + " + (x - 1) * 3600000000 as timestamp) ts" +
+                            " from long_sequence(24)",
+                    sqlExecutionContext
+            );
+            assertSql("select count() from x", "count\n96\n");
+        });
+    }
+
+    @Test
+    public void testDedupRequiresPartitionedTable() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp, k int) timestamp(ts) partition by NONE dedup upsert keys(ts, k)",
+                null,
+                69,
+                "dedup is supported only for partitioned tables"
+        );
+    }
+
+    private static void appendRow(TableWriter writer, String timestamp, String key, int value) throws Exception {
+        TableWriter.Row row = writer.newRow(TimestampFormatUtils.parseTimestamp(timestamp));
+        row.putSym(1, key);
+        row.putInt(2, value);
+        row.append();
+    }
+
+    private static void assertDedup(boolean expected) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            Assert.assertEquals(expected, writer.isDedupEnabled());
+        }
+    }
+}
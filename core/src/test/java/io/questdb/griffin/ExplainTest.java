@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ExplainTest extends AbstractGriffinTest {
+
+    private static void createTables() throws SqlException {
+        sqlExecutionContext.getRandom().reset();
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('a','b',null) s," +
+                        " rnd_double() d," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(100)" +
+                        "), index(s) timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("create table y as (select rnd_symbol('a','b',null) s, x j from long_sequence(10))", sqlExecutionContext);
+    }
+
+    @Test
+    public void testExplainAnalyzeCountsRows() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "LimitRecordCursorFactory (rows=5 time=?)\n" +
+                        "  LimitedSizeSortedLightRecordCursorFactory (rows=5 time=?)\n" +
+                        "    FilteredRecordCursorFactory (rows=55 time=?)\n" +
+                        "      filter: ?\n" +
+                        "      DataFrameRecordCursorFactory (rows=100 time=? partitions=5)\n" +
+                        "        frames: ZoneMapDataFrameCursorFactory base=FullFwdDataFrameCursorFactory table=x\n" +
+                        "        rows: DataFrameRowCursorFactory\n" +
+                        "Execution (rows=5 time=?)\n",
+                "explain analyze select * from x where d > 0.5 order by d limit 5"
+        );
+    }
+
+    @Test
+    public void testExplainAnalyzeIntervalScan() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "DataFrameRecordCursorFactory (rows=24 time=? partitions=1)\n" +
+                        "  frames: IntervalFwdDataFrameCursorFactory table=x intervals=[(1970-01-02T00:00:00.000000Z, 1970-01-02T23:59:59.999999Z)]\n" +
+                        "  rows: DataFrameRowCursorFactory\n" +
+                        "Execution (rows=24 time=?)\n",
+                "EXPLAIN ANALYZE select * from x where ts in '1970-01-02'"
+        );
+    }
+
+    @Test
+    public void testExplainAnalyzeJoin() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "SelectedRecordCursorFactory (rows=360 time=?)\n" +
+                        "  HashJoinLightRecordCursorFactory (rows=360 time=?)\n" +
+                        "    FilteredRecordCursorFactory\n" +
+                        "      filter: ?\n" +
+                        "      TableReaderRecordCursorFactory (rows=100 time=?)\n" +
+                        "    TableReaderRecordCursorFactory (rows=10 time=?)\n" +
+                        "Execution (rows=360 time=?)\n",
+                "explain analyze select x.s, y.j from x join y on (s)"
+        );
+    }
+
+    @Test
+    public void testExplainAnalyzePageFrames() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "GroupByRecordCursorFactory (rows=3 time=?)\n" +
+                        "  TableReaderRecordCursorFactory (rows=0 time=? frames=5 partitions=5)\n" +
+                        "Execution (rows=3 time=?)\n",
+                "explain analyze select s, sum(d) from x"
+        );
+    }
+
+    @Test
+    public void testExplainEmpty() throws Exception {
+        assertFailure("explain", null, 7, "query expected");
+    }
+
+    @Test
+    public void testExplainIntervalScan() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "DataFrameRecordCursorFactory\n" +
+                        "  frames: IntervalFwdDataFrameCursorFactory table=x intervals=[(1970-01-02T00:00:00.000000Z, 1970-01-02T23:59:59.999999Z)]\n" +
+                        "  rows: DataFrameRowCursorFactory\n",
+                "explain select * from x where ts in '1970-01-02'"
+        );
+    }
+
+    @Test
+    public void testExplainNotQuery() throws Exception {
+        assertFailure("explain create table z (a int)", null, 8, "select query expected");
+    }
+
+    @Test
+    public void testExplainSymbolIndex() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "DeferredSingleSymbolFilterDataFrameRecordCursorFactory\n" +
+                        "  frames: FullFwdDataFrameCursorFactory table=x\n" +
+                        "  rows: SymbolIndexRowCursorFactory column=0 key=0\n" +
+                        "  symbol: column=0 value=a\n",
+                "explain select * from x where s = 'a'"
+        );
+    }
+
+    @Test
+    public void testExplainSymbolList() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "FilterOnValuesRecordCursorFactory\n" +
+                        "  frames: FullFwdDataFrameCursorFactory table=x\n" +
+                        "  rows: HeapRowCursorFactory [SymbolIndexRowCursorFactory column=0 key=0, SymbolIndexRowCursorFactory column=0 key=1, DeferredSymbolIndexRowCursorFactory column=0 symbol=c]\n",
+                "explain select * from x where s in ('a', 'b', 'c')"
+        );
+    }
+
+    @Test
+    public void testExplainLatestBySymbolList() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "LatestByValuesIndexedFilteredRecordCursorFactory\n" +
+                        "  frames: FullBwdDataFrameCursorFactory table=x\n" +
+                        "  symbols: column=0 keys=[0] deferred=[c]\n",
+                "explain select * from x latest by s where s in ('a', 'c')"
+        );
+    }
+
+    @Test
+    public void testExplainIntervalNow() throws Exception {
+        // intervals that depend on now() are shown as they would be evaluated by the query
+        currentMicros = 2 * 86_400_000_000L;
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "DataFrameRecordCursorFactory\n" +
+                        "  frames: IntervalFwdDataFrameCursorFactory table=x intervals=[(1970-01-02T00:00:00.000001Z, 294247-01-10T04:00:54.775807Z)]\n" +
+                        "  rows: DataFrameRowCursorFactory\n",
+                "explain select * from x where ts > dateadd('d', -1, now())"
+        );
+    }
+
+    @Test
+    public void testExplainUnion() throws Exception {
+        assertPlan(
+                "QUERY PLAN\n" +
+                        "UnionAllRecordCursorFactory\n" +
+                        "  TableReaderRecordCursorFactory\n" +
+                        "  TableReaderRecordCursorFactory\n",
+                "explain x union all x"
+        );
+    }
+
+    private void assertPlan(String expected, String query) throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                }
+            }
+            // timings, filter class names and memory usage are not stable
+            final String actual = sink.toString()
+                    .replaceAll("time=[0-9.E-]+ms", "time=?")
+                    .replaceAll("filter: .*\n", "filter: ?\n")
+                    .replaceAll("  memory: .*\n", "");
+            TestUtils.assertEquals(expected, actual);
+        });
+    }
+}
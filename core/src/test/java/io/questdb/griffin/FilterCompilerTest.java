@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.engine.table.CompiledFilter;
+import io.questdb.griffin.engine.table.FilterCompiler;
+import io.questdb.griffin.model.QueryModel;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Numbers;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ServiceLoader;
+
+public class FilterCompilerTest extends AbstractGriffinTest {
+    private final static StringSink expected = new StringSink();
+    private final FilterCompiler filterCompiler = new FilterCompiler(new BytecodeAssembler());
+    private final QueryModel queryModel = QueryModel.FACTORY.newInstance();
+    private final FunctionParser functionParser = new FunctionParser(
+            configuration,
+            new FunctionFactoryCache(configuration, ServiceLoader.load(FunctionFactory.class, FunctionFactory.class.getClassLoader()))
+    );
+
+    private static void createTable() throws SqlException {
+        compiler.compile("create table x as (" +
+                "select" +
+                " rnd_int(-50, 50, 4) i," +
+                " rnd_int(-50, 50, 4) j," +
+                " rnd_long(-50, 50, 4) l," +
+                " rnd_double(4) * 100 - 50 d," +
+                " rnd_boolean() b," +
+                " rnd_symbol('A','B') s," +
+                " rnd_timestamp(0, 2000000000, 4) t," +
+                " timestamp_sequence(0, 1000000) ts" +
+                " from long_sequence(2000)" +
+                ") timestamp(ts)", sqlExecutionContext);
+    }
+
+    @Test
+    public void testAndOrNot() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFilter("x where i > 10 and d < 0 or not b");
+            assertFilter("x where not (i = j or l >= 0) and b");
+            assertFilter("x where (i > 0 or j > 0) and (l < 0 or d > 10)");
+        });
+    }
+
+    @Test
+    public void testBindVariables() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            bindVariableService.setInt("i", 10);
+            bindVariableService.setLong("l", -5);
+            bindVariableService.setDouble("d", 12.5);
+            assertFilter("x where i > :i and l <= :l or d > :d");
+            bindVariableService.setInt("i", Numbers.INT_NaN);
+            assertFilter("x where i > :i and l <= :l or d > :d");
+            assertFilter("x where i != :i");
+            assertCompiled("i > :i and l <= :l or d > :d");
+        });
+    }
+
+    @Test
+    public void testColumnComparisons() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFilter("x where i < j");
+            assertFilter("x where i >= j");
+            assertFilter("x where i = j");
+            assertFilter("x where i <> j");
+        });
+    }
+
+    @Test
+    public void testComparisons() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            for (String op : new String[]{"=", "!=", "<", "<=", ">", ">="}) {
+                assertFilter("x where i " + op + " 5");
+                assertFilter("x where 5 " + op + " i");
+                assertFilter("x where l " + op + " -5");
+                assertFilter("x where l " + op + " 5000000000L");
+                assertFilter("x where d " + op + " 1.5");
+                assertFilter("x where d " + op + " 3");
+                assertFilter("x where t " + op + " 1000000000");
+                assertFilter("x where t " + op + " ts");
+            }
+        });
+    }
+
+    @Test
+    public void testFallbackToInterpretedFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertNotCompiled("s = 'A' and i > 0");
+            assertNotCompiled("i + 1 > 0");
+            assertNotCompiled("i > 5000000000L");
+            assertNotCompiled("i = l");
+            assertNotCompiled("rnd_int() > i");
+            assertNotCompiled("t < now()");
+            assertNotCompiled("ts > '1970-01-01T00:10'");
+            assertNotCompiled("1 > 0");
+            assertFilter("x where s = 'A' and i > 0");
+            assertFilter("x where i + 1 > 0");
+        });
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertFilter("x where i = null");
+            assertFilter("x where i != null");
+            assertFilter("x where l = null or d = null");
+            assertFilter("x where d != NaN");
+        });
+    }
+
+    @Test
+    public void testSupportedExpressions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertCompiled("i > 0");
+            assertCompiled("b");
+            assertCompiled("not b or i < j");
+            assertCompiled("l > 5000000000L and d < 3 and t >= 1000");
+            bindVariableService.setTimestamp("t", 1000);
+            assertCompiled("t < :t");
+            assertCompiled("i > -1");
+            assertCompiled("d != -(2.5)");
+        });
+    }
+
+    private void assertCompiled(String expr) throws SqlException {
+        try (
+                TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x");
+                Function filter = filterCompiler.compile(compiler.testParseExpression(expr, queryModel), reader.getMetadata(), functionParser, sqlExecutionContext)
+        ) {
+            Assert.assertTrue(filter instanceof CompiledFilter);
+        }
+    }
+
+    private void assertFilter(String query) throws Exception {
+        sqlJitFilterDisabled = true;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+        sqlJitFilterDisabled = false;
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private void assertNotCompiled(String expr) throws SqlException {
+        try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+            Assert.assertNull(filterCompiler.compile(compiler.testParseExpression(expr, queryModel), reader.getMetadata(), functionParser, sqlExecutionContext));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.SpilledRecordChains;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class HashJoinSpillTest extends AbstractGriffinTest {
+
+    @Test
+    public void testSpillFullFatJoinOnStr() throws Exception {
+        assertSpilledJoin("select * from x join y on (str)", true);
+    }
+
+    @Test
+    public void testSpillFullFatJoinOnSymbol() throws Exception {
+        assertSpilledJoin("select * from x join y on (s)", true);
+    }
+
+    @Test
+    public void testSpillLightJoinOnMultipleColumns() throws Exception {
+        assertSpilledJoin("select * from x join y on (a, s)", false);
+    }
+
+    @Test
+    public void testSpillLightJoinOnSymbol() throws Exception {
+        assertSpilledJoin("select * from x join y on (s)", false);
+    }
+
+    private static String sortLines(CharSequence text) {
+        final String[] lines = text.toString().split("\n");
+        Arrays.sort(lines, 1, lines.length);
+        return String.join("\n", lines);
+    }
+
+    private void assertSpilledJoin(String query, boolean fullFat) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " rnd_int(0, 20, 0) a," +
+                            " rnd_symbol('msft','ibm', 'googl', null) s," +
+                            " rnd_str('a', 'bb', 'ccc', null) str," +
+                            " rnd_double(1) d," +
+                            " timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(200)" +
+                            ")",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_int(0, 20, 0) a," +
+                            " rnd_symbol('ibm', 'googl', 'amzn', null) s," +
+                            " rnd_str('bb', 'ccc', 'dddd', null) str," +
+                            " rnd_long256() l256," +
+                            " rnd_bin(1, 16, 1) bin" +
+                            " from long_sequence(300)" +
+                            ")",
+                    sqlExecutionContext
+            );
+
+            compiler.setFullFatJoins(fullFat);
+            try {
+                try (RecordCursorFactory expectedFactory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                    configOverrideSqlHashJoinSpillThreshold = 1024;
+                    try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                        final RecordMetadata metadata = factory.getMetadata();
+
+                        sink.clear();
+                        try (RecordCursor cursor = expectedFactory.getCursor(sqlExecutionContext)) {
+                            printer.print(cursor, metadata, true, sink);
+                        }
+                        final String expected = sortLines(sink);
+
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            final String[] files = new File(root.toString(), SpilledRecordChains.SPILL_DIR_NAME).list();
+                            Assert.assertNotNull(files);
+                            Assert.assertTrue(files.length > 1);
+
+                            sink.clear();
+                            printer.print(cursor, metadata, true, sink);
+                            TestUtils.assertEquals(expected, sortLines(sink));
+
+                            cursor.toTop();
+                            sink.clear();
+                            printer.print(cursor, metadata, true, sink);
+                            TestUtils.assertEquals(expected, sortLines(sink));
+                        }
+
+                        // spill files are removed when cursor is closed
+                        final String[] files = new File(root.toString(), SpilledRecordChains.SPILL_DIR_NAME).list();
+                        Assert.assertNotNull(files);
+                        Assert.assertEquals(0, files.length);
+                    }
+                }
+            } finally {
+                compiler.setFullFatJoins(false);
+            }
+        });
+    }
+}
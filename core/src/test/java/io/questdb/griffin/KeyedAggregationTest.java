@@ -31,6 +31,8 @@ import io.questdb.cairo.TableModel;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.GroupByNotKeyedVectorRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.std.Os;
 import io.questdb.std.Rnd;
 import io.questdb.test.tools.TestUtils;
@@ -61,10 +63,10 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
     public void testHourFiltered() throws Exception {
         assertQuery(
                 "hour\tcount\n" +
-                        "0\t36000\n" +
-                        "1\t36000\n" +
-                        "2\t28000\n",
-                "select hour(ts), count() from tab where val < 0.5",
+                        "0\t17902\n" +
+                        "1\t17892\n" +
+                        "2\t14056\n",
+                "select hour(ts), count() from tab where val < 0.5 order by 1",
                 "create table tab as (select timestamp_sequence(0, 100000) ts, rnd_double() val from long_sequence(100000))",
                 null, true, true, true
         );
@@ -917,6 +919,82 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testSymbolFilterKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(FILTER_DDL, sqlExecutionContext);
+            assertVectorized(
+                    "select s, sum(v), avg(i), min(l), max(ts), count() from tab where flag = 'A'",
+                    GroupByRecordCursorFactory.class
+            );
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select s, sum(v + 0) sum, avg(i + 0) avg, min(l + 0) min, max(ts) max, count() from tab where flag = 'A' order by s",
+                    "select s, sum(v), avg(i), min(l), max(ts), count() from tab where flag = 'A' order by s",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testFilterNotKeyed() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(FILTER_DDL, sqlExecutionContext);
+            assertVectorized(
+                    "select sum(v), min(i), max(l), count() from tab where i > 0 and flag != 'B'",
+                    GroupByNotKeyedVectorRecordCursorFactory.class
+            );
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select sum(v + 0) sum, min(i + 0) min, max(l + 0) max, count() from tab where i > 0 and flag != 'B'",
+                    "select sum(v), min(i), max(l), count() from tab where i > 0 and flag != 'B'",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testFilterNoMatch() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(FILTER_DDL, sqlExecutionContext);
+            assertSql(
+                    "select sum(v), count() from tab where flag = 'Z'",
+                    "sum\tcount\n" +
+                            "NaN\t0\n"
+            );
+            assertSql(
+                    "select s, sum(v) from tab where l < 0",
+                    "s\tsum\n"
+            );
+        });
+    }
+
+    @Test
+    public void testFilterWithColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(FILTER_DDL, sqlExecutionContext);
+            compiler.compile("alter table tab add column k long", sqlExecutionContext);
+            compiler.compile("insert into tab select" +
+                    " rnd_symbol('s1','s2','s3')," +
+                    " rnd_symbol('A','B')," +
+                    " rnd_double(2)," +
+                    " rnd_int(-100, 100, 2)," +
+                    " rnd_long(0, 1000, 2)," +
+                    " timestamp_sequence(1000000000000, 1000000)," +
+                    " rnd_long(0, 1000, 2)" +
+                    " from long_sequence(100000)", sqlExecutionContext);
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select s, sum(k + 0) sum, sum(v + 0) sum1, count() from tab where flag = 'B' and i < 50 order by s",
+                    "select s, sum(k), sum(v), count() from tab where flag = 'B' and i < 50 order by s",
+                    LOG
+            );
+        });
+    }
+
     @Test
     public void testMinMaxAggregations() throws Exception {
         String[] aggregateFunctions = {"max", "min"};
@@ -1078,6 +1156,21 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         return "c" + typeStr.replace("(", "").replace(")", "");
     }
 
+    private static final String FILTER_DDL = "create table tab as (select" +
+            " rnd_symbol('s1','s2','s3') s," +
+            " rnd_symbol('A','B','C', null) flag," +
+            " rnd_double(2) v," +
+            " rnd_int(-100, 100, 2) i," +
+            " rnd_long(0, 1000, 2) l," +
+            " timestamp_sequence(0, 1000000) ts" +
+            " from long_sequence(300000)) timestamp(ts) partition by DAY";
+
+    private void assertVectorized(String query, Class<?> expectedFactoryClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedFactoryClass, factory.getClass());
+        }
+    }
+
     private static class TypeVal {
         public TypeVal(int type, String val) {
             columnType = type;
@@ -457,6 +457,37 @@ public class LimitTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testTopKOrderBy() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " rnd_int(0, 50, 0) a," +
+                            " rnd_symbol('msft','ibm', 'googl') sym," +
+                            " rnd_double(2) d," +
+                            " timestamp_sequence(0, 1000000) ts," +
+                            " rnd_str(1, 2, 1) str" +
+                            " from long_sequence(1000)" +
+                            ") timestamp(ts)",
+                    sqlExecutionContext
+            );
+
+            // bind variable limit is not constant and takes the full sort path
+            assertTopK("x order by a desc", 10);
+            assertTopK("x order by a", 25);
+            assertTopK("x order by sym, a desc", 5, 15);
+            assertTopK("x order by d, ts desc", 40, 60);
+            assertTopK("x where a > 45 order by a desc, sym", 3000);
+            assertTopK("x order by a desc", 0);
+            // most rows tie with the retained ones and heap keeps reordering them
+            assertTopK("x order by a", 500);
+            // comparing retained string values needs two positioned records
+            assertTopK("x order by str, a desc", 200);
+            assertTopK("x order by str desc", 999);
+        });
+    }
+
     @Test
     public void testTopNVariable() throws Exception {
         String query = "select * from y limit :lim";
@@ -540,6 +571,31 @@ public class LimitTest extends AbstractGriffinTest {
                 "1970-01-01T00:00:00.000004Z\tabc\n", "select * from t1 where id = 'abc' limit -1", null, true, true);
     }
 
+    private void assertTopK(String query, long lo) throws SqlException {
+        bindVariableService.clear();
+        bindVariableService.setLong("lim", lo);
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                query + " limit :lim",
+                query + " limit " + lo,
+                LOG
+        );
+    }
+
+    private void assertTopK(String query, long lo, long hi) throws SqlException {
+        bindVariableService.clear();
+        bindVariableService.setLong("lo", lo);
+        bindVariableService.setLong("hi", hi);
+        TestUtils.assertSqlCursors(
+                compiler,
+                sqlExecutionContext,
+                query + " limit :lo, :hi",
+                query + " limit " + lo + ", " + hi,
+                LOG
+        );
+    }
+
     private void testLimit(String expected1, String expected2, String query) throws Exception {
         assertMemoryLeak(() -> {
             compiler.compile(
@@ -0,0 +1,365 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+public class ParallelFilterTest {
+    private final static Log LOG = LogFactory.getLog(ParallelFilterTest.class);
+    private static final StringSink sink = new StringSink();
+    private static final StringSink expectedSink = new StringSink();
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    private static CharSequence root;
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    @Test
+    public void testColumnTopParallel() throws Exception {
+        executeWithPool(4, 16, ParallelFilterTest::testColumnTop);
+    }
+
+    @Test
+    public void testColumnTopNoWorkers() throws Exception {
+        executeWithPool(0, 16, ParallelFilterTest::testColumnTop);
+    }
+
+    @Test
+    public void testFilterParallel() throws Exception {
+        executeWithPool(4, 16, ParallelFilterTest::testFilter);
+    }
+
+    @Test
+    public void testFilterParallelSmallQueue() throws Exception {
+        executeWithPool(4, 1, ParallelFilterTest::testFilter);
+    }
+
+    @Test
+    public void testFilterNoWorkers() throws Exception {
+        executeWithPool(0, 16, ParallelFilterTest::testFilter);
+    }
+
+    @Test
+    public void testGroupByParallel() throws Exception {
+        executeWithPool(4, 16, ParallelFilterTest::testGroupBy);
+    }
+
+    @Test
+    public void testGroupByParallelSingleFrameBuffer() throws Exception {
+        // every gathered frame has to be aggregated before the next one can be gathered
+        executeWithPool(4, 16, 1, ParallelFilterTest::testGroupBy);
+    }
+
+    @Test
+    public void testGroupByNoWorkers() throws Exception {
+        executeWithPool(0, 16, ParallelFilterTest::testGroupBy);
+    }
+
+    @Test
+    public void testInterruptedScanParallel() throws Exception {
+        executeWithPool(4, 16, ParallelFilterTest::testInterruptedScan);
+    }
+
+    @Test
+    public void testOrderByLimitParallel() throws Exception {
+        executeWithPool(4, 16, ParallelFilterTest::testOrderByLimit);
+    }
+
+    @Test
+    public void testSymbolFilterIsNotParallel() throws Exception {
+        executeWithPool(4, 16, (engine, compiler, context, vanillaContext) -> {
+            compiler.compile(DDL, context);
+            try (RecordCursorFactory factory = compiler.compile("x where s = 'A' and price > 10", context).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof AsyncFilteredRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("x where price > 10", vanillaContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory instanceof AsyncFilteredRecordCursorFactory);
+            }
+        });
+    }
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " rnd_double(2) * 100 price," +
+            " rnd_long(0, 1000, 2) qty," +
+            " rnd_int() i," +
+            " rnd_boolean() b," +
+            " rnd_symbol('A','B','C') s," +
+            " rnd_str(3, 5, 1) str," +
+            " timestamp_sequence(0, 60000000) ts" +
+            " from long_sequence(10000)" +
+            ") timestamp(ts) partition by DAY";
+
+    private static void testColumnTop(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        compiler.compile("alter table x add column j long", context);
+        compiler.compile("insert into x select" +
+                " rnd_double(2) * 100," +
+                " rnd_long(0, 1000, 2)," +
+                " rnd_int()," +
+                " rnd_boolean()," +
+                " rnd_symbol('A','B','C')," +
+                " rnd_str(3, 5, 1)," +
+                " timestamp_sequence(600000000000, 60000000)," +
+                " rnd_long(0, 100, 2)" +
+                " from long_sequence(2000)", context);
+
+        assertParallel(compiler, context, vanillaContext, "x where j > 50 or j = null");
+        assertParallel(compiler, context, vanillaContext, "select ts, j, s from x where j < 10 and price > 50");
+    }
+
+    private static void testFilter(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        assertParallel(compiler, context, vanillaContext, "x where price > 50 and qty < 200");
+        assertParallel(compiler, context, vanillaContext, "select s, str, ts from x where i > 0 and b");
+        assertParallel(compiler, context, vanillaContext, "x where ts > '1970-01-01T03' and qty = 7");
+        assertParallel(compiler, context, vanillaContext, "select count() from x where price < 10");
+        assertParallel(compiler, context, vanillaContext, "x where price > 1000");
+    }
+
+    private static void testGroupBy(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        // vector aggregation consumes page frames filtered by the parallel filter factory
+        assertParallel(compiler, context, vanillaContext, "select s, sum(price), max(qty), count() from x where qty > 100 order by s");
+        assertParallel(compiler, context, vanillaContext, "select sum(qty), avg(price), min(i) from x where price < 20");
+        TestUtils.assertSqlCursors(
+                compiler,
+                context,
+                "select s, sum(price + 0) sum, count() from x where qty > 100 and i > 0 order by s",
+                "select s, sum(price), count() from x where qty > 100 and i > 0 order by s",
+                LOG
+        );
+        // matching rows are contiguous, frames are sliced rather than gathered
+        assertParallel(compiler, context, vanillaContext, "select sum(qty), max(price), count() from x where cast(ts as long) > 300000000000");
+    }
+
+    private static void testInterruptedScan(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        try (RecordCursorFactory factory = compiler.compile("x where qty > 10", context).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof AsyncFilteredRecordCursorFactory);
+            // abandon cursors half way through while workers are still busy
+            for (int i = 0; i < 10; i++) {
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    final Record record = cursor.getRecord();
+                    for (int j = 0; j < 100 * i && cursor.hasNext(); j++) {
+                        Assert.assertTrue(record.getLong(1) > 10);
+                    }
+                    cursor.toTop();
+                    Assert.assertTrue(cursor.hasNext());
+                }
+            }
+        }
+    }
+
+    private static void testOrderByLimit(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        assertParallel(compiler, context, vanillaContext, "x where price > 50 order by qty desc, ts limit 20");
+        assertParallel(compiler, context, vanillaContext, "x where qty > 100 limit 15");
+        assertParallel(compiler, context, vanillaContext, "x where qty > 100 limit -15");
+    }
+
+    private static void assertParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext,
+            String query
+    ) throws SqlException {
+        TestUtils.printSql(compiler, vanillaContext, query, expectedSink);
+        TestUtils.printSql(compiler, context, query, sink);
+        TestUtils.assertEquals(expectedSink, sink);
+    }
+
+    private static void executeWithPool(
+            int workerCount,
+            int queueCapacity,
+            FilterRunnable runnable
+    ) throws Exception {
+        executeWithPool(workerCount, queueCapacity, 16, runnable);
+    }
+
+    private static void executeWithPool(
+            int workerCount,
+            int queueCapacity,
+            int frameBufferCount,
+            FilterRunnable runnable
+    ) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getPageFrameFilterQueueCapacity() {
+                    return queueCapacity;
+                }
+
+                @Override
+                public int getSqlPageFrameFilterBufferCount() {
+                    return frameBufferCount;
+                }
+
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return 100;
+                }
+            };
+
+            WorkerPool pool = null;
+            if (workerCount > 0) {
+                final int[] affinity = new int[workerCount];
+                for (int i = 0; i < workerCount; i++) {
+                    affinity[i] = -1;
+                }
+
+                pool = new WorkerPool(
+                        new WorkerPoolAwareConfiguration() {
+                            @Override
+                            public int[] getWorkerAffinity() {
+                                return affinity;
+                            }
+
+                            @Override
+                            public int getWorkerCount() {
+                                return workerCount;
+                            }
+
+                            @Override
+                            public boolean haltOnError() {
+                                return false;
+                            }
+
+                            @Override
+                            public boolean isEnabled() {
+                                return true;
+                            }
+                        }
+                );
+            }
+            execute(pool, runnable, configuration);
+        });
+    }
+
+    private static void execute(
+            @Nullable WorkerPool pool,
+            FilterRunnable runnable,
+            CairoConfiguration configuration
+    ) throws Exception {
+        // without a pool the cursor owner has to process all frames itself
+        final int workerCount = pool == null ? 4 : pool.getWorkerCount();
+        try (
+                final CairoEngine engine = new CairoEngine(configuration);
+                final SqlCompiler compiler = new SqlCompiler(engine);
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount);
+                final SqlExecutionContext vanillaContext = new SqlExecutionContextImpl(engine, 1)
+        ) {
+            try {
+                if (pool != null) {
+                    pool.assignCleaner(Path.CLEANER);
+                    pool.assign(new PageFrameFilterJob(engine.getMessageBus()));
+                    pool.start(LOG);
+                }
+
+                runnable.run(engine, compiler, sqlExecutionContext, vanillaContext);
+                Assert.assertEquals(0, engine.getBusyWriterCount());
+                Assert.assertEquals(0, engine.getBusyReaderCount());
+            } finally {
+                if (pool != null) {
+                    pool.halt();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface FilterRunnable {
+        void run(
+                CairoEngine engine,
+                SqlCompiler compiler,
+                SqlExecutionContext sqlExecutionContext,
+                SqlExecutionContext vanillaContext
+        ) throws Exception;
+    }
+}
@@ -0,0 +1,373 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.WorkerPoolAwareConfiguration;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.AsyncGroupByRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.PageFrameGroupByJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Rnd;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ParallelGroupByTest {
+    private final static Log LOG = LogFactory.getLog(ParallelGroupByTest.class);
+    private static final StringSink sink = new StringSink();
+    private static final StringSink expectedSink = new StringSink();
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+    private static CharSequence root;
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " rnd_double(2) * 100 price," +
+            " rnd_long(0, 1000, 2) qty," +
+            " rnd_int(0, 50, 2) i," +
+            " rnd_float(2) f," +
+            " rnd_boolean() b," +
+            " rnd_symbol('A','B','C') s," +
+            " rnd_symbol(20, 2, 4, 2) s2," +
+            " rnd_str(3, 5, 1) str," +
+            " timestamp_sequence(0, 60000000) ts" +
+            " from long_sequence(10000)" +
+            ") timestamp(ts) partition by DAY";
+
+    @BeforeClass
+    public static void setupStatic() {
+        try {
+            root = temp.newFolder("dbRoot").getAbsolutePath();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        SharedRandom.RANDOM.set(new Rnd());
+        TestUtils.createTestPath(root);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtils.removeTestPath(root);
+    }
+
+    @Test
+    public void testColumnTopParallel() throws Exception {
+        executeWithPool(4, 16, ParallelGroupByTest::testColumnTop);
+    }
+
+    @Test
+    public void testCompositeKeysParallel() throws Exception {
+        executeWithPool(4, 16, ParallelGroupByTest::testCompositeKeys);
+    }
+
+    @Test
+    public void testFilteredParallel() throws Exception {
+        executeWithPool(4, 16, ParallelGroupByTest::testFiltered);
+    }
+
+    @Test
+    public void testKeysParallel() throws Exception {
+        executeWithPool(4, 16, ParallelGroupByTest::testKeys);
+    }
+
+    @Test
+    public void testKeysParallelSmallQueue() throws Exception {
+        executeWithPool(4, 1, ParallelGroupByTest::testKeys);
+    }
+
+    @Test
+    public void testKeysNoWorkers() throws Exception {
+        executeWithPool(0, 16, ParallelGroupByTest::testKeys);
+    }
+
+    @Test
+    public void testRandomAccessParallel() throws Exception {
+        executeWithPool(4, 16, (engine, compiler, context, vanillaContext) -> {
+            compiler.compile(DDL, context);
+            try (RecordCursorFactory factory = compiler.compile("select s, s2, max(qty) m from x", context).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof AsyncGroupByRecordCursorFactory);
+                Assert.assertTrue(factory.recordCursorSupportsRandomAccess());
+                try (RecordCursor cursor = factory.getCursor(context)) {
+                    final Record record = cursor.getRecord();
+                    final Record recordB = cursor.getRecordB();
+                    long count = 0;
+                    while (cursor.hasNext()) {
+                        cursor.recordAt(recordB, record.getRowId());
+                        TestUtils.assertEquals(record.getSym(0), recordB.getSym(0));
+                        TestUtils.assertEquals(record.getSym(1), recordB.getSym(1));
+                        Assert.assertEquals(record.getLong(2), recordB.getLong(2));
+                        count++;
+                    }
+                    Assert.assertEquals(count, cursor.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testUnsupportedFallback() throws Exception {
+        executeWithPool(4, 16, (engine, compiler, context, vanillaContext) -> {
+            compiler.compile(DDL, context);
+            // string keys are not available in page frames
+            assertNotParallel(compiler, context, "select str, s, count() from x");
+            // symbol function arguments would need symbol tables on worker threads
+            assertNotParallel(compiler, context, "select b, i, count_distinct(s) from x");
+            // sequential query
+            assertNotParallel(compiler, vanillaContext, "select s, s2, count() from x");
+            assertParallel(compiler, context, vanillaContext, "select str, s, count() from x order by 1, 2");
+        });
+    }
+
+    private static void testColumnTop(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        compiler.compile("alter table x add column j long", context);
+        compiler.compile("insert into x select" +
+                " rnd_double(2) * 100," +
+                " rnd_long(0, 1000, 2)," +
+                " rnd_int(0, 50, 2)," +
+                " rnd_float(2)," +
+                " rnd_boolean()," +
+                " rnd_symbol('A','B','C')," +
+                " rnd_symbol(20, 2, 4, 2)," +
+                " rnd_str(3, 5, 1)," +
+                " timestamp_sequence(600000000000, 60000000)," +
+                " rnd_long(0, 10, 2)" +
+                " from long_sequence(2000)", context);
+
+        assertParallel(compiler, context, vanillaContext, "select j, s, count(), round(sum(price), 6), max(qty) from x order by 1, 2");
+        assertParallel(compiler, context, vanillaContext, "select s, s2, sum(j), min(j), avg(j) from x order by 1, 2");
+    }
+
+    private static void testCompositeKeys(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile("create table y as (" +
+                "select" +
+                " rnd_symbol(30, 2, 4, 2) s1," +
+                " rnd_symbol(30, 2, 4, 2) s2," +
+                " rnd_geohash(15) g," +
+                " rnd_long(0, 50, 2) l," +
+                " rnd_char() c," +
+                " rnd_double(2) d," +
+                " timestamp_sequence(0, 3600000000) ts" +
+                " from long_sequence(20000)" +
+                ") timestamp(ts) partition by MONTH", context);
+        try (RecordCursorFactory factory = compiler.compile("select s1, s2, ksum(d), nsum(d) from y", context).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof AsyncGroupByRecordCursorFactory);
+        }
+        assertParallel(compiler, context, vanillaContext, "select s1, s2, round(ksum(d), 9), round(nsum(d), 9), count() from y order by 1, 2");
+        // geohash columns cannot be sorted, compare rows regardless of order
+        assertParallelUnordered(compiler, context, vanillaContext, "select g, count(), min(c), max(c) from y");
+        assertParallel(compiler, context, vanillaContext, "select l, s1, max(ts), min(d) from y order by 1, 2");
+        assertParallelUnordered(compiler, context, vanillaContext, "select s1, g, l, max(d) from y where d > 0.5");
+    }
+
+    private static void testFiltered(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        assertParallel(compiler, context, vanillaContext, "select s, s2, count(), round(sum(price), 6) from x where qty > 100 order by 1, 2");
+        assertParallel(compiler, context, vanillaContext, "select qty, count() from x where price < 20 and b order by 1");
+        assertParallel(compiler, context, vanillaContext, "select s, b, count() from x where qty > 10000 order by 1, 2");
+    }
+
+    private static void testKeys(
+            CairoEngine engine,
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext
+    ) throws SqlException {
+        compiler.compile(DDL, context);
+        try (RecordCursorFactory factory = compiler.compile("select s, s2, count() from x", context).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof AsyncGroupByRecordCursorFactory);
+        }
+        assertParallel(compiler, context, vanillaContext, "select s, s2, count(), round(sum(price), 6), round(avg(price), 6), min(f), max(i) from x order by 1, 2");
+        assertParallel(compiler, context, vanillaContext, "select s, s2, b, sum(qty), min(ts), max(ts) from x order by 1, 2, 3");
+        assertParallel(compiler, context, vanillaContext, "select qty, count(), sum(i), max(price) from x order by 1");
+        assertParallel(compiler, context, vanillaContext, "select ts, s, round(sum(price + 1), 6) from x order by 1, 2");
+        assertParallel(compiler, context, vanillaContext, "select i, b, max(f), min(qty) from x order by 1, 2");
+    }
+
+    private static void assertNotParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            String query
+    ) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, context).getRecordCursorFactory()) {
+            Assert.assertFalse(factory instanceof AsyncGroupByRecordCursorFactory);
+        }
+    }
+
+    private static void assertParallel(
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext,
+            String query
+    ) throws SqlException {
+        TestUtils.printSql(compiler, vanillaContext, query, expectedSink);
+        TestUtils.printSql(compiler, context, query, sink);
+        TestUtils.assertEquals(expectedSink, sink);
+    }
+
+    private static void assertParallelUnordered(
+            SqlCompiler compiler,
+            SqlExecutionContext context,
+            SqlExecutionContext vanillaContext,
+            String query
+    ) throws SqlException {
+        TestUtils.printSql(compiler, vanillaContext, query, expectedSink);
+        TestUtils.printSql(compiler, context, query, sink);
+        final String[] expected = expectedSink.toString().split("\n");
+        final String[] actual = sink.toString().split("\n");
+        Arrays.sort(expected);
+        Arrays.sort(actual);
+        Assert.assertArrayEquals(expected, actual);
+    }
+
+    private static void executeWithPool(
+            int workerCount,
+            int queueCapacity,
+            GroupByRunnable runnable
+    ) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getPageFrameGroupByQueueCapacity() {
+                    return queueCapacity;
+                }
+
+                @Override
+                public int getSqlPageFrameMaxRows() {
+                    return 100;
+                }
+            };
+
+            WorkerPool pool = null;
+            if (workerCount > 0) {
+                final int[] affinity = new int[workerCount];
+                for (int i = 0; i < workerCount; i++) {
+                    affinity[i] = -1;
+                }
+
+                pool = new WorkerPool(
+                        new WorkerPoolAwareConfiguration() {
+                            @Override
+                            public int[] getWorkerAffinity() {
+                                return affinity;
+                            }
+
+                            @Override
+                            public int getWorkerCount() {
+                                return workerCount;
+                            }
+
+                            @Override
+                            public boolean haltOnError() {
+                                return false;
+                            }
+
+                            @Override
+                            public boolean isEnabled() {
+                                return true;
+                            }
+                        }
+                );
+            }
+            execute(pool, runnable, configuration);
+        });
+    }
+
+    private static void execute(
+            @Nullable WorkerPool pool,
+            GroupByRunnable runnable,
+            CairoConfiguration configuration
+    ) throws Exception {
+        // without a pool the cursor owner has to aggregate all frames itself
+        final int workerCount = pool == null ? 4 : pool.getWorkerCount();
+        try (
+                final CairoEngine engine = new CairoEngine(configuration);
+                final SqlCompiler compiler = new SqlCompiler(engine);
+                final SqlExecutionContext sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount);
+                final SqlExecutionContext vanillaContext = new SqlExecutionContextImpl(engine, 1)
+        ) {
+            try {
+                if (pool != null) {
+                    pool.assignCleaner(Path.CLEANER);
+                    pool.assign(new PageFrameFilterJob(engine.getMessageBus()));
+                    pool.assign(new PageFrameGroupByJob(engine.getMessageBus()));
+                    pool.start(LOG);
+                }
+
+                runnable.run(engine, compiler, sqlExecutionContext, vanillaContext);
+                Assert.assertEquals(0, engine.getBusyWriterCount());
+                Assert.assertEquals(0, engine.getBusyReaderCount());
+            } finally {
+                if (pool != null) {
+                    pool.halt();
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface GroupByRunnable {
+        void run(
+                CairoEngine engine,
+                SqlCompiler compiler,
+                SqlExecutionContext sqlExecutionContext,
+                SqlExecutionContext vanillaContext
+        ) throws Exception;
+    }
+}
@@ -0,0 +1,417 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionCompressionJob;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.griffin.model.IntervalUtils;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.NumericException;
+import io.questdb.std.Numbers;
+import io.questdb.std.Zip;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PartitionCompressionTest extends AbstractGriffinTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        // several blocks per column file
+        configOverridePartitionCompressionBlockSize = 1024;
+        configOverridePartitionCompressionAge = 1;
+        // a few blocks of decompressed data for all readers, most queries evict
+        configOverridePartitionCompressionCacheSize = 4 * 1024;
+        // static buffers of the codec are allocated once per JVM
+        Zip.init();
+        super.setUp();
+    }
+
+    @Test
+    public void testActivePartitionIsNotCompressed() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2 * 7, compress());
+            Assert.assertTrue(isCompressed("1970-01-02", "l"));
+            Assert.assertFalse(isCompressed("1970-01-03", "l"));
+            Assert.assertTrue(dataFileExists("1970-01-03", "l"));
+            // nothing left to compress
+            Assert.assertEquals(0, compress());
+        });
+    }
+
+    @Test
+    public void testAddIndexDecompresses() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compress();
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            compiler.compile("alter table y alter column sym add index", sqlExecutionContext);
+            Assert.assertFalse(isCompressed("1970-01-01", "sym"));
+            assertSameData("select * from y where sym = 'b'", "select * from x where sym = 'b'");
+        });
+    }
+
+    @Test
+    public void testAppendAfterCompression() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertSameData();
+            compress();
+            compiler.compile("insert into x select * from y where ts > '1970-01-02T12'", sqlExecutionContext);
+            compiler.compile("insert into y select * from y where ts > '1970-01-02T12'", sqlExecutionContext);
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testAlterColumnSetCodec() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compiler.compile("alter table x alter column ts set codec delta", sqlExecutionContext);
+            compiler.compile("alter table x alter column d set codec gorilla", sqlExecutionContext);
+            compiler.compile("alter table x alter column sym set codec rle", sqlExecutionContext);
+            compiler.compile("alter table x alter column i set codec bitpack", sqlExecutionContext);
+            assertSameData();
+            compress();
+            // 1440 timestamps at regular interval, 11520 bytes uncompressed
+            Assert.assertTrue(fileSize("1970-01-01", "ts") < 1024);
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+            // codec is kept when metadata is rewritten
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            compiler.compile("alter table y add column z int", sqlExecutionContext);
+            compiler.compile("alter table x alter column l set codec delta", sqlExecutionContext);
+            compiler.compile("insert into x select * from y where ts > '1970-01-02T12'", sqlExecutionContext);
+            compiler.compile("insert into y select * from y where ts > '1970-01-02T12'", sqlExecutionContext);
+            // O3 rows were merged into the second partition
+            Assert.assertEquals(8, compress());
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testBlockCacheIsBounded() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compress();
+            assertSameData();
+            assertSameData("select sum(i), min(l), max(d) from y", "select sum(i), min(l), max(d) from x");
+            assertSameData("select * from y latest by sym", "select * from x latest by sym");
+            // readers are back in the pool, their blocks are unpinned and the cache is trimmed to capacity
+            Assert.assertTrue(engine.getColumnBlockCacheSize() <= 4 * 1024);
+            engine.releaseAllReaders();
+            Assert.assertEquals(0, engine.getColumnBlockCacheSize());
+        });
+    }
+
+    @Test
+    public void testCodecNotSupported() throws Exception {
+        assertFailure(
+                "create table z (s string codec delta)",
+                null,
+                31,
+                "codec is not supported by column type [codec=delta, type=STRING]"
+        );
+        assertFailure(
+                "alter table x alter column i set codec gorilla",
+                "create table x (i int, ts timestamp) timestamp(ts) partition by DAY",
+                39,
+                "codec is not supported by column type [codec=gorilla, type=INT]"
+        );
+    }
+
+    @Test
+    public void testCodecsInCreateTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x (" +
+                            "i int codec bitpack, " +
+                            "l long codec delta, " +
+                            "d double codec gorilla, " +
+                            "f float codec gorilla, " +
+                            "sym symbol codec rle, " +
+                            "b byte codec rle, " +
+                            "s string codec none, " +
+                            "ts timestamp codec delta" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile(
+                    "create table y as (" +
+                            "select" +
+                            " rnd_int(0, 1000, 2) i," +
+                            " rnd_long() l," +
+                            " rnd_double(2) d," +
+                            " rnd_float(2) f," +
+                            " rnd_symbol('a', 'b', null) sym," +
+                            " rnd_byte(1, 3) b," +
+                            " rnd_str(3, 10, 1) s," +
+                            " timestamp_sequence(0, 60000000) ts" +
+                            " from long_sequence(3000)" +
+                            ") timestamp(ts) partition by DAY",
+                    sqlExecutionContext
+            );
+            compiler.compile("insert into x select * from y", sqlExecutionContext);
+            Assert.assertEquals(2 * 8, compress());
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+            assertSameData("select sum(i), min(l), max(d), sum(f) from y", "select sum(i), min(l), max(d), sum(f) from x");
+        });
+    }
+
+    @Test
+    public void testColumnRename() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            compress();
+            compiler.compile("alter table x rename column l to l2", sqlExecutionContext);
+            Assert.assertTrue(isCompressed("1970-01-01", "l2"));
+            compiler.compile("alter table x drop column d", sqlExecutionContext);
+            Assert.assertFalse(isCompressed("1970-01-01", "d"));
+            assertSameData("select i, l l2, s, sym, b, ts from y", "x");
+        });
+    }
+
+    @Test
+    public void testCompressedDataIsQueried() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // readers in the pool have partitions open before compression
+            assertSameData();
+            compress();
+            for (String column : new String[]{"i", "l", "d", "s", "sym", "b", "ts"}) {
+                Assert.assertTrue(column, isCompressed("1970-01-01", column));
+                Assert.assertFalse(column, dataFileExists("1970-01-01", column));
+            }
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testInvalidCodec() throws Exception {
+        assertFailure(
+                "create table z (i int codec lz4, ts timestamp)",
+                null,
+                28,
+                "invalid codec [name=lz4]"
+        );
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // readers have partitions open, they reload them once compressed copies are attached
+            assertSameData();
+            try (PartitionCompressionJob job = new PartitionCompressionJob(engine)) {
+                // one partition per run, two partitions of both tables
+                for (int i = 0; i < 4; i++) {
+                    Assert.assertTrue(job.run(0));
+                }
+                Assert.assertFalse(job.run(0));
+                // the next run waits for check interval
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertTrue(isCompressed("1970-01-01", "l"));
+            Assert.assertTrue(isCompressed("1970-01-02", "l"));
+            Assert.assertFalse(isCompressed("1970-01-03", "l"));
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testJobDiscardsCopyOfModifiedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (
+                    PartitionCompressionJob job = new PartitionCompressionJob(engine);
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")
+            ) {
+                Assert.assertTrue(job.compressTable("x", Long.MAX_VALUE));
+                TableWriter.Row row = writer.newRow(IntervalUtils.parseFloorPartialDate("1970-01-01T10:00:00.000001Z"));
+                row.putInt(0, 42);
+                row.append();
+                writer.commit();
+                Assert.assertFalse(job.attach(writer));
+            }
+            executeInsert("insert into y (i, ts) values (42, '1970-01-01T10:00:00.000001Z')");
+            Assert.assertFalse(isCompressed("1970-01-01", "l"));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testJobDoesNotHoldWriter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertSameData();
+            try (
+                    PartitionCompressionJob job = new PartitionCompressionJob(engine);
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")
+            ) {
+                // partition is compressed while writer is busy, copy is attached by writer owner
+                Assert.assertTrue(job.compressTable("x", Long.MAX_VALUE));
+                Assert.assertFalse(isCompressed("1970-01-01", "l"));
+                // one copy per table at a time
+                Assert.assertFalse(job.compressTable("x", Long.MAX_VALUE));
+                assertSameData();
+                Assert.assertTrue(job.attach(writer));
+                Assert.assertFalse(job.attach(writer));
+            }
+            Assert.assertTrue(isCompressed("1970-01-01", "l"));
+            Assert.assertFalse(isCompressed("1970-01-02", "l"));
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testO3IntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertSameData();
+            compress();
+            final String insert = "insert into %s values (42, 42, 4.2, 'o3', 'c', null, '1970-01-01T10:00:00.000001Z')";
+            executeInsert(String.format(insert, "x"));
+            executeInsert(String.format(insert, "y"));
+            Assert.assertFalse(isCompressed("1970-01-01", "l"));
+            assertSameData();
+            // merged partition is written under new name, the other one is still compressed
+            Assert.assertEquals(7, compress());
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testZoneMapsOfCompressedPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2 * 4, engine.getZoneMapJob().buildTable("x"));
+            compress();
+            // compressed columns keep their maps, the job does not mistake them for missing columns
+            Assert.assertEquals(0, engine.getZoneMapJob().buildTable("x"));
+            assertSameData("select * from y where i > 0", "select * from x where i > 0");
+            assertSameData("select * from y where l < 0 and d > 0.5", "select * from x where l < 0 and d > 0.5");
+        });
+    }
+
+    private static boolean dataFileExists(String partitionName, String columnName) {
+        return fileExists(partitionName, columnName, ".d");
+    }
+
+    private static boolean fileExists(String partitionName, String columnName, String suffix) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partitionDirName(partitionName)).concat(columnName).put(suffix).$();
+            return FilesFacadeImpl.INSTANCE.exists(path);
+        }
+    }
+
+    private static long fileSize(String partitionName, String columnName) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partitionDirName(partitionName)).concat(columnName).put(".dz").$();
+            return FilesFacadeImpl.INSTANCE.length(path);
+        }
+    }
+
+    // compressed copies of partitions are attached under new name txn
+    private static String partitionDirName(String partitionName) {
+        final StringSink dirName = new StringSink();
+        dirName.put(partitionName);
+        final long[] maxTxn = {-1};
+        try (Path path = new Path()) {
+            final NativeLPSZ name = new NativeLPSZ();
+            FilesFacadeImpl.INSTANCE.iterateDir(path.of(configuration.getRoot()).concat("x").$(), (pName, type) -> {
+                name.of(pName);
+                if (type == Files.DT_DIR && Chars.startsWith(name, partitionName) && name.length() > partitionName.length()
+                        && name.charAt(partitionName.length()) == '.') {
+                    try {
+                        final long txn = Numbers.parseLong(name, partitionName.length() + 1, name.length());
+                        if (txn > maxTxn[0]) {
+                            maxTxn[0] = txn;
+                            dirName.clear();
+                            dirName.put(name);
+                        }
+                    } catch (NumericException ignore) {
+                        // not a partition
+                    }
+                }
+            });
+        }
+        return dirName.toString();
+    }
+
+    private static boolean isCompressed(String partitionName, String columnName) {
+        return fileExists(partitionName, columnName, ".dz");
+    }
+
+    private void assertSameData() throws SqlException {
+        assertSameData("y", "x");
+    }
+
+    private void assertSameData(String expected, String actual) throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, expected, actual, LOG);
+    }
+
+    private int compress() {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            return writer.compressPartitions(Long.MAX_VALUE);
+        }
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int() i," +
+                        " rnd_long() l," +
+                        " rnd_double() d," +
+                        " rnd_str(3, 10, 1) s," +
+                        " rnd_symbol('a', 'b', 'c') sym," +
+                        " rnd_bin(1, 20, 1) b," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("create table y as (select * from x) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
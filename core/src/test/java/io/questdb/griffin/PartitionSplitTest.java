@@ -0,0 +1,252 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionSquashJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PartitionSplitTest extends AbstractGriffinTest {
+
+    @Override
+    @Before
+    public void setUp() {
+        configOverrideO3PartitionSplitMinSize = 100;
+        super.setUp();
+    }
+
+    @Test
+    public void testActivePartitionIsNotSplit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-03T01:00:00.000001Z");
+            Assert.assertEquals(0, partitionCount("1970-01-03T"));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testAddIndexSquashesParts() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            Assert.assertEquals(1, partitionCount("1970-01-01T"));
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            Assert.assertEquals(0, partitionCount("1970-01-01T"));
+            assertSameData("select * from y where sym = 'b'", "select * from x where sym = 'b'");
+        });
+    }
+
+    @Test
+    public void testColumnAddedAfterSplit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            compiler.compile("alter table y add column z int", sqlExecutionContext);
+            executeInsert("insert into x values (1, 1, 0.1, 'o3', 'a', null, '1970-01-01T21:00:00.000001Z', 7)");
+            executeInsert("insert into y values (1, 1, 0.1, 'o3', 'a', null, '1970-01-01T21:00:00.000001Z', 7)");
+            assertSameData();
+            Assert.assertEquals(1, squash(Long.MAX_VALUE));
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testDropSplitPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            compiler.compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            Assert.assertEquals(0, partitionCount("1970-01-01"));
+            assertSameData("select * from y where ts >= '1970-01-02'", "x");
+        });
+    }
+
+    @Test
+    public void testIntervalQueries() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            insert("1970-01-01T10:00:00.000001Z");
+            Assert.assertEquals(2, partitionCount("1970-01-01T"));
+            assertSameData("select * from y where ts in '1970-01-01T19'", "select * from x where ts in '1970-01-01T19'");
+            assertSameData("select * from y where ts in '1970-01-01T20'", "select * from x where ts in '1970-01-01T20'");
+            assertSameData(
+                    "select * from y where ts between '1970-01-01T09:30' and '1970-01-01T20:30'",
+                    "select * from x where ts between '1970-01-01T09:30' and '1970-01-01T20:30'"
+            );
+            assertSameData("select * from y latest by sym", "select * from x latest by sym");
+        });
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            Assert.assertEquals(1, partitionCount("1970-01-01T"));
+            try (PartitionSquashJob job = new PartitionSquashJob(engine)) {
+                Assert.assertTrue(job.run(0));
+                // the next run waits for check interval
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertEquals(0, partitionCount("1970-01-01T"));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testO3IntoPart() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            insert("1970-01-01T22:00:00.000001Z");
+            insert("1970-01-01T21:00:00.000001Z");
+            assertSameData();
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+            assertSameData();
+            Assert.assertEquals(1, squash(Long.MAX_VALUE));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testReaderKeepsParts() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(3001, reader.size());
+                Assert.assertEquals(1, squash(Long.MAX_VALUE));
+                // parts are kept for the open reader
+                Assert.assertEquals(1, partitionCount("1970-01-01T"));
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(3001, reader.size());
+            }
+            assertSameData();
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                Assert.assertEquals(0, writer.purgeRemovedPartitions());
+            }
+            Assert.assertEquals(0, partitionCount("1970-01-01T"));
+        });
+    }
+
+    @Test
+    public void testSplitIsDisabled() throws Exception {
+        configOverrideO3PartitionSplitMinSize = 0;
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            Assert.assertEquals(0, partitionCount("1970-01-01T"));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testSquashLag() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            insert("1970-01-01T20:00:00.000001Z");
+            insert("1970-01-02T20:00:00.000001Z");
+            Assert.assertEquals(1, partitionCount("1970-01-01T"));
+            Assert.assertEquals(1, partitionCount("1970-01-02T"));
+            // only the first day ends before the cut-off
+            Assert.assertEquals(1, squash(Timestamps.DAY_MICROS));
+            Assert.assertEquals(0, partitionCount("1970-01-01T"));
+            Assert.assertEquals(1, partitionCount("1970-01-02T"));
+            assertSameData();
+        });
+    }
+
+    private static int partitionCount(String partitionNamePrefix) {
+        try (Path path = new Path()) {
+            final NativeLPSZ name = new NativeLPSZ();
+            final int[] count = {0};
+            FilesFacadeImpl.INSTANCE.iterateDir(path.of(configuration.getRoot()).concat("x").$(), (pName, type) -> {
+                name.of(pName);
+                if (type == Files.DT_DIR && !Files.isDots(name) && Chars.startsWith(name, partitionNamePrefix)) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        }
+    }
+
+    private void assertSameData() throws SqlException {
+        assertSameData("y", "x");
+    }
+
+    private void assertSameData(String expected, String actual) throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, expected, actual, LOG);
+    }
+
+    private void insert(String timestamp) throws SqlException {
+        final String insert = "insert into %s values (42, 42, 4.2, 'o3', 'c', null, '" + timestamp + "')";
+        executeInsert(String.format(insert, "x"));
+        executeInsert(String.format(insert, "y"));
+    }
+
+    private int squash(long timestampHi) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            final int count = writer.squashPartitions(timestampHi);
+            writer.purgeRemovedPartitions();
+            return count;
+        }
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int() i," +
+                        " rnd_long() l," +
+                        " rnd_double() d," +
+                        " rnd_str(3, 10, 1) s," +
+                        " rnd_symbol('a', 'b', 'c') sym," +
+                        " rnd_bin(1, 20, 1) b," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        // unpartitioned table is never split
+        compiler.compile("create table y as (select * from x) timestamp(ts)", sqlExecutionContext);
+    }
+}
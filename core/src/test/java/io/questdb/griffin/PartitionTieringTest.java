@@ -0,0 +1,297 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionTieringJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class PartitionTieringTest extends AbstractGriffinTest {
+    private static String coldRoot;
+
+    @Override
+    @Before
+    public void setUp() {
+        coldRoot = new File(temp.getRoot(), "coldRoot").getAbsolutePath();
+        configOverrideColdRoot = coldRoot;
+        super.setUp();
+    }
+
+    @Override
+    @After
+    public void tearDown() {
+        super.tearDown();
+        TestUtils.removeTestPath(coldRoot);
+    }
+
+    @Test
+    public void testActivePartitionIsNotRelocated() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            Assert.assertEquals(2, relocate());
+            Assert.assertFalse(hotPartitionExists("1970-01-01"));
+            Assert.assertFalse(hotPartitionExists("1970-01-02"));
+            Assert.assertTrue(hotPartitionExists("1970-01-03"));
+            Assert.assertEquals(2, coldPartitionCount("x"));
+            // nothing left to relocate
+            Assert.assertEquals(0, relocate());
+        });
+    }
+
+    @Test
+    public void testAddIndexRestoresPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            relocate();
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+            compiler.compile("alter table y alter column sym add index", sqlExecutionContext);
+            Assert.assertTrue(hotPartitionExists("1970-01-01"));
+            assertSameData("select * from y where sym = 'b'", "select * from x where sym = 'b'");
+            // cold copies are purged, readers have moved on
+            purge();
+            Assert.assertEquals(0, coldPartitionCount("x"));
+        });
+    }
+
+    @Test
+    public void testColumnDdl() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            relocate();
+            compiler.compile("alter table x rename column l to l2", sqlExecutionContext);
+            compiler.compile("alter table x drop column d", sqlExecutionContext);
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            assertSameData("select i, l l2, s, sym, b, ts, cast(null as int) z from y", "x");
+            engine.releaseAllReaders();
+            assertSameData("select i, l l2, s, sym, b, ts, cast(null as int) z from y", "x");
+        });
+    }
+
+    @Test
+    public void testDropColdPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            relocate();
+            compiler.compile("alter table x drop partition list '1970-01-01'", sqlExecutionContext);
+            Assert.assertEquals(1, coldPartitionCount("x"));
+            assertSameData("select * from y where ts >= '1970-01-02'", "x");
+        });
+    }
+
+    @Test
+    public void testDropTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            relocate();
+            compiler.compile("drop table x", sqlExecutionContext);
+            Assert.assertFalse(coldTableExists("x"));
+        });
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        configOverridePartitionColdAge = 1;
+        assertMemoryLeak(() -> {
+            createTables();
+            try (PartitionTieringJob job = new PartitionTieringJob(engine)) {
+                Assert.assertTrue(job.run(0));
+                // the next run waits for check interval
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertEquals(2, coldPartitionCount("x"));
+            Assert.assertEquals(2, coldPartitionCount("y"));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testJobIsDisabledWithoutAge() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (PartitionTieringJob job = new PartitionTieringJob(engine)) {
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertFalse(coldTableExists("x"));
+        });
+    }
+
+    @Test
+    public void testO3IntoColdPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            assertSameData();
+            relocate();
+            final String insert = "insert into %s values (42, 42, 4.2, 'o3', 'c', null, '1970-01-01T10:00:00.000001Z')";
+            executeInsert(String.format(insert, "x"));
+            executeInsert(String.format(insert, "y"));
+            Assert.assertTrue(hotPartitionExists("1970-01-01"));
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+            // merged partition is relocated again, the other one is on cold tier already
+            Assert.assertEquals(1, relocate());
+            Assert.assertEquals(2, coldPartitionCount("x"));
+            assertSameData();
+        });
+    }
+
+    @Test
+    public void testReaderKeepsHotCopy() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(3000, reader.size());
+                Assert.assertEquals(2, relocate());
+                // hot copies are kept for the open reader
+                Assert.assertTrue(hotPartitionExists("1970-01-01"));
+                Assert.assertTrue(hotPartitionExists("1970-01-02"));
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(3000, reader.size());
+            }
+            assertSameData();
+            Assert.assertEquals(0, purge());
+            Assert.assertFalse(hotPartitionExists("1970-01-01"));
+            Assert.assertFalse(hotPartitionExists("1970-01-02"));
+        });
+    }
+
+    @Test
+    public void testRelocatedDataIsQueried() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            // readers in the pool have partitions open before relocation
+            assertSameData();
+            relocate();
+            assertSameData();
+            engine.releaseAllReaders();
+            assertSameData();
+            assertSameData("select count(), min(ts), max(ts) from y", "select count(), min(ts), max(ts) from x");
+        });
+    }
+
+    @Test
+    public void testRenameTable() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            relocate();
+            compiler.compile("rename table x to z", sqlExecutionContext);
+            Assert.assertFalse(coldTableExists("x"));
+            Assert.assertEquals(2, coldPartitionCount("z"));
+            assertSameData("y", "z");
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables();
+            relocate();
+            compiler.compile("truncate table x", sqlExecutionContext);
+            Assert.assertFalse(coldTableExists("x"));
+            compiler.compile("insert into x select * from y", sqlExecutionContext);
+            assertSameData();
+        });
+    }
+
+    private static int coldPartitionCount(String tableName) {
+        return partitionCount(coldRoot, tableName, "1970-");
+    }
+
+    private static boolean coldTableExists(String tableName) {
+        try (Path path = new Path()) {
+            return FilesFacadeImpl.INSTANCE.exists(path.of(coldRoot).concat(tableName).$());
+        }
+    }
+
+    // relocated and restored partitions are versioned by name txn
+    private static boolean hotPartitionExists(String partitionName) {
+        return partitionCount(configuration.getRoot(), "x", partitionName) > 0;
+    }
+
+    private static int partitionCount(CharSequence root, String tableName, String partitionNamePrefix) {
+        try (Path path = new Path()) {
+            final NativeLPSZ name = new NativeLPSZ();
+            final int[] count = {0};
+            FilesFacadeImpl.INSTANCE.iterateDir(path.of(root).concat(tableName).$(), (pName, type) -> {
+                name.of(pName);
+                if (type == Files.DT_DIR && !Files.isDots(name) && Chars.startsWith(name, partitionNamePrefix)) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        }
+    }
+
+    private void assertSameData() throws SqlException {
+        assertSameData("y", "x");
+    }
+
+    private void assertSameData(String expected, String actual) throws SqlException {
+        TestUtils.assertSqlCursors(compiler, sqlExecutionContext, expected, actual, LOG);
+    }
+
+    private int purge() {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            return writer.purgeRemovedPartitions();
+        }
+    }
+
+    private int relocate() {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            return writer.relocatePartitions(Long.MAX_VALUE);
+        }
+    }
+
+    private void createTables() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int() i," +
+                        " rnd_long() l," +
+                        " rnd_double() d," +
+                        " rnd_str(3, 10, 1) s," +
+                        " rnd_symbol('a', 'b', 'c') sym," +
+                        " rnd_bin(1, 20, 1) b," +
+                        " timestamp_sequence(0, 60000000) ts" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+        compiler.compile("create table y as (select * from x) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
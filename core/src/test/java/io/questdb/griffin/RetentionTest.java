@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.RetentionJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.datetime.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetentionTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAlterTableSetTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("");
+            assertTtl(0);
+            compiler.compile("alter table x set param ttl = 12h", sqlExecutionContext);
+            assertTtl(12 * Timestamps.HOUR_MICROS);
+            // ttl is kept when metadata is rewritten
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            compiler.compile("alter table x set param commitLag = 1s", sqlExecutionContext);
+            assertTtl(12 * Timestamps.HOUR_MICROS);
+            compiler.compile("alter table x set param ttl = 0us", sqlExecutionContext);
+            assertTtl(0);
+        });
+    }
+
+    @Test
+    public void testCreateTableWithTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(" with maxUncommittedRows = 100, ttl = 2d");
+            assertTtl(2 * Timestamps.DAY_MICROS);
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(100, reader.getMaxUncommittedRows());
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidTtl() throws Exception {
+        assertFailure(
+                "create table x (ts timestamp) timestamp(ts) partition by DAY with ttl = 2w",
+                null,
+                76,
+                "invalid interval qualifier 2w"
+        );
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(" with ttl = 2d");
+            // five daily partitions, the last one ends at 1970-01-06
+            currentMicros = 5 * Timestamps.DAY_MICROS + Timestamps.HOUR_MICROS;
+            try (RetentionJob job = new RetentionJob(engine)) {
+                Assert.assertTrue(job.run(0));
+                // the next run waits for check interval
+                Assert.assertFalse(job.run(0));
+            }
+            Assert.assertFalse(partitionExists("1970-01-03"));
+            Assert.assertTrue(partitionExists("1970-01-04"));
+            assertSql("select count(), min(ts) from x", "count\tmin\n48\t1970-01-04T00:00:00.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testActivePartitionIsKept() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(" with ttl = 1h");
+            Assert.assertEquals(4, removeExpiredPartitions(Long.MAX_VALUE));
+            Assert.assertTrue(partitionExists("1970-01-05"));
+            assertSql("select count() from x", "count\n24\n");
+        });
+    }
+
+    @Test
+    public void testReaderKeepsRemovedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable(" with ttl = 1d");
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(2, removeExpiredPartitions(2 * Timestamps.DAY_MICROS));
+                // partitions are detached but kept on disk for the open reader
+                Assert.assertTrue(partitionExists("1970-01-01"));
+                Assert.assertTrue(partitionExists("1970-01-02"));
+                Assert.assertEquals(120, reader.size());
+                Assert.assertEquals(120, count(reader));
+            }
+            assertSql("select count() from x", "count\n72\n");
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+                Assert.assertEquals(0, writer.purgeRemovedPartitions());
+            }
+            Assert.assertFalse(partitionExists("1970-01-01"));
+            Assert.assertFalse(partitionExists("1970-01-02"));
+        });
+    }
+
+    @Test
+    public void testTableWithoutTtlIsKept() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("");
+            currentMicros = 100 * Timestamps.DAY_MICROS;
+            try (RetentionJob job = new RetentionJob(engine)) {
+                Assert.assertFalse(job.run(0));
+            }
+            assertSql("select count() from x", "count\n120\n");
+        });
+    }
+
+    private static void assertTtl(long expected) {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+            Assert.assertEquals(expected, reader.getTtl());
+        }
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            Assert.assertEquals(expected, writer.getMetadata().getTtl());
+        }
+    }
+
+    private static long count(TableReader reader) {
+        long count = 0;
+        final RecordCursor cursor = reader.getCursor();
+        while (cursor.hasNext()) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean partitionExists(String partitionName) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat("x").concat(partitionName).$();
+            return FilesFacadeImpl.INSTANCE.exists(path);
+        }
+    }
+
+    private static int removeExpiredPartitions(long timestampHi) {
+        try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "test")) {
+            return writer.removeExpiredPartitions(timestampHi);
+        }
+    }
+
+    private void createTable(String with) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " rnd_int() i," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(120)" +
+                        ") timestamp(ts) partition by DAY" + with,
+                sqlExecutionContext
+        );
+    }
+}
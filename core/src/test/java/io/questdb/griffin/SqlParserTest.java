@@ -965,6 +965,37 @@ public class SqlParserTest extends AbstractSqlParserTest {
         );
     }
 
+    @Test
+    public void testCreateTableCodec() throws SqlException {
+        assertCreateTable("create table x (" +
+                        "a INT codec bitpack," +
+                        " f DOUBLE codec gorilla," +
+                        " x SYMBOL capacity 64 cache index capacity 256 codec rle," +
+                        " y SYMBOL capacity 64 cache codec rle," +
+                        " z STRING," +
+                        " t TIMESTAMP codec delta)" +
+                        " timestamp(t)" +
+                        " partition by DAY",
+                "create table x (" +
+                        "a INT CODEC BITPACK, " +
+                        "f DOUBLE CODEC GORILLA, " +
+                        "x SYMBOL CAPACITY 64 CACHE INDEX CAPACITY 256 CODEC RLE, " +
+                        "y SYMBOL CAPACITY 64 CACHE CODEC RLE, " +
+                        "z STRING CODEC NONE, " +
+                        "t TIMESTAMP CODEC DELTA) " +
+                        "TIMESTAMP(t) " +
+                        "PARTITION BY DAY");
+    }
+
+    @Test
+    public void testCreateTableCodecNotSupported() throws Exception {
+        assertSyntaxError(
+                "create table x (a INT, f DOUBLE codec delta)",
+                38,
+                "codec is not supported by column type [codec=delta, type=DOUBLE]"
+        );
+    }
+
     @Test
     public void testCreateTableDuplicateCast() throws Exception {
         assertSyntaxError(
@@ -1291,7 +1322,7 @@ public class SqlParserTest extends AbstractSqlParserTest {
                         "timestamp(t) " +
                         "partition by EPOCH",
                 128,
-                "'NONE', 'DAY', 'MONTH' or 'YEAR' expected"
+                "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
         );
     }
 
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.FullFwdDataFrameCursorFactory;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.ZoneMapDataFrameCursorFactory;
+import io.questdb.cairo.ZoneMapJob;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZoneMapTest extends AbstractGriffinTest {
+    private final IntList columnIndexes = new IntList();
+    private final IntList ops = new IntList();
+    private final LongList values = new LongList();
+
+    @Override
+    @Before
+    public void setUp() {
+        configOverrideZoneMapBlockRowCount = 10;
+        super.setUp();
+    }
+
+    @Test
+    public void testActivePartitionIsNotMapped() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // commit does not scan columns, maps are built by the job
+            Assert.assertFalse(zoneMapExists("1970-01-01", "i"));
+            Assert.assertEquals(6, engine.getZoneMapJob().buildTable("x"));
+            Assert.assertEquals(0, engine.getZoneMapJob().buildTable("x"));
+            Assert.assertTrue(zoneMapExists("1970-01-01", "i"));
+            Assert.assertTrue(zoneMapExists("1970-01-02", "d"));
+            Assert.assertFalse(zoneMapExists("1970-01-03", "i"));
+            // symbols are not mapped
+            Assert.assertFalse(zoneMapExists("1970-01-01", "s"));
+        });
+    }
+
+    @Test
+    public void testBlocksSkipped() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            engine.getZoneMapJob().buildTable("x");
+            assertFrames(
+                    "0 10 20\n" +
+                            "2 0 12\n",
+                    0, ZoneMapDataFrameCursorFactory.OP_EQ, 15
+            );
+            assertFrames(
+                    "1 10 24\n" +
+                            "2 0 12\n",
+                    0, ZoneMapDataFrameCursorFactory.OP_GT, 40
+            );
+            assertSql("select i from x where i = 15", "i\n15\n");
+            assertSql("select i from x where 40 < i and i < 43", "i\n41\n42\n");
+        });
+    }
+
+    @Test
+    public void testDoubleColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            engine.getZoneMapJob().buildTable("x");
+            columnIndexes.add(2);
+            ops.add(ZoneMapDataFrameCursorFactory.OP_LT);
+            values.add(Double.doubleToLongBits(3.0));
+            assertFrames(
+                    "0 0 10\n" +
+                            "2 0 12\n"
+            );
+            assertSql("select i, d from x where d < 3.0", "i\td\n1\t0.5\n2\t1.0\n3\t1.5\n4\t2.0\n5\t2.5\n");
+            assertSql("select i, d from x where d >= 1e6", "i\td\n");
+            assertSql("select i, d from x where d = 12.5", "i\td\n25\t12.5\n");
+        });
+    }
+
+    @Test
+    public void testDropColumnRemovesZoneMap() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            engine.getZoneMapJob().buildTable("x");
+            Assert.assertTrue(zoneMapExists("1970-01-01", "i"));
+            compiler.compile("alter table x drop column i", sqlExecutionContext);
+            Assert.assertFalse(zoneMapExists("1970-01-01", "i"));
+            compiler.compile("alter table x add column i int", sqlExecutionContext);
+            assertSql("select count() from x where i < 5", "count\n0\n");
+        });
+    }
+
+    @Test
+    public void testNullsAndColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table t (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            executeInsert("insert into t values (1, '1970-01-01T00:00:00.000000Z')");
+            executeInsert("insert into t values (2, '1970-01-01T01:00:00.000000Z')");
+            compiler.compile("alter table t add column j int", sqlExecutionContext);
+            executeInsert("insert into t values (3, '1970-01-01T02:00:00.000000Z', 10)");
+            executeInsert("insert into t values (4, '1970-01-02T00:00:00.000000Z', null)");
+            executeInsert("insert into t values (5, '1970-01-02T01:00:00.000000Z', 1)");
+            executeInsert("insert into t values (6, '1970-01-03T00:00:00.000000Z', 2)");
+            engine.getZoneMapJob().buildTable("t");
+            Assert.assertTrue(zoneMapExists("t", "1970-01-01", "j"));
+            Assert.assertTrue(zoneMapExists("t", "1970-01-02", "j"));
+
+            assertSql("select i, j from t where j = 10", "i\tj\n3\t10\n");
+            assertSql("select i, j from t where j > 0", "i\tj\n3\t10\n5\t1\n6\t2\n");
+            assertSql("select i, j from t where j <= 1", "i\tj\n5\t1\n");
+            assertSql("select i, j from t where i >= -1 and j < 3", "i\tj\n5\t1\n6\t2\n");
+        });
+    }
+
+    @Test
+    public void testO3MergeRebuildsZoneMap() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            engine.getZoneMapJob().buildTable("x");
+            executeInsert("insert into x (i, ts) values (1000, '1970-01-01T00:30:00.000000Z')");
+            // merged partition has no map until the job runs, it cannot be skipped
+            assertFrames(
+                    "0 0 25\n" +
+                            "2 0 12\n",
+                    0, ZoneMapDataFrameCursorFactory.OP_EQ, 1000
+            );
+            Assert.assertEquals(3, engine.getZoneMapJob().buildTable("x"));
+            assertFrames(
+                    "0 0 10\n" +
+                            "2 0 12\n",
+                    0, ZoneMapDataFrameCursorFactory.OP_EQ, 1000
+            );
+            assertSql("select i from x where i >= 1000", "i\n1000\n");
+        });
+    }
+
+    @Test
+    public void testRenameColumnKeepsZoneMap() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            engine.getZoneMapJob().buildTable("x");
+            compiler.compile("alter table x rename column i to k", sqlExecutionContext);
+            Assert.assertFalse(zoneMapExists("1970-01-01", "i"));
+            Assert.assertTrue(zoneMapExists("1970-01-01", "k"));
+            assertFrames(
+                    "0 10 20\n" +
+                            "2 0 12\n",
+                    0, ZoneMapDataFrameCursorFactory.OP_EQ, 15
+            );
+            assertSql("select k from x where k = 15", "k\n15\n");
+        });
+    }
+
+    @Test
+    public void testBuildFailureIsRetried() throws Exception {
+        final FilesFacade ff = new FilesFacadeImpl() {
+            private long fd = -1;
+
+            @Override
+            public long mmap(long fd, long len, long offset, int flags, int memoryTag) {
+                if (fd == this.fd) {
+                    return -1;
+                }
+                return super.mmap(fd, len, offset, flags, memoryTag);
+            }
+
+            @Override
+            public long openRW(LPSZ name) {
+                if (Chars.endsWith(name, "i.zm.tmp")) {
+                    return -1;
+                }
+                final long fd = super.openRW(name);
+                if (Chars.endsWith(name, "d.zm.tmp")) {
+                    this.fd = fd;
+                }
+                return fd;
+            }
+        };
+        assertMemoryLeak(ff, () -> {
+            createX();
+            try (ZoneMapJob job = new ZoneMapJob(engine)) {
+                Assert.assertEquals(0, job.buildTable("x"));
+            }
+            Assert.assertFalse(zoneMapExists("1970-01-01", "i"));
+            Assert.assertFalse(zoneMapExists("1970-01-01", "d"));
+            Assert.assertFalse(fileExists("x", "1970-01-01", "i.zm.tmp"));
+            Assert.assertFalse(fileExists("x", "1970-01-01", "d.zm.tmp"));
+            assertSql("select i from x where i = 15", "i\n15\n");
+        });
+        assertMemoryLeak(() -> {
+            Assert.assertEquals(6, engine.getZoneMapJob().buildTable("x"));
+            assertFrames(
+                    "0 10 20\n" +
+                            "2 0 12\n",
+                    0, ZoneMapDataFrameCursorFactory.OP_EQ, 15
+            );
+        });
+    }
+
+    @Test
+    public void testStaleMapOfDroppedColumnIgnored() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            engine.getZoneMapJob().buildTable("x");
+            // job renames the map of a column, which is dropped concurrently
+            try (Path stale = new Path(); Path path = new Path()) {
+                stale.of(configuration.getRoot()).concat("x").concat("1970-01-01").concat("i.zm.stale").$();
+                path.of(configuration.getRoot()).concat("x").concat("1970-01-01").concat("i.zm").$();
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.rename(path, stale));
+                compiler.compile("alter table x drop column i", sqlExecutionContext);
+                compiler.compile("alter table x add column i int", sqlExecutionContext);
+                Assert.assertTrue(FilesFacadeImpl.INSTANCE.rename(stale, path));
+            }
+            executeInsert("insert into x (i, ts) values (15, '1970-01-03T13:00:00.000000Z')");
+            assertFrames(
+                    "0 0 24\n" +
+                            "1 0 24\n" +
+                            "2 0 13\n",
+                    3, ZoneMapDataFrameCursorFactory.OP_EQ, 15
+            );
+            assertSql("select i from x where i = 15", "i\n15\n");
+        });
+    }
+
+    private static void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('a','b') s," +
+                        " x / 2.0 d," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(60)" +
+                        ") timestamp(ts) partition by DAY",
+                sqlExecutionContext
+        );
+    }
+
+    private static boolean fileExists(CharSequence tableName, CharSequence partitionName, CharSequence fileName) {
+        try (Path path = new Path()) {
+            path.of(configuration.getRoot()).concat(tableName).concat(partitionName).concat(fileName).$();
+            return FilesFacadeImpl.INSTANCE.exists(path);
+        }
+    }
+
+    private static boolean zoneMapExists(CharSequence tableName, CharSequence partitionName, CharSequence columnName) {
+        return fileExists(tableName, partitionName, columnName + ".zm");
+    }
+
+    private static boolean zoneMapExists(CharSequence partitionName, CharSequence columnName) {
+        return zoneMapExists("x", partitionName, columnName);
+    }
+
+    private void assertFrames(CharSequence expected, int columnIndex, int op, long value) throws SqlException {
+        columnIndexes.add(columnIndex);
+        ops.add(op);
+        values.add(value);
+        assertFrames(expected);
+    }
+
+    private void assertFrames(CharSequence expected) throws SqlException {
+        try (
+                ZoneMapDataFrameCursorFactory factory = new ZoneMapDataFrameCursorFactory(
+                        new FullFwdDataFrameCursorFactory(engine, "x", TableUtils.ANY_TABLE_ID, TableUtils.ANY_TABLE_VERSION),
+                        columnIndexes,
+                        ops,
+                        values
+                );
+                DataFrameCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            sink.clear();
+            DataFrame frame;
+            while ((frame = cursor.next()) != null) {
+                sink.put(frame.getPartitionIndex()).put(' ').put(frame.getRowLo()).put(' ').put(frame.getRowHi()).put('\n');
+            }
+            TestUtils.assertEquals(expected, sink);
+        }
+        columnIndexes.clear();
+        ops.clear();
+        values.clear();
+    }
+}
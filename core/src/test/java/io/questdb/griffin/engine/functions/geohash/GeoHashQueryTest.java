@@ -576,6 +576,24 @@ public class GeoHashQueryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testGeoHashKeyedGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table t1 as (select " +
+                    "cast(rnd_str('questdb', '1234567') as geohash(7c)) geo7, " +
+                    "cast(rnd_str('qu', '12') as geohash(2c)) geo2, " +
+                    "x " +
+                    "from long_sequence(10))", sqlExecutionContext);
+
+            assertSql("select geo7, geo2, count(), sum(x) from t1",
+                    "geo7\tgeo2\tcount\tsum\n" +
+                            "questdb\tqu\t3\t12\n" +
+                            "1234567\t12\t2\t5\n" +
+                            "questdb\t12\t3\t20\n" +
+                            "1234567\tqu\t2\t18\n");
+        });
+    }
+
     @Test
     public void testMakeGeoHashFromCoords() throws Exception {
         assertMemoryLeak(() -> assertSql("select make_geohash(lon,lat,40) as h8c\n" +
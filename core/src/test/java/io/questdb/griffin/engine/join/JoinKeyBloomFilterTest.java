@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.std.Rnd;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JoinKeyBloomFilterTest {
+
+    @Test
+    public void testDisabled() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (JoinKeyBloomFilter filter = new JoinKeyBloomFilter(configuration(false, 1_000_000))) {
+                filter.add(1);
+                filter.build();
+                Assert.assertFalse(filter.isActive());
+                for (int i = 0; i < 10_000; i++) {
+                    Assert.assertTrue(filter.mightContain(i + 2));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMaxKeys() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (JoinKeyBloomFilter filter = new JoinKeyBloomFilter(configuration(true, 100))) {
+                for (int i = 0; i < 101; i++) {
+                    filter.add(i);
+                }
+                filter.build();
+                Assert.assertFalse(filter.isActive());
+                Assert.assertTrue(filter.mightContain(-1));
+
+                // build side that fits is filtered again
+                filter.clear();
+                for (int i = 0; i < 100; i++) {
+                    filter.add(i);
+                }
+                filter.build();
+                Assert.assertTrue(filter.isActive());
+                Assert.assertFalse(filter.mightContain(-1));
+            }
+        });
+    }
+
+    @Test
+    public void testNoFalseNegatives() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final Rnd rnd = new Rnd();
+            try (JoinKeyBloomFilter filter = new JoinKeyBloomFilter(configuration(true, 1_000_000))) {
+                // filter is reused with growing and shrinking key sets
+                for (int n : new int[]{10, 10_000, 100}) {
+                    filter.clear();
+                    // map hashes can be narrow, keep them within int range
+                    final int seed = rnd.nextInt() >>> 2;
+                    for (int i = 0; i < n; i++) {
+                        filter.add(seed + i * 7L);
+                    }
+                    filter.build();
+
+                    // keys that are present interleave with keys that are absent,
+                    // so that the filter stays active
+                    int falsePositives = 0;
+                    for (int i = 0; i < n; i++) {
+                        Assert.assertTrue(filter.mightContain(seed + i * 7L));
+                        if (filter.mightContain(seed + i * 7L + 1)) {
+                            falsePositives++;
+                        }
+                    }
+                    Assert.assertTrue("false positives: " + falsePositives, falsePositives <= Math.max(2, n / 20));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testTurnsOffWhenAllKeysMatch() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (JoinKeyBloomFilter filter = new JoinKeyBloomFilter(configuration(true, 1_000_000))) {
+                for (int i = 0; i < 100; i++) {
+                    filter.add(i);
+                }
+                filter.build();
+
+                for (int i = 0; i < 100_000; i++) {
+                    Assert.assertTrue(filter.mightContain(i % 100));
+                }
+
+                // absent key passes once the filter is off
+                Assert.assertTrue(filter.mightContain(-1));
+
+                // rebuilding turns the filter back on
+                filter.clear();
+                filter.add(1);
+                filter.build();
+                Assert.assertFalse(filter.mightContain(-1));
+            }
+        });
+    }
+
+    private static CairoConfiguration configuration(boolean enabled, int maxKeys) {
+        return new DefaultCairoConfiguration("") {
+            @Override
+            public int getSqlHashJoinBloomFilterMaxKeys() {
+                return maxKeys;
+            }
+
+            @Override
+            public boolean isSqlHashJoinBloomFilterEnabled() {
+                return enabled;
+            }
+        };
+    }
+}
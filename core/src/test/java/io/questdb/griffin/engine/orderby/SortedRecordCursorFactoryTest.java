@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.SpilledRecordChains;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.LongList;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class SortedRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testSpillMultiColumnKey() throws Exception {
+        assertSpilledSort("select * from (x union all x) order by s desc, str, ts desc");
+    }
+
+    @Test
+    public void testSpillWithDuplicateKeys() throws Exception {
+        assertSpilledSort("select * from (x union all x) order by a");
+    }
+
+    private void assertSpilledSort(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table x as (" +
+                            "select" +
+                            " rnd_int(0, 100, 1) a," +
+                            " rnd_symbol('msft','ibm', 'googl', null) s," +
+                            " rnd_str(2, 8, 1) str," +
+                            " rnd_double(1) d," +
+                            " rnd_long256() l256," +
+                            " rnd_bin(1, 16, 1) bin," +
+                            " rnd_geohash(30) g," +
+                            " timestamp_sequence(0, 1000000) ts" +
+                            " from long_sequence(2000)" +
+                            ")",
+                    sqlExecutionContext
+            );
+
+            try (RecordCursorFactory expectedFactory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                configOverrideSqlSortSpillThreshold = 8 * 1024;
+                try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof SortedRecordCursorFactory);
+                    final RecordMetadata metadata = factory.getMetadata();
+
+                    sink.clear();
+                    try (RecordCursor cursor = expectedFactory.getCursor(sqlExecutionContext)) {
+                        printer.print(cursor, metadata, true, sink);
+                    }
+                    final String expected = sink.toString();
+
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        final File spillDir = new File(root.toString(), SpilledRecordChains.SPILL_DIR_NAME);
+                        final String[] files = spillDir.list();
+                        Assert.assertNotNull(files);
+                        Assert.assertTrue(files.length > 1);
+
+                        sink.clear();
+                        printer.print(cursor, metadata, true, sink);
+                        TestUtils.assertEquals(expected, sink);
+
+                        // random access to records of all runs
+                        final LongList rows = new LongList();
+                        final Record record = cursor.getRecord();
+                        cursor.toTop();
+                        while (cursor.hasNext()) {
+                            rows.add(record.getRowId());
+                        }
+
+                        sink.clear();
+                        printer.printHeader(metadata, sink);
+                        final Record recordB = cursor.getRecordB();
+                        for (int i = 0, n = rows.size(); i < n; i++) {
+                            cursor.recordAt(recordB, rows.getQuick(i));
+                            printer.print(recordB, metadata, sink);
+                        }
+                        TestUtils.assertEquals(expected, sink);
+                    }
+
+                    // spill files are removed when cursor is closed
+                    final String[] files = new File(root.toString(), SpilledRecordChains.SPILL_DIR_NAME).list();
+                    Assert.assertNotNull(files);
+                    Assert.assertEquals(0, files.length);
+                }
+            }
+        });
+    }
+}
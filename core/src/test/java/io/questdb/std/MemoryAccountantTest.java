@@ -0,0 +1,119 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryAccountantTest {
+
+    private static final Log LOG = LogFactory.getLog(MemoryAccountantTest.class);
+
+    @Test
+    public void testGlobalLimit() {
+        LOG.info().$("testGlobalLimit").$();
+        long expected = Unsafe.getMemUsed();
+        MemoryAccountant a = new MemoryAccountant(Long.MAX_VALUE, 3 * Numbers.SIZE_1MB);
+        MemoryAccountant b = new MemoryAccountant(Long.MAX_VALUE, 3 * Numbers.SIZE_1MB);
+        try (DirectLongList list1 = new DirectLongList(1024); DirectLongList list2 = new DirectLongList(1024)) {
+            a.enter();
+            try {
+                list1.extend(Numbers.SIZE_1MB / Long.BYTES * 2);
+            } finally {
+                a.exit();
+            }
+            // accountant keeps nothing once exited
+            Assert.assertEquals(0, MemoryAccountant.getGlobalUsed());
+
+            a.enter();
+            try {
+                list1.extend(Numbers.SIZE_1MB / Long.BYTES * 4);
+                b.enter();
+                try {
+                    list2.extend(Numbers.SIZE_1MB / Long.BYTES * 2);
+                    Assert.fail();
+                } catch (LimitOverflowException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "global query memory limit exceeded");
+                } finally {
+                    b.exit();
+                }
+                Assert.assertEquals(1024, list2.getCapacity());
+            } finally {
+                a.exit();
+            }
+            Assert.assertEquals(0, MemoryAccountant.getGlobalUsed());
+        }
+        Assert.assertEquals(expected, Unsafe.getMemUsed());
+    }
+
+    @Test
+    public void testQueryLimit() {
+        LOG.info().$("testQueryLimit").$();
+        long expected = Unsafe.getMemUsed();
+        MemoryAccountant accountant = new MemoryAccountant(Numbers.SIZE_1MB, Long.MAX_VALUE);
+        try (DirectLongList list = new DirectLongList(1024)) {
+            accountant.enter();
+            try {
+                for (int i = 0; i < 1_000_000; i++) {
+                    list.add(i);
+                }
+                Assert.fail();
+            } catch (LimitOverflowException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "query memory limit exceeded");
+                Assert.assertTrue(accountant.getUsed() <= Numbers.SIZE_1MB);
+            } finally {
+                accountant.exit();
+            }
+            Assert.assertEquals(0, accountant.getUsed());
+
+            // list is intact and grows once accountant is not entered
+            for (long i = list.size(); i < 1_000_000; i++) {
+                list.add(i);
+            }
+            for (int i = 0; i < 1_000_000; i++) {
+                Assert.assertEquals(i, list.get(i));
+            }
+        }
+        Assert.assertEquals(expected, Unsafe.getMemUsed());
+    }
+
+    @Test
+    public void testUnaccountedTag() {
+        MemoryAccountant accountant = new MemoryAccountant(1024, 1024);
+        accountant.enter();
+        try {
+            long ptr = Unsafe.malloc(Numbers.SIZE_1MB, MemoryTag.NATIVE_DEFAULT);
+            Unsafe.free(ptr, Numbers.SIZE_1MB, MemoryTag.NATIVE_DEFAULT);
+            Assert.assertEquals(0, accountant.getUsed());
+        } finally {
+            accountant.exit();
+        }
+    }
+}
@@ -219,6 +219,41 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-01T00:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorWW() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("2008-05-15T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+        sink.clear();
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.ceilWW(micros));
+        TestUtils.assertEquals("2008-05-19T00:00:00.000Z", sink);
+    }
+
+    @Test
+    public void testFloorWWPrevEpoch() throws Exception {
+        long micros = TimestampFormatUtils.parseTimestamp("1969-12-31T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("1969-12-29T00:00:00.000Z", sink);
+    }
+
+    @Test
+    public void testIsoWeekOfYear() throws Exception {
+        // Friday belongs to the last week of previous year
+        long micros = TimestampFormatUtils.parseTimestamp("2021-01-01T10:00:00.000Z");
+        Assert.assertEquals(2020, Timestamps.getIsoYear(micros));
+        Assert.assertEquals(53, Timestamps.getIsoWeekOfYear(micros));
+
+        micros = TimestampFormatUtils.parseTimestamp("2021-01-04T00:00:00.000Z");
+        Assert.assertEquals(2021, Timestamps.getIsoYear(micros));
+        Assert.assertEquals(1, Timestamps.getIsoWeekOfYear(micros));
+
+        // Monday belongs to the first week of next year
+        micros = TimestampFormatUtils.parseTimestamp("2008-12-29T00:00:00.000Z");
+        Assert.assertEquals(2009, Timestamps.getIsoYear(micros));
+        Assert.assertEquals(1, Timestamps.getIsoWeekOfYear(micros));
+        Assert.assertEquals(micros, Timestamps.isoYearMicros(2009));
+    }
+
     @Test
     public void testFloorYYYY() throws Exception {
         long micros = TimestampFormatUtils.parseTimestamp("2008-05-12T23:45:51.045Z");